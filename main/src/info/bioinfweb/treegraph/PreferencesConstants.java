@@ -25,8 +25,11 @@ public interface PreferencesConstants {
 	public static final String LAST_VERSION_CHECK_PREF_KEY = "lastVersionCheck";
 	public static final String DO_VERSION_CHECK_PREF_KEY = "doVersionCheck";
 	public static final String DO_CHECK_SEL_SYNC_PREF_KEY = "doCheckAdaptersOnSelSync";
+	public static final String UNDO_MEMORY_BUDGET_PREF_KEY = "undoMemoryBudget";
 
 	public static final boolean DO_VERSION_CHECK_DEFAULT_VALUE = true;
 	public static final boolean DO_CHECK_SEL_SYNC_DEFAULT_VALUE = true;
 	public static final long VERSION_CHECK_INTERVAL_DEFAULT_VALUE = 1000 * 60 * 60;  // 1 h
+	public static final long UNDO_MEMORY_BUDGET_DEFAULT_VALUE = 256;  // MB, 0 means unlimited
+	public static final long UNDO_MEMORY_BUDGET_UNIT = 1024 * 1024;  // The budget is stored in MB.
 }
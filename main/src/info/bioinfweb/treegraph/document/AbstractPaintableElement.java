@@ -22,23 +22,52 @@ package info.bioinfweb.treegraph.document;
 import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
 import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.PositionData;
 
-import java.util.*;
-
 
 
 public abstract class AbstractPaintableElement implements Cloneable, PaintableElement {
-	protected EnumMap<PositionPaintType, PositionData> positions = 
-		  new EnumMap<PositionPaintType, PositionData>(PositionPaintType.class);
+	private PositionData[] positions = null;  // Indexed by the ordinal of the position paint type. Created on first use.
 
   
+	/**
+	 * Returns the position data stored for the specified type.
+	 * 
+	 * @param type - the positioner type 
+	 * @return the stored position data or {@code null} if no position data for this type has been stored yet
+	 * @since 2.16.0
+	 */
+	protected PositionData getStoredPosition(PositionPaintType type) {
+		if (positions == null) {
+			return null;
+		}
+		else {
+			return positions[type.ordinal()];
+		}
+	}
+	
+	
+	/**
+	 * Stores the position data for the specified type.
+	 * 
+	 * @param type - the positioner type
+	 * @param position - the position data to be stored
+	 * @since 2.16.0
+	 */
+	protected void storePosition(PositionPaintType type, PositionData position) {
+		if (positions == null) {
+			positions = new PositionData[PositionPaintType.values().length];
+		}
+		positions[type.ordinal()] = position;
+	}
+	
+	
 	/* (non-Javadoc)
 	 * @see info.webinsel.treegraph.document.PaintableElement#getPosition(int)
 	 */
 	public PositionData getPosition(PositionPaintType type) {
-		PositionData result = positions.get(type);
+		PositionData result = getStoredPosition(type);
 		if (result == null) {
 			result = new PositionData();
-			positions.put(type, result);
+			storePosition(type, result);
 		}
 		
 		return result;
@@ -46,9 +75,9 @@ public abstract class AbstractPaintableElement implements Cloneable, PaintableEl
 	
 	
 	/**
-	 * Implementing classes should not copy the <code>EnumMap positions</code> because 
-	 * the copy of this element will be located at another position. Therefor the copy will 
-	 * should an empty <code>EnumMap</code>.
+	 * Implementing classes should not copy the stored position data because 
+	 * the copy of this element will be located at another position. Therefor the copy 
+	 * should not contain any position data.
 	 */
 	@Override
 	public abstract AbstractPaintableElement clone();
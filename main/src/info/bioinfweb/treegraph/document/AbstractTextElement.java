@@ -30,7 +30,7 @@ import info.bioinfweb.treegraph.document.format.ConcreteTextFormats;
  * @author Ben St&ouml;ver
  */
 public abstract class AbstractTextElement extends AbstractPaintableElement implements TextElement {
-	private TextElementData data = new TextElementData();
+	private TextElementData data = new TextElementData(this);
 	
 	
 	/* (non-Javadoc)
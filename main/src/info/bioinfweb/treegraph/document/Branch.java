@@ -41,7 +41,7 @@ public class Branch extends AbstractPaintableElement
 	public Branch(Node target) {
 		super();
   	targetNode = target;
-  	hiddenDataMap = new HiddenDataMap(getTargetNode());
+  	hiddenDataMap = new HiddenDataMap(getTargetNode(), this);
   }
   
   
@@ -57,6 +57,7 @@ public class Branch extends AbstractPaintableElement
 
 	public void setLength(double length) {
 		this.length = length;
+		NodeBranchDataColumnRegistry.registerBranchLengthChange(this);
 	}
 	
 	
@@ -81,7 +82,9 @@ public class Branch extends AbstractPaintableElement
 
 
 	public void setTargetNode(Node targetNode) {
+		NodeBranchDataColumnRegistry.registerTopologyChange(this.targetNode);  // The previous tree is also modified.
 		this.targetNode = targetNode;
+		NodeBranchDataColumnRegistry.registerTopologyChange(targetNode);
 	}
 
 
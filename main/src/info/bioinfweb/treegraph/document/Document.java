@@ -21,11 +21,15 @@ package info.bioinfweb.treegraph.document;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.swing.JOptionPane;
 
 import info.bioinfweb.treegraph.Main;
+import info.bioinfweb.treegraph.PreferencesConstants;
 import info.bioinfweb.treegraph.document.change.DocumentChangeEvent;
+import info.bioinfweb.treegraph.document.change.DocumentChangeType;
 import info.bioinfweb.treegraph.document.change.DocumentListener;
 import info.bioinfweb.treegraph.document.io.ReadWriteFactory;
 import info.bioinfweb.treegraph.document.io.ReadWriteFormat;
@@ -41,7 +45,6 @@ import info.bioinfweb.commons.changemonitor.ChangeMonitorable;
 import info.bioinfweb.commons.io.DefaultNameManager;
 import info.bioinfweb.commons.io.FormatVersion;
 import info.bioinfweb.commons.io.Savable;
-import info.bioinfweb.commons.swing.AccessibleUndoManager;
 import info.bioinfweb.commons.swing.SwingSavable;
 import info.bioinfweb.commons.swing.SwingSaver;
 
@@ -66,7 +69,8 @@ public class Document extends SwingSaver
 	
 	
   private FormatVersion version = null;
-  private AccessibleUndoManager undoManager = new AccessibleUndoManager();
+  private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private DocumentUndoManager undoManager = new DocumentUndoManager(lock.writeLock());
   private TreeInternalFrame frame = null;
   private Vector<DocumentListener> views = 
   	  new Vector<DocumentListener>(VIEWS_CAPACITY, VIEWS_CAPACITY_INCREMENT);
@@ -116,6 +120,8 @@ public class Document extends SwingSaver
   	setDefaultExtension(XTGFilter.EXTENSION);
   	addFileExtension(XTGFilter.XML_EXTENSION);
   	setDefaultName(Main.getInstance().getNameManager().newDefaultName());
+  	undoManager.setMemoryBudget(Main.getInstance().getPreferences().getLong(PreferencesConstants.UNDO_MEMORY_BUDGET_PREF_KEY, 
+  			PreferencesConstants.UNDO_MEMORY_BUDGET_DEFAULT_VALUE) * PreferencesConstants.UNDO_MEMORY_BUDGET_UNIT);
   }
   
   
@@ -144,7 +150,7 @@ public class Document extends SwingSaver
   }
 
 
-  public AccessibleUndoManager getUndoManager() {
+  public DocumentUndoManager getUndoManager() {
 		return undoManager;
 	}
 
@@ -185,6 +191,24 @@ public class Document extends SwingSaver
   }
   
   
+  /**
+   * Positions all elements of this document using the positioner of the specified type. The write lock of this 
+   * document is held during the calculation, so that background renderers do not read partly updated positions. 
+   * 
+   * @param type the type of the positioner to be used
+   * @since 2.16.0
+   */
+  public void positionAll(PositionPaintType type) {
+		lock.writeLock().lock();
+		try {
+			PositionPaintFactory.getInstance().getPositioner(type).positionAll(this, 1f);
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+  }
+  
+  
   public Tree getTree() {
 	  return tree;
   }
@@ -244,27 +268,87 @@ public class Document extends SwingSaver
 	}
 
 
+	/**
+	 * Returns the lock that guards the tree and its position data against concurrent access. All modifications
+	 * done by {@link #executeEdit(DocumentEdit)}, the undo manager, {@link #registerChange(DocumentEdit)} or
+	 * {@link #positionAll(PositionPaintType)} hold its write lock. Threads other than the event dispatch thread (e.g. background renderers) must hold its read 
+	 * lock while reading the document.
+	 * 
+	 * @return the read/write lock of this document
+	 * @since 2.16.0
+	 */
+	public ReadWriteLock getLock() {
+		return lock;
+	}
+
+
 	public void executeEdit(DocumentEdit edit) {
-		if (!getUndoManager().addEdit(edit)) {  // Must happen before execution, since undo switches not be activated otherwise.
-			throw new RuntimeException("The edit could not be executed.");
+		lock.writeLock().lock();
+		try {
+			if (!getUndoManager().addEdit(edit)) {  // Must happen before execution, since undo switches not be activated otherwise.
+				throw new RuntimeException("The edit could not be executed.");
+			}
+			edit.redo();  // actually execute
+			getUndoManager().trimForMemoryBudget();
+		}
+		finally {
+			lock.writeLock().unlock();
 		}
-		edit.redo();  // actually execute
 	}
 	
 	
   /**
    * Alerts all registered positioners to reposition the tree elements because of made 
    * changes.
+   * <p>
+   * No repositioning is done if the specified edit is {@link DocumentChangeType#NEUTRAL}. If the edit specifies the 
+   * elements it changed, the positioners are only asked to update the according parts of the document.
+   * 
+   * @param edit the edit that caused the change or {@code null} if the source of the change is unknown
    */
-  private void alertPositioners() {
-  	for (PositionPaintType type: PositionPaintType.values()) {
-  		if(positioners.get(type)) {
-  			PositionPaintFactory.getInstance().getPositioner(type).positionAll(this, 1f);
+  private void alertPositioners(DocumentEdit edit) {
+  	if ((edit == null) || !DocumentChangeType.NEUTRAL.equals(edit.getChangeType())) {
+  		PaintableElement[] changedElements = null;
+  		if (edit != null) {
+  			changedElements = edit.getChangedElements();
   		}
+  		
+	  	for (PositionPaintType type: PositionPaintType.values()) {
+	  		if(positioners.get(type)) {
+	  			if (changedElements == null) {
+	  				PositionPaintFactory.getInstance().getPositioner(type).positionAll(this, 1f);
+	  			}
+	  			else {
+	  				PositionPaintFactory.getInstance().getPositioner(type).positionChanged(this, 1f, changedElements);
+	  			}
+	  		}
+	  	}
   	}
   }
 
 
+  /**
+   * Tests whether the specified edit might have inserted, removed or moved nodes.
+   * 
+   * @param edit the edit that caused the change or {@code null} if the source of the change is unknown
+   */
+  private static boolean changesTopology(DocumentEdit edit) {
+  	if (edit == null) {
+  		return true;
+  	}
+  	else {
+  		switch (edit.getChangeType()) {
+  			case NEUTRAL:
+  			case POSITION:
+  			case TOPOLOGICAL_BY_RENAMING:
+  				return false;
+  			default:
+  				return true;
+  		}
+  	}
+  }
+  
+  
   /** Alerts all registered views to display made changes. */
   private void fireChangeHappened(DocumentEdit edit) {
   	DocumentChangeEvent event = new DocumentChangeEvent(this, edit);
@@ -281,11 +365,20 @@ public class Document extends SwingSaver
 	
 	
 	public void registerChange(DocumentEdit edit) {
-		super.registerChange();
-		getTree().updateElementSet();
-		alertPositioners();  // Positioners must be alerted first
-		fireChangeHappened(edit);
-		updateFrame();
+		lock.writeLock().lock();
+		try {
+			super.registerChange();
+			if (changesTopology(edit)) {
+				getTree().registerTopologyChange();  // Edits may modify child lists without calling Node.setParent().
+			}
+			getTree().updateElementSet();
+			alertPositioners(edit);  // Positioners must be alerted first
+			fireChangeHappened(edit);
+			updateFrame();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
 	}
 
 
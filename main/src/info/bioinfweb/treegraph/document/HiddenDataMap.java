@@ -22,6 +22,7 @@ package info.bioinfweb.treegraph.document;
 import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -29,9 +30,16 @@ import java.util.Set;
 
 
 
+/**
+ * Map storing the hidden node or branch data of a node. The map used internally is only created 
+ * when the first entry is added, since most nodes do not contain hidden data.
+ * 
+ * @author Ben St&ouml;ver
+ */
 public class HiddenDataMap implements Map<String, TextElementData> {
-  private HashMap<String, TextElementData> map = new HashMap<String, TextElementData>();
+  private Map<String, TextElementData> map = Collections.emptyMap();  // Replaced by a HashMap on first insertion.
   private Node owner = null;
+  private Branch branch = null;
 
   
 	/**
@@ -44,6 +52,19 @@ public class HiddenDataMap implements Map<String, TextElementData> {
 		super();
 		this.owner = owner;
 	}
+	
+	
+	/**
+	 * Creates a new hidden data map for the specified branch.
+	 * 
+	 * @param owner - the node the branch is attached to
+	 * @param branch - the branch this map is attached to
+	 * @since 2.16.0
+	 */
+	HiddenDataMap(Node owner, Branch branch) {
+		this(owner);
+		this.branch = branch;
+	}
 
 
 	/**
@@ -54,6 +75,36 @@ public class HiddenDataMap implements Map<String, TextElementData> {
 	public Node getOwner() {
 		return owner;
 	}
+	
+	
+	/**
+	 * Returns the node this map or its branch is currently attached to. In contrast to {@link #getOwner()} the current 
+	 * target node is returned for branch maps.
+	 */
+	Node getHoldingNode() {
+		if (branch != null) {
+			return branch.getTargetNode();
+		}
+		else {
+			return owner;
+		}
+	}
+	
+	
+	/**
+	 * Tests whether this map stores hidden branch data.
+	 */
+	boolean isBranchMap() {
+		return branch != null;
+	}
+	
+	
+	private Map<String, TextElementData> getWritableMap() {
+		if (!(map instanceof HashMap)) {
+			map = new HashMap<String, TextElementData>();
+		}
+		return map;
+	}
 
 
 	/* (non-Javadoc)
@@ -61,6 +112,9 @@ public class HiddenDataMap implements Map<String, TextElementData> {
 	 */
 	@Override
 	public void clear() {
+		for (Entry<String, TextElementData> entry : map.entrySet()) {
+			NodeBranchDataColumnRegistry.registerHiddenDataRemoval(this, entry.getKey(), entry.getValue());
+		}
 		map.clear();
 	}
 
@@ -92,7 +146,14 @@ public class HiddenDataMap implements Map<String, TextElementData> {
 		if (getOwner() != null) {
 			result = NodeBranchDataColumnManager.removeElementWithID(getOwner(), id);
 		}
-		map.put(id, value);
+		if (map.containsKey(id)) {
+			NodeBranchDataColumnRegistry.registerHiddenDataRemoval(this, id, map.get(id));
+		}
+		getWritableMap().put(id, value);
+		if (value != null) {
+			value.setOwner(this);
+		}
+		NodeBranchDataColumnRegistry.registerHiddenDataAddition(this, id, value);
 		return result;
 	}
 
@@ -232,6 +293,9 @@ public class HiddenDataMap implements Map<String, TextElementData> {
 	 */
 	@Override
 	public TextElementData remove(Object key) {
+		if (map.containsKey(key)) {
+			NodeBranchDataColumnRegistry.registerHiddenDataRemoval(this, (String)key, map.get(key));
+		}
 		return map.remove(key);
 	}
 
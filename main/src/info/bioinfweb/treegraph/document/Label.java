@@ -76,7 +76,9 @@ public abstract class Label extends AbstractPaintableElement implements TreeElem
 
 
 	public void setID(String id) {
+		String previousID = this.id;
 		this.id = id;
+		NodeBranchDataColumnRegistry.registerLabelIDChange(this, previousID);
 	}
   
 
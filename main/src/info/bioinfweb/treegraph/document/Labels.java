@@ -39,10 +39,8 @@ public class Labels implements Cloneable {
 
 	
 	private Branch holdingBranch = null;
-	private List<LabelLine> labelLinesAbove = 
-		  new Vector<LabelLine>(INITIAL_CAPACITY, CAPACITY_INCREMENT);
-	private List<LabelLine> labelLinesBelow = 
-		  new Vector<LabelLine>(INITIAL_CAPACITY, CAPACITY_INCREMENT);
+	private List<LabelLine> labelLinesAbove = Collections.emptyList();  // Vectors are created when the first label is added.
+	private List<LabelLine> labelLinesBelow = Collections.emptyList();
 	
 	
 	public Labels(Branch holdingBranch) {
@@ -57,7 +55,13 @@ public class Labels implements Cloneable {
 
 
 	public void setHoldingBranch(Branch holdingBranch) {
+		if (this.holdingBranch != null) {
+			NodeBranchDataColumnRegistry.registerTopologyChange(this.holdingBranch.getTargetNode());  // The previous tree is also modified.
+		}
 		this.holdingBranch = holdingBranch;
+		if (holdingBranch != null) {
+			NodeBranchDataColumnRegistry.registerTopologyChange(holdingBranch.getTargetNode());
+		}
 	}
 
 
@@ -84,6 +88,26 @@ public class Labels implements Cloneable {
 			return labelLinesBelow;
 		}
 	}
+	
+	
+	/**
+	 * Returns the lines above or below the branch and creates the according vector before, if it 
+	 * has not been created yet.
+	 */
+	private List<LabelLine> getWritableLines(boolean above) {
+		if (above) {
+			if (!(labelLinesAbove instanceof Vector)) {
+				labelLinesAbove = new Vector<LabelLine>(INITIAL_CAPACITY, CAPACITY_INCREMENT);
+			}
+			return labelLinesAbove;
+		}
+		else {
+			if (!(labelLinesBelow instanceof Vector)) {
+				labelLinesBelow = new Vector<LabelLine>(INITIAL_CAPACITY, CAPACITY_INCREMENT);
+			}
+			return labelLinesBelow;
+		}
+	}
 	
 	
 	private void calculateNewLinePosition(Label label, LabelLine line) {
@@ -121,7 +145,7 @@ public class Labels implements Cloneable {
 		
 		label.setLabels(this);
 		LabelFormats f = label.getFormats();
-		List<LabelLine> lines = getLines(f.isAbove());
+		List<LabelLine> lines = getWritableLines(f.isAbove());
 		// Ggf. Zeile hinzuf�gen:
 		if (f.getLineNumber() >= lines.size()) {
 			for (int i = lines.size(); i <= f.getLineNumber(); i++) {
@@ -131,6 +155,7 @@ public class Labels implements Cloneable {
 		LabelLine line = lines.get(f.getLineNumber());
 		calculateNewLinePosition(label, line);
 		line.insert(label);
+		NodeBranchDataColumnRegistry.registerLabelAddition(this, label);
 		
 		return result;
 	}
@@ -144,11 +169,13 @@ public class Labels implements Cloneable {
 	public boolean remove(Label label) {
 		for (int i = 0; i < lineCount(true); i++) {
 			if (labelLinesAbove.get(i).remove(label)) {
+				NodeBranchDataColumnRegistry.registerLabelRemoval(this, label);
 				return true;
 			}
 		}
 		for (int i = 0; i < lineCount(false); i++) {
 			if (labelLinesBelow.get(i).remove(label)) {
+				NodeBranchDataColumnRegistry.registerLabelRemoval(this, label);
 				return true;
 			}
 		}
@@ -375,6 +402,9 @@ public class Labels implements Cloneable {
 	
 	
 	public void clear() {
+		for (Label label : toLabelArray()) {
+			NodeBranchDataColumnRegistry.registerLabelRemoval(this, label);
+		}
 		labelLinesAbove.clear();
 		labelLinesBelow.clear();
 	}
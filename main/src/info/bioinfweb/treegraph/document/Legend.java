@@ -57,10 +57,10 @@ public class Legend extends AbstractTextElement implements LineElement, CornerRa
 	
 	@Override
 	public LegendPositionData getPosition(PositionPaintType type) {
-		LegendPositionData result = (LegendPositionData)positions.get(type);
+		LegendPositionData result = (LegendPositionData)getStoredPosition(type);
 		if (result == null) {
 			result = new LegendPositionData();
-			positions.put(type, result);
+			storePosition(type, result);
 		}
 		
 		return result;
@@ -41,7 +41,8 @@ public class Node extends AbstractTextElement
   private NodeFormats formats = new NodeFormats();
   private String uniqueName = null;
   private HiddenDataMap hiddenDataMap = new HiddenDataMap(this);
-  private HashMap<String, Object> attributeMap = new HashMap<String, Object>(); 
+  private HashMap<String, Object> attributeMap = null;  // Created on first use
+  NodeBranchDataColumnRegistry.Registration columnRegistration = null;  // Set by the column registry of the tree containing this node.
 
   
 	public static Node newInstanceWithBranch() {
@@ -53,10 +54,10 @@ public class Node extends AbstractTextElement
   
   @Override
 	public NodePositionData getPosition(PositionPaintType type) {
-		NodePositionData result = (NodePositionData)positions.get(type);
+		NodePositionData result = (NodePositionData)getStoredPosition(type);
 		if (result == null) {
 			result = new NodePositionData();
-			positions.put(type, result);
+			storePosition(type, result);
 		}
 		
 		return result;
@@ -69,7 +70,9 @@ public class Node extends AbstractTextElement
 
 
 	public void setParent(Node node) {
+		NodeBranchDataColumnRegistry.registerTopologyChange(this);
 		parent = node;
+		NodeBranchDataColumnRegistry.registerTopologyChange(node);
 	}
 
 
@@ -90,7 +93,7 @@ public class Node extends AbstractTextElement
 	 */
 	public void setAfferentBranch(Branch afferentBranch) {
 		this.afferentBranch = afferentBranch;
-		afferentBranch.setTargetNode(this);
+		afferentBranch.setTargetNode(this);  // Also registers the topology change at NodeBranchDataColumnRegistry.
 	}
 
 	
@@ -98,9 +101,15 @@ public class Node extends AbstractTextElement
 	 * The attribute map can store data that is specific to special tasks like ladderizing
 	 * or tree merging. Several special routines can store custom objects under their own
 	 * key here.
+	 * <p>
+	 * The map is created on the first call of this method.
+	 * 
 	 * @return the attribute map
 	 */
 	public HashMap<String, Object> getAttributeMap() {
+		if (attributeMap == null) {
+			attributeMap = new HashMap<String, Object>();
+		}
 		return attributeMap;
 	}
 
@@ -298,6 +307,7 @@ public class Node extends AbstractTextElement
 			uniqueName = uniqueName.toLowerCase();
 		}
 		this.uniqueName = uniqueName;
+		NodeBranchDataColumnRegistry.registerUniqueNameChange(this);
 	}
 	
 	
@@ -380,7 +390,6 @@ public class Node extends AbstractTextElement
 		result.setAfferentBranch(getAfferentBranch().clone());
 		result.getHiddenDataMap().assign(getHiddenDataMap());
 		result.setFormats(getFormats().clone());
-		result.attributeMap = new HashMap<String, Object>();
 		return result;
 	}
 
@@ -409,9 +418,27 @@ public class Node extends AbstractTextElement
 	 * @return the root of the cloned tree
 	 */
 	public Node cloneWithSubtree(boolean keepUniqueNames) {
+		return cloneWithSubtree(keepUniqueNames, null);
+	}
+	
+	
+	/**
+	 * Clones this object and all objects in this subtree and its afferent branch. The 
+	 * parent node will be set to <code>null</code>.
+	 * @param keepUniqueNames - defines whether the copied nodes should have the same 
+	 * unique names as the originals.
+	 * @param copies - a map where every node of this subtree will be stored as a key with its 
+	 * copy as the value (Maybe {@code null}.)
+	 * @return the root of the cloned tree
+	 * @since 2.16.0
+	 */
+	public Node cloneWithSubtree(boolean keepUniqueNames, Map<Node, Node> copies) {
 		Node result = clone(keepUniqueNames);
+		if (copies != null) {
+			copies.put(this, result);
+		}
 		for (int i = 0; i < getChildren().size(); i++) {
-			Node child = getChildren().get(i).cloneWithSubtree(keepUniqueNames);
+			Node child = getChildren().get(i).cloneWithSubtree(keepUniqueNames, copies);
 			child.setParent(result);
 			result.getChildren().add(child);
 		}
@@ -0,0 +1,869 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import info.bioinfweb.treegraph.document.nodebranchdata.BranchLengthAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.HiddenBranchDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.HiddenNodeDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.IDElementAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.TextLabelAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.UniqueNameAdapter;
+import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
+
+
+
+/**
+ * Stores the IDs of all node/branch data columns (labels and hidden data) contained in a {@link Tree} together with 
+ * the number of elements and the number of decimal, textual and empty values in each column. The queries of this
+ * class therefore do not need to search the whole tree, as the according methods of 
+ * {@link NodeBranchDataColumnManager} do.
+ * <p>
+ * The registry is filled by a single pass over the tree on the first query. This pass marks all nodes of the tree
+ * with the current {@link Registration} of this registry. Afterwards the document classes report each added,
+ * removed or changed label, hidden data entry or value of a marked node to this registry, which updates the
+ * according column in constant time. (A value of a text label or a hidden data entry is found by searching the
+ * labels or hidden data of its node.)
+ * <p>
+ * Topological changes are not counted incrementally. {@link Node#setParent(Node)}, {@link Tree#setPaintStart(Node)}
+ * and {@link Tree#registerTopologyChange()} (which is called by {@link Document} for all edits that change the
+ * topology) discard the current registration and the registry is filled again on the next query. Modifications of nodes that are not marked with the current registration (e.g. of another document
+ * or a backup copy in the undo history) are ignored in constant time.
+ * <p>
+ * Nodes that have no afferent branch are not considered, equivalent to the methods of 
+ * {@link NodeBranchDataColumnManager}. 
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ * @see Tree#getColumnRegistry()
+ */
+public class NodeBranchDataColumnRegistry {
+	private static final int TYPE_EMPTY = 0;
+	private static final int TYPE_DECIMAL = 1;
+	private static final int TYPE_TEXT = 2;
+	
+	
+	/**
+	 * Stores the number of elements in one node/branch data column and the number of their value types.
+	 * 
+	 * @author Ben St&ouml;ver
+	 * @since 2.16.0
+	 */
+	public static class ColumnStatistics {
+		private int elementCount = 0;
+		private int decimalCount = 0;
+		private int textCount = 0;
+		
+		
+		private void add(int valueType) {
+			elementCount++;
+			if (valueType == TYPE_DECIMAL) {
+				decimalCount++;
+			}
+			else if (valueType == TYPE_TEXT) {
+				textCount++;
+			}
+		}
+		
+		
+		private void remove(int valueType) {
+			elementCount--;
+			if (valueType == TYPE_DECIMAL) {
+				decimalCount--;
+			}
+			else if (valueType == TYPE_TEXT) {
+				textCount--;
+			}
+		}
+		
+		
+		/**
+		 * Returns the number of elements (labels or hidden data entries) with the ID of this column.
+		 */
+		public int getElementCount() {
+			return elementCount;
+		}
+		
+		
+		public int getDecimalCount() {
+			return decimalCount;
+		}
+		
+		
+		public int getTextCount() {
+			return textCount;
+		}
+		
+		
+		/**
+		 * Returns the number of elements that contain neither a decimal nor a textual value. (Labels that do not 
+		 * contain a {@link TextElementData} object, like graphical labels, are also counted here.) 
+		 */
+		public int getEmptyCount() {
+			return elementCount - decimalCount - textCount;
+		}
+	}
+	
+	
+	/**
+	 * Marks the nodes that were contained in the tree when a registry was filled the last time. A node belongs to
+	 * the tree of a registry, as long as it references the current registration of this registry.
+	 * 
+	 * @author Ben St&ouml;ver
+	 * @since 2.16.0
+	 */
+	static final class Registration {
+		private final NodeBranchDataColumnRegistry registry;
+		
+		
+		private Registration(NodeBranchDataColumnRegistry registry) {
+			super();
+			this.registry = registry;
+		}
+		
+		
+		private boolean isCurrent() {
+			return registry.registration == this;
+		}
+	}
+	
+	
+	private Tree tree;
+	private volatile Registration registration = null;  // null if the registry needs to be filled again.
+	private long modificationCount = 0;
+	private long topologyModificationCount = 0;
+	private Map<Object, Long> columnModificationCounts = new HashMap<Object, Long>();  // Keys are IDs or adapter classes.
+	private Map<Class<? extends Label>, Map<String, ColumnStatistics>> labelColumns = 
+			new HashMap<Class<? extends Label>, Map<String, ColumnStatistics>>();
+	private Map<String, TextLabel> firstTextLabels = new HashMap<String, TextLabel>();  // Filled on demand.
+	private Map<String, ColumnStatistics> hiddenNodeDataColumns = new TreeMap<String, ColumnStatistics>();
+	private Map<String, ColumnStatistics> hiddenBranchDataColumns = new TreeMap<String, ColumnStatistics>();
+	private Map<String, Integer> idCounts = new TreeMap<String, Integer>();
+	
+	
+	/**
+	 * Creates a new instance. Usually {@link Tree#getColumnRegistry()} should be used instead of this constructor.
+	 * 
+	 * @param tree the tree which columns shall be registered
+	 */
+	public NodeBranchDataColumnRegistry(Tree tree) {
+		super();
+		this.tree = tree;
+	}
+	
+	
+	public Tree getTree() {
+		return tree;
+	}
+	
+	
+	/**
+	 * Returns the value type of the specified data object. The type before a modification has to be passed to 
+	 * {@link #registerValueChange(Object, TextElementData, int)}.
+	 */
+	static int getValueType(TextElementData data) {
+		if (data == null) {
+			return TYPE_EMPTY;
+		}
+		else if (data.isDecimal()) {
+			return TYPE_DECIMAL;
+		}
+		else if (data.isString()) {
+			return TYPE_TEXT;
+		}
+		else {
+			return TYPE_EMPTY;
+		}
+	}
+	
+	
+	private static int getValueType(Label label) {
+		if (label instanceof TextLabel) {
+			return getValueType(((TextLabel)label).getData());
+		}
+		else {
+			return TYPE_EMPTY;
+		}
+	}
+	
+	
+	private static Node getHoldingNode(Labels labels) {
+		if ((labels != null) && (labels.getHoldingBranch() != null)) {
+			return labels.getHoldingBranch().getTargetNode();
+		}
+		else {
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Returns the registry of the tree which currently contains the specified node.
+	 * 
+	 * @return the registry or {@code null}, if the node is not marked with a current registration
+	 */
+	private static NodeBranchDataColumnRegistry getRegistry(Node node) {
+		if (node != null) {
+			Registration registration = node.columnRegistration;
+			if ((registration != null) && registration.isCurrent()) {
+				return registration.registry;
+			}
+		}
+		return null;
+	}
+	
+	
+	/**
+	 * Tests if the data of the specified node is currently counted by this registry. Must only be called while
+	 * the lock of this object is held.
+	 */
+	private boolean isRegistered(Node node) {
+		return (node != null) && (registration != null) && (node.columnRegistration == registration) &&
+				node.hasAfferentBranch();
+	}
+	
+	
+	/**
+	 * Discards the current registration. The registry will be filled again on the next query.
+	 */
+	void invalidate() {
+		registration = null;
+	}
+	
+	
+	/**
+	 * Notifies the registry of the tree containing the specified node that the topology of this tree might
+	 * change (e.g. because the parent of this node changes).
+	 * 
+	 * @param node the node that is moved, inserted or removed or the new parent of such a node (Maybe
+	 *        {@code null}.)
+	 */
+	static void registerTopologyChange(Node node) {
+		NodeBranchDataColumnRegistry registry = getRegistry(node);
+		if (registry != null) {
+			registry.invalidate();
+		}
+	}
+	
+	
+	private static void registerModification(Node node, Object columnKey) {
+		NodeBranchDataColumnRegistry registry = getRegistry(node);
+		if (registry != null) {
+			registry.countModificationSynchronized(columnKey);
+		}
+	}
+	
+	
+	/**
+	 * Notifies the registry of the tree containing the specified node that the unique name of this node was
+	 * modified.
+	 * 
+	 * @param node the modified node
+	 */
+	static void registerUniqueNameChange(Node node) {
+		registerModification(node, UniqueNameAdapter.class);
+	}
+	
+	
+	/**
+	 * Notifies the registry of the tree containing the specified branch that its length was modified.
+	 * 
+	 * @param branch the modified branch
+	 */
+	static void registerBranchLengthChange(Branch branch) {
+		registerModification(branch.getTargetNode(), BranchLengthAdapter.class);
+	}
+	
+	
+	/**
+	 * Counts a modification of the column with the specified key. Must only be called while the lock of this
+	 * object is held.
+	 * 
+	 * @param columnKey the ID or the adapter class identifying the modified column
+	 */
+	private void countModification(Object columnKey) {
+		modificationCount++;
+		columnModificationCounts.put(columnKey, modificationCount);
+	}
+	
+	
+	private synchronized void countModificationSynchronized(Object columnKey) {
+		if (registration != null) {
+			countModification(columnKey);
+		}
+	}
+
+	
+	/**
+	 * Notifies the registry of the tree containing the owner of the specified data object that its value was
+	 * changed.
+	 * 
+	 * @param owner the text element or hidden data map holding {@code data} (Maybe {@code null}.)
+	 * @param data the changed data object
+	 * @param previousType the value type of {@code data} before the change
+	 *        (see {@link #getValueType(TextElementData)})
+	 */
+	static void registerValueChange(Object owner, TextElementData data, int previousType) {
+		if (owner instanceof TextLabel) {
+			TextLabel label = (TextLabel)owner;
+			NodeBranchDataColumnRegistry registry = getRegistry(getHoldingNode(label.getLabels()));
+			if (registry != null) {
+				registry.changeLabelValue(label, previousType);
+			}
+		}
+		else if (owner instanceof HiddenDataMap) {
+			HiddenDataMap map = (HiddenDataMap)owner;
+			NodeBranchDataColumnRegistry registry = getRegistry(map.getHoldingNode());
+			if (registry != null) {
+				registry.changeHiddenDataValue(map, data, previousType);
+			}
+		}
+		else if (owner instanceof Node) {
+			registerModification((Node)owner, NodeNameAdapter.class);
+		}
+	}
+	
+	
+	private synchronized void changeLabelValue(TextLabel label, int previousType) {
+		Labels labels = label.getLabels();
+		if (isRegistered(getHoldingNode(labels)) && labels.contains(label)) {
+			String id = label.getID();
+			if ((id != null) && !id.equals("")) {
+				ColumnStatistics statistics = getLabelColumns(TextLabel.class).get(id);
+				if (statistics == null) {
+					invalidate();  // Should not happen, but the registry can recover from this.
+				}
+				else {
+					statistics.remove(previousType);
+					statistics.add(getValueType(label.getData()));
+				}
+				countModification(id);
+			}
+		}
+	}
+	
+	
+	private synchronized void changeHiddenDataValue(HiddenDataMap map, TextElementData data, int previousType) {
+		if (isRegistered(map.getHoldingNode())) {
+			for (Map.Entry<String, TextElementData> entry : map.entrySet()) {
+				if (entry.getValue() == data) {
+					if (!entry.getKey().equals("")) {
+						ColumnStatistics statistics = getHiddenDataColumns(map).get(entry.getKey());
+						if (statistics == null) {
+							invalidate();
+						}
+						else {
+							statistics.remove(previousType);
+							statistics.add(getValueType(data));
+						}
+						countModification(entry.getKey());
+					}
+				}
+			}
+		}
+	}
+	
+	
+	/**
+	 * Notifies the registry of the tree containing the specified labels that a label has been added.
+	 * 
+	 * @param labels the labels object containing the new label
+	 * @param label the label that has been added
+	 */
+	static void registerLabelAddition(Labels labels, Label label) {
+		NodeBranchDataColumnRegistry registry = getRegistry(getHoldingNode(labels));
+		if (registry != null) {
+			registry.changeLabel(labels, label, null, label.getID());
+		}
+	}
+	
+	
+	/**
+	 * Notifies the registry of the tree containing the specified labels that a label has been or will be removed.
+	 * 
+	 * @param labels the labels object that contained the label
+	 * @param label the label that is removed
+	 */
+	static void registerLabelRemoval(Labels labels, Label label) {
+		NodeBranchDataColumnRegistry registry = getRegistry(getHoldingNode(labels));
+		if (registry != null) {
+			registry.changeLabel(labels, label, label.getID(), null);
+		}
+	}
+	
+	
+	/**
+	 * Notifies the registry of the tree containing the specified label that its ID was changed.
+	 * 
+	 * @param label the label with the new ID
+	 * @param previousID the ID of the label before the change
+	 */
+	static void registerLabelIDChange(Label label, String previousID) {
+		Labels labels = label.getLabels();
+		NodeBranchDataColumnRegistry registry = getRegistry(getHoldingNode(labels));
+		if ((registry != null) && labels.contains(label)) {
+			registry.changeLabel(labels, label, previousID, label.getID());
+		}
+	}
+	
+	
+	private synchronized void changeLabel(Labels labels, Label label, String previousID, String newID) {
+		if (isRegistered(getHoldingNode(labels))) {
+			if ((previousID != null) && !previousID.equals("")) {
+				if (!removeElement(getLabelColumns(label.getClass()), previousID, getValueType(label))) {
+					invalidate();
+				}
+				firstTextLabels.remove(previousID);
+				countModification(previousID);
+			}
+			if ((newID != null) && !newID.equals("")) {
+				addLabel(label, newID);
+				firstTextLabels.remove(newID);
+				countModification(newID);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Notifies the registry of the tree containing the specified map that an entry has been added.
+	 * 
+	 * @param map the hidden data map containing the new entry
+	 * @param id the ID of the entry
+	 * @param data the value of the entry
+	 */
+	static void registerHiddenDataAddition(HiddenDataMap map, String id, TextElementData data) {
+		NodeBranchDataColumnRegistry registry = getRegistry(map.getHoldingNode());
+		if (registry != null) {
+			registry.changeHiddenData(map, id, data, true);
+		}
+	}
+	
+	
+	/**
+	 * Notifies the registry of the tree containing the specified map that an entry has been or will be removed.
+	 * 
+	 * @param map the hidden data map that contained the entry
+	 * @param id the ID of the entry
+	 * @param data the value of the entry
+	 */
+	static void registerHiddenDataRemoval(HiddenDataMap map, String id, TextElementData data) {
+		NodeBranchDataColumnRegistry registry = getRegistry(map.getHoldingNode());
+		if (registry != null) {
+			registry.changeHiddenData(map, id, data, false);
+		}
+	}
+	
+	
+	private synchronized void changeHiddenData(HiddenDataMap map, String id, TextElementData data, boolean added) {
+		if (isRegistered(map.getHoldingNode())) {
+			if (!id.equals("")) {
+				if (added) {
+					addElement(getHiddenDataColumns(map), id, getValueType(data));
+				}
+				else if (!removeElement(getHiddenDataColumns(map), id, getValueType(data))) {
+					invalidate();
+				}
+				countModification(id);
+			}
+		}
+	}
+	
+	
+	private Map<String, ColumnStatistics> getLabelColumns(Class<? extends Label> labelClass) {
+		Map<String, ColumnStatistics> result = labelColumns.get(labelClass);
+		if (result == null) {
+			result = new TreeMap<String, ColumnStatistics>();
+			labelColumns.put(labelClass, result);
+		}
+		return result;
+	}
+	
+	
+	private Map<String, ColumnStatistics> getHiddenDataColumns(HiddenDataMap map) {
+		if (map.isBranchMap()) {
+			return hiddenBranchDataColumns;
+		}
+		else {
+			return hiddenNodeDataColumns;
+		}
+	}
+	
+	
+	private void addElement(Map<String, ColumnStatistics> map, String id, int valueType) {
+		ColumnStatistics statistics = map.get(id);
+		if (statistics == null) {
+			statistics = new ColumnStatistics();
+			map.put(id, statistics);
+		}
+		statistics.add(valueType);
+		
+		Integer count = idCounts.get(id);
+		if (count == null) {
+			idCounts.put(id, 1);
+		}
+		else {
+			idCounts.put(id, count + 1);
+		}
+	}
+	
+	
+	/**
+	 * Removes an element from the specified column and removes the column, if it became empty.
+	 * 
+	 * @return {@code false} if the column or the ID was not registered, {@code true} otherwise
+	 */
+	private boolean removeElement(Map<String, ColumnStatistics> map, String id, int valueType) {
+		ColumnStatistics statistics = map.get(id);
+		Integer count = idCounts.get(id);
+		if ((statistics == null) || (count == null)) {
+			return false;
+		}
+		else {
+			statistics.remove(valueType);
+			if (statistics.getElementCount() <= 0) {
+				map.remove(id);
+			}
+			if (count <= 1) {
+				idCounts.remove(id);
+			}
+			else {
+				idCounts.put(id, count - 1);
+			}
+			return true;
+		}
+	}
+	
+	
+	private void addLabel(Label label, String id) {
+		addElement(getLabelColumns(label.getClass()), id, getValueType(label));
+	}
+	
+	
+	private void addLabels(Labels labels, boolean above) {
+  	for (int lineNo = 0; lineNo < labels.lineCount(above); lineNo++) {
+			for (int lineIndex = 0; lineIndex < labels.labelCount(above, lineNo); lineIndex++) {
+				Label label = labels.get(above, lineNo, lineIndex);
+				String id = label.getID();
+				if ((id != null) && !id.equals("")) {
+					addLabel(label, id);
+				}
+			}
+		}
+	}
+	
+	
+	private void addHiddenData(HiddenDataMap hiddenDataMap) {
+		for (Map.Entry<String, TextElementData> entry : hiddenDataMap.entrySet()) {
+			if (!entry.getKey().equals("")) {
+				addElement(getHiddenDataColumns(hiddenDataMap), entry.getKey(), getValueType(entry.getValue()));
+			}
+		}
+	}
+	
+	
+	private void addSubtree(Node root, Registration registration) {
+		Registration previous = root.columnRegistration;
+		if ((previous != null) && (previous.registry != this) && previous.isCurrent()) {
+			previous.registry.invalidate();  // The node has been moved from the tree of another registry.
+		}
+		root.columnRegistration = registration;
+		
+		if (root.hasAfferentBranch()) {
+			Branch branch = root.getAfferentBranch();
+			addLabels(branch.getLabels(), true);
+			addLabels(branch.getLabels(), false);
+			addHiddenData(root.getHiddenDataMap());
+			addHiddenData(branch.getHiddenDataMap());
+		}
+		
+		for (Node child : root.getChildren()) {
+			addSubtree(child, registration);
+		}
+	}
+	
+	
+	/**
+	 * Fills this registry again, if its registration has been discarded since the last call.
+	 */
+	private void update() {
+		if (registration == null) {
+			labelColumns.clear();
+			firstTextLabels.clear();
+			hiddenNodeDataColumns.clear();
+			hiddenBranchDataColumns.clear();
+			idCounts.clear();
+			columnModificationCounts.clear();
+
+			Registration newRegistration = new Registration(this);
+			registration = newRegistration;  // Must be set before the pass, so that nodes from other registries are recognized.
+			if (!tree.isEmpty()) {
+				addSubtree(tree.getPaintStart(), newRegistration);
+			}
+			modificationCount++;
+			topologyModificationCount = modificationCount;
+		}
+	}
+	
+	
+	/**
+	 * Returns a number that changes whenever the node/branch data or the topology of the tree might have been
+	 * modified. Modifications of other trees do not change this number.
+	 * 
+	 * @return the current modification count of the tree
+	 */
+	synchronized long getModificationCount() {
+		update();
+		return modificationCount;
+	}
+	
+	
+	/**
+	 * Returns a number that changes whenever the topology of the tree might have been modified.
+	 * 
+	 * @return the modification count of the last topological change
+	 */
+	synchronized long getTopologyModificationCount() {
+		update();
+		return topologyModificationCount;
+	}
+	
+	
+	/**
+	 * Returns the key of the column read by the specified adapter, which is its ID for adapters of labels or hidden
+	 * data and its class for node names, branch lengths and unique names.
+	 * 
+	 * @return the key or {@code null} if the column cannot be identified
+	 */
+	private static Object getColumnKey(NodeBranchDataAdapter adapter) {
+		if (adapter instanceof IDElementAdapter) {
+			return ((IDElementAdapter)adapter).getID();
+		}
+		else if (adapter instanceof NodeNameAdapter) {
+			return NodeNameAdapter.class;
+		}
+		else if (adapter instanceof BranchLengthAdapter) {
+			return BranchLengthAdapter.class;
+		}
+		else if (adapter instanceof UniqueNameAdapter) {
+			return UniqueNameAdapter.class;
+		}
+		else {
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Returns a number that changes whenever a value of the column read by the specified adapter or the topology of
+	 * the tree might have been modified. (Labels and hidden data with the same ID are considered as one column.) For
+	 * adapters of other columns the result changes with every modification of the tree.
+	 * 
+	 * @param adapter the adapter specifying the column
+	 * @return the modification count of the last change of the specified column
+	 */
+	synchronized long getModificationCount(NodeBranchDataAdapter adapter) {
+		update();
+		Object key = getColumnKey(adapter);
+		if (key == null) {
+			return modificationCount;
+		}
+		else {
+			Long result = columnModificationCounts.get(key);
+			if (result == null) {
+				return topologyModificationCount;
+			}
+			else {
+				return result;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Returns the IDs of all labels of the specified type in the tree.
+	 * 
+	 * @param labelClass the class defining the type(s) of labels to be considered
+	 * @return an alphabetically sorted list of IDs (every string is contained only once)
+	 */
+	public synchronized List<String> getLabelIDs(Class<? extends Label> labelClass) {
+		update();
+		Collection<String> result = null;
+		for (Class<? extends Label> registeredClass : labelColumns.keySet()) {
+			Map<String, ColumnStatistics> map = labelColumns.get(registeredClass);
+			if (labelClass.isAssignableFrom(registeredClass) && !map.isEmpty()) {
+				if (result == null) {
+					result = map.keySet();  // Already sorted.
+				}
+				else {
+					result = new TreeSet<String>(result);
+					result.addAll(map.keySet());
+				}
+			}
+		}
+		
+		if (result == null) {
+			return new ArrayList<String>();
+		}
+		else {
+			return new ArrayList<String>(result);
+		}
+	}
+	
+	
+	/**
+	 * Returns the IDs of all hidden node data columns in the tree.
+	 * 
+	 * @return an alphabetically sorted list of IDs
+	 */
+	public synchronized List<String> getHiddenNodeDataIDs() {
+		update();
+		return new ArrayList<String>(hiddenNodeDataColumns.keySet());
+	}
+	
+	
+	/**
+	 * Returns the IDs of all hidden branch data columns in the tree.
+	 * 
+	 * @return an alphabetically sorted list of IDs
+	 */
+	public synchronized List<String> getHiddenBranchDataIDs() {
+		update();
+		return new ArrayList<String>(hiddenBranchDataColumns.keySet());
+	}
+	
+	
+	/**
+	 * Returns all IDs of labels and hidden data in the tree.
+	 * 
+	 * @return an alphabetically sorted list of IDs (every string is contained only once)
+	 */
+	public synchronized List<String> getIDs() {
+		update();
+		return new ArrayList<String>(idCounts.keySet());
+	}
+	
+	
+	/**
+	 * Tests whether any type of label or any hidden data entry with the specified ID is present in the tree.
+	 * 
+	 * @param id the ID to be searched for
+	 * @return {@code true}, if at least one element with this ID exists
+	 */
+	public synchronized boolean containsID(String id) {
+		update();
+		return idCounts.containsKey(id);
+	}
+	
+	
+	/**
+	 * Returns the number of labels and hidden data entries with the specified ID in the tree.
+	 * 
+	 * @param id the ID of the elements to be counted
+	 * @return the number of elements or 0, if no element with this ID exists
+	 */
+	public synchronized int getElementCount(String id) {
+		update();
+		Integer result = idCounts.get(id);
+		if (result == null) {
+			return 0;
+		}
+		else {
+			return result;
+		}
+	}
+	
+	
+	/**
+	 * Returns the first text label with the specified ID in a preorder traversal of the tree. The same label as from 
+	 * {@link NodeBranchDataColumnManager#getFirstLabel(Node, Class, String)} is returned. 
+	 * <p>
+	 * The label is searched on the first call after a label with this ID has been added or removed and is stored
+	 * until the next such modification.
+	 * 
+	 * @param id the ID of the label
+	 * @return the label or {@code null} if no text label with this ID is present
+	 */
+	public synchronized TextLabel getFirstTextLabel(String id) {
+		update();
+		TextLabel result = firstTextLabels.get(id);
+		if ((result == null) && getLabelColumns(TextLabel.class).containsKey(id)) {
+			result = (TextLabel)NodeBranchDataColumnManager.getFirstLabel(tree.getPaintStart(), TextLabel.class, id);
+			firstTextLabels.put(id, result);
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Returns the statistics on the column specified by the adapter. 
+	 * 
+	 * @param adapter the adapter specifying the column
+	 * @return the statistics object or {@code null} if no element of the column is present in the tree or 
+	 *         {@code adapter} is not an instance of {@link TextLabelAdapter}, {@link HiddenNodeDataAdapter} or 
+	 *         {@link HiddenBranchDataAdapter}
+	 */
+	public synchronized ColumnStatistics getStatistics(NodeBranchDataAdapter adapter) {
+		update();
+		if (adapter instanceof TextLabelAdapter) {
+			Map<String, ColumnStatistics> map = labelColumns.get(TextLabel.class);
+			if (map != null) {
+				return map.get(((TextLabelAdapter)adapter).getID());
+			}
+		}
+		else if (adapter instanceof HiddenNodeDataAdapter) {
+			return hiddenNodeDataColumns.get(((HiddenNodeDataAdapter)adapter).getID());
+		}
+		else if (adapter instanceof HiddenBranchDataAdapter) {
+			return hiddenBranchDataColumns.get(((HiddenBranchDataAdapter)adapter).getID());
+		}
+		return null;
+	}
+	
+	
+	/**
+	 * Tests if the tree contains a node with a decimal value in the column specified by {@code adapter}. For 
+	 * columns for which no statistics are registered (e.g. branch lengths) the tree is searched using 
+	 * {@link NodeBranchDataColumnManager#containsDecimal(NodeBranchDataAdapter, Node)}.
+	 * 
+	 * @param adapter the adapter specifying the column
+	 * @return {@code true} if at least one decimal value could be returned 
+	 */
+	public synchronized boolean containsDecimal(NodeBranchDataAdapter adapter) {
+		if ((adapter instanceof TextLabelAdapter) || (adapter instanceof HiddenNodeDataAdapter) || 
+				(adapter instanceof HiddenBranchDataAdapter)) {
+			
+			ColumnStatistics statistics = getStatistics(adapter);
+			return (statistics != null) && (statistics.getDecimalCount() > 0);
+		}
+		else {
+			return !tree.isEmpty() && NodeBranchDataColumnManager.containsDecimal(adapter, tree.getPaintStart());
+		}
+	}
+}
@@ -0,0 +1,436 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import info.bioinfweb.treegraph.document.nodebranchdata.IDElementAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+
+
+
+/**
+ * Stores the values of node/branch data columns of a {@link Tree} in primitive arrays to allow fast scans over 
+ * whole columns.
+ * <p>
+ * All nodes of the tree are numbered in preorder starting with the paint start. This ordinal is used as the 
+ * index in all columns. A column is created from an arbitrary {@link NodeBranchDataAdapter} on the first request
+ * and contains the value type of each node, decimal values in a {@code double} array and textual values as 
+ * indices of a dictionary containing each distinct string only once.
+ * <p>
+ * The document model remains the only place where node/branch data is stored, and all modifications still need 
+ * to be performed using the adapters. The modifications are counted per column by 
+ * {@link NodeBranchDataColumnRegistry}. A column is created again on its next request, if a value of this column
+ * was modified. All columns and the node numbering are discarded, if the topology of the tree was modified.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ * @see Tree#getColumnStore()
+ */
+public class NodeBranchDataColumnStore {
+	/** The maximal number of columns kept in a store at the same time. */
+	public static final int MAX_COLUMN_COUNT = 32;
+	
+	private static final byte TYPE_EMPTY = 0;
+	private static final byte TYPE_DECIMAL = 1;
+	private static final byte TYPE_TEXT = 2;
+	
+	
+	/**
+	 * The values of one node/branch data column indexed by the node ordinals of the store that created it. 
+	 * Instances of this class are not modified after their creation and remain valid snapshots after the
+	 * tree was modified.
+	 * 
+	 * @author Ben St&ouml;ver
+	 * @since 2.16.0
+	 */
+	public static class Column {
+		private long modificationCount;
+		private Node[] nodes;
+		private byte[] types;
+		private double[] decimals;
+		private int[] textCodes;
+		private String[] dictionary;
+		private double[] parsedDictionary = null;  // Created on first use.
+		private int decimalCount = 0;
+		private int textCount = 0;
+		private double maximum = Double.NaN;
+		
+		
+		private Column(NodeBranchDataAdapter adapter, Node[] nodes, long modificationCount) {
+			super();
+			this.modificationCount = modificationCount;
+			this.nodes = nodes;
+			types = new byte[nodes.length];
+			decimals = new double[nodes.length];
+			textCodes = new int[nodes.length];
+			
+			Map<String, Integer> codes = new HashMap<String, Integer>();
+			List<String> strings = new ArrayList<String>();
+			for (int i = 0; i < nodes.length; i++) {
+				Node node = nodes[i];
+				textCodes[i] = -1;
+				if (adapter.isDecimal(node)) {
+					types[i] = TYPE_DECIMAL;
+					double value = adapter.getDecimal(node);
+					decimals[i] = value;
+					decimalCount++;
+					if (!Double.isNaN(value) && (Double.isNaN(maximum) || (value > maximum))) {
+						maximum = value;
+					}
+				}
+				else {
+					decimals[i] = Double.NaN;
+					if (adapter.isString(node)) {
+						types[i] = TYPE_TEXT;
+						String text = adapter.getText(node);
+						Integer code = codes.get(text);
+						if (code == null) {
+							code = strings.size();
+							codes.put(text, code);
+							strings.add(text);
+						}
+						textCodes[i] = code;
+						textCount++;
+					}
+					else {
+						types[i] = TYPE_EMPTY;
+					}
+				}
+			}
+			dictionary = strings.toArray(new String[strings.size()]);
+		}
+		
+		
+		/**
+		 * Returns the number of lines of this column, which equals the number of nodes in the tree.
+		 */
+		public int size() {
+			return nodes.length;
+		}
+		
+		
+		/**
+		 * Returns the node with the specified ordinal.
+		 */
+		public Node getNode(int ordinal) {
+			return nodes[ordinal];
+		}
+		
+		
+		public boolean isDecimal(int ordinal) {
+			return types[ordinal] == TYPE_DECIMAL;
+		}
+		
+		
+		public boolean isString(int ordinal) {
+			return types[ordinal] == TYPE_TEXT;
+		}
+		
+		
+		public boolean isEmpty(int ordinal) {
+			return types[ordinal] == TYPE_EMPTY;
+		}
+		
+		
+		/**
+		 * Returns the decimal value of the specified line.
+		 * 
+		 * @return the value or {@link Double#NaN} if the line does not contain a decimal value
+		 */
+		public double getDecimal(int ordinal) {
+			return decimals[ordinal];
+		}
+		
+		
+		/**
+		 * Returns the textual value of the specified line.
+		 * 
+		 * @return the value or {@code null} if the line does not contain a textual value
+		 */
+		public String getText(int ordinal) {
+			int code = textCodes[ordinal];
+			if (code == -1) {
+				return null;
+			}
+			else {
+				return dictionary[code];
+			}
+		}
+		
+		
+		/**
+		 * Returns the index of the textual value of the specified line in the dictionary of this column. Lines 
+		 * with equal texts have equal indices.
+		 * 
+		 * @return the index or -1 if the line does not contain a textual value
+		 * @see #getDictionaryEntry(int)
+		 */
+		public int getTextCode(int ordinal) {
+			return textCodes[ordinal];
+		}
+		
+		
+		/**
+		 * Returns the number of distinct textual values in this column.
+		 */
+		public int getDictionarySize() {
+			return dictionary.length;
+		}
+		
+		
+		public String getDictionaryEntry(int code) {
+			return dictionary[code];
+		}
+		
+		
+		/**
+		 * Returns the value of the specified line as a number. Behaves like 
+		 * {@link NodeBranchDataAdapter#getNumericValue(Node, boolean)}, but parses each distinct text only once.
+		 * 
+		 * @param ordinal the ordinal of the node
+		 * @param parseText Specify {@code true} here, if textual values shall be parsed.
+		 * @return the numeric value or {@link Double#NaN} if no such value is present
+		 */
+		public double getNumericValue(int ordinal, boolean parseText) {
+			if (parseText && (types[ordinal] == TYPE_TEXT)) {
+				if (parsedDictionary == null) {
+					parsedDictionary = new double[dictionary.length];
+					for (int i = 0; i < dictionary.length; i++) {
+						try {
+							parsedDictionary[i] = Double.parseDouble(dictionary[i]);
+						}
+						catch (NumberFormatException e) {
+							parsedDictionary[i] = Double.NaN;
+						}
+					}
+				}
+				return parsedDictionary[textCodes[ordinal]];
+			}
+			else {
+				return decimals[ordinal];
+			}
+		}
+		
+		
+		public int getDecimalCount() {
+			return decimalCount;
+		}
+		
+		
+		public int getTextCount() {
+			return textCount;
+		}
+		
+		
+		public int getEmptyCount() {
+			return nodes.length - decimalCount - textCount;
+		}
+		
+		
+		/**
+		 * Returns the greatest decimal value in this column.
+		 * 
+		 * @return the maximum or {@link Double#NaN} if no decimal value is present
+		 */
+		public double getMaximum() {
+			return maximum;
+		}
+	}
+	
+	
+	/**
+	 * Identifies a column by the type and the ID of its adapter. (Adapters cannot be used as keys directly, since 
+	 * their IDs may be changed.) 
+	 */
+	private static class ColumnKey {
+		private Class<?> adapterClass;
+		private String id;
+		
+		
+		public ColumnKey(NodeBranchDataAdapter adapter) {
+			super();
+			adapterClass = adapter.getClass();
+			if (adapter instanceof IDElementAdapter) {
+				id = ((IDElementAdapter)adapter).getID();
+			}
+		}
+		
+		
+		@Override
+		public int hashCode() {
+			return 31 * adapterClass.hashCode() + ((id == null) ? 0 : id.hashCode());
+		}
+		
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof ColumnKey) {
+				ColumnKey other = (ColumnKey)obj;
+				return adapterClass.equals(other.adapterClass) && ((id == null) ? (other.id == null) : id.equals(other.id));
+			}
+			else {
+				return false;
+			}
+		}
+	}
+	
+	
+	private Tree tree;
+	private long registeredTopologyModificationCount = -1;
+	private Node[] nodes = null;
+	private Map<Node, Integer> ordinals = null;  // Created on first use.
+	private Map<ColumnKey, Column> columns = new LinkedHashMap<ColumnKey, Column>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ColumnKey, Column> eldest) {
+			return size() > MAX_COLUMN_COUNT;
+		}
+	};
+	
+	
+	/**
+	 * Creates a new instance. Usually {@link Tree#getColumnStore()} should be used instead of this constructor.
+	 * 
+	 * @param tree the tree which columns shall be stored
+	 */
+	public NodeBranchDataColumnStore(Tree tree) {
+		super();
+		this.tree = tree;
+	}
+	
+	
+	public Tree getTree() {
+		return tree;
+	}
+	
+	
+	private static void addSubtree(Node root, List<Node> list) {
+		list.add(root);
+		for (Node child : root.getChildren()) {
+			addSubtree(child, list);
+		}
+	}
+	
+	
+	/**
+	 * Discards all columns and the node ordinals, if the topology of the tree might have been modified since the 
+	 * last call.
+	 */
+	private void update() {
+		long currentModificationCount = tree.getColumnRegistry().getTopologyModificationCount();  // Store before the update, in case the tree is modified concurrently.
+		if (currentModificationCount != registeredTopologyModificationCount) {
+			clear();
+			List<Node> list = new ArrayList<Node>();
+			if (!tree.isEmpty()) {
+				addSubtree(tree.getPaintStart(), list);
+			}
+			nodes = list.toArray(new Node[list.size()]);
+			registeredTopologyModificationCount = currentModificationCount;
+		}
+	}
+	
+	
+	/**
+	 * Returns the number of nodes in the tree, which is the size of all columns.
+	 */
+	public synchronized int getNodeCount() {
+		update();
+		return nodes.length;
+	}
+	
+	
+	/**
+	 * Returns the node with the specified ordinal.
+	 */
+	public synchronized Node getNode(int ordinal) {
+		update();
+		return nodes[ordinal];
+	}
+	
+	
+	/**
+	 * Returns the ordinal of the specified node, which is its index in all columns.
+	 * 
+	 * @param node the node contained in the tree of this store
+	 * @return the ordinal or -1 if the node is not contained in the tree
+	 */
+	public synchronized int getOrdinal(Node node) {
+		update();
+		if (ordinals == null) {
+			ordinals = new IdentityHashMap<Node, Integer>(nodes.length * 2);
+			for (int i = 0; i < nodes.length; i++) {
+				ordinals.put(nodes[i], i);
+			}
+		}
+		Integer result = ordinals.get(node);
+		if (result == null) {
+			return -1;
+		}
+		else {
+			return result;
+		}
+	}
+	
+	
+	/**
+	 * Returns the column with the values accessible by the specified adapter. If no current column is stored for
+	 * the adapter, it is created by a single pass over all nodes. A stored column is only created again, if the 
+	 * registry reports a modification of this column (or of any column for adapters it cannot identify).
+	 * <p>
+	 * Columns are identified by the type and the ID of their adapters. Columns of adapters for new columns are never 
+	 * stored. 
+	 * 
+	 * @param adapter the adapter specifying the column
+	 * @return the column (never {@code null}) 
+	 * @see NodeBranchDataColumnRegistry#getModificationCount(NodeBranchDataAdapter)
+	 */
+	public synchronized Column getColumn(NodeBranchDataAdapter adapter) {
+		update();
+		long modificationCount = tree.getColumnRegistry().getModificationCount(adapter);  // Store before the column is created, in case the tree is modified concurrently.
+		if (adapter.isNewColumn()) {
+			return new Column(adapter, nodes, modificationCount);
+		}
+		else {
+			ColumnKey key = new ColumnKey(adapter);
+			Column result = columns.get(key);
+			if ((result == null) || (result.modificationCount != modificationCount)) {
+				result = new Column(adapter, nodes, modificationCount);
+				columns.put(key, result);
+			}
+			return result;
+		}
+	}
+	
+	
+	/**
+	 * Removes all stored columns to release their memory. They will be created again on the next request.
+	 */
+	public synchronized void clear() {
+		columns.clear();
+		ordinals = null;
+		nodes = null;
+		registeredTopologyModificationCount = -1;
+	}
+}
@@ -20,6 +20,7 @@ package info.bioinfweb.treegraph.document;
 
 
 import info.bioinfweb.treegraph.document.format.ElementFormats;
+import info.bioinfweb.treegraph.document.format.FormatInstancePool;
 import info.bioinfweb.treegraph.document.format.PieChartLabelCaptionContentType;
 import info.bioinfweb.treegraph.document.format.PieChartLabelFormats;
 import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
@@ -172,7 +173,8 @@ public class PieChartLabel extends GraphicalLabel implements LineElement, TextEl
 		}
 		
 		if (getFormats().getCaptionsContentType().containsValues()) {
-			String value = getFormats().getCaptionsTextFormats().getDecimalFormat().format(getValue(index));
+			String value = FormatInstancePool.formatDecimal(getFormats().getCaptionsTextFormats().getDecimalFormat(), 
+					getValue(index));
 			if (!result.isEmpty()) {  // May also happen, if caption "" was set before.
 				value = " (" + value + ")";
 			}
@@ -238,10 +240,10 @@ public class PieChartLabel extends GraphicalLabel implements LineElement, TextEl
 	 */
 	@Override
 	public PieChartLabelPositionData getPosition(PositionPaintType type) {
-		PieChartLabelPositionData result = (PieChartLabelPositionData)positions.get(type);
+		PieChartLabelPositionData result = (PieChartLabelPositionData)getStoredPosition(type);
 		if (result == null) {
 			result = new PieChartLabelPositionData();
-			positions.put(type, result);
+			storePosition(type, result);
 		}
 		
 		return result;
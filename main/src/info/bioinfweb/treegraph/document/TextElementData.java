@@ -19,6 +19,8 @@
 package info.bioinfweb.treegraph.document;
 
 
+import info.bioinfweb.treegraph.document.format.FormatInstancePool;
+
 import java.text.DecimalFormat;
 
 
@@ -32,6 +34,7 @@ import java.text.DecimalFormat;
 public class TextElementData implements Cloneable, Comparable<TextElementData> {
   private String text = null;
   private double decimal = Double.NaN;
+  private Object owner = null;  // The text element or hidden data map holding this object.
   
   
 	public TextElementData() {
@@ -39,6 +42,18 @@ public class TextElementData implements Cloneable, Comparable<TextElementData> {
 	}
 
 
+	/**
+	 * Creates a new empty instance that belongs to the specified element.
+	 * 
+	 * @param owner the text element or hidden data map holding the new object
+	 * @since 2.16.0
+	 */
+	TextElementData(Object owner) {
+		super();
+		this.owner = owner;
+	}
+
+
 	public TextElementData(String string) {
 		super();
 		setText(string);
@@ -61,8 +76,10 @@ public class TextElementData implements Cloneable, Comparable<TextElementData> {
 	
 	
 	public void setDecimal(double doubleValue) {
+		int previousType = NodeBranchDataColumnRegistry.getValueType(this);
 		this.decimal = doubleValue;
 		text = null;
+		NodeBranchDataColumnRegistry.registerValueChange(owner, this, previousType);
 	}
 	
 	
@@ -76,8 +93,10 @@ public class TextElementData implements Cloneable, Comparable<TextElementData> {
 	
 	
 	public void setText(String stringValue) {
+		int previousType = NodeBranchDataColumnRegistry.getValueType(this);
 		this.text = stringValue;
 		decimal = Double.NaN;
+		NodeBranchDataColumnRegistry.registerValueChange(owner, this, previousType);
 	}
 	
 	
@@ -86,8 +105,10 @@ public class TextElementData implements Cloneable, Comparable<TextElementData> {
 	 * @see isEmpty()
 	 */
 	public void clear() {
+		int previousType = NodeBranchDataColumnRegistry.getValueType(this);
 		text = null;
 		decimal = Double.NaN;
+		NodeBranchDataColumnRegistry.registerValueChange(owner, this, previousType);
 	}
 	
 	
@@ -137,7 +158,7 @@ public class TextElementData implements Cloneable, Comparable<TextElementData> {
 	 */
 	public String formatValue(DecimalFormat format) {
 		if (isDecimal()) {
-			return format.format(getDecimal());
+			return FormatInstancePool.formatDecimal(format, getDecimal());  // Decimal formats may be shared between elements and threads.
 		}
 		else if (isString()) {
 			return getText();
@@ -178,6 +199,17 @@ public class TextElementData implements Cloneable, Comparable<TextElementData> {
 	}
 
 
+	/**
+	 * Sets the element holding this object, which is notified by modifications of the value. 
+	 * 
+	 * @param owner the text element or hidden data map holding this object
+	 * @since 2.16.0
+	 */
+	void setOwner(Object owner) {
+		this.owner = owner;
+	}
+	
+	
 	public void assign(TextElementData other) {
 		if (other.isDecimal()) {
 			setDecimal(other.getDecimal());
@@ -29,7 +29,7 @@ import info.bioinfweb.treegraph.document.format.TextLabelFormats;
  * @since 2.0.26
  */
 public class TextLabel extends Label implements TextElement {
-	private TextElementData data = new TextElementData();
+	private TextElementData data = new TextElementData(this);
 	private TextLabelFormats formats = new TextLabelFormats(this);
 	
 	
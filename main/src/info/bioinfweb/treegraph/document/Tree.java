@@ -22,10 +22,10 @@ package info.bioinfweb.treegraph.document;
 import info.bioinfweb.treegraph.document.format.DistanceDimension;
 import info.bioinfweb.treegraph.document.format.GlobalFormats;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
-import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
 import info.bioinfweb.treegraph.document.tools.TreeSerializer;
 import info.bioinfweb.treegraph.document.undo.CompareTextElementDataParameters;
 import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
+import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.ElementBoundsIndex;
 import info.bioinfweb.commons.RandomValues;
 
 import java.util.EnumMap;
@@ -60,9 +60,12 @@ public class Tree {
 	private ScaleBar scaleBar = new ScaleBar();
   private Legends legends = new Legends(this);
 	private EnumMap<PositionPaintType, DistanceDimension> paintDimensions = new EnumMap<PositionPaintType, DistanceDimension>(PositionPaintType.class);
+	private EnumMap<PositionPaintType, ElementBoundsIndex> elementIndices = new EnumMap<PositionPaintType, ElementBoundsIndex>(PositionPaintType.class);
   private GlobalFormats formats = new GlobalFormats();
   private TreeMap<String, Node> uniqueNameMap = new TreeMap<String, Node>();
   private HashSet<PaintableElement> elementSet = new HashSet<PaintableElement>();
+  private NodeBranchDataColumnRegistry columnRegistry = new NodeBranchDataColumnRegistry(this);
+  private NodeBranchDataColumnStore columnStore = null;  // Created on first use.
 	
 	
 	public Node getPaintStart() {
@@ -72,6 +75,22 @@ public class Tree {
 
 	public void setPaintStart(Node paintStart) {
 		this.paintStart = paintStart;
+		registerTopologyChange();
+	}
+	
+	
+	/**
+	 * Notifies this tree that nodes might have been inserted, removed or moved. This is necessary if the child lists 
+	 * of nodes of this tree were modified directly without calling {@link Node#setParent(Node)} for the according 
+	 * nodes. {@link Document} calls this method after all edits that change the topology or the node order.
+	 * <p>
+	 * The column registry will be filled again on the next query.
+	 * 
+	 * @see #getColumnRegistry()
+	 * @since 2.16.0
+	 */
+	public void registerTopologyChange() {
+		columnRegistry.invalidate();
 	}
 
 
@@ -144,6 +163,50 @@ public class Tree {
 	}
 	
 	
+	/**
+	 * Returns the spatial index of the elements of this tree for the given painter ID. If none is stored an new 
+	 * empty instance is stored for this ID and returned. The index is filled by the according positioner.
+	 * 
+	 * @param type the painter ID
+	 * @return the stored index
+	 * @since 2.16.0
+	 */
+	public ElementBoundsIndex getElementIndex(PositionPaintType type) {
+		ElementBoundsIndex result = elementIndices.get(type);
+		if (result == null) {
+			result = new ElementBoundsIndex();
+			elementIndices.put(type, result);
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Returns the registry of the node/branch data columns contained in this tree.
+	 * 
+	 * @return the registry object associated with this tree
+	 * @since 2.16.0
+	 */
+	public NodeBranchDataColumnRegistry getColumnRegistry() {
+		return columnRegistry;
+	}
+	
+	
+	/**
+	 * Returns the store providing the node/branch data columns of this tree as arrays. The store is created on the
+	 * first call of this method.
+	 * 
+	 * @return the store object associated with this tree
+	 * @since 2.16.0
+	 */
+	public NodeBranchDataColumnStore getColumnStore() {
+		if (columnStore == null) {
+			columnStore = new NodeBranchDataColumnStore(this);
+		}
+		return columnStore;
+	}
+	
+	
 	/**
 	 * Generates a random unique name for a node which is currently not present in this 
 	 * tree. Currently a unique name is 10 characters long and consists of the following 
@@ -440,11 +503,6 @@ public class Tree {
 	 * @return <code>true</code> if at least one decimal value could be returned 
 	 */
 	public boolean containsDecimal(NodeBranchDataAdapter adapter) {
-		if (isEmpty()) {
-			return false;
-		}
-		else {
-			return NodeBranchDataColumnManager.containsDecimal(adapter, getPaintStart());
-		}
+		return getColumnRegistry().containsDecimal(adapter);
 	}
 }
\ No newline at end of file
@@ -64,7 +64,7 @@ public class BranchFormats implements ElementFormats, LineFormats, Cloneable {
 
 
 	public void setLineColor(Color color) {
-		lineColor = color;
+		lineColor = FormatInstancePool.internColor(color);
 	}
 	
 	
@@ -20,25 +20,29 @@ package info.bioinfweb.treegraph.document.format;
 
 
 import info.bioinfweb.commons.graphics.FontCalculator;
+import info.bioinfweb.treegraph.graphics.positionpaint.TextMetricsCache;
+
 import java.awt.*;
 import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.Locale;
 
 
 
 public class ConcreteTextFormats implements ElementFormats, Cloneable, TextFormats {
+	private static final DecimalFormat DEFAULT_DECIMAL_FORMAT = FormatInstancePool.internDecimalFormat(
+			new DecimalFormat(DEFAULT_DECIMAL_FORMAT_EXPR), DEFAULT_LOCALE);
+	
+	
 	private String fontName = DEFAULT_FONT_NAME;
 	private DistanceValue textHeight = new DistanceValue(DEFAULT_TEXT_HEIGHT_IN_MM);
 	private int textStyle = PLAIN;
 	private Color textColor = DEFAULT_TEXT_COLOR;
-	private Locale locale;
-	private DecimalFormat decimalFormat;
+	private Locale locale = FormatInstancePool.internLocale(DEFAULT_LOCALE);
+	private DecimalFormat decimalFormat = DEFAULT_DECIMAL_FORMAT;  // Shared instance from FormatInstancePool
 	
 	
 	public ConcreteTextFormats() {
 		super();
-		setDecimalFormat(new DecimalFormat(DEFAULT_DECIMAL_FORMAT_EXPR), DEFAULT_LOCALE);
 	}
 
 
@@ -54,7 +58,7 @@ public class ConcreteTextFormats implements ElementFormats, Cloneable, TextForma
 	 * @see info.bioinfweb.treegraph.document.format.TextFormats#setFontName(java.lang.String)
 	 */
 	public void setFontName(String fontName) {
-		this.fontName = fontName;
+		this.fontName = FormatInstancePool.internFontName(fontName);
 	}
 
 
@@ -116,9 +120,7 @@ public class ConcreteTextFormats implements ElementFormats, Cloneable, TextForma
 	
 	public Font getFont(float pixelsPerMillimeter) {  
 		float textHeight = getTextHeight().getInPixels(pixelsPerMillimeter);
-		int style = getTextStyle() & ~UNDERLINE;
-		return new Font(getFontName(), style, 1).deriveFont(
-				FontCalculator.getInstance().getFontSizeByTextHeight(textHeight, getFontName(), style));
+		return TextMetricsCache.getInstance().getFontByTextHeight(getFontName(), getTextStyle() & ~UNDERLINE, textHeight);
 	}
 
 
@@ -134,7 +136,7 @@ public class ConcreteTextFormats implements ElementFormats, Cloneable, TextForma
 	 * @see info.bioinfweb.treegraph.document.format.TextFormats#setTextColor(java.awt.Color)
 	 */
 	public void setTextColor(Color textColor) {
-		this.textColor = textColor;
+		this.textColor = FormatInstancePool.internColor(textColor);
 	}
 	
 	
@@ -150,8 +152,8 @@ public class ConcreteTextFormats implements ElementFormats, Cloneable, TextForma
 	 * @see info.bioinfweb.treegraph.document.format.TextFormats#setLocale(java.util.Locale)
 	 */
 	public void setLocale(Locale locale) {
-		decimalFormat.setDecimalFormatSymbols(new DecimalFormatSymbols(locale));
-		this.locale = (Locale)locale.clone();
+		decimalFormat = FormatInstancePool.internDecimalFormat(decimalFormat, locale);  // The shared instance must not be modified.
+		this.locale = FormatInstancePool.internLocale(locale);
 	}
 
 
@@ -168,7 +170,7 @@ public class ConcreteTextFormats implements ElementFormats, Cloneable, TextForma
 	 */
 	public void setDecimalFormat(DecimalFormat decimalFormat, Locale locale) {
 		if ((decimalFormat != null) && (locale != null)) {
-			this.decimalFormat = (DecimalFormat)decimalFormat.clone();
+			this.decimalFormat = decimalFormat;
 			setLocale(locale);
 		}
 		else {
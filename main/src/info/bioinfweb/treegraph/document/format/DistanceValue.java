@@ -28,6 +28,9 @@ import info.bioinfweb.commons.*;
  * millimeters (mm) but can be converted tp pixels (px) and DTP-Points (pt). Converting
  * values in millimeters to pixels depends on the resolution (e.g. dpi) of the generated image
  * or the zoom factor of the view displaying the document.
+ * <p>
+ * All methods access the stored value only via {@link #getInMillimeters()} and {@link #setInMillimeters(float)}.
+ * Inherited classes may therefore overwrite these two methods to store the value elsewhere. 
  * 
  * @author Ben St&ouml;ver
  */
@@ -57,18 +60,18 @@ public class DistanceValue implements Cloneable {
   
   
 	public float getInPixels(float pixelsPerMillimeter) {
-		return millimeters * pixelsPerMillimeter;
+		return getInMillimeters() * pixelsPerMillimeter;
 	}
 
 	
 	/** Returns the rounded-up value in pixels. */
 	public int getRoundedInPixels(float pixelsPerMillimeter) {
-		return Math2.roundUp(millimeters * pixelsPerMillimeter);
+		return Math2.roundUp(getInMillimeters() * pixelsPerMillimeter);
 	}
 
 	
 	public void setInPixels(float value, float pixelsPerMillimeter) {
-		this.millimeters = pixelsToMillimeters(value, pixelsPerMillimeter);
+		setInMillimeters(pixelsToMillimeters(value, pixelsPerMillimeter));
 	}
   
   
@@ -78,12 +81,12 @@ public class DistanceValue implements Cloneable {
 	 * @return value in DTP-Points
 	 */
 	public float getInPoints() {
-		return millimeters * POINTS_PER_MM;
+		return getInMillimeters() * POINTS_PER_MM;
 	}
 
 	
 	public void setInPoints(float value) {
-		millimeters = value / POINTS_PER_MM;
+		setInMillimeters(value / POINTS_PER_MM);
 	}
 
 
@@ -143,7 +146,7 @@ public class DistanceValue implements Cloneable {
 		final int PRIME = 31;
 		int result = 1;
 		long temp;
-		temp = Double.doubleToLongBits(millimeters);
+		temp = Double.doubleToLongBits(getInMillimeters());
 		result = PRIME * result + (int) (temp ^ (temp >>> 32));
 		return result;
 	}
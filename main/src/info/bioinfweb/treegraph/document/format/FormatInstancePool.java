@@ -0,0 +1,176 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.format;
+
+
+import java.awt.Color;
+import java.lang.ref.WeakReference;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+
+
+/**
+ * Provides shared (interned) instances of the values referenced by format objects, which are identical 
+ * for most elements of a document. Format objects like {@link ConcreteTextFormats} store these instances 
+ * instead of own copies, so that a tree with many nodes does not contain a decimal format, a locale, a font 
+ * name and colors for each of its elements.
+ * <p>
+ * Instances returned by this class are shared by many format objects and must therefore never be modified.
+ * Format objects implement a copy-on-write behavior instead: a setter (e.g. called by an operator from 
+ * {@link info.bioinfweb.treegraph.document.format.operate}) obtains a new shared instance from this pool and 
+ * replaces its reference. Since {@link DecimalFormat} is not thread safe, values must be formatted with shared 
+ * decimal formats using {@link #formatDecimal(DecimalFormat, double)}, which synchronizes on the format instance.
+ * <p>
+ * Decimal formats and colors are only weakly referenced by the pool and are removed if no format object 
+ * uses them anymore.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class FormatInstancePool {
+	private static class DecimalFormatEntry {
+		public final WeakReference<DecimalFormat> format;
+		public final Locale locale;
+		
+		public DecimalFormatEntry(DecimalFormat format, Locale locale) {
+			super();
+			this.format = new WeakReference<DecimalFormat>(format);
+			this.locale = locale;
+		}
+	}
+	
+	
+	private static final Map<DecimalFormat, DecimalFormatEntry> decimalFormats = new WeakHashMap<DecimalFormat, DecimalFormatEntry>();
+	private static final Map<Color, WeakReference<Color>> colors = new WeakHashMap<Color, WeakReference<Color>>();
+	private static final Map<Locale, Locale> locales = new HashMap<Locale, Locale>();
+	private static final Map<String, String> fontNames = new HashMap<String, String>();
+	
+	
+	/**
+	 * Returns a shared decimal format that is equal to the specified format after setting the decimal format 
+	 * symbols according to the specified locale. The specified format is not modified.
+	 * 
+	 * @param format - the decimal format (which is not necessarily shared)
+	 * @param locale - the locale to determine the decimal format symbols
+	 * @return a shared decimal format instance that must not be modified
+	 */
+	public static synchronized DecimalFormat internDecimalFormat(DecimalFormat format, Locale locale) {
+		DecimalFormatEntry entry = decimalFormats.get(format);
+		if ((entry != null) && (entry.format.get() == format) && entry.locale.equals(locale)) {
+			return format;  // format is already the shared instance for this locale.
+		}
+		else {
+			DecimalFormat copy = (DecimalFormat)format.clone();
+			copy.setDecimalFormatSymbols(new DecimalFormatSymbols(locale));
+			entry = decimalFormats.get(copy);
+			DecimalFormat result = null;
+			if (entry != null) {
+				result = entry.format.get();
+			}
+			if (result == null) {
+				result = copy;
+				decimalFormats.put(result, new DecimalFormatEntry(result, internLocale(locale)));
+			}
+			return result;
+		}
+	}
+	
+	
+	/**
+	 * Formats the specified value with a possibly shared decimal format. Since {@link DecimalFormat} is not thread
+	 * safe, this method synchronizes on the format instance. 
+	 * 
+	 * @param format - the decimal format to be used (e.g. a shared instance returned by this class)
+	 * @param value - the value to be formatted
+	 * @return the formatted value
+	 */
+	public static String formatDecimal(DecimalFormat format, double value) {
+		synchronized (format) {
+			return format.format(value);
+		}
+	}
+	
+	
+	/**
+	 * Returns a shared instance of the specified color.
+	 * 
+	 * @param color - the color to be interned (Maybe {@code null}.)
+	 * @return a shared instance equal to {@code color} or {@code color} itself, if it is {@code null} or an instance of 
+	 *         a subclass of {@link Color}
+	 */
+	public static synchronized Color internColor(Color color) {
+		if ((color == null) || !Color.class.equals(color.getClass())) {
+			return color;  // Subclasses may contain additional information that is not considered by equals().
+		}
+		else {
+			WeakReference<Color> reference = colors.get(color);
+			Color result = null;
+			if (reference != null) {
+				result = reference.get();
+			}
+			if (result == null) {
+				result = color;
+				colors.put(result, new WeakReference<Color>(result));
+			}
+			return result;
+		}
+	}
+	
+	
+	/**
+	 * Returns a shared instance of the specified locale.
+	 * 
+	 * @param locale - the locale to be interned
+	 * @return a shared instance equal to {@code locale}
+	 */
+	public static synchronized Locale internLocale(Locale locale) {
+		Locale result = locales.get(locale);
+		if (result == null) {
+			result = locale;
+			locales.put(result, result);
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Returns a shared instance of the specified font name.
+	 * 
+	 * @param fontName - the font name to be interned (Maybe {@code null}.)
+	 * @return a shared instance equal to {@code fontName}
+	 */
+	public static synchronized String internFontName(String fontName) {
+		if (fontName == null) {
+			return null;
+		}
+		else {
+			String result = fontNames.get(fontName);
+			if (result == null) {
+				result = fontName;
+				fontNames.put(result, result);
+			}
+			return result;
+		}
+	}
+}
@@ -54,7 +54,7 @@ public class NodeFormats extends ConcreteTextFormats
 
 
 	public void setLineColor(Color color) {
-		lineColor = color;
+		lineColor = FormatInstancePool.internColor(color);
 	}
 	
 	
@@ -74,12 +74,19 @@ public interface TextFormats extends ElementFormats {
 	 */
 	public void setLocale(Locale locale);
 
+	/**
+	 * Returns the decimal format used to display decimal values. The returned instance may be shared
+	 * with other elements (see {@link FormatInstancePool}) and must not be modified. Use 
+	 * {@link #setDecimalFormat(DecimalFormat, Locale)} instead.
+	 * 
+	 * @return the decimal format
+	 */
 	public DecimalFormat getDecimalFormat();
 
 	/**
 	 * Sets a new decimal format object. The provided local object will be used to determine
-	 * the decimal format symbols. (This means that the decimal formats object may be 
-	 * changed after being passed here.)
+	 * the decimal format symbols. (The decimal formats object passed here is not changed, but
+	 * a shared copy with the according symbols is stored.)
 	 * @param decimalFormat - the new decimal format object
 	 * @param locale - the locale object which was used to create the new decimal formats
 	 * @throws IllegalArgumentException if one of the parameters is <code>null</code>
@@ -45,7 +45,6 @@ public class DecimalFormatOperator extends AbstractTextOperator {
 
 	@Override
 	protected void doApplyTo(ElementFormats format) {
-		((TextFormats)format).setDecimalFormat((DecimalFormat)decimalFormat.clone(),
-				(Locale)locale.clone());
+		((TextFormats)format).setDecimalFormat(decimalFormat, locale);  // A shared copy is stored by the format object. (Copy on write)
 	}
 }
\ No newline at end of file
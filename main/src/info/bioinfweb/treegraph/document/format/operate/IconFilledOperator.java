@@ -28,7 +28,7 @@ import info.bioinfweb.treegraph.document.format.IconLabelFormats;
  * @author Ben St&ouml;ver
  * @since 2.0.25
  */
-public class IconFilledOperator extends AbstractIconLabelOperator implements FormatOperator {
+public class IconFilledOperator extends AbstractIconLabelOperator implements PositionNeutralOperator {
   private boolean iconFilled;
 
   
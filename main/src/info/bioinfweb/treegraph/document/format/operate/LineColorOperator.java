@@ -26,7 +26,7 @@ import java.awt.Color;
 
 
 
-public class LineColorOperator extends AbstractLineOperator implements FormatOperator {
+public class LineColorOperator extends AbstractLineOperator implements PositionNeutralOperator {
   private Color color = null;
   
   
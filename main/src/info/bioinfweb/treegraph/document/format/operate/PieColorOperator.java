@@ -30,7 +30,7 @@ import info.bioinfweb.treegraph.document.format.PieChartLabelFormats;
  * @author Ben St&ouml;ver
  * @since 2.0.43
  */
-public class PieColorOperator extends AbstractPieChartLabelOperator {
+public class PieColorOperator extends AbstractPieChartLabelOperator implements PositionNeutralOperator {
 	private Color[] colors;
 	
 
@@ -26,7 +26,7 @@ import info.bioinfweb.treegraph.document.format.TextFormats;
 
 
 
-public class TextColorOperator extends AbstractTextOperator implements FormatOperator {
+public class TextColorOperator extends AbstractTextOperator implements PositionNeutralOperator {
   private Color color = null;
 
   
@@ -110,9 +110,25 @@ public abstract class AbstractDocumentReader implements DocumentReader {
 	public abstract Document readDocument(BufferedInputStream stream) throws Exception;
 
 
+	/**
+	 * Reads the document from the specified file. This default implementation delegates to 
+	 * {@link #readDocument(BufferedInputStream)}. Readers that can make use of random access to the file 
+	 * may overwrite this method.
+	 * 
+	 * @param file the file to read from
+	 * @return the document that was read
+	 * @since 2.16.0
+	 */
+	protected Document readDocument(File file) throws Exception {
+		return readDocument(new BufferedInputStream(new FileInputStream(file)));
+	}
+	
+	
 	@Override
   public Document read(File file, ReadWriteParameterMap properties) throws Exception {
-		Document result = read(new FileInputStream(file), properties);
+		parameterMap = properties;
+		loadLogger = properties.getApplicationLogger();
+		Document result = readDocument(file);
 		
 		if (saveFileName) {
 			result.setFile(file);
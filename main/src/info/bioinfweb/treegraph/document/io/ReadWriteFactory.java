@@ -21,13 +21,19 @@ package info.bioinfweb.treegraph.document.io;
 
 import info.bioinfweb.treegraph.document.io.jphyloio.NeXMLFactory;
 import info.bioinfweb.treegraph.document.io.newick.NewickFactory;
+import info.bioinfweb.treegraph.document.io.newick.NewickStreamIterator;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringIterator;
 import info.bioinfweb.treegraph.document.io.nexus.NexusFactory;
+import info.bioinfweb.treegraph.document.io.nexus.NexusStreamIterator;
 import info.bioinfweb.treegraph.document.io.phyloxml.PhyloXMLFactory;
 import info.bioinfweb.treegraph.document.io.tgf.TGFFactory;
 import info.bioinfweb.treegraph.document.io.xtg.XTGFactory;
 import info.bioinfweb.treegraph.document.io.xtg.XTGFilter;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.EnumMap;
 
 
@@ -120,6 +126,29 @@ public class ReadWriteFactory {
   }
   
   
+  /**
+   * Creates an iterator that reads the Newick strings contained in the specified Nexus or Newick file one after 
+   * another without creating documents from them.
+   * 
+   * @param file the file to be read
+   * @return the iterator or {@code null} if the specified file is neither a Nexus nor a Newick file
+   * @throws IOException if the file cannot be opened
+   * @since 2.16.0
+   */
+  public NewickStringIterator createNewickStringIterator(File file) throws IOException {
+  	ReadWriteFormat f = formatByFile(file);
+  	if (ReadWriteFormat.NEXUS.equals(f)) {
+  		return new NexusStreamIterator(new InputStreamReader(new FileInputStream(file)));
+  	}
+  	else if (ReadWriteFormat.NEWICK.equals(f)) {
+  		return new NewickStreamIterator(new InputStreamReader(new FileInputStream(file)));
+  	}
+  	else {
+  		return null;
+  	}
+  }
+  
+  
   public boolean hasReader(ReadWriteFormat f) {
   	return factories.get(f).hasReader();
   }
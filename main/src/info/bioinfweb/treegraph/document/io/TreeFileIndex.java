@@ -0,0 +1,718 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io;
+
+
+import info.bioinfweb.treegraph.document.io.newick.NewickStringChars;
+import info.bioinfweb.treegraph.document.io.nexus.NexusCommand;
+import info.bioinfweb.treegraph.document.io.nexus.NexusParser;
+import info.bioinfweb.treegraph.document.io.nexus.TranslTable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+
+
+/**
+ * Stores the positions of all trees in a Nexus or Newick file, so that single trees can be read from the file
+ * without reading or parsing the other trees.
+ * <p>
+ * The index is created by scanning a memory mapped view of the file once. Only the byte offset and length of 
+ * the Newick string of each tree (and the tree names and the position of the translation table in Nexus files)
+ * are stored. The index can be saved in a cache file in a per-user cache directory (see 
+ * {@link #getCacheDirectory()}), which is reused as long as the path, length and modification time of the indexed 
+ * file do not change. No files are written next to the indexed file.
+ * <p>
+ * As done by {@link NexusParser} only the first trees block of a Nexus file is indexed. Newick strings are decoded
+ * using the default charset of the platform, as it is done by the stream based readers.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class TreeFileIndex {
+	public static final String CACHE_FILE_EXTENSION = ".tgidx";
+	
+	private static final int CACHE_FILE_ID = 0x54474958;  // "TGIX"
+	private static final int CACHE_FILE_VERSION = 2;
+	private static final long MAPPING_SIZE = 64 * 1024 * 1024;
+	private static final int INITIAL_CAPACITY = 64;
+	private static final int MAX_BLOCK_NAME_LENGTH = 256;
+	
+	
+	private static volatile File cacheDirectory = new File(System.getProperty("java.io.tmpdir"), 
+			"treegraph-index-" + System.getProperty("user.name"));
+	
+	
+	private File file;
+	private long fileLength;
+	private long lastModified;
+	private boolean nexus;
+	private boolean treesBlockFound = false;
+	private boolean treesBlockTerminated = false;
+	private long translTableOffset = -1;
+	private int translTableLength = 0;
+	private int treeCount = 0;
+	private long[] offsets = new long[INITIAL_CAPACITY];
+	private int[] lengths = new int[INITIAL_CAPACITY];
+	private String[] names = null;
+	
+	
+	private TreeFileIndex(File file) {
+		super();
+		this.file = file;
+		fileLength = file.length();
+		lastModified = file.lastModified();
+	}
+	
+	
+	private static boolean isWhitespace(int c) {
+		return c <= ' ';
+	}
+	
+	
+	private void addTree(long offset, int length, String name) {
+		if (treeCount == offsets.length) {
+			offsets = Arrays.copyOf(offsets, 2 * treeCount);
+			lengths = Arrays.copyOf(lengths, 2 * treeCount);
+			if (names != null) {
+				names = Arrays.copyOf(names, 2 * treeCount);
+			}
+		}
+		offsets[treeCount] = offset;
+		lengths[treeCount] = length;
+		if (names != null) {
+			names[treeCount] = name;
+		}
+		treeCount++;
+	}
+	
+	
+	/**
+	 * Processes the bytes of the indexed file one after another.
+	 */
+	private abstract class Indexer {
+		/**
+		 * Processes the next byte.
+		 * 
+		 * @param c the byte value (0 - 255)
+		 * @param pos the position of the byte in the file
+		 * @return {@code true} if further bytes shall be processed or {@code false} if indexing is complete
+		 */
+		public abstract boolean process(int c, long pos);
+		
+		
+		/**
+		 * Called after the last byte of the file has been processed.
+		 */
+		public void finish() {}
+	}
+	
+	
+	/**
+	 * Indexes files consisting of Newick strings, which are separated in the same way as it is done by 
+	 * {@link info.bioinfweb.treegraph.document.io.newick.NewickStreamIterator}.
+	 */
+	private class NewickIndexer extends Indexer {
+		private boolean inName = false;
+		private boolean inComment = false;
+		private long start = -1;
+		private long lastNonWhitespace = -1;
+		
+		
+		@Override
+		public boolean process(int c, long pos) {
+			if (!isWhitespace(c)) {
+				if (start == -1) {
+					start = pos;
+				}
+				lastNonWhitespace = pos;
+			}
+			
+			if (inName) {
+				inName = (c != NewickStringChars.NAME_DELIMITER);
+			}
+			else if (inComment) {
+				inComment = (c != NewickStringChars.COMMENT_END);
+			}
+			else {
+				switch (c) {
+					case NewickStringChars.NAME_DELIMITER:
+						inName = true;
+						break;
+					case NewickStringChars.COMMENT_START:
+						inComment = true;
+						break;
+					case NewickStringChars.TERMINAL_SYMBOL:
+						addTree(start, (int)(pos + 1 - start), null);
+						start = -1;
+						break;
+				}
+			}
+			return true;
+		}
+
+
+		@Override
+		public void finish() {
+			if (start != -1) {  // Newick string not terminated by ";"
+				addTree(start, (int)(lastNonWhitespace + 1 - start), null);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Indexes the first trees block of a Nexus file. Commands are separated in the same way as it is done by
+	 * {@link info.bioinfweb.treegraph.document.io.nexus.NexusStreamIterator}. Only the names of the commands are 
+	 * stored in memory and the tokens of {@code begin} commands and the names of trees.
+	 */
+	private class NexusIndexer extends Indexer {
+		private boolean inComment = false;
+		private boolean inWord = false;
+		private boolean inTreesBlock = false;
+		private boolean nameStarted = false;
+		private boolean nameEnded = false;
+		private StringBuilder name = new StringBuilder();
+		private StringBuilder blockName = new StringBuilder();
+		private ByteArrayOutputStream treeName = new ByteArrayOutputStream();
+		private boolean isTree = false;
+		private boolean separatorFound = false;
+		private long tokensStart = -1;
+		private long newickStart = -1;
+		private long lastNonWhitespace = -1;
+		
+		
+		private void reset() {
+			nameStarted = false;
+			nameEnded = false;
+			name.setLength(0);
+			blockName.setLength(0);
+			treeName.reset();
+			isTree = false;
+			separatorFound = false;
+			tokensStart = -1;
+			newickStart = -1;
+		}
+		
+		
+		/**
+		 * Processes a byte of the tokens of the current command.
+		 */
+		private void processToken(int c, long pos, boolean delimited) {
+			if (isTree) {
+				if (separatorFound) {
+					if (!isWhitespace(c)) {
+						if (newickStart == -1) {
+							newickStart = pos;
+						}
+						lastNonWhitespace = pos;
+					}
+				}
+				else if (!delimited && (c == NexusParser.KEY_VALUE_SEPERATOR)) {
+					separatorFound = true;
+				}
+				else {
+					treeName.write(c);
+				}
+			}
+			else if (!inTreesBlock && (blockName.length() < MAX_BLOCK_NAME_LENGTH)) {
+				blockName.append((char)c);
+			}
+		}
+		
+		
+		private boolean processCommandEnd(long pos) {
+			String commandName = name.toString().toLowerCase();
+			if (!inTreesBlock) {
+				if (NexusParser.BLOCK_BEGIN_PATTERN.matcher(commandName).matches() && 
+						NexusParser.TREES_PATTERN.matcher(blockName.toString().trim().toLowerCase()).matches()) {
+					
+					inTreesBlock = true;
+					treesBlockFound = true;
+				}
+			}
+			else if (isTree) {
+				if (separatorFound) {
+					String text = new String(treeName.toByteArray(), Charset.defaultCharset()).trim();
+					if (newickStart == -1) {
+						addTree(pos, 0, text);
+					}
+					else {
+						addTree(newickStart, (int)(lastNonWhitespace + 1 - newickStart), text);
+					}
+				}
+			}
+			else if (NexusParser.TRANSL_TABLE_PATTERN.matcher(commandName).matches()) {
+				if ((translTableOffset == -1) && (tokensStart != -1)) {
+					translTableOffset = tokensStart;
+					translTableLength = (int)(pos - tokensStart);
+				}
+			}
+			else if (NexusParser.BLOCK_END_PATTERN.matcher(commandName).matches()) {
+				treesBlockTerminated = true;
+				return false;
+			}
+			reset();
+			return true;
+		}
+		
+		
+		@Override
+		public boolean process(int c, long pos) {
+			if (inComment) {
+				inComment = (c != NexusParser.COMMENT_END);
+				if (nameEnded) {
+					processToken(c, pos, true);
+				}
+			}
+			else if (inWord) {
+				inWord = (c != NexusParser.WORD_DELIMITER);
+				if (nameEnded) {
+					processToken(c, pos, true);
+				}
+				else {
+					name.append((char)c);
+				}
+			}
+			else if (c == NexusParser.COMMAND_END) {
+				return processCommandEnd(pos);
+			}
+			else if (nameEnded) {
+				inComment = (c == NexusParser.COMMENT_START);
+				inWord = (c == NexusParser.WORD_DELIMITER);
+				processToken(c, pos, inComment || inWord);
+			}
+			else if (c == NexusParser.COMMENT_START) {  // Comments inside the name are ignored. 
+				inComment = true;
+			}
+			else if (isWhitespace(c)) {
+				if (nameStarted) {
+					nameEnded = true;
+					tokensStart = pos + 1;
+					isTree = inTreesBlock && 
+							NexusParser.TREE_COMMAND_PATTERN.matcher(name.toString().toLowerCase()).matches();
+				}
+			}
+			else {
+				nameStarted = true;
+				inWord = (c == NexusParser.WORD_DELIMITER);
+				name.append((char)c);
+			}
+			return true;
+		}
+	}
+	
+	
+	/**
+	 * Passes all bytes starting at {@code start} to the specified indexer using memory mapped sections of the file.
+	 */
+	private void scan(FileChannel channel, long start, Indexer indexer) throws IOException {
+		long pos = start;
+		boolean proceed = true;
+		while (proceed && (pos < fileLength)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, 
+					Math.min(MAPPING_SIZE, fileLength - pos));
+			while (proceed && buffer.hasRemaining()) {
+				proceed = indexer.process(buffer.get() & 0xFF, pos);
+				pos++;
+			}
+		}
+		indexer.finish();
+	}
+	
+	
+	/**
+	 * Returns the position behind the Nexus header of the file or -1 if the file does not start with a Nexus header.
+	 */
+	private long findNexusHeaderEnd(FileChannel channel) throws IOException {
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(MAPPING_SIZE, fileLength));
+		while (buffer.hasRemaining() && isWhitespace(buffer.get(buffer.position()) & 0xFF)) {
+			buffer.get();
+		}
+		for (int i = 0; i < NexusParser.FIRST_LINE.length(); i++) {
+			if (!buffer.hasRemaining() || 
+					(Character.toLowerCase((char)(buffer.get() & 0xFF)) != NexusParser.FIRST_LINE.charAt(i))) {
+				
+				return -1;
+			}
+		}
+		return buffer.position();
+	}
+	
+	
+	/**
+	 * Creates a new index by scanning the specified file.
+	 * 
+	 * @param file the Nexus or Newick file to be indexed
+	 * @return the new index
+	 * @throws IOException if the file cannot be read
+	 */
+	public static TreeFileIndex create(File file) throws IOException {
+		TreeFileIndex result = new TreeFileIndex(file);
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			long headerEnd = result.findNexusHeaderEnd(channel);
+			result.nexus = (headerEnd != -1);
+			if (result.nexus) {
+				result.names = new String[INITIAL_CAPACITY];
+				result.scan(channel, headerEnd, result.new NexusIndexer());
+			}
+			else {
+				result.scan(channel, 0, result.new NewickIndexer());
+			}
+		}
+		finally {
+			randomAccessFile.close();
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Returns the directory where index files are cached. By default this is a user specific directory in the 
+	 * temporary directory of the system.
+	 * 
+	 * @return the cache directory or {@code null} if indices are not cached
+	 */
+	public static File getCacheDirectory() {
+		return cacheDirectory;
+	}
+
+
+	/**
+	 * Sets the directory where index files are cached. The directory is created when the first index is saved.
+	 * 
+	 * @param cacheDirectory the new cache directory or {@code null} if indices shall not be stored at all
+	 */
+	public static void setCacheDirectory(File cacheDirectory) {
+		TreeFileIndex.cacheDirectory = cacheDirectory;
+	}
+
+
+	/**
+	 * Returns the file in the cache directory that is used to store the index of the specified file. Its name is
+	 * derived from the absolute path of the indexed file.
+	 * 
+	 * @param file the indexed file
+	 * @return the cache file or {@code null} if no cache directory is set
+	 */
+	public static File getCacheFile(File file) {
+		File directory = getCacheDirectory();
+		if (directory == null) {
+			return null;
+		}
+		else {
+			return new File(directory, UUID.nameUUIDFromBytes(
+					file.getAbsolutePath().getBytes(Charset.forName("UTF-8"))).toString() + CACHE_FILE_EXTENSION);
+		}
+	}
+	
+	
+	/**
+	 * Loads the index of the specified file from its cache file.
+	 * 
+	 * @param file the indexed file
+	 * @return the index or {@code null} if no cache file exists or if it does not match the current path,
+	 *         length and modification time of {@code file} 
+	 * @throws IOException if the cache file exists but cannot be read
+	 */
+	public static TreeFileIndex load(File file) throws IOException {
+		File cacheFile = getCacheFile(file);
+		if ((cacheFile != null) && cacheFile.isFile()) {
+			DataInputStream stream = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)));
+			try {
+				TreeFileIndex result = new TreeFileIndex(file);
+				if ((stream.readInt() == CACHE_FILE_ID) && (stream.readInt() == CACHE_FILE_VERSION) && 
+						stream.readUTF().equals(file.getAbsolutePath()) &&  // Different paths might have the same cache file.
+						(stream.readLong() == result.fileLength) && (stream.readLong() == result.lastModified)) {
+					
+					result.nexus = stream.readBoolean();
+					result.treesBlockFound = stream.readBoolean();
+					result.treesBlockTerminated = stream.readBoolean();
+					result.translTableOffset = stream.readLong();
+					result.translTableLength = stream.readInt();
+					result.treeCount = stream.readInt();
+					result.offsets = new long[Math.max(1, result.treeCount)];
+					result.lengths = new int[result.offsets.length];
+					if (result.nexus) {
+						result.names = new String[result.offsets.length];
+					}
+					for (int i = 0; i < result.treeCount; i++) {
+						result.offsets[i] = stream.readLong();
+						result.lengths[i] = stream.readInt();
+						if (result.nexus) {
+							result.names[i] = stream.readUTF();
+						}
+					}
+					return result;
+				}
+				else {
+					return null;
+				}
+			}
+			finally {
+				stream.close();
+			}
+		}
+		else {
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Writes this index to the cache file of the indexed file. Nothing is written if no cache directory is set.
+	 * 
+	 * @throws IOException if the cache directory cannot be created or the cache file cannot be written
+	 */
+	public void save() throws IOException {
+		File cacheFile = getCacheFile(file);
+		if (cacheFile == null) {
+			return;
+		}
+		if (!cacheFile.getParentFile().isDirectory() && !cacheFile.getParentFile().mkdirs()) {
+			throw new IOException("The index cache directory \"" + cacheFile.getParent() + "\" could not be created.");
+		}
+		
+		DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cacheFile)));
+		try {
+			stream.writeInt(CACHE_FILE_ID);
+			stream.writeInt(CACHE_FILE_VERSION);
+			stream.writeUTF(file.getAbsolutePath());
+			stream.writeLong(fileLength);
+			stream.writeLong(lastModified);
+			stream.writeBoolean(nexus);
+			stream.writeBoolean(treesBlockFound);
+			stream.writeBoolean(treesBlockTerminated);
+			stream.writeLong(translTableOffset);
+			stream.writeInt(translTableLength);
+			stream.writeInt(treeCount);
+			for (int i = 0; i < treeCount; i++) {
+				stream.writeLong(offsets[i]);
+				stream.writeInt(lengths[i]);
+				if (nexus) {
+					stream.writeUTF(names[i]);
+				}
+			}
+		}
+		finally {
+			stream.close();
+		}
+	}
+	
+	
+	/**
+	 * Returns the index of the specified file. If a valid cache file exists, the index is loaded from there. 
+	 * Otherwise the file is scanned and the new index is stored in the cache directory. Since the cache is only
+	 * an optimization, errors while reading or writing cache files are reported to the error stream, but do not
+	 * prevent creating the index.
+	 * 
+	 * @param file the Nexus or Newick file to be indexed
+	 * @return the index
+	 * @throws IOException if the file cannot be read
+	 */
+	public static TreeFileIndex getInstance(File file) throws IOException {
+		TreeFileIndex result = null;
+		try {
+			result = load(file);
+		}
+		catch (IOException e) {  // Invalid cache files are overwritten below.
+			e.printStackTrace();
+		}
+		
+		if (result == null) {
+			result = create(file);
+			try {
+				result.save();
+			}
+			catch (IOException e) {  // The index can still be used if the cache directory is not writable.
+				e.printStackTrace();
+			}
+		}
+		return result;
+	}
+
+
+	public File getFile() {
+		return file;
+	}
+
+
+	/**
+	 * Determines whether the indexed file is a Nexus file or a file consisting only of Newick strings.
+	 */
+	public boolean isNexus() {
+		return nexus;
+	}
+
+
+	/**
+	 * Determines whether a trees block was found in the indexed Nexus file.
+	 */
+	public boolean isTreesBlockFound() {
+		return treesBlockFound;
+	}
+
+
+	/**
+	 * Determines whether the end of the indexed trees block was found.
+	 */
+	public boolean isTreesBlockTerminated() {
+		return treesBlockTerminated;
+	}
+
+
+	public int getTreeCount() {
+		return treeCount;
+	}
+	
+	
+	/**
+	 * Returns the name of the specified tree as it is defined in a Nexus file or a default name for trees in
+	 * Newick files.
+	 * 
+	 * @param index the index of the tree
+	 * @return the name of the tree
+	 */
+	public String getName(int index) {
+		if (names != null) {
+			return names[index];
+		}
+		else {
+			return "Tree " + index;
+		}
+	}
+	
+	
+	/**
+	 * Returns the names of all trees.
+	 * 
+	 * @see #getName(int)
+	 */
+	public String[] getNames() {
+		String[] result = new String[treeCount];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = getName(i);
+		}
+		return result;
+	}
+	
+	
+	private String readText(FileChannel channel, long offset, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining() && (channel.read(buffer, offset + buffer.position()) != -1)) {}
+		buffer.flip();
+		return Charset.defaultCharset().decode(buffer).toString();
+	}
+	
+	
+	private String terminateNewick(String newick) {
+		if (!newick.endsWith("" + NewickStringChars.TERMINAL_SYMBOL)) {
+			newick += NewickStringChars.TERMINAL_SYMBOL;
+		}
+		return newick;
+	}
+	
+	
+	/**
+	 * Reads the Newick string of the specified tree from the indexed file.
+	 * 
+	 * @param index the index of the tree
+	 * @return the Newick string terminated by {@link NewickStringChars#TERMINAL_SYMBOL}
+	 * @throws IOException if the indexed file cannot be read
+	 */
+	public String readNewick(int index) throws IOException {
+		if ((index < 0) || (index >= treeCount)) {
+			throw new IndexOutOfBoundsException("There is no tree with the index " + index + ".");
+		}
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			return terminateNewick(readText(randomAccessFile.getChannel(), offsets[index], lengths[index]));
+		}
+		finally {
+			randomAccessFile.close();
+		}
+	}
+	
+	
+	/**
+	 * Returns a list view of the Newick strings of all indexed trees. Each string is read from the indexed file 
+	 * when it is requested.
+	 * 
+	 * @return an unmodifiable list of Newick strings
+	 * @throws IllegalStateException if an {@link IOException} occurs while reading a Newick string from the list 
+	 */
+	public List<String> getNewickList() {
+		return new AbstractList<String>() {
+					@Override
+					public String get(int index) {
+						try {
+							return readNewick(index);
+						}
+						catch (IOException e) {
+							throw new IllegalStateException(e);
+						}
+					}
+		
+					@Override
+					public int size() {
+						return getTreeCount();
+					}
+				};
+	}
+	
+	
+	/**
+	 * Reads the translation table of the indexed Nexus file.
+	 * 
+	 * @return the translation table (which is empty if the file contains no translation table)
+	 * @throws IOException if the indexed file cannot be read or the translation table is invalid
+	 */
+	public TranslTable readTranslTable() throws IOException {
+		TranslTable result = new TranslTable();
+		if (translTableOffset != -1) {
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+			try {
+				NexusParser.readTranslTable(new NexusCommand(NexusParser.TRANSL_TABLE_NAME, 
+						readText(randomAccessFile.getChannel(), translTableOffset, translTableLength)), result);
+			}
+			finally {
+				randomAccessFile.close();
+			}
+		}
+		return result;
+	}
+}
@@ -20,9 +20,10 @@ package info.bioinfweb.treegraph.document.io.newick;
 
 
 import java.io.BufferedInputStream;
-import java.io.IOException;
+import java.io.File;
 import java.io.InputStreamReader;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.List;
 
 
 
@@ -34,7 +35,7 @@ import info.bioinfweb.treegraph.document.io.DocumentIterator;
 import info.bioinfweb.treegraph.document.io.DocumentReader;
 import info.bioinfweb.treegraph.document.io.ReadWriteParameterMap;
 import info.bioinfweb.treegraph.document.io.TextStreamReader;
-import info.bioinfweb.treegraph.document.io.nexus.NexusParser;
+import info.bioinfweb.treegraph.document.io.TreeFileIndex;
 import info.bioinfweb.treegraph.document.nodebranchdata.BranchLengthAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NewNodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
@@ -46,19 +47,18 @@ import info.bioinfweb.commons.log.ApplicationLogger;
 
 /**
  * Reads text files consisting only of Newick strings.
+ * <p>
+ * {@link #readDocument(BufferedInputStream)} only splits the file into Newick strings and parses the tree
+ * selected by the {@link info.bioinfweb.treegraph.document.io.TreeSelector} (or trees that are previewed 
+ * there). If a file is read, the Newick strings are not stored, but read from the file using a 
+ * {@link TreeFileIndex}. {@link #createIterator(BufferedInputStream)} reads and parses one tree after another from the 
+ * stream without storing the previous ones.
  * 
  * @author Ben St&ouml;ver
  */
 public class NewickReader extends TextStreamReader implements DocumentReader {
-	private enum Status {
-		FREE,
-		NAME,
-		COMMENT;
-	}
-	
-	
 	private class NewickDocumentIterator extends AbstractDocumentIterator {
-		private InputStreamReader streamReader;
+		private NewickStreamIterator streamIterator;
 		private NewickStringReader newickStringReader = new NewickStringReader(); 
 		
 		
@@ -67,13 +67,13 @@ public class NewickReader extends TextStreamReader implements DocumentReader {
 				NodeBranchDataAdapter branchLengthsAdapter) {
 			
 			super(loadLogger, internalAdapter, branchLengthsAdapter, false);
-			streamReader = reader;
+			streamIterator = new NewickStreamIterator(reader);
 		}
 
 
 		@Override
 		protected Document readNext() throws Exception {
-			String tree = readNextTree(streamReader);
+			String tree = streamIterator.next();
 			if (tree != null) {
 				Document result = createEmptyDocument();
 				result.setTree(newickStringReader.read(
@@ -98,74 +98,6 @@ public class NewickReader extends TextStreamReader implements DocumentReader {
 	}
 	
 	
-	private String terminateNewick(String newick) {
-		if (!newick.endsWith("" + NewickStringChars.TERMINAL_SYMBOL)) {
-			newick += NewickStringChars.TERMINAL_SYMBOL;
-		}
-		return newick;
-	}
-	
-	
-	private String readNextTree(InputStreamReader reader) throws IOException {
-		int code = reader.read();
-		if (code == -1) {  //TODO Wird hier wirklich -1 zurückgegeben, wenn Ende des Streams erreicht ist?
-			return null;
-		}
-		else {
-			StringBuffer result = new StringBuffer(NexusParser.MAX_EXPECTED_COMMAND_LENGTH);
-			
-			Status status = Status.FREE;
-			while (code != -1) {
-				char c = (char)code;
-				result.append(c);
-				switch (status) {
-				  case FREE:
-						switch (result.charAt(result.length() - 1)) {
-						  case NewickStringChars.NAME_DELIMITER:
-			  				status = Status.NAME;
-			  				break;
-						  case NewickStringChars.COMMENT_START:
-			  				status = Status.COMMENT;
-			  				break;
-						  case NewickStringChars.TERMINAL_SYMBOL:
-						  	return result.toString();
-						}
-						break;
-				  case NAME:
-				  	if (c == NewickStringChars.NAME_DELIMITER) {
-				  		status = Status.FREE;
-				  	}
-				  	break;
-				  case COMMENT:
-				  	if (c == NewickStringChars.COMMENT_END) {
-				  		status = Status.FREE;
-				  	}
-				  	break;
-				}
-				code = reader.read();
-			}
-			String newick = result.toString().trim();
-			if (newick.equals("")) {
-				return null;  // null should be returned already here, because the file could end with whitespaces
-			}
-			else {
-				return terminateNewick(newick);  // If end of file was reached without a terminal symbol, the sequence until then is returned.
-			}
-		}
-	}
-	
-	
-	private String[] splitDocument(InputStreamReader reader) throws IOException {
-  	LinkedList<String> result = new LinkedList<String>();
-		String tree = readNextTree(reader);
-		while (tree != null) {
-			result.add(tree);
-			tree = readNextTree(reader);
-		}
-		return result.toArray(new String[result.size()]);		
-	}
-	
-	
 	public static void displayHiddenDataMessage(ApplicationLogger logger, int helpCode) {
 		logger.addMessage("The imported Newick string contained comments inside the tree " +
 						"definitions which have been imported as hidden branch data column(s). (See table right of the tree.) You can select " +
@@ -189,50 +121,78 @@ public class NewickReader extends TextStreamReader implements DocumentReader {
 	}
 	
 	
+	private NewickTreeList createTreeList(List<String> newick) {
+		return new NewickTreeList(newick,
+				parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_INTERNAL_NODE_NAMES_ADAPTER, 
+						NodeNameAdapter.getSharedInstance()),
+				parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_BRANCH_LENGTH_ADAPTER, 
+						BranchLengthAdapter.getSharedInstance()),
+				null, false);  // no translation table available in Newick format 
+	}
+	
+	
+	private Document createDocument(String[] names, NewickTreeList trees) {
+		Document result = createEmptyDocument();
+		int index = parameterMap.getTreeSelector().select(names, trees.treesAsList());
+		result.setTree(trees.getTree(index));
+		
+		NodeBranchDataAdapter supportAdapter = parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_INTERNAL_NODE_NAMES_ADAPTER, 
+				NodeNameAdapter.getSharedInstance());
+		setDefaultSupportAdapter(result, supportAdapter, index, trees);
+		
+		if (trees.getHiddenDataAdded(index)) {
+			displayHiddenDataMessage(parameterMap.getApplicationLogger(), 75);
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Reads the tree selected by the tree selector using a {@link TreeFileIndex} of the specified file. Only the 
+	 * selected tree (and trees previewed in the selector) are read from the file and parsed.
+	 */
+	@Override
+	protected Document readDocument(File file) throws Exception {
+		TreeFileIndex index = TreeFileIndex.getInstance(file);
+		if (index.isNexus()) {
+			return super.readDocument(file);  // Let the parser handle the invalid content the same way as before. 
+		}
+		else {
+			return createDocument(index.getNames(), createTreeList(index.getNewickList()));
+		}
+	}
+	
+	
 	@Override
   public Document readDocument(BufferedInputStream stream) throws Exception {
-		Document result = createEmptyDocument();
-		InputStreamReader reader = new InputStreamReader(stream);
+		NewickStreamIterator iterator = new NewickStreamIterator(new InputStreamReader(stream));
 		try {
-			String[] parts = splitDocument(reader);
+			List<String> newickStrings = new ArrayList<String>();
+			String newick = iterator.next();
+			while (newick != null) {
+				newickStrings.add(newick);
+				newick = iterator.next();
+			}
 	
-		  String[] names = new String[parts.length];
+		  String[] names = new String[newickStrings.size()];
 			for (int i = 0; i < names.length; i++) {
 				names[i] = "Tree " + i;
 			}
-			NewickTreeList trees = NewickStringReader.read(
-					parts,
-					parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_INTERNAL_NODE_NAMES_ADAPTER, 
-							NodeNameAdapter.getSharedInstance()),
-					parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_BRANCH_LENGTH_ADAPTER, 
-							BranchLengthAdapter.getSharedInstance()),
-					null, false);  // no translation table available in Newick format 
-			
-			int index = parameterMap.getTreeSelector().select(names, trees.treesAsList());
-			result.setTree(trees.getTree(index));
-			
-			NodeBranchDataAdapter supportAdapter = parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_INTERNAL_NODE_NAMES_ADAPTER, 
-					NodeNameAdapter.getSharedInstance());
-			setDefaultSupportAdapter(result, supportAdapter, index, trees);
-			
-			if (trees.getHiddenDataAdded(index)) {
-				displayHiddenDataMessage(parameterMap.getApplicationLogger(), 75);
-			}
+			return createDocument(names, createTreeList(newickStrings));
 		}
 		finally {
-			reader.close();
-		}
-		return result;
+			iterator.close();
+		}
 	}
 	
 	
 	@Override
   public DocumentIterator createIterator(BufferedInputStream stream) {
-	  InputStreamReader reader = new InputStreamReader(new BufferedInputStream(stream));
+	  InputStreamReader reader = new InputStreamReader(stream);
   	return new NewickDocumentIterator(reader, loadLogger,  
   			parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_INTERNAL_NODE_NAMES_ADAPTER, 
 						NodeNameAdapter.getSharedInstance()),
-				parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_INTERNAL_NODE_NAMES_ADAPTER, 
+				parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_BRANCH_LENGTH_ADAPTER, 
 						BranchLengthAdapter.getSharedInstance()));
   }
 }
\ No newline at end of file
@@ -21,21 +21,22 @@ package info.bioinfweb.treegraph.document.io.newick;
 
 import info.bioinfweb.treegraph.document.io.nexus.NexusParser;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Vector;
 
 
 
 public class NewickScanner extends NewickStringChars {
 	private static NewickToken readFreeName(final String text, int start) {
-		String result = "" + text.charAt(start);
+		StringBuilder result = new StringBuilder();
+		result.append(text.charAt(start));
 		int pos = start + 1;
 		while ((pos < text.length()) && isFreeNameChar((text.charAt(pos)))) {
 			if (text.charAt(pos) == FREE_NAME_BLANK) {
-				result += ' ';
+				result.append(' ');
 			}
 			else {
-				result += text.charAt(pos);
+				result.append(text.charAt(pos));
 			}
 			pos++;
 		}
@@ -44,7 +45,7 @@ public class NewickScanner extends NewickStringChars {
 			throw NewickException.getUnterminatedNameException(start, text);
 		}
 		else {
-			return new NewickToken(start, result, false);  //TODO end - 1?
+			return new NewickToken(start, result.toString(), false);  //TODO end - 1?
 		}
 	}
 	
@@ -52,14 +53,14 @@ public class NewickScanner extends NewickStringChars {
 	private static int readDelimitedName(final String text, int start, NewickToken token) {
 		start++;  // NAME_DELIMITER am Anfang überspringen.
 		int pos = start;
-		String result = "";
+		StringBuilder result = new StringBuilder();
 		do {
 			while ((pos < text.length()) && (text.charAt(pos) != NAME_DELIMITER)) {
-				result += text.charAt(pos);
+				result.append(text.charAt(pos));
 				pos++;
 			}
 			if ((pos + 1 < text.length()) && (text.charAt(pos + 1) == NAME_DELIMITER)) {
-				result += NAME_DELIMITER;  // Ermöglichen von 'abc'''
+				result.append(NAME_DELIMITER);  // Ermöglichen von 'abc'''
 				pos +=2;
 			}
 		} while (pos < text.length() && (text.charAt(pos) != NAME_DELIMITER));
@@ -68,7 +69,7 @@ public class NewickScanner extends NewickStringChars {
 			throw NewickException.getUnterminatedNameException(start, text);
 		}
 		else {
-			token.setText(result);
+			token.setText(result.toString());
 			token.setDelimited(true);
 			return pos;
 		}
@@ -114,9 +115,7 @@ public class NewickScanner extends NewickStringChars {
 	private static int readComment(final String text, int start, List<NewickToken> tokenList) {
 		start++;  // COMMENT_START am Anfang �berspringen.
 		int pos = start;
-		String result = "";
 		while ((pos < text.length()) && (text.charAt(pos) != COMMENT_END)) {
-			result += text.charAt(pos);
 			pos++;
 		}
 		
@@ -124,6 +123,7 @@ public class NewickScanner extends NewickStringChars {
 			throw NewickException.getUnterminatedCommentException(start, text);
 		}
 		else {
+			String result = text.substring(start, pos);
 			if (result.toLowerCase().equals(NexusParser.UNROOTED_HOT_COMMENT)) {
 				tokenList.add(new NewickToken(TokenType.UNROOTED_COMMAND, start));
 			}
@@ -139,7 +139,7 @@ public class NewickScanner extends NewickStringChars {
 		
 	
  	public static List<NewickToken> parse(final String text) {
-		List<NewickToken> result = new Vector<NewickToken>();
+		List<NewickToken> result = new ArrayList<NewickToken>();
 		
 		NewickToken token;
 		int pos = 0;
@@ -0,0 +1,133 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io.newick;
+
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import info.bioinfweb.treegraph.document.io.nexus.TranslTable;
+
+
+
+/**
+ * Reads the Newick strings contained in a text file consisting only of Newick strings one after another. The 
+ * characters of the stream are buffered and a single string builder is reused for all trees.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class NewickStreamIterator implements NewickStringIterator {
+	private static final int INITIAL_TREE_LENGTH = 4 * 1024;
+	
+	
+	private enum Status {
+		FREE,
+		NAME,
+		COMMENT;
+	}
+	
+	
+	private Reader reader;
+	private StringBuilder buffer = new StringBuilder(INITIAL_TREE_LENGTH);
+	
+	
+	public NewickStreamIterator(Reader reader) {
+		super();
+		if (reader instanceof BufferedReader) {
+			this.reader = reader;
+		}
+		else {
+			this.reader = new BufferedReader(reader);
+		}
+	}
+
+
+	private static String terminateNewick(String newick) {
+		if (!newick.endsWith("" + NewickStringChars.TERMINAL_SYMBOL)) {
+			newick += NewickStringChars.TERMINAL_SYMBOL;
+		}
+		return newick;
+	}
+	
+	
+	@Override
+	public String next() throws IOException {
+		int code = reader.read();
+		if (code == -1) {
+			return null;
+		}
+		else {
+			buffer.setLength(0);
+			Status status = Status.FREE;
+			while (code != -1) {
+				char c = (char)code;
+				buffer.append(c);
+				switch (status) {
+				  case FREE:
+						switch (c) {
+						  case NewickStringChars.NAME_DELIMITER:
+			  				status = Status.NAME;
+			  				break;
+						  case NewickStringChars.COMMENT_START:
+			  				status = Status.COMMENT;
+			  				break;
+						  case NewickStringChars.TERMINAL_SYMBOL:
+						  	return buffer.toString();
+						}
+						break;
+				  case NAME:
+				  	if (c == NewickStringChars.NAME_DELIMITER) {
+				  		status = Status.FREE;
+				  	}
+				  	break;
+				  case COMMENT:
+				  	if (c == NewickStringChars.COMMENT_END) {
+				  		status = Status.FREE;
+				  	}
+				  	break;
+				}
+				code = reader.read();
+			}
+			String newick = buffer.toString().trim();
+			if (newick.equals("")) {
+				return null;  // null should be returned already here, because the file could end with whitespaces
+			}
+			else {
+				return terminateNewick(newick);  // If end of file was reached without a terminal symbol, the sequence until then is returned.
+			}
+		}
+	}
+
+
+	/**
+	 * Always returns {@code null} since the Newick format does not support translation tables.
+	 */
+	@Override
+	public TranslTable getTranslTable() {
+		return null;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
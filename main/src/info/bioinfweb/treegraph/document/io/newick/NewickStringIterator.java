@@ -0,0 +1,54 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io.newick;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import info.bioinfweb.treegraph.document.io.nexus.TranslTable;
+
+
+
+/**
+ * Interface for all classes that read the Newick strings of a multiple tree file one after another without 
+ * creating {@link info.bioinfweb.treegraph.document.Tree} instances from them. Implementations should only keep the 
+ * current tree string in memory, so that files with an arbitrary number of trees can be processed.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public interface NewickStringIterator extends Closeable {
+	/**
+	 * Returns the next Newick string of the underlying source.
+	 * 
+	 * @return the next Newick string (terminated by {@link NewickStringChars#TERMINAL_SYMBOL}) or {@code null} if
+	 *         no further trees are available
+	 * @throws IOException if an error occurs while reading from the underlying source
+	 */
+	public String next() throws IOException;
+	
+	/**
+	 * Returns the translation table that has to be applied to the Newick string that was returned by the last call 
+	 * of {@link #next()}.
+	 * 
+	 * @return the translation table or {@code null} if the underlying format does not support translation tables 
+	 */
+	public TranslTable getTranslTable();
+}
@@ -48,10 +48,18 @@ import java.util.*;
  * <p>
  * Note that this grammar differs from the usual Newick grammar because it allows
  * the root node to have a branch length.
+ * <p>
+ * The token list is processed in a single pass without recursion, so that the time needed to read 
+ * a tree is linear in the length of the Newick string, independent of the tree topology.
  * 
  * @author Ben St&ouml;ver
  */
 public class NewickStringReader extends NewickStringChars {
+	private static enum ParserState {
+		BRANCH_EXPECTED, NAME_EXPECTED, LENGTH_EXPECTED, SEPARATOR_EXPECTED;
+	}
+	
+	
 	public static final NodeNameAdapter LEAF_ADAPTER = NodeNameAdapter.getSharedInstance();
 	public static final BranchLengthAdapter BRANCH_LENGTH_ADAPTER = 
 		  BranchLengthAdapter.getSharedInstance();
@@ -69,41 +77,6 @@ public class NewickStringReader extends NewickStringChars {
 	private BranchLengthsScaler branchLengthsScaler = new BranchLengthsScaler();
   
 	
-  private int searchSubtreeEnd(int start, int end) {
-  	for (int pos = start; pos <= end; pos++) {
-  		TokenType type = tokens.get(pos).getType(); 
-			if (type.equals(TokenType.SUBTREE_END)) {
-				return pos;
-			}
-			else if (type.equals(TokenType.SUBTREE_START)) {
-				pos = searchSubtreeEnd(pos + 1, end);
-				if (pos == -1) {  // Sonst würde diese Rekursionsebene die Suche wieder von Neuem beginnen.
-					return -1;
-				}
-			}
-		}
-  	return -1;
-  }
- 	
- 	
- 	private int searchToken(int start, int end, TokenType type) {
-  	for (int pos = start; pos <= end; pos++) {
-			if (tokens.get(pos).getType().equals(type)) {
-				return pos;
-			}
-			else {
-				if (tokens.get(pos).getType().equals(TokenType.SUBTREE_START)) {
-					pos = searchSubtreeEnd(pos + 1, end);
-					if (pos == -1) {  // otherwise the search would start again on the same recursion level
-						return -1;
-					}
-				}
-			}
-  	}
-  	return -1;  	
-  }
- 	
- 	
  	private void readHotComment(String comment, Node node, boolean isOnNode) {
   	try {
   		commentDataReader.read(comment, node, isOnNode);
@@ -113,109 +86,129 @@ public class NewickStringReader extends NewickStringChars {
  	}
  	
   
-  private Node readBranch(int start, int end, Node root) throws NewickException {
-  	if (tokens.get(end).getType().equals(TokenType.LENGTH)) {
-  		Node result = readSubtree(start, end - 1);
-  		branchLengthsAdapter.setDecimal(result, tokens.get(end).getLength());
-  		readHotComment(tokens.get(end).getComment(), result, false);
-  		return result;
-  	}
-  	else {
-  		return readSubtree(start, end);
-  	}  	
-  }
- 	 	
- 	
- 	private void readBranchList(int start, int end,	Node root) throws NewickException {
-  	int branchEnd = searchToken(start, end, TokenType.ELEMENT_SEPARATOR);
-  	if (branchEnd == -1) {
-  		branchEnd = end;
-  	}
-  	else {
-  		branchEnd--;  // Vor ELEMENT_SEPERATOR setzen
-  	}
-  	
-  	Node child = readBranch(start, branchEnd, root);  // erstes Unterelement lesen
-  	child.setParent(root);
-  	root.getChildren().add(child);
-  	if (branchEnd < end) {  // Rekursionsbedingung
-  		readBranchList(branchEnd + 2, end, root);
-  	}
-  }
-  
- 	
-  private void readName(int previousEnd, int end,	Node root, NodeBranchDataAdapter adapter, 
-  		TranslTable translTable) throws NewickException {
-
-  	readHotComment(tokens.get(end).getComment(), root, true);
-  	
-  	if (previousEnd == end - 1) {
-  		if (tokens.get(end).getType().equals(TokenType.NAME)) {
-  			String text = tokens.get(end).getText();
-  			if ((translTable != null) && !tokens.get(end).wasDelimited()) {
-    			String newText = translTable.get(text);
-    			if (newText != null) {
-    				text = newText;
-    			}
-    			else if (Math2.isInt(text)) {  // Ist die Zahl als Bezeichner nicht im TransTable vorhanden, gibt sie laut Maddison et.al. den Index im TransTable an, sofern sie innerhalb dieses Bereichs liegt. 
-    				int pos = Integer.parseInt(text);
-    				if (Math2.isBetween(pos, 0, translTable.size() - 1)) {
-    					text = translTable.get(pos);
-    				}
-    			}
-  			}
-  			
-  			try {
-    			adapter.setDecimal(root, Double.parseDouble(text));
-    			internalNamesAdded = true;
-  			}
-  			catch (NumberFormatException e) {
-    			adapter.setText(root, text);
-    			internalNamesAdded = true;
-  			}
-  		}
-  	}
-  	else if (previousEnd != end) {  // kein Name angegeben aber trotzdem Token vorhanden  
-  		throw new NewickException(tokens.get(previousEnd + 2), newickDescription);  //TODO vorher stand hier "+ 1". So in Funktion z.B. für direkt aufeinander folgende Namen, aber was war mit Kommentar oben gemeint?
-  	}
-  }
- 	
- 	
- 	private Node readInternal(int start, int end) throws NewickException {
- 		if (tokens.get(start).getType().equals(TokenType.SUBTREE_START)) {
- 	 		int subtreeEnd = searchToken(start + 1, end, TokenType.SUBTREE_END);
- 			Node root = Node.newInstanceWithBranch();
- 			readBranchList(start + 1, subtreeEnd - 1, root);
- 			if (translateInternals) {
- 				readName(subtreeEnd, end, root, internalAdapter, translTable);
- 			}
- 			else {
- 				readName(subtreeEnd, end, root, internalAdapter, null);
- 			}
- 			return root;
- 		}
- 		else {
- 			throw new NewickException(tokens.get(start).getTextPos(), newickDescription, 
- 					TokenType.SUBTREE_START, tokens.get(start).getType());
- 		}
- 	}
- 	
- 	
- 	private Node readLeaf(int start, int end) throws NewickException {
- 		Node result = Node.newInstanceWithBranch();
- 		readName(start - 1, end, result, LEAF_ADAPTER, translTable);
- 		return result;
- 	}
- 	
- 	
- 	private Node readSubtree(int start, int end) throws NewickException{
- 		if (tokens.get(start).getType().equals(TokenType.SUBTREE_START)) {
-			return readInternal(start, end);
- 		}
- 		else {
- 			return readLeaf(start, end);
- 		}
-  }
+	private void readName(NewickToken token, Node node, NodeBranchDataAdapter adapter, 
+			TranslTable translTable) {
+		
+		readHotComment(token.getComment(), node, true);
+		if (token.getType().equals(TokenType.NAME)) {
+			String text = token.getText();
+			if ((translTable != null) && !token.wasDelimited()) {
+				String newText = translTable.get(text);
+				if (newText != null) {
+					text = newText;
+				}
+				else if (Math2.isInt(text)) {  // Numbers that are not contained in the table specify the index in the table according to Maddison et.al., if they are in the valid range.
+					int pos = Integer.parseInt(text);
+					if (Math2.isBetween(pos, 0, translTable.size() - 1)) {
+						text = translTable.get(pos);
+					}
+				}
+			}
+			
+			try {
+				adapter.setDecimal(node, Double.parseDouble(text));
+			}
+			catch (NumberFormatException e) {
+				adapter.setText(node, text);
+			}
+			internalNamesAdded = true;
+		}
+	}
+	
+	
+	/**
+	 * Reads the subtree described by the tokens between {@code start} and {@code end} in a single pass. 
+	 * Internal nodes which are not yet completed are stored in a stack and each node is attached to its
+	 * parent as soon as its branch is completed. Therefore the runtime is linear in the number of tokens 
+	 * and the nesting depth of the tree does not influence the depth of the call stack. 
+	 * 
+	 * @param start the index of the first token of the subtree (must be a {@link TokenType#SUBTREE_START} token)
+	 * @param end the index of the last token of the subtree (including an optional name and length)
+	 * @return the root of the subtree
+	 * @throws NewickException if the token sequence does not match the grammar
+	 */
+	private Node readSubtree(int start, int end) throws NewickException {
+		TranslTable internalTranslTable = null;
+		if (translateInternals) {
+			internalTranslTable = translTable;
+		}
+		
+		Deque<Node> openNodes = new ArrayDeque<Node>();  // internal nodes whose SUBTREE_END was not yet reached
+		Node current = null;  // the node whose name or branch length is currently read
+		ParserState state = ParserState.BRANCH_EXPECTED;
+		int pos = start;
+		while (pos <= end) {
+			NewickToken token = tokens.get(pos);
+			TokenType type = token.getType();
+			boolean consumed = true;
+			switch (state) {
+				case BRANCH_EXPECTED:
+					if (type.equals(TokenType.SUBTREE_START)) {
+						openNodes.push(Node.newInstanceWithBranch());
+					}
+					else {
+						current = Node.newInstanceWithBranch();
+						if (type.equals(TokenType.NAME)) {
+							readName(token, current, LEAF_ADAPTER, translTable);
+						}
+						else {  // unnamed leaf (comments of the previous token are assigned to it)
+							readName(tokens.get(pos - 1), current, LEAF_ADAPTER, translTable);
+							consumed = false;
+						}
+						state = ParserState.LENGTH_EXPECTED;
+					}
+					break;
+				case NAME_EXPECTED:
+					if (type.equals(TokenType.NAME)) {
+						readName(token, current, internalAdapter, internalTranslTable);
+					}
+					else {  // read comments attached to the SUBTREE_END token
+						readName(tokens.get(pos - 1), current, internalAdapter, internalTranslTable);
+						consumed = false;
+					}
+					state = ParserState.LENGTH_EXPECTED;
+					break;
+				case LENGTH_EXPECTED:
+					if (type.equals(TokenType.LENGTH)) {
+						branchLengthsAdapter.setDecimal(current, token.getLength());
+						readHotComment(token.getComment(), current, false);
+					}
+					else {
+						consumed = false;
+					}
+					state = ParserState.SEPARATOR_EXPECTED;
+					break;
+				case SEPARATOR_EXPECTED:
+					if (openNodes.isEmpty() || !(type.equals(TokenType.ELEMENT_SEPARATOR) || 
+							type.equals(TokenType.SUBTREE_END))) {
+						
+						throw new NewickException(token, newickDescription);
+					}
+					Node parent = openNodes.peek();
+					current.setParent(parent);
+					parent.getChildren().add(current);
+					if (type.equals(TokenType.ELEMENT_SEPARATOR)) {
+						state = ParserState.BRANCH_EXPECTED;
+					}
+					else {
+						current = openNodes.pop();
+						state = ParserState.NAME_EXPECTED;
+					}
+					break;
+			}
+			if (consumed) {
+				pos++;
+			}
+		}
+		
+		if (!openNodes.isEmpty()) {
+			throw new NewickException(0, newickDescription, "Unterminated subtree");
+		}
+		else if (state.equals(ParserState.NAME_EXPECTED)) {  // root without name and length
+			readName(tokens.get(end), current, internalAdapter, internalTranslTable);
+		}
+		return current;
+	}
 
 
   private Tree readTree() throws NewickException {
@@ -255,21 +248,15 @@ public class NewickStringReader extends NewickStringChars {
   			start = 1;
   		}
   		
-  		int end = searchToken(start + 1, tokens.size() - 1, TokenType.SUBTREE_END);
-  		if (end == -1) {
-      	throw new NewickException(0, newickDescription, "Unterminated subtree");
-  		}
-  		else {
-  			if ((tokens.size() >= end + 2) && tokens.get(tokens.size() - 1).getType().equals(TokenType.TERMNINAL_SYMBOL)) {
-    			result.setPaintStart(readSubtree(start, tokens.size() - 2));
-    			result.assignUniqueNames();
-    			result.updateElementSet();
-    			return result;
-  			}
-  			else {
-        	throw new NewickException(0, newickDescription, "Tree not completed by \";\"");  // NewickReader stellt eigentlich sicher, dass diese Exception niemals geworfen wird.
-  			}
-  		}
+			if (tokens.get(tokens.size() - 1).getType().equals(TokenType.TERMNINAL_SYMBOL)) {
+  			result.setPaintStart(readSubtree(start, tokens.size() - 2));
+  			result.assignUniqueNames();
+  			result.updateElementSet();
+  			return result;
+			}
+			else {
+      	throw new NewickException(0, newickDescription, "Tree not completed by \";\"");  // NewickReader stellt eigentlich sicher, dass diese Exception niemals geworfen wird.
+			}
   	}
 	}
   
@@ -287,7 +274,7 @@ public class NewickStringReader extends NewickStringChars {
 	}
 
 
-	private boolean getInternalNamesAdded() {
+	boolean getInternalNamesAdded() {
 		return internalNamesAdded;
 	}
 	
@@ -323,20 +310,17 @@ public class NewickStringReader extends NewickStringChars {
   }
   
   
+  /**
+   * Returns a list of the trees described by the specified Newick strings. Each string is parsed when 
+   * the according tree is accessed for the first time.
+   * 
+   * @return the list of trees
+   * @see NewickTreeList#NewickTreeList(String[], NodeBranchDataAdapter, NodeBranchDataAdapter, TranslTable, boolean)
+   */
   public static NewickTreeList read(final String[] newick, NodeBranchDataAdapter internalAdapter, 
   		NodeBranchDataAdapter branchLengthsAdapter, TranslTable translTable, 
-  		boolean translateInternals) throws NewickException {
+  		boolean translateInternals) {
 
-		Tree[] trees = new Tree[newick.length];
-		boolean[] hiddenDataAdded = new boolean[newick.length];
-		boolean[] internalNamesAdded = new boolean[newick.length];
-		NewickStringReader reader = new NewickStringReader(); 
-		for (int i = 0; i < newick.length; i++) {
-			trees[i] = reader.read(newick[i], internalAdapter, 
-					branchLengthsAdapter, translTable, translateInternals);
-			hiddenDataAdded[i] = reader.getHiddenDataAdded();
-			internalNamesAdded[i] = reader.getInternalNamesAdded();
-		}
-		return new NewickTreeList(trees, hiddenDataAdded, internalNamesAdded);
+		return new NewickTreeList(newick, internalAdapter, branchLengthsAdapter, translTable, translateInternals);
   }
 }
\ No newline at end of file
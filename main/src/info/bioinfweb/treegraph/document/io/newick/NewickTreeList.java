@@ -19,16 +19,22 @@
 package info.bioinfweb.treegraph.document.io.newick;
 
 
+import java.util.AbstractList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
 
 import info.bioinfweb.treegraph.document.Tree;
+import info.bioinfweb.treegraph.document.io.nexus.TranslTable;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 
 
 
 /**
  * Contains the result of reading multiple Newick strings.
+ * <p>
+ * If an instance is created from Newick strings, each string is only parsed when the according tree or 
+ * information about it is requested for the first time. Therefore loading a single tree from a file 
+ * containing a large number of trees does not require to parse all of them.
  * 
  * @author Ben St&ouml;ver
  * @since 2.3.0
@@ -37,6 +43,12 @@ public class NewickTreeList {
   private Tree[] trees;
   private boolean[] hiddenDataAdded;
   private boolean[] internalNamesAdded;
+  private List<String> newick = null;
+  private NewickStringReader reader = null;
+  private NodeBranchDataAdapter internalAdapter;
+  private NodeBranchDataAdapter branchLengthsAdapter;
+  private TranslTable translTable;
+  private boolean translateInternals;
   
   
 	public NewickTreeList(Tree[] trees, boolean[] hiddenDataAdded, boolean[] internalNamesAdded) {
@@ -53,17 +65,98 @@ public class NewickTreeList {
   }
 	
 	
+	/**
+	 * Creates a new instance that parses the specified Newick strings on demand.
+	 * 
+	 * @param newick the Newick strings of the trees in this list
+	 * @param internalAdapter the adapter to store internal node names
+	 * @param branchLengthsAdapter the adapter to store branch lengths
+	 * @param translTable the translation table to be applied to the node names (can be {@code null})
+	 * @param translateInternals determines whether the translation table shall also be applied to
+	 *        internal node names
+	 * @since 2.16.0
+	 */
+	public NewickTreeList(String[] newick, NodeBranchDataAdapter internalAdapter, 
+  		NodeBranchDataAdapter branchLengthsAdapter, TranslTable translTable, boolean translateInternals) {
+		
+		this(Arrays.asList(newick), internalAdapter, branchLengthsAdapter, translTable, translateInternals);
+	}
+	
+	
+	/**
+	 * Creates a new instance that parses the Newick strings provided by the specified list on demand. Each 
+	 * element of the list is requested only once.
+	 * 
+	 * @param newick the Newick strings of the trees in this list
+	 * @param internalAdapter the adapter to store internal node names
+	 * @param branchLengthsAdapter the adapter to store branch lengths
+	 * @param translTable the translation table to be applied to the node names (can be {@code null})
+	 * @param translateInternals determines whether the translation table shall also be applied to
+	 *        internal node names
+	 * @since 2.16.0
+	 */
+	public NewickTreeList(List<String> newick, NodeBranchDataAdapter internalAdapter, 
+  		NodeBranchDataAdapter branchLengthsAdapter, TranslTable translTable, boolean translateInternals) {
+		
+		super();
+		this.newick = newick;
+		this.internalAdapter = internalAdapter;
+		this.branchLengthsAdapter = branchLengthsAdapter;
+		this.translTable = translTable;
+		this.translateInternals = translateInternals;
+		trees = new Tree[newick.size()];
+		hiddenDataAdded = new boolean[newick.size()];
+		internalNamesAdded = new boolean[newick.size()];
+	}
+	
+	
+	/**
+	 * Parses the Newick string with the specified index, if this was not done before.
+	 * 
+	 * @throws NewickException if the Newick string is invalid
+	 */
+	private void readTree(int index) throws NewickException {
+		if ((trees[index] == null) && (newick != null)) {
+			if (reader == null) {
+				reader = new NewickStringReader();
+			}
+			trees[index] = reader.read(newick.get(index), internalAdapter, branchLengthsAdapter, translTable, 
+					translateInternals);
+			hiddenDataAdded[index] = reader.getHiddenDataAdded();
+			internalNamesAdded[index] = reader.getInternalNamesAdded();
+		}
+	}
+	
+	
 	public Tree getTree(int index) {
+		readTree(index);
 		return trees[index];
 	}
 	
 	
+	/**
+	 * Returns an unmodifiable list view of the trees. The trees are only parsed when they are accessed 
+	 * using {@link List#get(int)}.
+	 * 
+	 * @return a list containing the trees
+	 */
 	public List<Tree> treesAsList() {
-		return Collections.unmodifiableList(Arrays.asList(trees));
+		return new AbstractList<Tree>() {
+					@Override
+					public Tree get(int index) {
+						return getTree(index);
+					}
+		
+					@Override
+					public int size() {
+						return NewickTreeList.this.size();
+					}
+				};
 	}
 	
 	
 	public boolean getHiddenDataAdded(int index) {
+		readTree(index);
 		return hiddenDataAdded[index];
 	}
 	
@@ -74,6 +167,7 @@ public class NewickTreeList {
 
 
 	public boolean getInternalNamesAdded(int index) {
+		readTree(index);
 		return internalNamesAdded[index];
 	}
 }
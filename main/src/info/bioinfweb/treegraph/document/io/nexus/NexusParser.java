@@ -211,7 +211,7 @@ public class NexusParser {
    * @param command
    * @param translTable
    */
-  private static void readTranslTable(NexusCommand command, TranslTable translTable) throws IOException {
+  public static void readTranslTable(NexusCommand command, TranslTable translTable) throws IOException {
   	String[] entries = TRANSL_TABLE_SEPARATOR_PATTERN.split(removeComments(command.getTokens()));
   	Matcher entryPatternMatcher;
   	Matcher enclosedPatternMatcher;
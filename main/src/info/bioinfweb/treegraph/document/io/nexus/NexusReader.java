@@ -20,11 +20,13 @@ package info.bioinfweb.treegraph.document.io.nexus;
 
 
 import java.io.BufferedInputStream;
+import java.io.File;
 
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.io.DocumentIterator;
 import info.bioinfweb.treegraph.document.io.ReadWriteParameterMap;
 import info.bioinfweb.treegraph.document.io.TextStreamReader;
+import info.bioinfweb.treegraph.document.io.TreeFileIndex;
 import info.bioinfweb.treegraph.document.io.newick.NewickReader;
 import info.bioinfweb.treegraph.document.io.newick.NewickTreeList;
 import info.bioinfweb.treegraph.document.nodebranchdata.BranchLengthAdapter;
@@ -49,6 +51,36 @@ public class NexusReader extends TextStreamReader {
 	}
 	
 	
+	/**
+	 * Reads the tree selected by the tree selector using a {@link TreeFileIndex} of the specified file. In contrast
+	 * to {@link #readDocument(BufferedInputStream)} the file is not loaded into memory, but only the selected tree 
+	 * (and trees previewed in the selector) are read from the file and parsed.
+	 */
+	@Override
+	protected Document readDocument(File file) throws Exception {
+		TreeFileIndex index = TreeFileIndex.getInstance(file);
+		if (!index.isNexus()) {
+			throw new NexusException(NexusError.NO_NEXUS);
+		}
+		else if (!index.isTreesBlockFound()) {
+			throw new NexusException(NexusError.NO_TREES);
+		}
+		else if (!index.isTreesBlockTerminated()) {
+			throw new NexusException(NexusError.TREES_UNTERMINATED);
+		}
+		else {
+			NewickTreeList trees = new NewickTreeList(index.getNewickList(),
+					parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_INTERNAL_NODE_NAMES_ADAPTER, 
+							NodeNameAdapter.getSharedInstance()),
+					parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_BRANCH_LENGTH_ADAPTER, 
+							BranchLengthAdapter.getSharedInstance()),
+					index.readTranslTable(),
+					parameterMap.getBoolean(ReadWriteParameterMap.KEY_TRANSLATE_INTERNAL_NODE_NAMES, true));
+			return createDocument(index.getNames(), trees);
+		}
+	}
+	
+	
 	@Override
 	public Document readDocument(BufferedInputStream stream) throws Exception {
 		NexusDocument nex = NexusParser.parse(readStream(stream));
@@ -58,7 +90,12 @@ public class NexusReader extends TextStreamReader {
 				parameterMap.getNodeBranchDataAdapter(ReadWriteParameterMap.KEY_BRANCH_LENGTH_ADAPTER, 
 						BranchLengthAdapter.getSharedInstance()),
 				parameterMap.getBoolean(ReadWriteParameterMap.KEY_TRANSLATE_INTERNAL_NODE_NAMES, true));
-		int treePos = parameterMap.getTreeSelector().select(nex.namesToArray(), trees.treesAsList());
+		return createDocument(nex.namesToArray(), trees);
+	}
+	
+	
+	private Document createDocument(String[] names, NewickTreeList trees) {
+		int treePos = parameterMap.getTreeSelector().select(names, trees.treesAsList());
 		
 		Document result = createEmptyDocument();
 		result.setTree(trees.getTree(treePos));
@@ -0,0 +1,225 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io.nexus;
+
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.regex.Pattern;
+
+import info.bioinfweb.treegraph.document.io.newick.NewickStringChars;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringIterator;
+
+
+
+/**
+ * Reads the Newick strings of all tree commands in the first trees block of a Nexus file one after another. In 
+ * contrast to {@link NexusParser} the content of the file is not loaded into memory as a whole, but only the current
+ * command is stored. The translation table of the trees block (if present) is read before the first tree is 
+ * returned.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class NexusStreamIterator implements NewickStringIterator {
+	private static final int INITIAL_COMMAND_LENGTH = 4 * 1024;
+	
+	
+	private Reader reader;
+	private StringBuilder buffer = new StringBuilder(INITIAL_COMMAND_LENGTH);
+	private TranslTable translTable = new TranslTable();
+	private boolean headerRead = false;
+	private boolean inTreesBlock = false;
+	private boolean treesBlockFound = false;
+	private boolean finished = false;
+	private String currentName = null;
+	
+	
+	public NexusStreamIterator(Reader reader) {
+		super();
+		if (reader instanceof BufferedReader) {
+			this.reader = reader;
+		}
+		else {
+			this.reader = new BufferedReader(reader);
+		}
+	}
+	
+	
+	private void readHeader() throws IOException {
+		int code = reader.read();
+		while ((code != -1) && Character.isWhitespace(code)) {
+			code = reader.read();
+		}
+		for (int i = 0; i < NexusParser.FIRST_LINE.length(); i++) {
+			if ((code == -1) || (Character.toLowerCase((char)code) != NexusParser.FIRST_LINE.charAt(i))) {
+				throw new NexusException(NexusError.NO_NEXUS);
+			}
+			if (i < NexusParser.FIRST_LINE.length() - 1) {
+				code = reader.read();
+			}
+		}
+		headerRead = true;
+	}
+	
+	
+	private void appendDelimited(char end) throws IOException {
+		int code = reader.read();
+		while ((code != -1) && (code != end)) {
+			buffer.append((char)code);
+			code = reader.read();
+		}
+		buffer.append(end);
+	}
+	
+	
+	/**
+	 * Reads the next command from the underlying stream into {@link #buffer}. Comments and delimited words are copied
+	 * unchanged as done by {@link NexusParser}.
+	 * 
+	 * @return {@code true} if a command was read or {@code false} if the end of the stream was reached
+	 */
+	private boolean readCommand() throws IOException {
+		buffer.setLength(0);
+		int code = reader.read();
+		while (code != -1) {
+			char c = (char)code;
+			switch (c) {
+				case NexusParser.COMMENT_START:
+					buffer.append(c);
+					appendDelimited(NexusParser.COMMENT_END);
+					break;
+				case NexusParser.WORD_DELIMITER:
+					buffer.append(c);
+					appendDelimited(NexusParser.WORD_DELIMITER);
+					break;
+				case NexusParser.COMMAND_END:
+					return true;
+				default:
+					buffer.append(c);
+					break;
+			}
+			code = reader.read();
+		}
+		return false;  // Incomplete commands at the end of the stream are ignored, as it is done by NexusParser.
+	}
+	
+	
+	/**
+	 * Creates a command object from the content of {@link #buffer}. In contrast to {@link NexusCommand#NexusCommand(String)}
+	 * the name is determined without creating substrings for each character, which is relevant for large tree commands.
+	 */
+	private NexusCommand createCommand() {
+		int start = 0;
+		while ((start < buffer.length()) && Character.isWhitespace(buffer.charAt(start))) {
+			start++;
+		}
+		int splitPos = start;
+		while ((splitPos < buffer.length()) && !Character.isWhitespace(buffer.charAt(splitPos))) {
+			if (buffer.charAt(splitPos) == NexusParser.COMMENT_START) {
+				do {  // Skip comments
+					splitPos++;
+				} while ((splitPos < buffer.length()) && buffer.charAt(splitPos) != NexusParser.COMMENT_END);
+				splitPos++;  // Skip comment end
+				while ((splitPos < buffer.length()) && Character.isWhitespace(buffer.charAt(splitPos))) {
+					splitPos++;  // Skip whitespace behind the comment
+				}
+			}
+			else {
+				splitPos++;
+			}
+		}
+		
+		String name = NexusParser.removeComments(buffer.substring(start, Math.min(splitPos, buffer.length()))).trim();
+		String tokens = "";
+		if (splitPos + 1 < buffer.length()) {
+			tokens = buffer.substring(splitPos + 1).trim();
+		}
+		return new NexusCommand(name, tokens);
+	}
+	
+	
+	private boolean matches(NexusCommand command, Pattern namePattern, Pattern tokenPattern) {
+		return namePattern.matcher(command.getName().toLowerCase()).matches() && 
+				tokenPattern.matcher(command.getTokens().toLowerCase()).matches();
+	}
+	
+	
+	@Override
+	public String next() throws IOException {
+		if (!headerRead) {
+			readHeader();
+		}
+		
+		while (!finished && readCommand()) {
+			NexusCommand command = createCommand();
+			if (inTreesBlock) {
+				if (matches(command, NexusParser.TREE_COMMAND_PATTERN, NexusParser.EMPTY_PATTERN)) {
+					String tokens = command.getTokens();
+			  	int separatorPos = NexusParser.nextPosOutsideComment(tokens, 0, NexusParser.KEY_VALUE_SEPERATOR);
+			  	if (separatorPos != -1) {
+			  		currentName = tokens.substring(0, separatorPos).trim();
+			  		return tokens.substring(separatorPos + 1, tokens.length()).trim() + NewickStringChars.TERMINAL_SYMBOL;
+			  	}
+				}
+				else if (matches(command, NexusParser.TRANSL_TABLE_PATTERN, NexusParser.EMPTY_PATTERN)) {
+					NexusParser.readTranslTable(command, translTable);
+				}
+				else if (matches(command, NexusParser.BLOCK_END_PATTERN, NexusParser.EMPTY_PATTERN)) {
+					inTreesBlock = false;
+					finished = true;  // Only the first trees block is read, as it is done by NexusParser.
+				}
+			}
+			else if (matches(command, NexusParser.BLOCK_BEGIN_PATTERN, NexusParser.TREES_PATTERN)) {
+				inTreesBlock = true;
+				treesBlockFound = true;
+			}
+		}
+		
+		finished = true;
+		currentName = null;
+		if (!treesBlockFound) {
+			throw new NexusException(NexusError.NO_TREES);
+		}
+		return null;
+	}
+	
+	
+	/**
+	 * Returns the name of the tree command that was returned by the last call of {@link #next()}.
+	 * 
+	 * @return the name or {@code null} if no tree has been read yet or the end of the trees block was reached
+	 */
+	public String getCurrentName() {
+		return currentName;
+	}
+
+
+	@Override
+	public TranslTable getTranslTable() {
+		return translTable;
+	}
+
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
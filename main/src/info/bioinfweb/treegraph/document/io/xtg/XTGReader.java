@@ -33,7 +33,9 @@ import info.bioinfweb.commons.io.XMLUtils;
 
 import java.io.BufferedInputStream;
 import java.text.DecimalFormat;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 
 import javax.swing.JOptionPane;
 import javax.xml.XMLConstants;
@@ -56,6 +58,7 @@ import javax.xml.stream.events.XMLEvent;
  */
 public class XTGReader extends AbstractDocumentReader implements XTGConstants {
   private XMLEventReader reader;
+  private Map<String, DecimalFormat> decimalFormats = new HashMap<String, DecimalFormat>();  // Avoids parsing the same pattern for each element.
   
   
 	public XTGReader() {
@@ -215,9 +218,13 @@ public class XTGReader extends AbstractDocumentReader implements XTGConstants {
 	
 	
 	private void readDecimalFormat(TextFormats f, StartElement element, String prefix) {
-		DecimalFormat format = new DecimalFormat(
-				XMLUtils.readStringAttr(element, new QName(prefix + ATTR_DECIMAL_FORMAT.toString()), 
-    				TextFormats.DEFAULT_DECIMAL_FORMAT_EXPR));
+		String pattern = XMLUtils.readStringAttr(element, new QName(prefix + ATTR_DECIMAL_FORMAT.toString()), 
+				TextFormats.DEFAULT_DECIMAL_FORMAT_EXPR);
+		DecimalFormat format = decimalFormats.get(pattern);
+		if (format == null) {
+			format = new DecimalFormat(pattern);
+			decimalFormats.put(pattern, format);
+		}
 		
 		Locale locale;
 		String lang = XMLUtils.readStringAttr(element, new QName(prefix + ATTR_LOCALE_LANG), null); 
@@ -239,7 +246,7 @@ public class XTGReader extends AbstractDocumentReader implements XTGConstants {
 				}
 			}
 		}
-		f.setDecimalFormat(format, locale);
+		f.setDecimalFormat(format, locale);  // Stores a shared instance and does not modify format.
 	}
 	
 	
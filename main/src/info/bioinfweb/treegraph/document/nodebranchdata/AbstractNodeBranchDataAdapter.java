@@ -21,6 +21,7 @@ package info.bioinfweb.treegraph.document.nodebranchdata;
 
 import info.bioinfweb.treegraph.document.Node;
 import info.bioinfweb.treegraph.document.TextElementData;
+import info.bioinfweb.treegraph.document.Tree;
 
 
 
@@ -84,4 +85,24 @@ public abstract class AbstractNodeBranchDataAdapter implements NodeBranchDataAda
 		}
 		return result;
 	}
+	
+	
+	/**
+	 * Searches for the maximal node data specified by <code>adapter</code> in the whole tree. The according
+	 * column of {@link Tree#getColumnStore()} is used for this, so that consecutive calls for the same column 
+	 * of an unchanged tree do not need to visit the nodes again.
+	 * 
+	 * @param tree the tree containing the data (must not be empty)
+	 * @return the maximal node data (0 if no decimal value was found or all values are negative)
+	 * @since 2.16.0
+	 */
+	public static double calculateMaxNodeData(NodeBranchDataAdapter adapter, Tree tree) {
+		double result = tree.getColumnStore().getColumn(adapter).getMaximum();
+		if (Double.isNaN(result)) {
+			return 0;
+		}
+		else {
+			return Math.max(0, result);
+		}
+	}
 }
\ No newline at end of file
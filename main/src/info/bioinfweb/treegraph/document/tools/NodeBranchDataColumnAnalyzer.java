@@ -27,6 +27,7 @@ import java.util.Map;
 
 import info.bioinfweb.commons.Math2;
 import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.NodeBranchDataColumnStore;
 import info.bioinfweb.treegraph.document.Tree;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.VoidNodeBranchDataAdapter;
@@ -100,31 +101,37 @@ public class NodeBranchDataColumnAnalyzer {
 	}
 	
 	
-	private static void analyzeColumnCharacters(Node root, NodeBranchDataAdapter column, ColumnCharacters characters) {
-		if (column.isEmpty(root)) {
-			characters.containsEmptyNodes = true;
-		}
-		else {
-			if (column.isDecimal(root)) {
+	private static void analyzeColumnCharacters(NodeBranchDataColumnStore.Column column, ColumnCharacters characters) {
+		Double[] parsedTexts = new Double[column.getDictionarySize()];  // Each distinct text is only parsed once. Texts that cannot be parsed are represented by null.
+		boolean[] parsed = new boolean[parsedTexts.length];
+		for (int i = 0; i < column.size(); i++) {
+			if (column.isDecimal(i)) {
 				characters.containsNumericValue = true;
-				checkValueOutOfRange(column.getDecimal(root), characters);
-				checkTopologicalCharacters(root, characters);
+				checkValueOutOfRange(column.getDecimal(i), characters);
+				checkTopologicalCharacters(column.getNode(i), characters);
 			}
-			else {  // Textual value
-				String text = column.getText(root);
-				try {
-					checkValueOutOfRange(Double.parseDouble(text), characters);  //TODO Consider ',' instead of '.'? How is that usually done in TG? Is there a tool method?
-					characters.containsParsableValue = true;  // Must happen after the parsing, since it should not be set when there is an exception.
-					checkTopologicalCharacters(root, characters);
+			else if (column.isString(i)) {
+				int code = column.getTextCode(i);
+				if (!parsed[code]) {
+					try {
+						parsedTexts[code] = Double.parseDouble(column.getDictionaryEntry(code));  //TODO Consider ',' instead of '.'? How is that usually done in TG? Is there a tool method?
+					}
+					catch (NumberFormatException e) {}  // parsedTexts[code] remains null.
+					parsed[code] = true;
+				}
+				
+				if (parsedTexts[code] != null) {
+					checkValueOutOfRange(parsedTexts[code], characters);
+					characters.containsParsableValue = true;
+					checkTopologicalCharacters(column.getNode(i), characters);
 				}
-				catch (NumberFormatException e) {
+				else {
 					characters.containsNonParsableValue = true;
 				}
 			}
-		}
-		
-		for (Node child : root.getChildren()) {
-			analyzeColumnCharacters(child, column, characters);
+			else {
+				characters.containsEmptyNodes = true;
+			}
 		}
 	}
 	
@@ -132,7 +139,7 @@ public class NodeBranchDataColumnAnalyzer {
 	public static ColumnStatus analyzeColumnStatus(Tree tree, NodeBranchDataAdapter column) {
 		ColumnCharacters characters = new ColumnCharacters();
 		if (!tree.isEmpty()) {
-			analyzeColumnCharacters(tree.getPaintStart(), column, characters);
+			analyzeColumnCharacters(tree.getColumnStore().getColumn(column), characters);
 			
 			if (!characters.containsNonParsableValue) {
 				if (characters.containsInternalValues && !characters.containsTerminalValues) {
@@ -34,6 +34,7 @@ import info.bioinfweb.treegraph.document.HiddenDataElement;
 import info.bioinfweb.treegraph.document.Label;
 import info.bioinfweb.treegraph.document.Labels;
 import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.NodeBranchDataColumnRegistry;
 import info.bioinfweb.treegraph.document.PieChartLabel;
 import info.bioinfweb.treegraph.document.TextElementData;
 import info.bioinfweb.treegraph.document.TextLabel;
@@ -643,9 +644,13 @@ public class NodeBranchDataColumnManager {
 		// More adapters can be added here.
 		
 		if (tree != null) {
-			String[] labelIDs = NodeBranchDataColumnManager.getLabelIDs(tree.getPaintStart(), TextLabel.class);
-			String[] hiddenBranchDataIDs = NodeBranchDataColumnManager.getHiddenBranchDataIDs(tree.getPaintStart());
-			String[] hiddenNodeDataIDs = NodeBranchDataColumnManager.getHiddenNodeDataIDs(tree.getPaintStart());
+			NodeBranchDataColumnRegistry registry = tree.getColumnRegistry();
+			List<String> labelIDList = registry.getLabelIDs(TextLabel.class);
+			String[] labelIDs = labelIDList.toArray(new String[labelIDList.size()]);
+			List<String> hiddenBranchDataIDList = registry.getHiddenBranchDataIDs();
+			String[] hiddenBranchDataIDs = hiddenBranchDataIDList.toArray(new String[hiddenBranchDataIDList.size()]);
+			List<String> hiddenNodeDataIDList = registry.getHiddenNodeDataIDs();
+			String[] hiddenNodeDataIDs = hiddenNodeDataIDList.toArray(new String[hiddenNodeDataIDList.size()]);
 			Map<String, Integer> idDuplication = new TreeMap<String, Integer>();
 			
 			for (int i = 0; i < labelIDs.length; i++) {
@@ -665,7 +670,7 @@ public class NodeBranchDataColumnManager {
 			}
 			
 			for (int i = 0; i < labelIDs.length; i++) {				
-				result.add(new TextLabelAdapter(labelIDs[i],((TextLabel)NodeBranchDataColumnManager.getFirstLabel(tree.getPaintStart(), TextLabel.class, labelIDs[i])).getFormats().getDecimalFormat()));
+				result.add(new TextLabelAdapter(labelIDs[i], registry.getFirstTextLabel(labelIDs[i]).getFormats().getDecimalFormat()));
 			}			
 			for (int i = 0; i < hiddenBranchDataIDs.length; i++) {
 				result.add(new HiddenBranchDataAdapter(hiddenBranchDataIDs[i]));				
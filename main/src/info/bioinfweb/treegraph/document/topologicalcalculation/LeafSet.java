@@ -19,55 +19,231 @@
 package info.bioinfweb.treegraph.document.topologicalcalculation;
 
 
-import info.bioinfweb.commons.Math2;
+import java.util.Arrays;
 
 
 
 /**
  * Used to store which leaf nodes of a tree are contained in a certain subtree. Internally a compressed boolean field 
  * is used to store a value for each leaf node index. 
+ * <p>
+ * The field is stored as an array of {@code long} words and all set operations are performed word by word. Bits 
+ * beyond {@link #size()} are always kept cleared, so that equal sets always have equal words and hash codes. The hash
+ * code is cached and recalculated only after this set was modified. (Note that leaf sets used as keys of a hash map 
+ * must therefore not be modified as long as they are contained in that map.) The same is true for the number of 
+ * contained leaves and the lowest and highest leaf index, which allow to rule out subset and intersection relations 
+ * between two sets without comparing their words.
  * 
  * @author Ben St&ouml;ver
  * @since 2.0.33
  */
 public class LeafSet {
-	private int[] field;
+	private static final int ADDRESS_BITS_PER_WORD = 6;
+	private static final int BITS_PER_WORD = 1 << ADDRESS_BITS_PER_WORD;
+	private static final int NO_HASH = 0;
+	private static final int NO_COUNT = -1;
+	
+	
+	private long[] field;
 	private int size;
+	private int hash = NO_HASH;
+	private int childCount = NO_COUNT;
+	private int firstChild = -1;
+	private int lastChild = -1;
 
 	
 	public LeafSet(int size) {
 		super();
-		
-		field = new int[Math2.divAbove(size, Integer.SIZE)];
+		field = new long[wordCount(size)];
 		this.size = size; 
-		for (int i = 0; i < field.length; i++) {
-			field[i] = 0;
+	}
+	
+	
+	/**
+	 * Creates a new instance containing the same leaves as the specified leaf set.
+	 * 
+	 * @param other the leaf set to be copied
+	 * @since 2.16.0
+	 */
+	public LeafSet(LeafSet other) {
+		super();
+		field = other.field.clone();
+		size = other.size;
+		hash = other.hash;
+		childCount = other.childCount;
+		firstChild = other.firstChild;
+		lastChild = other.lastChild;
+	}
+	
+	
+	/**
+	 * Returns the internal words of this set. The returned array must not be modified. 
+	 */
+	long[] getWords() {
+		return field;
+	}
+	
+	
+	private static int wordCount(int size) {
+		return (size + BITS_PER_WORD - 1) >>> ADDRESS_BITS_PER_WORD;
+	}
+	
+	
+	/**
+	 * Returns the mask of the bits of the last word that represent leaves of this set.
+	 */
+	private long lastWordMask() {
+		return -1L >>> (-size & (BITS_PER_WORD - 1));  // Shift by 0 if size is a multiple of 64.
+	}
+	
+	
+	private void clearUnusedBits() {
+		if (field.length > 0) {
+			field[field.length - 1] &= lastWordMask();
+		}
+	}
+	
+	
+	private void checkSize(LeafSet other) {
+		if (other.size() != size()) {
+			throw new IllegalArgumentException("The other set has a different size than this set. " +
+					"Comparing sets of different sizes is not allowed.");
 		}
 	}
 	
 	
+	private void changed() {
+		hash = NO_HASH;
+		childCount = NO_COUNT;
+	}
+	
+	
+	/**
+	 * Calculates the number of contained leaves and the lowest and highest leaf index, if these values are not cached
+	 * from a previous call.
+	 */
+	private void calculateBounds() {
+		if (childCount == NO_COUNT) {
+			int count = 0;
+			int first = -1;
+			int last = -1;
+			for (int i = 0; i < field.length; i++) {
+				if (field[i] != 0) {
+					if (first == -1) {
+						first = (i << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(field[i]);
+					}
+					last = (i << ADDRESS_BITS_PER_WORD) + BITS_PER_WORD - 1 - Long.numberOfLeadingZeros(field[i]);
+					count += Long.bitCount(field[i]);
+				}
+			}
+			firstChild = first;
+			lastChild = last;
+			childCount = count;
+		}
+	}
+	
+	
+	/**
+	 * Checks whether the index ranges of the leaves contained in this and the specified set do not overlap. If 
+	 * {@code true} is returned, both sets are disjoint. If {@code false} is returned, they might still be disjoint.
+	 */
+	private boolean rangesDisjoint(LeafSet other) {
+		calculateBounds();
+		other.calculateBounds();
+		return (childCount == 0) || (other.childCount == 0) || (lastChild < other.firstChild) || (other.lastChild < firstChild);
+	}
+	
+	
+	/**
+	 * Returns the word at the specified index, optionally complemented. Unused bits of the last word are always cleared.
+	 */
+	private long word(int index, boolean complement) {
+		if (complement) {
+			long result = ~field[index];
+			if (index == field.length - 1) {
+				result &= lastWordMask();
+			}
+			return result;
+		}
+		else {
+			return field[index];
+		}
+	}
+	
+	
+	/**
+	 * Returns a hash code calculated from all words of this set. The words are combined and mixed with the finalization 
+	 * step of MurmurHash3, so that sets that only differ in a few bits still result in well distributed hash codes. 
+	 */
 	@Override
 	public int hashCode() {
-		int result = 0;
-		for (int i = 0; i < field.length; i++) {
-			result += field[i];
+		int result = hash;
+		if (result == NO_HASH) {
+			long h = size;
+			for (int i = 0; i < field.length; i++) {
+				h = 31 * h + field[i];
+			}
+			h ^= h >>> 33;
+			h *= 0xff51afd7ed558ccdL;
+			h ^= h >>> 33;
+			h *= 0xc4ceb9fe1a85ec53L;
+			h ^= h >>> 33;
+			result = (int)h;
+			if (result == NO_HASH) {
+				result = 1;
+			}
+			hash = result;
 		}
 		return result;
 	}
 
 
 	public boolean isChild(int pos) {
-		return (field[pos / Integer.SIZE] & Math2.intPow(2, pos % Integer.SIZE)) != 0; 
+		return (field[pos >>> ADDRESS_BITS_PER_WORD] & (1L << pos)) != 0;  // Shift distances are taken modulo 64. 
 	}
 	
 	
+	/**
+	 * Adds the leaf with the specified index to or removes it from this set.
+	 * 
+	 * @param pos the index of the leaf
+	 * @param value {@code true} if the leaf shall be contained in this set, {@code false} otherwise
+	 * @throws IndexOutOfBoundsException if {@code pos} is not between {@code 0} and {@link #size()} {@code - 1}
+	 */
 	public void setChild(int pos, boolean value) {
+		if ((pos < 0) || (pos >= size)) {
+			throw new IndexOutOfBoundsException("The leaf index (" + pos + ") must be between 0 and " + (size - 1) + ".");
+		}
 		if (value) {
-			field[pos / Integer.SIZE] = field[pos / Integer.SIZE] | Math2.intPow(2, pos % Integer.SIZE);
+			field[pos >>> ADDRESS_BITS_PER_WORD] |= 1L << pos;
 		}
 		else {
-			field[pos / Integer.SIZE] = field[pos / Integer.SIZE] & ~Math2.intPow(2, pos % Integer.SIZE);
+			field[pos >>> ADDRESS_BITS_PER_WORD] &= ~(1L << pos);
 	  }
+		changed();
+	}
+	
+	
+	/**
+	 * Adds all leaves with an index between {@code 0} and {@link #size()} {@code - 1} to this set.
+	 * 
+	 * @since 2.16.0
+	 */
+	public void setAllChildren() {
+		Arrays.fill(field, -1L);
+		clearUnusedBits();
+		changed();
+	}
+	
+	
+	/**
+	 * Removes all leaves from this set.
+	 * 
+	 * @since 2.16.0
+	 */
+	public void clear() {
+		Arrays.fill(field, 0L);
+		changed();
 	}
 	
 	
@@ -77,22 +253,153 @@ public class LeafSet {
 	
 	
 	public int childCount() {
-		int result = 0;
-		for (int pos = 0; pos < size(); pos++) {
-	    if (isChild(pos)) {
-	    	result++;
-	    }
-    }
-		return result;
+		calculateBounds();
+		return childCount;
+	}
+	
+	
+	/**
+	 * Returns the lowest index of a leaf contained in this set.
+	 * 
+	 * @return the index or -1 if this set is empty
+	 * @since 2.16.0
+	 */
+	public int firstChild() {
+		calculateBounds();
+		return firstChild;
+	}
+	
+	
+	/**
+	 * Returns the highest index of a leaf contained in this set.
+	 * 
+	 * @return the index or -1 if this set is empty
+	 * @since 2.16.0
+	 */
+	public int lastChild() {
+		calculateBounds();
+		return lastChild;
+	}
+	
+	
+	/**
+	 * Checks whether this set contains no leaves.
+	 * 
+	 * @return {@code true} if no leaf is contained in this set, {@code false} otherwise
+	 * @since 2.16.0
+	 */
+	public boolean isEmpty() {
+		for (int i = 0; i < field.length; i++) {
+			if (field[i] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Returns the index of the first leaf contained in this set which has an index equal to or greater than 
+	 * {@code fromPos}.
+	 * 
+	 * @param fromPos the index to start searching from
+	 * @return the index of the next leaf or -1 if no such leaf is contained in this set
+	 * @since 2.16.0
+	 */
+	public int nextChild(int fromPos) {
+		if (fromPos >= size) {
+			return -1;
+		}
+		int index = fromPos >>> ADDRESS_BITS_PER_WORD;
+		long word = field[index] & (-1L << fromPos);
+		while (true) {
+			if (word != 0) {
+				return (index << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+			}
+			index++;
+			if (index == field.length) {
+				return -1;
+			}
+			word = field[index];
+		}
 	}
 
 
+	/**
+	 * Adds all leaves contained in the specified set to this instance (binary {@code OR}). 
+	 * 
+	 * @param other the leaf set to be added
+	 * @throws IllegalArgumentException if the other set differs in size from this set
+	 */
 	public void addField(LeafSet other) {
-		for (int i = 0; i < other.size(); i++) {
-			if (other.isChild(i)) {
-				setChild(i, true);
-			}
+		checkSize(other);
+		for (int i = 0; i < field.length; i++) {
+			field[i] |= other.field[i];
 		}
+		changed();
+	}
+	
+	
+	/**
+	 * Removes all leaves from this instance that are not contained in the specified set (binary {@code AND}).
+	 * 
+	 * @param other the leaf set to be intersected with this set
+	 * @throws IllegalArgumentException if the other set differs in size from this set
+	 * @since 2.16.0
+	 */
+	public void retainField(LeafSet other) {
+		checkSize(other);
+		for (int i = 0; i < field.length; i++) {
+			field[i] &= other.field[i];
+		}
+		changed();
+	}
+	
+	
+	/**
+	 * Removes all leaves from this instance that are contained in the specified set (binary {@code AND NOT}).
+	 * 
+	 * @param other the leaf set containing the leaves to be removed
+	 * @throws IllegalArgumentException if the other set differs in size from this set
+	 * @since 2.16.0
+	 */
+	public void removeField(LeafSet other) {
+		checkSize(other);
+		for (int i = 0; i < field.length; i++) {
+			field[i] &= ~other.field[i];
+		}
+		changed();
+	}
+	
+	
+	/**
+	 * Toggles all leaves contained in the specified set in this instance (binary {@code XOR}).
+	 * 
+	 * @param other the leaf set containing the leaves to be toggled
+	 * @throws IllegalArgumentException if the other set differs in size from this set
+	 * @since 2.16.0
+	 */
+	public void toggleField(LeafSet other) {
+		checkSize(other);
+		for (int i = 0; i < field.length; i++) {
+			field[i] ^= other.field[i];
+		}
+		changed();
+	}
+	
+	
+	/**
+	 * Replaces the content of this set by its complement. In contrast to {@link #complement()} no new instance is 
+	 * created.
+	 * 
+	 * @since 2.16.0
+	 */
+	public void invert() {
+		for (int i = 0; i < field.length; i++) {
+			field[i] = ~field[i];
+		}
+		clearUnusedBits();
+		changed();
 	}
 	
 	
@@ -104,16 +411,54 @@ public class LeafSet {
 	 * @return a new leaf set instance
 	 */
 	public LeafSet and(LeafSet other) {
-		if (other.size() != size()) {
-			throw new IllegalArgumentException();
-		}
-		else {
-			LeafSet result = new LeafSet(size());
-			for (int i = 0; i < field.length; i++) {
-				result.field[i] = field[i] & other.field[i];
-			}
-			return result;
-		}		
+		LeafSet result = new LeafSet(this);
+		result.retainField(other);
+		return result;
+	}
+	
+	
+	/**
+	 * Performs a binary {@code OR} operation between this instance and the specified leaf set and returns the result 
+	 * as new instance. This instance is not modified by this method.
+	 * 
+	 * @param other the leaf set to be added
+	 * @return a new leaf set instance
+	 * @since 2.16.0
+	 */
+	public LeafSet or(LeafSet other) {
+		LeafSet result = new LeafSet(this);
+		result.addField(other);
+		return result;
+	}
+	
+	
+	/**
+	 * Performs a binary {@code XOR} operation between this instance and the specified leaf set and returns the result 
+	 * as new instance. This instance is not modified by this method.
+	 * 
+	 * @param other the leaf set to be combined with this set
+	 * @return a new leaf set instance
+	 * @since 2.16.0
+	 */
+	public LeafSet xor(LeafSet other) {
+		LeafSet result = new LeafSet(this);
+		result.toggleField(other);
+		return result;
+	}
+	
+	
+	/**
+	 * Returns a new instance containing all leaves of this set that are not contained in the specified set. This 
+	 * instance is not modified by this method.
+	 * 
+	 * @param other the leaf set containing the leaves to be removed
+	 * @return a new leaf set instance
+	 * @since 2.16.0
+	 */
+	public LeafSet andNot(LeafSet other) {
+		LeafSet result = new LeafSet(this);
+		result.removeField(other);
+		return result;
 	}
 	
 	
@@ -130,22 +475,14 @@ public class LeafSet {
 	 *         value then indicates the additional number of leaves contained in the other fields.)  
 	 */
 	public int compareTo(LeafSet other, boolean complement) {
+		checkSize(other);
 		int additionalCount = 0;
-		for (int i = 0; i < size(); i++) {
-			boolean isChildHere = isChild(i);
-			if (complement) {
-				isChildHere = !isChildHere;
-			}
-			if (isChildHere) {
-				if (!other.isChild(i)) {
-					return -1;
-				}
-			}
-			else {
-				if (other.isChild(i)) {
-					additionalCount++;
-				}
+		for (int i = 0; i < field.length; i++) {
+			long here = word(i, complement);
+			if ((here & ~other.field[i]) != 0) {
+				return -1;
 			}
+			additionalCount += Long.bitCount(other.field[i] & ~here);
 		}
 		return additionalCount;
 	}
@@ -163,26 +500,110 @@ public class LeafSet {
 	 *         otherwise
 	 */
 	public boolean inSubtreeOf(LeafSet parent, boolean complement) {
+		checkSize(parent);
 		boolean oneLess = false;
-		for (int i = 0; i < size(); i++) {
-			boolean isChildHere = isChild(i);
-			if (complement) {
-				isChildHere = !isChildHere;
-			}
-			if (isChildHere && !parent.isChild(i)) {
+		for (int i = 0; i < field.length; i++) {
+			long here = word(i, complement);
+			if ((here & ~parent.field[i]) != 0) {
 				return false;
 			}
-			oneLess = oneLess || (!isChildHere && parent.isChild(i));
+			oneLess = oneLess || (parent.field[i] & ~here) != 0;
 		}
 		return oneLess;
 	}
+	
+	
+	/**
+	 * Tests whether all leaves of this set are also contained in the specified set. In contrast to 
+	 * {@link #inSubtreeOf(LeafSet, boolean)} identical sets are also considered as subsets of each other.
+	 * 
+	 * @param other the potential superset
+	 * @return {@code true} if this set is a subset of {@code other}, {@code false} otherwise
+	 * @throws IllegalArgumentException if the other set differs in size from this set
+	 * @since 2.16.0
+	 */
+	public boolean isSubsetOf(LeafSet other) {
+		return other.containsAll(this);
+	}
+	
+	
+	/**
+	 * Tests whether this set and the specified set share at least one leaf.
+	 * 
+	 * @param other the set to be compared
+	 * @return {@code true} if at least one leaf is contained in both sets, {@code false} otherwise
+	 * @throws IllegalArgumentException if the other set differs in size from this set
+	 * @since 2.16.0
+	 */
+	public boolean intersects(LeafSet other) {
+		checkSize(other);
+		if (rangesDisjoint(other)) {
+			return false;
+		}
+		for (int i = 0; i < field.length; i++) {
+			if ((field[i] & other.field[i]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	
+	/**
+	 * Returns the number of leaves that are contained in this set as well as in the specified set. 
+	 * 
+	 * @param other the set to be compared
+	 * @return the number of leaves in the intersection of both sets
+	 * @throws IllegalArgumentException if the other set differs in size from this set
+	 * @since 2.16.0
+	 */
+	public int intersectionCount(LeafSet other) {
+		checkSize(other);
+		if (rangesDisjoint(other)) {
+			return 0;
+		}
+		int result = 0;
+		for (int i = 0; i < field.length; i++) {
+			result += Long.bitCount(field[i] & other.field[i]);
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Tests whether the bipartitions defined by this set and the specified set are compatible, i.e. whether they can 
+	 * both be present in the same (unrooted) tree. That is the case if at least one of the four intersections between
+	 * the two sets and their complements is empty.
+	 * 
+	 * @param other the set to be compared
+	 * @return {@code true} if both bipartitions are compatible, {@code false} if they are in conflict
+	 * @throws IllegalArgumentException if the other set differs in size from this set
+	 * @since 2.16.0
+	 */
+	public boolean isCompatible(LeafSet other) {
+		checkSize(other);
+		boolean bothEmpty = true;  // A & B
+		boolean thisOnlyEmpty = true;  // A & ~B
+		boolean otherOnlyEmpty = true;  // ~A & B
+		boolean noneEmpty = true;  // ~A & ~B
+		for (int i = 0; i < field.length; i++) {
+			long a = field[i];
+			long b = other.field[i];
+			bothEmpty = bothEmpty && ((a & b) == 0);
+			thisOnlyEmpty = thisOnlyEmpty && ((a & ~b) == 0);
+			otherOnlyEmpty = otherOnlyEmpty && ((~a & b) == 0);
+			noneEmpty = noneEmpty && ((~(a | b) & (i == field.length - 1 ? lastWordMask() : -1L)) == 0);
+			if (!(bothEmpty || thisOnlyEmpty || otherOnlyEmpty || noneEmpty)) {
+				return false;
+			}
+		}
+		return true;
+	}
 
 
 	public LeafSet complement() {
-		LeafSet result = new LeafSet(size());
-		for(int i = 0 ; i < field.length; i++ ){
-			result.field[i] = ~field[i];
-		}
+		LeafSet result = new LeafSet(this);
+		result.invert();
 		return result;
 	}
 	
@@ -196,15 +617,13 @@ public class LeafSet {
 	 * @return
 	 */
 	public boolean containsAnyAndOther(LeafSet other, boolean complement) {
+		checkSize(other);
 		boolean containsOther = false;
 		boolean containsAny = false;
-		for (int i = 0; i < size(); i++) {
-			boolean isChildHere = isChild(i);
-			if (complement) {
-				isChildHere = !isChildHere;
-			}
-			containsAny = containsAny || (isChildHere && other.isChild(i));
-			containsOther = containsOther || (isChildHere && !other.isChild(i));
+		for (int i = 0; i < field.length; i++) {
+			long here = word(i, complement);
+			containsAny = containsAny || ((here & other.field[i]) != 0);
+			containsOther = containsOther || ((here & ~other.field[i]) != 0);
 			if (containsAny && containsOther) {
 				return true;
 			}
@@ -223,35 +642,33 @@ public class LeafSet {
 	 * @throws IllegalArgumentException if the other set differs in size from this set.
 	 */
 	public boolean containsAll(LeafSet subset) {
-		if (subset.size() == size()) {
-			for (int i = 0; i < field.length; i++) {
-		    if ((field[i] & subset.field[i]) != subset.field[i]) {
-		    	return false;
-		    }
-	    }
+		checkSize(subset);
+		subset.calculateBounds();
+		if (subset.childCount == 0) {
 			return true;
 		}
-		else {
-			throw new IllegalArgumentException("The other set has a different size than this set. " +
-					"Comparing sets of different sizes is not allowed.");
+		calculateBounds();
+		if ((subset.childCount > childCount) || (subset.firstChild < firstChild) || (subset.lastChild > lastChild)) {
+			return false;
 		}
+		for (int i = 0; i < field.length; i++) {
+			if ((subset.field[i] & ~field[i]) != 0) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 
 	@Override
 	public boolean equals(Object other) {
-		if (other instanceof LeafSet) {
+		if (other == this) {
+			return true;
+		}
+		else if (other instanceof LeafSet) {
 			LeafSet otherField = (LeafSet)other;
-			if (otherField.size() == size()) {
-				if (size() > 0) {
-					for (int i = 0; i < field.length; i++){
-					 if (field[i] != otherField.field[i]){
-							return false;
-					 	}
-					}
-				  return true;
-				}
-			}
+			return (otherField.size() == size()) && (otherField.hashCode() == hashCode()) && 
+					Arrays.equals(field, otherField.field);
 		}
 		return false;
 	}
@@ -259,7 +676,7 @@ public class LeafSet {
 
 	@Override
 	public String toString() {
-		StringBuffer result = new StringBuffer(size());
+		StringBuilder result = new StringBuilder(size());
 		for (int i = 0; i < size(); i++) {
 			if (isChild(i)) {
 				result.append("1");
@@ -270,4 +687,4 @@ public class LeafSet {
 		}
 		return result.toString();
 	}
-}
\ No newline at end of file
+}
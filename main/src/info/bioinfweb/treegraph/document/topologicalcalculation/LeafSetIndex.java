@@ -0,0 +1,184 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.topologicalcalculation;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import info.bioinfweb.treegraph.document.Node;
+
+
+
+/**
+ * Hash index that maps the leaf sets of the nodes of a tree to these nodes. It allows to find all nodes that exactly 
+ * match a leaf set in constant time, instead of comparing the leaf set to every node of the tree as
+ * {@link TopologicalCalculator#findNodeWithAllLeaves(info.bioinfweb.treegraph.document.Tree, LeafSet, LeafSet)} does.
+ * <p>
+ * A node is found if its leaf set is equal to the searched leaf set or to the complement of the searched leaf set.
+ * If a restricting leaf set is specified, only the leaves contained in it are considered. The nodes found are the same
+ * that {@link TopologicalCalculator#findNodeWithAllLeaves(info.bioinfweb.treegraph.document.Tree, LeafSet, LeafSet)}
+ * would return if an exact match with an additional count of 0 exists.
+ * <p>
+ * The index refers to the leaf sets attached to the nodes by {@link TopologicalCalculator#addLeafSets(Node, 
+ * info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter)}. It must therefore be recreated, if the tree
+ * or its leaf sets are changed.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class LeafSetIndex {
+	private static class IndexedNode {
+		public final Node node;
+		public final int position;  // The position of the node in a preorder traversal.
+		
+		public IndexedNode(Node node, int position) {
+			super();
+			this.node = node;
+			this.position = position;
+		}
+	}
+	
+	
+	private Map<LeafSet, List<IndexedNode>> map = new HashMap<LeafSet, List<IndexedNode>>();
+	private TopologicalCalculator topologicalCalculator;
+	private LeafSet restrictingLeafSet;
+	private int nodeCount = 0;
+	
+	
+	/**
+	 * Creates a new index containing all nodes of the specified subtree.
+	 * 
+	 * @param topologicalCalculator the calculator that attached the leaf sets to the nodes of the subtree
+	 * @param root the root of the subtree to be indexed
+	 */
+	public LeafSetIndex(TopologicalCalculator topologicalCalculator, Node root) {
+		this(topologicalCalculator, root, null);
+	}
+	
+	
+	/**
+	 * Creates a new index containing all nodes of the specified subtree.
+	 * 
+	 * @param topologicalCalculator the calculator that attached the leaf sets to the nodes of the subtree
+	 * @param root the root of the subtree to be indexed
+	 * @param restrictingLeafSet an optional set of terminals that contains the leaves to be considered for comparison
+	 *        (This parameter may be {@code null}. The specified set must not be modified anymore.)
+	 */
+	public LeafSetIndex(TopologicalCalculator topologicalCalculator, Node root, LeafSet restrictingLeafSet) {
+		super();
+		this.topologicalCalculator = topologicalCalculator;
+		this.restrictingLeafSet = restrictingLeafSet;
+		addSubtree(root);
+	}
+	
+	
+	private LeafSet restrict(LeafSet leafSet) {
+		if (restrictingLeafSet != null) {
+			return leafSet.and(restrictingLeafSet);
+		}
+		else {
+			return leafSet;  // Leaf sets attached to nodes are not modified anymore and can therefore be used as keys directly.
+		}
+	}
+	
+	
+	private void addSubtree(Node root) {
+		LeafSet key = restrict(topologicalCalculator.getLeafSet(root));
+		List<IndexedNode> nodes = map.get(key);
+		if (nodes == null) {
+			nodes = new ArrayList<IndexedNode>(1);
+			map.put(key, nodes);
+		}
+		nodes.add(new IndexedNode(root, nodeCount));
+		nodeCount++;
+		
+		for (Node child : root.getChildren()) {
+			addSubtree(child);
+		}
+	}
+	
+	
+	private List<IndexedNode> get(LeafSet key) {
+		List<IndexedNode> result = map.get(key);
+		if (result == null) {
+			result = Collections.emptyList();
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Returns all indexed nodes with a leaf set that is equal to the specified set or to its complement. 
+	 * 
+	 * @param searchedLeafSet the leaf set to be searched
+	 * @return a list of node info objects with an additional count of 0 in the order of a preorder traversal of the
+	 *         indexed subtree (so that the node closest to the root is the first element) or an empty list, if no 
+	 *         exactly matching node is contained in this index or the specified set is empty
+	 */
+	public List<NodeInfo> findExactMatches(LeafSet searchedLeafSet) {
+		searchedLeafSet = restrict(searchedLeafSet);
+		if (searchedLeafSet.isEmpty()) {
+			return Collections.emptyList();
+		}
+		else {
+			List<IndexedNode> downwards = get(searchedLeafSet);
+			List<IndexedNode> upwards = get(searchedLeafSet.complement());
+			
+			// Merge both lists according to the preorder positions:
+			List<NodeInfo> result = new ArrayList<NodeInfo>(downwards.size() + upwards.size());
+			int downwardsIndex = 0;
+			int upwardsIndex = 0;
+			while ((downwardsIndex < downwards.size()) || (upwardsIndex < upwards.size())) {
+				if ((upwardsIndex == upwards.size()) || ((downwardsIndex < downwards.size()) && 
+						(downwards.get(downwardsIndex).position < upwards.get(upwardsIndex).position))) {
+					
+					result.add(new NodeInfo(downwards.get(downwardsIndex).node, 0, true));
+					downwardsIndex++;
+				}
+				else {
+					result.add(new NodeInfo(upwards.get(upwardsIndex).node, 0, false));
+					upwardsIndex++;
+				}
+			}
+			return result;
+		}
+	}
+	
+	
+	/**
+	 * Returns the restricting leaf set used by this index.
+	 * 
+	 * @return the restricting leaf set or {@code null} if all leaves are considered
+	 */
+	public LeafSet getRestrictingLeafSet() {
+		return restrictingLeafSet;
+	}
+	
+	
+	/**
+	 * Returns the number of different leaf sets contained in this index.
+	 */
+	public int size() {
+		return map.size();
+	}
+}
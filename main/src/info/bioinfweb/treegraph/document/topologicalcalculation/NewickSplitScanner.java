@@ -0,0 +1,268 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.topologicalcalculation;
+
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import info.bioinfweb.commons.Math2;
+import info.bioinfweb.treegraph.document.io.newick.NewickException;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringChars;
+import info.bioinfweb.treegraph.document.io.nexus.TranslTable;
+
+
+
+/**
+ * Reads the bipartitions (splits) defined by a Newick string directly into a {@link SplitCountTable} without creating 
+ * {@link info.bioinfweb.treegraph.document.Node} or {@link info.bioinfweb.treegraph.document.Tree} objects. 
+ * <p>
+ * The string is scanned in a single pass. A stack of leaf set words is maintained, where a new entry is pushed for 
+ * each opened subtree and the entry of a closed subtree is counted and combined with its parent. The stack entries are
+ * reused for all scanned strings, so that counting the splits of a tree does not create any objects apart from the 
+ * names of leaves not seen before. 
+ * <p>
+ * Leaf names are translated (if a translation table is provided) and mapped to the indices defined by a 
+ * {@link TopologicalCalculator} in the same way as it is done when trees are loaded using 
+ * {@link info.bioinfweb.treegraph.document.io.newick.NewickStringReader} and leaf sets are created using 
+ * {@link TopologicalCalculator#addLeafSets(info.bioinfweb.treegraph.document.Node, info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter)}.
+ * Leaves not known to the calculator are ignored. Internal node names, branch lengths and comments are skipped.
+ * <p>
+ * Instances of this class are not thread safe.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class NewickSplitScanner extends NewickStringChars {
+	private static final int INITIAL_STACK_SIZE = 64;
+	
+	
+	private TopologicalCalculator topologicalCalculator;
+	private int wordCount;
+	private long[][] stack = new long[INITIAL_STACK_SIZE][];
+	private int depth;
+	private TranslTable currentTranslTable = null;
+	private Map<String, Integer> freeNameIndices = new HashMap<String, Integer>();
+	private Map<String, Integer> delimitedNameIndices = new HashMap<String, Integer>();
+	private StringBuilder nameBuffer = new StringBuilder();
+	
+	
+	public NewickSplitScanner(TopologicalCalculator topologicalCalculator) {
+		super();
+		this.topologicalCalculator = topologicalCalculator;
+		wordCount = new LeafSet(topologicalCalculator.getLeafSetSize()).getWords().length;
+	}
+	
+	
+	private long[] push() {
+		if (depth == stack.length) {
+			stack = Arrays.copyOf(stack, 2 * stack.length);
+		}
+		long[] result = stack[depth];
+		if (result == null) {
+			result = new long[wordCount];
+			stack[depth] = result;
+		}
+		else {
+			Arrays.fill(result, 0L);
+		}
+		depth++;
+		return result;
+	}
+	
+	
+	private void setTranslTable(TranslTable translTable) {
+		if (translTable != currentTranslTable) {
+			freeNameIndices.clear();  // Cached indices of free names might be invalid for the new table.
+			currentTranslTable = translTable;
+		}
+	}
+	
+	
+	private String translate(String name) {
+		if (currentTranslTable != null) {
+			String translated = currentTranslTable.get(name);
+			if (translated != null) {
+				return translated;
+			}
+			else if (Math2.isInt(name)) {  // see NewickStringReader.readName()
+				int pos = Integer.parseInt(name);
+				if (Math2.isBetween(pos, 0, currentTranslTable.size() - 1)) {
+					return currentTranslTable.get(pos);
+				}
+			}
+		}
+		return name;
+	}
+	
+	
+	private int leafIndex(String name, boolean delimited) {
+		Map<String, Integer> cache = delimited ? delimitedNameIndices : freeNameIndices;
+		Integer result = cache.get(name);
+		if (result == null) {
+			String leafName = name;
+			if (!delimited) {
+				leafName = translate(name.replace(FREE_NAME_BLANK, ' '));
+			}
+			result = topologicalCalculator.getLeafIndex(leafName);
+			cache.put(name, result);
+		}
+		return result;
+	}
+	
+	
+	private void addLeaf(String name, boolean delimited) {
+		if (depth > 0) {  // Trees consisting only of a single leaf do not define any splits.
+			int index = leafIndex(name, delimited);
+			if (index >= 0) {
+				stack[depth - 1][index >>> 6] |= 1L << index;
+			}
+		}
+	}
+	
+	
+	private int skipComment(String newick, int start) {
+		int pos = newick.indexOf(COMMENT_END, start + 1);
+		if (pos == -1) {
+			throw NewickException.getUnterminatedCommentException(start, newick);
+		}
+		return pos + 1;
+	}
+	
+	
+	private int readDelimitedName(String newick, int start) {
+		nameBuffer.setLength(0);
+		int pos = start + 1;
+		while (true) {
+			if (pos >= newick.length()) {
+				throw NewickException.getUnterminatedNameException(start, newick);
+			}
+			char c = newick.charAt(pos);
+			if (c == NAME_DELIMITER) {
+				if ((pos + 1 < newick.length()) && (newick.charAt(pos + 1) == NAME_DELIMITER)) {
+					nameBuffer.append(NAME_DELIMITER);  // Allow 'abc'''
+					pos += 2;
+				}
+				else {
+					return pos + 1;
+				}
+			}
+			else {
+				nameBuffer.append(c);
+				pos++;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Counts all splits defined by the specified Newick string. The root of the tree (containing all leaves) is counted
+	 * as well. Each split is counted only once per tree (see {@link SplitCountTable#startTree()}).
+	 * 
+	 * @param newick the Newick string to be scanned
+	 * @param translTable the translation table to be applied to leaf names (may be {@code null})
+	 * @param table the table to count the splits in
+	 * @param insert Specify {@code true} here, if splits not yet present in {@code table} shall be added, or 
+	 *        {@code false} if only splits already contained in {@code table} shall be counted.
+	 * @throws NewickException if the specified string contains unbalanced subtrees or unterminated names or comments
+	 * @throws IllegalArgumentException if the leaf set size of {@code table} does not match the calculator of this 
+	 *         instance
+	 */
+	public void scan(String newick, TranslTable translTable, SplitCountTable table, boolean insert) {
+		if (table.getLeafSetSize() != topologicalCalculator.getLeafSetSize()) {
+			throw new IllegalArgumentException("The leaf set size of the specified table does not match the topological calculator.");
+		}
+		setTranslTable(translTable);
+		table.startTree();
+		depth = 0;
+		boolean afterSubtreeEnd = false;  // Names directly behind a subtree are names of internal nodes.
+		int pos = 0;
+		while (pos < newick.length()) {
+			char c = newick.charAt(pos);
+			switch (c) {
+				case SUBTREE_START:
+					push();
+					afterSubtreeEnd = false;
+					pos++;
+					break;
+				case SUBTREE_END:
+					if (depth == 0) {
+						throw new NewickException(pos, newick, "Unexpected end of subtree.");
+					}
+					depth--;
+					long[] subtree = stack[depth];
+					table.count(subtree, insert);
+					if (depth > 0) {
+						long[] parent = stack[depth - 1];
+						for (int i = 0; i < wordCount; i++) {
+							parent[i] |= subtree[i];
+						}
+					}
+					afterSubtreeEnd = true;
+					pos++;
+					break;
+				case ELEMENT_SEPERATOR:
+					afterSubtreeEnd = false;
+					pos++;
+					break;
+				case LENGTH_SEPERATOR:
+					pos++;
+					if ((pos < newick.length()) && (newick.charAt(pos) == COMMENT_START)) {
+						pos = skipComment(newick, pos);
+					}
+					while ((pos < newick.length()) && !isCharAfterLength(newick.charAt(pos))) {
+						pos++;
+					}
+					break;
+				case COMMENT_START:
+					pos = skipComment(newick, pos);
+					break;
+				case TERMINAL_SYMBOL:
+					pos = newick.length();
+					break;
+				case NAME_DELIMITER:
+					pos = readDelimitedName(newick, pos);
+					if (!afterSubtreeEnd) {
+						addLeaf(nameBuffer.toString(), true);
+					}
+					break;
+				default:
+					if (isFreeNameFirstChar(c)) {
+						int start = pos;
+						pos++;
+						while ((pos < newick.length()) && isFreeNameChar(newick.charAt(pos))) {
+							pos++;
+						}
+						if (!afterSubtreeEnd) {
+							addLeaf(newick.substring(start, pos), false);
+						}
+					}
+					else {
+						pos++;  // whitespace
+					}
+					break;
+			}
+		}
+		
+		if (depth > 0) {
+			throw new NewickException(newick.length() - 1, newick, "Unterminated subtree");
+		}
+	}
+}
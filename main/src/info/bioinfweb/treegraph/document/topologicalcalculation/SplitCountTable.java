@@ -0,0 +1,341 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.topologicalcalculation;
+
+
+import java.util.Arrays;
+
+
+
+/**
+ * Hash table that counts the occurrences of bipartitions (splits), which are stored as the bit words of leaf sets. 
+ * In contrast to a {@code HashMap<LeafSet, Integer>} all keys and counts are stored in flat primitive arrays using 
+ * open addressing, so that no objects are created when splits are counted.
+ * <p>
+ * If the table is created for unrooted trees, each split is stored in a canonical form, which never contains the leaf
+ * with the index 0. A leaf set and its complement are therefore counted as the same split. For rooted trees, leaf 
+ * sets are used unchanged and complements are never matched. (Leaf sets for rooted trees contain an additional index 
+ * for the root, which is contained in the complement of every subtree but in no split of the tree itself.)
+ * <p>
+ * Splits counted between two calls of {@link #startTree()} are only counted once, even if they occur several times
+ * (e.g. the two subtrees of a bifurcating root, which define the same unrooted split).
+ * <p>
+ * Instances of this class are not thread safe. Parallel calculations should use separate tables, which can be 
+ * combined afterwards using {@link #addAll(SplitCountTable)}. 
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class SplitCountTable {
+	private static final int INITIAL_CAPACITY = 64;  // Must be a power of 2.
+	private static final int EMPTY = 0;
+	
+	
+	private int leafSetSize;
+	private int wordCount;
+	private long lastWordMask;
+	private boolean unrooted;
+	private long[] keys;
+	private int[] hashes;
+	private int[] counts;
+	private int[] lastTrees;
+	private int size = 0;
+	private int currentTree = 1;  // 0 is used to mark splits that were not yet counted.
+	private long[] canonicalWords;
+	
+	
+	/**
+	 * Creates a new empty table.
+	 * 
+	 * @param leafSetSize the size of all leaf sets that will be counted with this table (see {@link LeafSet#size()})
+	 * @param unrooted Specify {@code true} here, if a leaf set and its complement shall be considered as the same split or
+	 *        {@code false} if leaf sets shall be compared directly.
+	 */
+	public SplitCountTable(int leafSetSize, boolean unrooted) {
+		super();
+		this.leafSetSize = leafSetSize;
+		this.unrooted = unrooted;
+		LeafSet template = new LeafSet(leafSetSize);
+		wordCount = template.getWords().length;
+		template.setAllChildren();
+		lastWordMask = (wordCount > 0) ? template.getWords()[wordCount - 1] : 0;
+		canonicalWords = new long[wordCount];
+		allocate(INITIAL_CAPACITY);
+	}
+	
+	
+	/**
+	 * Creates a new table containing the same splits as the specified table. All counts of the new table are 0. 
+	 * 
+	 * @param other the table to copy the splits from
+	 */
+	public static SplitCountTable createEmptyCopy(SplitCountTable other) {
+		SplitCountTable result = new SplitCountTable(other.leafSetSize, other.unrooted);
+		result.keys = other.keys.clone();
+		result.hashes = other.hashes.clone();
+		result.counts = new int[other.counts.length];
+		result.lastTrees = new int[other.lastTrees.length];
+		result.size = other.size;
+		return result;
+	}
+	
+	
+	private void allocate(int capacity) {
+		keys = new long[capacity * wordCount];
+		hashes = new int[capacity];
+		counts = new int[capacity];
+		lastTrees = new int[capacity];
+	}
+	
+	
+	public int getLeafSetSize() {
+		return leafSetSize;
+	}
+
+
+	public boolean isUnrooted() {
+		return unrooted;
+	}
+
+
+	/**
+	 * Returns the number of different splits stored in this table.
+	 */
+	public int size() {
+		return size;
+	}
+	
+	
+	/**
+	 * Returns the canonical form of the specified words. The returned array may be the specified array itself or an
+	 * internal buffer which is overwritten by the next call of this method.
+	 */
+	private long[] canonicalize(long[] words) {
+		if (unrooted && (wordCount > 0) && ((words[0] & 1L) != 0)) {
+			for (int i = 0; i < wordCount; i++) {
+				canonicalWords[i] = ~words[i];
+			}
+			canonicalWords[wordCount - 1] &= lastWordMask;
+			return canonicalWords;
+		}
+		else {
+			return words;
+		}
+	}
+	
+	
+	private static int hash(long[] words, int offset, int length) {
+		long h = length;
+		for (int i = offset; i < offset + length; i++) {
+			h = 31 * h + words[i];
+		}
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		int result = (int)h;
+		if (result == EMPTY) {
+			result = 1;
+		}
+		return result;
+	}
+	
+	
+	private boolean keyEquals(int slot, long[] words) {
+		int offset = slot * wordCount;
+		for (int i = 0; i < wordCount; i++) {
+			if (keys[offset + i] != words[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Returns the slot containing the specified canonical words or the empty slot where they would have to be inserted.
+	 */
+	private int findSlot(long[] words, int hash) {
+		int mask = hashes.length - 1;
+		int slot = hash & mask;
+		while ((hashes[slot] != EMPTY) && ((hashes[slot] != hash) || !keyEquals(slot, words))) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+	
+	
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldHashes = hashes;
+		int[] oldCounts = counts;
+		int[] oldLastTrees = lastTrees;
+		allocate(oldHashes.length * 2);
+		int mask = hashes.length - 1;
+		for (int oldSlot = 0; oldSlot < oldHashes.length; oldSlot++) {
+			if (oldHashes[oldSlot] != EMPTY) {
+				int slot = oldHashes[oldSlot] & mask;
+				while (hashes[slot] != EMPTY) {
+					slot = (slot + 1) & mask;
+				}
+				hashes[slot] = oldHashes[oldSlot];
+				counts[slot] = oldCounts[oldSlot];
+				lastTrees[slot] = oldLastTrees[oldSlot];
+				System.arraycopy(oldKeys, oldSlot * wordCount, keys, slot * wordCount, wordCount);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Starts counting the splits of a new tree. Each split is counted only once between two calls of this method by
+	 * {@link #count(LeafSet)} or {@link NewickSplitScanner}.
+	 */
+	public void startTree() {
+		currentTree++;
+	}
+	
+	
+	/**
+	 * Increments the count of a split by one, if it was not already counted for the current tree.
+	 * 
+	 * @param words the words of the leaf set describing the split
+	 * @param insert Specify {@code true} here if the split shall be added, if it is not yet contained in this table, or 
+	 *        {@code false} if only splits already present shall be counted.
+	 * @return {@code true} if the split was found or inserted, {@code false} if it was not found and not inserted
+	 */
+	boolean count(long[] words, boolean insert) {
+		return add(words, 1, insert, true);
+	}
+	
+	
+	private boolean add(long[] words, int amount, boolean insert, boolean oncePerTree) {
+		words = canonicalize(words);
+		int hash = hash(words, 0, wordCount);
+		int slot = findSlot(words, hash);
+		if (hashes[slot] != EMPTY) {
+			if (!oncePerTree) {
+				counts[slot] += amount;
+			}
+			else if (lastTrees[slot] != currentTree) {
+				counts[slot] += amount;
+				lastTrees[slot] = currentTree;
+			}
+			return true;
+		}
+		else if (insert) {
+			hashes[slot] = hash;
+			counts[slot] = amount;
+			lastTrees[slot] = currentTree;
+			System.arraycopy(words, 0, keys, slot * wordCount, wordCount);
+			size++;
+			if (2 * size > hashes.length) {  // Keep load factor below 0.5
+				grow();
+			}
+			return true;
+		}
+		else {
+			return false;
+		}
+	}
+	
+	
+	private void checkSize(LeafSet leafSet) {
+		if (leafSet.size() != leafSetSize) {
+			throw new IllegalArgumentException("The specified leaf set has the size " + leafSet.size() + 
+					" but this table stores leaf sets with the size " + leafSetSize + ".");
+		}
+	}
+	
+	
+	/**
+	 * Adds the specified split to this table with a count of 0, if it is not already present.
+	 * 
+	 * @param leafSet the leaf set defining the split
+	 * @throws IllegalArgumentException if the size of the specified leaf set differs from {@link #getLeafSetSize()}
+	 */
+	public void addSplit(LeafSet leafSet) {
+		checkSize(leafSet);
+		add(leafSet.getWords(), 0, true, false);
+	}
+	
+	
+	/**
+	 * Increments the count of the specified split by one, if it was not already counted since the last call of 
+	 * {@link #startTree()}. The split is inserted, if it is not yet present.
+	 * 
+	 * @param leafSet the leaf set defining the split
+	 * @throws IllegalArgumentException if the size of the specified leaf set differs from {@link #getLeafSetSize()}
+	 */
+	public void count(LeafSet leafSet) {
+		checkSize(leafSet);
+		count(leafSet.getWords(), true);
+	}
+	
+	
+	/**
+	 * Returns how often the specified split was counted.
+	 * 
+	 * @param leafSet the leaf set defining the split
+	 * @return the count or 0 if the split is not contained in this table
+	 * @throws IllegalArgumentException if the size of the specified leaf set differs from {@link #getLeafSetSize()}
+	 */
+	public int getCount(LeafSet leafSet) {
+		checkSize(leafSet);
+		long[] words = canonicalize(leafSet.getWords());
+		int slot = findSlot(words, hash(words, 0, wordCount));
+		if (hashes[slot] != EMPTY) {
+			return counts[slot];
+		}
+		else {
+			return 0;
+		}
+	}
+	
+	
+	/**
+	 * Adds the counts of all splits in the specified table to this table. Splits not yet contained in this table are
+	 * inserted.
+	 * 
+	 * @param other the table to be merged into this instance
+	 * @throws IllegalArgumentException if the other table stores leaf sets of a different size or of a different 
+	 *         rooting mode
+	 */
+	public void addAll(SplitCountTable other) {
+		if ((other.leafSetSize != leafSetSize) || (other.unrooted != unrooted)) {
+			throw new IllegalArgumentException("Only tables with equal leaf set sizes and rooting modes can be combined.");
+		}
+		long[] words = new long[wordCount];
+		for (int slot = 0; slot < other.hashes.length; slot++) {
+			if (other.hashes[slot] != EMPTY) {
+				System.arraycopy(other.keys, slot * wordCount, words, 0, wordCount);
+				add(words, other.counts[slot], true, false);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Sets the counts of all splits contained in this table to 0. The splits themselves are not removed.
+	 */
+	public void resetCounts() {
+		Arrays.fill(counts, 0);
+	}
+}
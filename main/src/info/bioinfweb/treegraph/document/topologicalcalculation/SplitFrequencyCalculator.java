@@ -0,0 +1,328 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.topologicalcalculation;
+
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import info.bioinfweb.treegraph.document.io.ReadWriteFactory;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringIterator;
+import info.bioinfweb.treegraph.document.io.nexus.TranslTable;
+
+
+
+/**
+ * Counts the frequencies of splits in a set of trees read from one or more Nexus or Newick files. The trees are 
+ * streamed from the files one by one and scanned using a {@link NewickSplitScanner}, so that the memory consumption
+ * does not depend on the number of trees contained in the files.
+ * <p>
+ * A burn-in and a thinning interval can be specified, which are applied to each file separately (e.g. to the files of
+ * different runs of a Bayesian analysis). Trees that are omitted are read from the stream but not scanned. 
+ * <p>
+ * If more than one thread shall be used, the calling thread only reads the tree strings and passes them to a bounded
+ * queue. The specified number of worker threads scan the strings from the queue, each counting into its own copy of 
+ * the table. These copies are added to the table of this instance, when the end of the stream is reached. The results
+ * are identical to the sequential calculation.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class SplitFrequencyCalculator {
+	private static final int QUEUE_CAPACITY_PER_THREAD = 16;
+	private static final long QUEUE_TIMEOUT = 100;  // ms
+	
+	
+	private static class TreeString {
+		public final String newick;
+		public final TranslTable translTable;
+		
+		public TreeString(String newick, TranslTable translTable) {
+			super();
+			this.newick = newick;
+			this.translTable = translTable;
+		}
+	}
+	
+	
+	private static final TreeString END_OF_STREAM = new TreeString(null, null);
+	
+	
+	private TopologicalCalculator topologicalCalculator;
+	private NewickSplitScanner scanner;
+	private SplitCountTable table;
+	private boolean insertNewSplits;
+	private int burnIn;
+	private int thinning;
+	private int threadCount;
+	private int treeCount = 0;
+	
+	
+	/**
+	 * Creates a new instance of this class.
+	 * 
+	 * @param topologicalCalculator the calculator defining the leaf indices
+	 * @param table the table to count the splits in
+	 * @param insertNewSplits Specify {@code true} here if all splits found in the trees shall be counted or {@code false}
+	 *        if only splits already contained in {@code table} shall be counted. (The latter keeps the memory consumption
+	 *        constant.)
+	 * @param burnIn the number of trees at the beginning of each file that shall be ignored
+	 * @param thinning the interval of trees to be used after the burn-in (e.g. 1 to use all trees or 10 to use every 10th
+	 *        tree)
+	 * @throws IllegalArgumentException if {@code burnIn} is negative or {@code thinning} is lower than 1
+	 */
+	public SplitFrequencyCalculator(TopologicalCalculator topologicalCalculator, SplitCountTable table, 
+			boolean insertNewSplits, int burnIn, int thinning) {
+		
+		this(topologicalCalculator, table, insertNewSplits, burnIn, thinning, 1);
+	}
+	
+	
+	/**
+	 * Creates a new instance of this class.
+	 * 
+	 * @param topologicalCalculator the calculator defining the leaf indices
+	 * @param table the table to count the splits in
+	 * @param insertNewSplits Specify {@code true} here if all splits found in the trees shall be counted or {@code false}
+	 *        if only splits already contained in {@code table} shall be counted. (The latter keeps the memory consumption
+	 *        constant.)
+	 * @param burnIn the number of trees at the beginning of each file that shall be ignored
+	 * @param thinning the interval of trees to be used after the burn-in (e.g. 1 to use all trees or 10 to use every 10th
+	 *        tree)
+	 * @param threadCount the number of worker threads to scan the trees (If 1 is specified, all trees are scanned in the 
+	 *        calling thread.)
+	 * @throws IllegalArgumentException if {@code burnIn} is negative or {@code thinning} or {@code threadCount} are lower
+	 *         than 1
+	 */
+	public SplitFrequencyCalculator(TopologicalCalculator topologicalCalculator, SplitCountTable table, 
+			boolean insertNewSplits, int burnIn, int thinning, int threadCount) {
+		
+		super();
+		if (burnIn < 0) {
+			throw new IllegalArgumentException("The burn-in must not be negative.");
+		}
+		else if (thinning < 1) {
+			throw new IllegalArgumentException("The thinning interval must be at least 1.");
+		}
+		else if (threadCount < 1) {
+			throw new IllegalArgumentException("At least one thread must be used.");
+		}
+		this.topologicalCalculator = topologicalCalculator;
+		this.scanner = new NewickSplitScanner(topologicalCalculator);
+		this.table = table;
+		this.insertNewSplits = insertNewSplits;
+		this.burnIn = burnIn;
+		this.thinning = thinning;
+		this.threadCount = threadCount;
+	}
+
+
+	public SplitCountTable getTable() {
+		return table;
+	}
+
+
+	/**
+	 * Returns the number of trees that have been counted until now (not including the trees omitted due to the burn-in 
+	 * or thinning).
+	 */
+	public int getTreeCount() {
+		return treeCount;
+	}
+	
+	
+	/**
+	 * Determines whether the tree with the specified index in its source file shall be used according to the burn-in 
+	 * and the thinning interval of this instance.
+	 * 
+	 * @param index the index of the tree in its file
+	 * @return {@code true} if the tree shall be counted, {@code false} otherwise
+	 */
+	public boolean isTreeUsed(int index) {
+		return (index >= burnIn) && ((index - burnIn) % thinning == 0);
+	}
+	
+
+	/**
+	 * Counts the splits of all trees provided by the specified iterator (considering the burn-in and thinning). 
+	 * The iterator is not closed by this method.
+	 * 
+	 * @param iterator the source of the trees to be counted
+	 * @throws IOException if an error occurs while reading from the iterator
+	 * @throws info.bioinfweb.treegraph.document.io.newick.NewickException if a tree string is invalid
+	 */
+	public void process(NewickStringIterator iterator) throws IOException {
+		if (threadCount > 1) {
+			processParallel(iterator);
+		}
+		else {
+			processSequential(iterator);
+		}
+	}
+	
+	
+	private void processSequential(NewickStringIterator iterator) throws IOException {
+		int index = 0;
+		String newick = iterator.next();
+		while (newick != null) {
+			if (isTreeUsed(index)) {
+				scanner.scan(newick, iterator.getTranslTable(), table, insertNewSplits);
+				treeCount++;
+			}
+			index++;
+			newick = iterator.next();
+		}
+	}
+	
+	
+	private Callable<SplitCountTable> createWorker(final BlockingQueue<TreeString> queue) {
+		return new Callable<SplitCountTable>() {
+			@Override
+			public SplitCountTable call() throws Exception {
+				NewickSplitScanner workerScanner = new NewickSplitScanner(topologicalCalculator);
+				SplitCountTable workerTable = SplitCountTable.createEmptyCopy(table);
+				TreeString tree = queue.take();
+				while (tree != END_OF_STREAM) {
+					workerScanner.scan(tree.newick, tree.translTable, workerTable, insertNewSplits);
+					tree = queue.take();
+				}
+				return workerTable;
+			}
+		};
+	}
+	
+	
+	private static IOException createIOException(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof IOException) {
+			return (IOException)cause;
+		}
+		else if (cause instanceof RuntimeException) {
+			throw (RuntimeException)cause;  // e.g. NewickException
+		}
+		else if (cause instanceof Error) {
+			throw (Error)cause;
+		}
+		else {
+			return new IOException(cause);
+		}
+	}
+	
+	
+	private static InterruptedIOException createIOException(InterruptedException e) {
+		InterruptedIOException result = new InterruptedIOException("Counting splits was interrupted.");
+		result.initCause(e);
+		return result;
+	}
+	
+	
+	/**
+	 * Adds the specified tree to the queue. If the queue is full, it is checked regularly whether a worker has 
+	 * terminated with an exception, which is then rethrown.
+	 */
+	private void put(BlockingQueue<TreeString> queue, TreeString tree, List<Future<SplitCountTable>> workers) 
+			throws IOException {
+		
+		try {
+			while (!queue.offer(tree, QUEUE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				for (Future<SplitCountTable> worker : workers) {
+					if (worker.isDone()) {  // Workers only terminate regularly after END_OF_STREAM was read.
+						worker.get();
+					}
+				}
+			}
+		}
+		catch (ExecutionException e) {
+			throw createIOException(e);
+		}
+		catch (InterruptedException e) {
+			throw createIOException(e);
+		}
+	}
+	
+	
+	private void processParallel(NewickStringIterator iterator) throws IOException {
+		BlockingQueue<TreeString> queue = new ArrayBlockingQueue<TreeString>(threadCount * QUEUE_CAPACITY_PER_THREAD);
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Future<SplitCountTable>> workers = new ArrayList<Future<SplitCountTable>>(threadCount);
+			for (int i = 0; i < threadCount; i++) {
+				workers.add(executor.submit(createWorker(queue)));
+			}
+			
+			int index = 0;
+			String newick = iterator.next();
+			while (newick != null) {
+				if (isTreeUsed(index)) {
+					put(queue, new TreeString(newick, iterator.getTranslTable()), workers);
+					treeCount++;
+				}
+				index++;
+				newick = iterator.next();
+			}
+			for (int i = 0; i < threadCount; i++) {
+				put(queue, END_OF_STREAM, workers);
+			}
+			
+			for (Future<SplitCountTable> worker : workers) {
+				table.addAll(worker.get());
+			}
+		}
+		catch (ExecutionException e) {
+			throw createIOException(e);
+		}
+		catch (InterruptedException e) {
+			throw createIOException(e);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	
+	/**
+	 * Counts the splits of all trees in the specified Nexus or Newick file (considering the burn-in and thinning). 
+	 * 
+	 * @param file the file containing the trees
+	 * @throws IOException if the file cannot be read or has an unsupported format
+	 */
+	public void process(File file) throws IOException {
+		NewickStringIterator iterator = ReadWriteFactory.getInstance().createNewickStringIterator(file);
+		if (iterator == null) {
+			throw new IOException("The file \"" + file.getAbsolutePath() + "\" is neither a Nexus nor a Newick file.");
+		}
+		try {
+			process(iterator);
+		}
+		finally {
+			iterator.close();
+		}
+	}
+}
@@ -46,11 +46,13 @@ public class TopologicalCalculator {
 	protected boolean processRooted;
 	protected String keyLeafReference;
 	protected CompareTextElementDataParameters parameters;
+	protected String keyChildrenReference;
 	
 	
 	public TopologicalCalculator(boolean processRooted,	String keyLeafReference, CompareTextElementDataParameters parameters) {
 		this.processRooted = processRooted;
 		this.keyLeafReference = keyLeafReference;
+		keyChildrenReference = keyLeafReference + ".Children";
 		this.parameters = parameters;
 		createNewIndexMap();
 	}
@@ -144,11 +146,7 @@ public class TopologicalCalculator {
 	 */
 	public LeafSet getLeafSet(Node node) {
 		if (node.getAttributeMap().get(keyLeafReference) == null) {
-			int size = leafValueToIndexMap.size();
-			if (processRooted) {
-				size++;
-			}
-			LeafSet field = new LeafSet(size);
+			LeafSet field = new LeafSet(getLeafSetSize());
 			node.getAttributeMap().put(keyLeafReference, field);
 		}
 		return (LeafSet)node.getAttributeMap().get(keyLeafReference);
@@ -171,6 +169,22 @@ public class TopologicalCalculator {
 		return leafValueToIndexMap.size();
 	}
 	
+	
+	/**
+	 * Returns the size of the leaf sets created by this instance. This is the number of registered leaves plus one, if
+	 * the root shall be considered as an additional terminal.
+	 * 
+	 * @return the size of the leaf sets returned by {@link #getLeafSet(Node)}
+	 * @since 2.16.0
+	 */
+	public int getLeafSetSize() {
+		int result = getLeafCount();
+		if (processRooted) {
+			result++;
+		}
+		return result;
+	}
+	
 
 	/**
 	 * Adds a boolean set which indicates the leafs located under {@code root} to its attribute map.
@@ -180,6 +194,7 @@ public class TopologicalCalculator {
 	 */
 	public void addLeafSets(Node root, NodeBranchDataAdapter leafAdapter) {
 		root.getAttributeMap().remove(keyLeafReference);  // Necessary to overwrite possible leaf sets from previous edits which might not be valid anymore.
+		root.getAttributeMap().remove(keyChildrenReference);  // Make sure updateLeafSets() does not rely on children recorded before the leaf set was recalculated here.
 		LeafSet field = getLeafSet(root);
 		if (!root.isLeaf()) {
 			for (int i = 0; i < root.getChildren().size(); i++) {
@@ -205,6 +220,69 @@ public class TopologicalCalculator {
 	}
 	
 	
+	private static boolean isSameChildren(Node[] previousChildren, List<Node> children) {
+		if ((previousChildren == null) || (previousChildren.length != children.size())) {
+			return false;
+		}
+		for (int i = 0; i < previousChildren.length; i++) {
+			if (previousChildren[i] != children.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Updates the leaf sets attached to the nodes of the subtree under {@code root}. In contrast to 
+	 * {@link #addLeafSets(Node, NodeBranchDataAdapter)} the leaf set of a node is only recalculated, if its children
+	 * differ from the children it had when its leaf set was calculated by a previous call of this method, if the leaf set 
+	 * of one of its children was recalculated or if its leaf value changed. All other nodes keep their previous leaf set 
+	 * instance. 
+	 * <p>
+	 * Leaf sets that are recalculated are replaced by new instances and not modified, so that previous leaf sets can
+	 * still be used as keys of hash maps. (E.g. in a {@link LeafSetIndex}.) 
+	 * 
+	 * @param root the root of the subtree to be processed
+	 * @param leafAdapter the node/branch data adapter that provides access to the node/branch data column that defined a leaf node
+	 * @return {@code true} if the leaf set of {@code root} was recalculated, {@code false} otherwise
+	 * @since 2.16.0
+	 */
+	public boolean updateLeafSets(Node root, NodeBranchDataAdapter leafAdapter) {
+		LeafSet previous = (LeafSet)root.getAttributeMap().get(keyLeafReference);
+		boolean changed = (previous == null) || (previous.size() != getLeafSetSize());
+		if (root.isLeaf()) {
+			root.getAttributeMap().remove(keyChildrenReference);
+			int index = getLeafIndex(leafAdapter.toTextElementData(root).toString());
+			if (changed || ((index >= 0) ? (previous.childCount() != 1) || !previous.isChild(index) : !previous.isEmpty())) {
+				LeafSet field = new LeafSet(getLeafSetSize());
+				if (index >= 0) {  // Ignore leaves that are not contained in the index list.
+					field.setChild(index, true);
+				}
+				root.getAttributeMap().put(keyLeafReference, field);
+				changed = true;
+			}
+		}
+		else {
+			for (Node child : root.getChildren()) {
+				changed = updateLeafSets(child, leafAdapter) || changed;  // The recursive call must be performed first.
+			}
+			
+			Node[] previousChildren = (Node[])root.getAttributeMap().get(keyChildrenReference);
+			if (changed || !isSameChildren(previousChildren, root.getChildren())) {
+				LeafSet field = new LeafSet(getLeafSetSize());
+				for (Node child : root.getChildren()) {
+					field.addField(getLeafSet(child));
+				}
+				root.getAttributeMap().put(keyLeafReference, field);
+				root.getAttributeMap().put(keyChildrenReference, root.getChildren().toArray(new Node[root.getChildren().size()]));
+				changed = true;
+			}
+		}
+		return changed;
+	}
+	
+	
 	private LeafSet restrictLeafSet(LeafSet leafSet, LeafSet restrictingLeafSet) {
 		if (restrictingLeafSet != null) {
 			return leafSet.and(restrictingLeafSet);
@@ -265,6 +343,16 @@ public class TopologicalCalculator {
 					}
 				}
 			}
+			
+			if (!downwards && !result.isEmpty()) {
+				// All descendants contain subsets of the leaves of root and can therefore only match upwards. Such a match would 
+				// at least contain all leaves not contained in root or in the searched set as additional leaves.
+				int lowerBound = comparedLeafSet.size() - comparedLeafSet.childCount() - searchedLeafSet.childCount() + 
+						comparedLeafSet.intersectionCount(searchedLeafSet);
+				if (lowerBound > result.get(0).getAdditionalCount()) {
+					return;
+				}
+			}
 	  	
 			for (Node child : root.getChildren()) {
 				findNodeWithAllLeavesRecursive(result, child, searchedLeafSet, restrictingLeafSet);
@@ -313,6 +401,10 @@ public class TopologicalCalculator {
 			currentSearchRootLeafSet = currentSearchRootLeafSet.and(restrictingLeafSet);
 		}
 		
+		if (!currentSearchRootLeafSet.intersects(conflictNodeLeafSet) || conflictNodeLeafSet.containsAll(currentSearchRootLeafSet)) {
+			return;  // Neither this node nor any of its descendants can be in conflict, since they all contain subsets of the leaves of this node.
+		}
+		
 		if (currentSearchRootLeafSet.containsAnyAndOther(conflictNodeLeafSet, false)
 				&& currentSearchRootLeafSet.containsAnyAndOther(conflictNodeLeafSet, true)) {  // Both directions need to be checked together to rule out situations with no match and no conflict resulting from a polytomy in one tree.
 			
@@ -410,11 +502,6 @@ public class TopologicalCalculator {
 	
 	
 	private boolean isLeafSetEmpty(LeafSet leafSet) {
-		for (int i = 0; i < leafSet.size(); i++) {
-			if(leafSet.isChild(i)) {
-				return false;
-			}
-		}
-		return true;
+		return leafSet.isEmpty();
 	}
 }
\ No newline at end of file
@@ -19,13 +19,17 @@
 package info.bioinfweb.treegraph.document.undo;
 
 
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
 import javax.swing.undo.CannotRedoException;
 import javax.swing.undo.CannotUndoException;
 
 import info.bioinfweb.treegraph.document.Branch;
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Node;
-import info.bioinfweb.treegraph.document.TreePath;
+import info.bioinfweb.treegraph.document.Tree;
 import info.bioinfweb.treegraph.document.change.DocumentChangeType;
 
 
@@ -35,73 +39,303 @@ import info.bioinfweb.treegraph.document.change.DocumentChangeType;
  * method. Descendant classes do not specify a {@link #redo()} and an {@link #undo()} method 
  * but override the abstract method {@link #performRedo()}.
  * <p>
- * This class creates a copy of the old tree in the document before calling {@link #performRedo()}
- * so all classes implementing {@link #performRedo()} have to translate references to elements of
- * the old tree by using the {@link #findEquivilant(Node)} or {@link #findEquivalent(Branch)} methods.
+ * The new version of the tree is created by path copying. A node of the old tree is only copied when
+ * {@link #findEquivilant(Node)}, {@link #findEquivalent(Branch)} or {@link #getWritableNode(Node)} is called for it.
+ * All its ancestors are copied as well, while the subtrees branching from the copied path are shared between both
+ * versions of the tree. The parent references of the roots of the shared subtrees are set according to the current
+ * version in {@link #redo()} and {@link #undo()}.
+ * <p>
+ * Classes implementing {@link #performRedo()} must therefore never modify a node of the old tree directly, but
+ * obtain a writable copy using {@link #getWritableNode(Node)} first. This also applies to nodes reached by traversing
+ * the current tree in {@link #performRedo()} and to nodes whose children are changed. Copies and nodes created in
+ * {@link #performRedo()} can be modified directly. References to nodes of the old tree that are kept after the first
+ * call of {@link #redo()} can be translated using {@link #findRetainedEquivalent(Node)}.
+ * <p>
+ * The size returned by {@link #getRetainedSize()} is estimated from the number of copied nodes.
  * 
  * @author Ben St&ouml;ver
  */
 public abstract class ComplexDocumentEdit extends DocumentEdit {
+	/** 
+	 * The estimated number of bytes occupied by a node together with its afferent branch and their formats and data. 
+	 * @since 2.16.0
+	 */
+	public static final long ESTIMATED_NODE_SIZE = 2048;
+	
+	
+	private static class SharedSubtree {
+		public final Node root;
+		public final Node oldParent;
+		public Node newParent;
+		
+		public SharedSubtree(Node root, Node oldParent, Node newParent) {
+			super();
+			this.root = root;
+			this.oldParent = oldParent;
+			this.newParent = newParent;
+		}
+	}
+	
+	
 	private Node oldRoot = null;
-	private Node newRoot = null;
+	private Node newRoot = null;  // Remains null as long as no node was copied.
 	private boolean firstRedone = false;
+	private boolean redone = false;  // Determines whether the parent references of the shared subtrees are currently set according to the new version.
+	private Map<Node, Node> equivalentNodes = new IdentityHashMap<Node, Node>();  // Maps the original nodes to their copies.
+	private Map<Branch, Branch> equivalentBranches = new IdentityHashMap<Branch, Branch>();  // Branches might be moved to other nodes in performRedo().
+	private Map<Node, Node> originalNodes = new IdentityHashMap<Node, Node>();  // Maps the copies to their originals until the first redo.
+	private Map<Node, SharedSubtree> sharedSubtrees = new IdentityHashMap<Node, SharedSubtree>();
 	
 	
 	public ComplexDocumentEdit(Document document, DocumentChangeType changeType) {
 		super(document, changeType);
 		oldRoot = document.getTree().getPaintStart();
-		newRoot = oldRoot.cloneWithSubtree(true);  // Unique names are copied as well.
 		// Legends do not have to be copied since they are anchored by unique node names.
 		//TODO A legend could be anchored on a deleted node!
+	}
+	
+	
+	/**
+	 * Determines whether the specified node belongs to the old version of the tree. Nodes that are shared between
+	 * both versions are part of the old version as well.
+	 * <p>
+	 * The parent references are followed until a copy, the root of a shared subtree or the old root is found. Since all
+	 * original nodes visited on that way are copied afterwards by {@link #copyPath(Node)}, this does not add to the
+	 * asymptotic runtime.
+	 */
+	private boolean isOriginal(Node node) {
+		while (!originalNodes.containsKey(node)) {
+			if ((node == oldRoot) || sharedSubtrees.containsKey(node)) {
+				return true;
+			}
+			else if (!node.hasParent()) {
+				return false;  // A node created in performRedo() or a node of another tree.
+			}
+			node = node.getParent();
+		}
+		return false;  // A copy or a node created in performRedo() and attached to a copy.
+	}
+	
+	
+	/**
+	 * Copies the specified node of the old tree and all of its ancestors that have not been copied before. The
+	 * children of the new copy become roots of shared subtrees.
+	 * 
+	 * @param original a node of the old tree
+	 * @return the copy of {@code original}
+	 */
+	private Node copyPath(Node original) {
+		Node copy = equivalentNodes.get(original);
+		if (copy == null) {
+			Node parent = null;
+			SharedSubtree subtree = sharedSubtrees.remove(original);
+			if (subtree != null) {
+				if (redone) {
+					parent = original.getParent();  // Might differ from subtree.newParent if performRedo() moved this subtree.
+					original.setParent(subtree.oldParent);
+				}
+				else {
+					parent = subtree.newParent;
+				}
+			}
+			else if (original != oldRoot) {
+				parent = copyPath(original.getParent());
+			}
+		
+			copy = original.clone(true);  // Unique names are copied as well.
+			copy.getAttributeMap().putAll(original.getAttributeMap());  // Keep values calculated for the old nodes (e.g. leaf sets).
+			equivalentNodes.put(original, copy);
+			equivalentBranches.put(original.getAfferentBranch(), copy.getAfferentBranch());
+			originalNodes.put(copy, original);
+		
+			if (original == oldRoot) {
+				newRoot = copy;
+				if (redone) {
+					getDocument().getTree().setPaintStart(copy);
+				}
+			}
+			else if (parent != null) {  // Otherwise the original was removed from the new tree by performRedo().
+				List<Node> siblings = parent.getChildren();
+				for (int i = 0; i < siblings.size(); i++) {
+					if (siblings.get(i) == original) {
+						siblings.set(i, copy);
+						break;
+					}
+				}
+				copy.setParent(parent);
+			}
+	
+			for (Node child : original.getChildren()) {
+				copy.getChildren().add(child);
+				sharedSubtrees.put(child, new SharedSubtree(child, original, copy));
+				if (redone) {
+					child.setParent(copy);
+				}
+			}
+		}
+		return copy;
 	}
 	
+
+	private void checkModifiable() {
+		if (firstRedone) {
+			throw new IllegalStateException("The new version of the tree cannot be modified after the first call of redo().");
+		}
+	}
 	
+
 	/**
-	 * Returns the node in the new tree (copy of the old) with the equivalent position
-	 * to <code>old</code>.
+	 * Returns the copy of the specified node of the old tree that is contained in the new tree. The copy and
+	 * all of its ancestors are created, if that has not been done before.
+	 * <p>
+	 * This method can only be used in the constructor and in {@link #performRedo()}.
 	 * 
 	 * @param old - the node in the old tree
-	 * @return the node in the new tree
+	 * @return the node in the new tree or {@code null} if {@code old} is not contained in the old tree
+	 * @throws IllegalStateException if this method is called after the first call of {@link #redo()}
 	 */
 	public Node findEquivilant(Node old) {
-		return new TreePath(old).findNode(newRoot);
+		checkModifiable();
+		if (isOriginal(old)) {
+			return copyPath(old);
+		}
+		else {
+			return null;
+		}
 	}
-
+	
 	
 	/**
-	 * Returns the branch in the new tree (copy of the old) with the equivalent position
-	 * to <code>old</code>.
+	 * Returns the copy of the specified branch of the old tree that is contained in the new tree. The copy and
+	 * all of its ancestors are created, if that has not been done before.
+	 * <p>
+	 * This method can only be used in the constructor and in {@link #performRedo()}.
 	 * 
 	 * @param old - the branch in the old tree
-	 * @return the branch in the new tree
+	 * @return the branch in the new tree or {@code null} if {@code old} is not contained in the old tree
+	 * @throws IllegalStateException if this method is called after the first call of {@link #redo()}
 	 */
 	public Branch findEquivalent(Branch old) {
-		return new TreePath(old.getTargetNode()).findNode(newRoot).getAfferentBranch();
+		if (findEquivilant(old.getTargetNode()) == null) {
+			return null;
+		}
+		else {
+			return equivalentBranches.get(old);
+		}
 	}
-
+	
+	
+	/**
+	 * Returns a node of the new tree that can be modified in place of the specified node. For nodes of the old
+	 * tree (including nodes of shared subtrees) that is their copy (see {@link #findEquivilant(Node)}). Copies
+	 * and nodes created in {@link #performRedo()} are returned unchanged.
+	 * <p>
+	 * This method can only be used in the constructor and in {@link #performRedo()}.
+	 * 
+	 * @param node a node contained in the current version of the tree
+	 * @return the node to be modified instead of {@code node}
+	 * @throws IllegalStateException if this method is called after the first call of {@link #redo()}
+	 * @since 2.16.0
+	 */
+	public Node getWritableNode(Node node) {
+		checkModifiable();
+		if (isOriginal(node)) {
+			return copyPath(node);
+		}
+		else {
+			return node;
+		}
+	}
+	
+	
+	/**
+	 * Returns the node that represents the specified node of the old tree in the new tree without creating any
+	 * copies. That is the copy of {@code old}, if one was created, or {@code old} itself otherwise, since it is
+	 * then shared between both versions.
+	 * <p>
+	 * In contrast to {@link #findEquivilant(Node)} this method can also be used after the first call of
+	 * {@link #redo()}, e.g. to translate references that are offered to the user.
+	 * 
+	 * @param old a node of the old tree
+	 * @return the node contained in the new tree
+	 * @since 2.16.0
+	 */
+	public Node findRetainedEquivalent(Node old) {
+		Node result = equivalentNodes.get(old);
+		if (result == null) {
+			return old;
+		}
+		else {
+			return result;
+		}
+	}
+	
+		
+	/**
+	 * Returns the branch that represents the specified branch of the old tree in the new tree without creating
+	 * any copies.
+	 * 
+	 * @param old a branch of the old tree
+	 * @return the branch contained in the new tree
+	 * @see #findRetainedEquivalent(Node)
+	 * @since 2.16.0
+	 */
+	public Branch findRetainedEquivalent(Branch old) {
+		Branch result = equivalentBranches.get(old);
+		if (result == null) {
+			return old;
+		}
+		else {
+			return result;
+		}
+	}
+	
 	
 	protected abstract void performRedo();
 	
 	
+	@Override
+	public long getRetainedSize() {
+		return super.getRetainedSize() + equivalentNodes.size() * ESTIMATED_NODE_SIZE;
+	}
+	
+	
 	@Override
 	public void redo() throws CannotRedoException {
-		getDocument().getTree().setPaintStart(newRoot);
+		Tree tree = getDocument().getTree();
+		if (newRoot != null) {
+			tree.setPaintStart(newRoot);
+		}
+		for (SharedSubtree subtree : sharedSubtrees.values()) {
+			subtree.root.setParent(subtree.newParent);
+		}
+		redone = true;
 		
-		getDocument().getTree().updateElementSet();  // This is done again in super.redo(), but should also be done before performRedo(), so that these collections contain values according to the copied tree this method works on.
-		getDocument().getTree().assignUniqueNames();
+		tree.updateElementSet();  // This is done again in super.redo(), but should also be done before performRedo(), so that these collections contain values according to the copied tree this method works on.
+		tree.assignUniqueNames();
 		
   	if (!firstRedone) {
 			performRedo();  // Can't be called in the constructor already
-			newRoot = getDocument().getTree().getPaintStart();  // In case the root changed in performRedo()
+			if (tree.getPaintStart() != oldRoot) {
+				newRoot = tree.getPaintStart();  // In case the root changed in performRedo()
+			}
+			for (SharedSubtree subtree : sharedSubtrees.values()) {
+				subtree.newParent = subtree.root.getParent();  // In case performRedo() moved shared subtrees.
+			}
+			originalNodes = null;  // Only needed to identify copies in performRedo().
 			firstRedone = true;
-		}
+		}
 		super.redo();
 	}
-
+			
 
 	@Override
 	public void undo() throws CannotUndoException {
 		getDocument().getTree().setPaintStart(oldRoot);
+		for (SharedSubtree subtree : sharedSubtrees.values()) {
+			subtree.root.setParent(subtree.oldParent);
+		}
+		redone = false;
 		super.undo();
 	}
 }
\ No newline at end of file
@@ -50,6 +50,21 @@ public abstract class ComposedDocumentEdit extends DocumentEdit {
 	}
 
 
+	/**
+	 * Returns the sum of the sizes retained by all subedits.
+	 * 
+	 * @see info.bioinfweb.treegraph.document.undo.DocumentEdit#getRetainedSize()
+	 */
+	@Override
+	public long getRetainedSize() {
+		long result = super.getRetainedSize();
+		for (DocumentEdit edit : getEdits()) {
+			result += edit.getRetainedSize();
+		}
+		return result;
+	}
+
+
 	/**
 	 * Executes the subedits in the order specified by {@link #getEdits()}.
 	 * 
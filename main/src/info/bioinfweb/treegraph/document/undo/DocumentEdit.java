@@ -34,6 +34,13 @@ import javax.swing.undo.UndoableEdit;
  * @author Ben St&ouml;ver
  */
 public abstract class DocumentEdit extends AbstractDocumentEdit implements UndoableEdit {
+	/** 
+	 * The estimated number of bytes retained by an edit that does not store any additional data.
+	 * @since 2.16.0 
+	 */
+	public static final long DEFAULT_RETAINED_SIZE = 256;
+	
+	
 	private Document document;
 	private DocumentChangeType changeType;
 	
@@ -53,6 +60,38 @@ public abstract class DocumentEdit extends AbstractDocumentEdit implements Undoa
 	public DocumentChangeType getChangeType() {
 		return changeType;
 	}
+	
+	
+	/**
+	 * Returns the elements of the document that are modified by this edit. Positioners use this information
+	 * to only recalculate the affected parts of the document.
+	 * <p>
+	 * This default implementation returns {@code null}, which means that the changed elements are unknown and
+	 * the whole document needs to be repositioned. Inherited classes that only modify a known set of elements
+	 * without changing the topology of the tree or adding or removing labels may overwrite this method.
+	 * 
+	 * @return an array containing the changed elements or {@code null} if the changed elements are unknown
+	 * @since 2.16.0
+	 */
+	public PaintableElement[] getChangedElements() {
+		return null;
+	}
+	
+	
+	/**
+	 * Returns an estimate of the number of bytes that are retained by this edit as long as it is stored
+	 * in the undo history (e.g. by backups of node/branch data columns or copies of the tree). 
+	 * {@link DocumentUndoManager} uses this value to keep the undo history within its memory budget.
+	 * <p>
+	 * This default implementation returns {@link #DEFAULT_RETAINED_SIZE}. Inherited classes that store
+	 * larger amounts of data should overwrite this method.
+	 * 
+	 * @return the estimated size in bytes
+	 * @since 2.16.0
+	 */
+	public long getRetainedSize() {
+		return DEFAULT_RETAINED_SIZE;
+	}
 
 
 	public void redo() throws CannotRedoException {
@@ -0,0 +1,171 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.undo;
+
+
+import java.util.concurrent.locks.Lock;
+
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+
+import info.bioinfweb.commons.swing.AccessibleUndoManager;
+
+
+
+/**
+ * The undo manager used by {@link info.bioinfweb.treegraph.document.Document}. In addition to the functionality
+ * of {@link AccessibleUndoManager} it keeps the memory retained by the undo history within a specified budget.
+ * <p>
+ * The memory retained by each edit is estimated using {@link DocumentEdit#getRetainedSize()}. If the sum of
+ * these estimates exceeds the budget, the oldest edits are discarded. The edit that would be undone next is
+ * never discarded, even if it exceeds the budget alone.
+ * <p>
+ * If a lock is specified, it is held while edits are undone or redone.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class DocumentUndoManager extends AccessibleUndoManager {
+	private static final long serialVersionUID = 1L;
+	
+	
+	/** The value of the memory budget that indicates that the size of the undo history is not limited. */
+	public static final long UNLIMITED_MEMORY_BUDGET = 0;
+	
+	
+	private long memoryBudget = UNLIMITED_MEMORY_BUDGET;
+	private Lock lock;
+	
+	
+	public DocumentUndoManager() {
+		this(null);
+	}
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param lock the lock to be held while edits are undone or redone (e.g. the write lock of the according
+	 *        document) or {@code null} if no lock shall be used
+	 */
+	public DocumentUndoManager(Lock lock) {
+		super();
+		this.lock = lock;
+	}
+	
+	
+	/**
+	 * Returns the maximum number of bytes the edits in this undo manager should retain.
+	 * 
+	 * @return the budget in bytes or {@link #UNLIMITED_MEMORY_BUDGET} 
+	 */
+	public synchronized long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+
+	/**
+	 * Sets a new memory budget and directly discards old edits if the new budget is exceeded.
+	 * 
+	 * @param memoryBudget - the new budget in bytes or {@link #UNLIMITED_MEMORY_BUDGET}
+	 */
+	public synchronized void setMemoryBudget(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		trimForMemoryBudget();
+	}
+	
+	
+	@Override
+	public void undoTo(UndoableEdit edit) throws CannotUndoException {
+		if (lock != null) {
+			lock.lock();
+		}
+		try {
+			super.undoTo(edit);
+		}
+		finally {
+			if (lock != null) {
+				lock.unlock();
+			}
+		}
+	}
+
+
+	@Override
+	public void redoTo(UndoableEdit edit) throws CannotRedoException {
+		if (lock != null) {
+			lock.lock();
+		}
+		try {
+			super.redoTo(edit);
+		}
+		finally {
+			if (lock != null) {
+				lock.unlock();
+			}
+		}
+	}
+	
+	
+	private static long getRetainedSize(UndoableEdit edit) {
+		if (edit instanceof DocumentEdit) {
+			return ((DocumentEdit)edit).getRetainedSize();
+		}
+		else {
+			return DocumentEdit.DEFAULT_RETAINED_SIZE;
+		}
+	}
+	
+	
+	/**
+	 * Returns the estimated number of bytes retained by all undoable and redoable edits in this manager.
+	 * 
+	 * @return the estimated memory in bytes
+	 */
+	public synchronized long getRetainedSize() {
+		long result = 0;
+		for (UndoableEdit edit : edits) {
+			result += getRetainedSize(edit);
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Discards the oldest edits until the memory retained by the remaining edits is within the current budget.
+	 * This method is called by {@link info.bioinfweb.treegraph.document.Document#executeEdit(DocumentEdit)} after
+	 * a new edit was executed, since the size of some edits (e.g. {@link ComplexDocumentEdit}) is only known after 
+	 * their first execution.
+	 */
+	public synchronized void trimForMemoryBudget() {
+		if (memoryBudget != UNLIMITED_MEMORY_BUDGET) {
+			long size = getRetainedSize();
+			int lastIndex = firstUndoPosition();  // The next edit to be undone is kept in any case.
+			int count = 0;
+			while ((size > memoryBudget) && (count < lastIndex)) {
+				size -= getRetainedSize(edits.get(count));
+				count++;
+			}
+			if (count > 0) {
+				trimEdits(0, count - 1);
+			}
+		}
+	}
+}
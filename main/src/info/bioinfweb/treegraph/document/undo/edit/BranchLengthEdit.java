@@ -24,6 +24,7 @@ import javax.swing.undo.CannotUndoException;
 
 import info.bioinfweb.treegraph.document.Branch;
 import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.PaintableElement;
 import info.bioinfweb.treegraph.document.change.DocumentChangeType;
 import info.bioinfweb.treegraph.document.undo.DocumentEdit;
 
@@ -58,6 +59,12 @@ public class BranchLengthEdit extends DocumentEdit {
 	}
 
 
+	@Override
+	public PaintableElement[] getChangedElements() {
+		return new PaintableElement[]{branch};
+	}
+
+
 	public String getPresentationName() {
 		return "Edit branch length";
 	}
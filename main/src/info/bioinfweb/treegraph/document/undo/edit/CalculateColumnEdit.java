@@ -21,6 +21,7 @@ package info.bioinfweb.treegraph.document.undo.edit;
 
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.NodeBranchDataColumnRegistry;
 import info.bioinfweb.treegraph.document.TextElementData;
 import info.bioinfweb.treegraph.document.TextLabel;
 import info.bioinfweb.treegraph.document.change.DocumentChangeType;
@@ -28,6 +29,7 @@ import info.bioinfweb.treegraph.document.format.TextFormats;
 import info.bioinfweb.treegraph.document.nodebranchdata.BranchLengthAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.HiddenBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.HiddenNodeDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.IDElementAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NewNodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
@@ -35,10 +37,11 @@ import info.bioinfweb.treegraph.document.nodebranchdata.TextElementDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.TextIDElementType;
 import info.bioinfweb.treegraph.document.nodebranchdata.TextLabelAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.UniqueNameAdapter;
-import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
 import info.bioinfweb.treegraph.document.undo.DocumentEdit;
 import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.AbstractFunction;
+import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.CompiledExpression;
 import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.ErrorInfo;
+import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.ExpressionCompiler;
 import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.UndefinedIDException;
 import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.string.ContainsFunction;
 import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.string.EndsWithFunction;
@@ -63,12 +66,14 @@ import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.vararg.MinFun
 import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.vararg.ProductFunction;
 import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.vararg.SumFunction;
 import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.vararg.VarArgFunction;
+import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.vararg.WholeColumnFunction;
 import info.bioinfweb.treegraph.document.undo.nodebranchdata.NodeBranchDataColumnBackup;
 
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -82,6 +87,10 @@ import org.nfunk.jep.ParseException;
 
 /**
  * Calculates a node/branch data column as specified by the passed expression.
+ * <p>
+ * The target column and value expressions are parsed only once for all lines. If possible, the value expression is
+ * additionally compiled into a {@link CompiledExpression}, which calculates numeric results without creating objects. 
+ * Lines that cannot be calculated by the compiled expression are calculated by JEP.
  * 
  * @author Ben St&ouml;ver
  * @since 2.0.24
@@ -109,6 +118,12 @@ public class CalculateColumnEdit extends DocumentEdit {
   private boolean isEvaluatingDecimal = true;
   private Node position = null;
   private List<ErrorInfo> errors = new ArrayList<ErrorInfo>();
+  private org.nfunk.jep.Node targetColumnExpressionNode = null;
+  private String targetColumnExpressionError = null;
+  private org.nfunk.jep.Node valueExpressionNode = null;
+  private String valueExpressionError = null;
+  private CompiledExpression compiledValueExpression = null;
+  private Map<NodeBranchDataAdapter, Map<String, Object>> columnAggregates = new HashMap<>();
   private Map<String, NodeBranchDataColumnBackup> backups = new HashMap<>();
 	
 	
@@ -165,10 +180,15 @@ public class CalculateColumnEdit extends DocumentEdit {
 	
 	//TODO Possibly move this method to a general tool class.
 	private String getAdapterName(NodeBranchDataAdapter adapter) {
+		return getPermanentAdapter(adapter).toString();
+	}
+	
+	
+	private static NodeBranchDataAdapter getPermanentAdapter(NodeBranchDataAdapter adapter) {
 		if (adapter instanceof NewNodeBranchDataAdapter) {
 			adapter = ((NewNodeBranchDataAdapter)adapter).getPermanentAdapter();  // Necessary to include the ID in the name.
 		}
-		return adapter.toString();
+		return adapter;
 	}
 	
 	
@@ -225,20 +245,15 @@ public class CalculateColumnEdit extends DocumentEdit {
 	private Map<String, NodeBranchDataAdapter> createAdapterMap() {
 		Map<String, NodeBranchDataAdapter> result = new HashMap<String, NodeBranchDataAdapter>();
 		
-		String[] ids = NodeBranchDataColumnManager.getLabelIDs(getDocument().getTree().getPaintStart(), TextLabel.class);
-		for (int i = 0; i < ids.length; i++) {
-			result.put(ids[i], new TextLabelAdapter(ids[i], 
-					new DecimalFormat(TextFormats.DEFAULT_DECIMAL_FORMAT_EXPR)));
+		NodeBranchDataColumnRegistry registry = getDocument().getTree().getColumnRegistry();
+		for (String id : registry.getLabelIDs(TextLabel.class)) {
+			result.put(id, new TextLabelAdapter(id, new DecimalFormat(TextFormats.DEFAULT_DECIMAL_FORMAT_EXPR)));
 		}
-		
-		ids = NodeBranchDataColumnManager.getHiddenNodeDataIDs(getDocument().getTree().getPaintStart());
-		for (int i = 0; i < ids.length; i++) {
-			result.put(ids[i], new HiddenNodeDataAdapter(ids[i])); 
+		for (String id : registry.getHiddenNodeDataIDs()) {
+			result.put(id, new HiddenNodeDataAdapter(id)); 
 		}
-		
-		ids = NodeBranchDataColumnManager.getHiddenBranchDataIDs(getDocument().getTree().getPaintStart());
-		for (int i = 0; i < ids.length; i++) {
-			result.put(ids[i], new HiddenBranchDataAdapter(ids[i])); 
+		for (String id : registry.getHiddenBranchDataIDs()) {
+			result.put(id, new HiddenBranchDataAdapter(id)); 
 		}
 		
 		return result;
@@ -303,6 +318,7 @@ public class CalculateColumnEdit extends DocumentEdit {
 	 */
 	public boolean evaluate() {
 		isEvaluating = true;
+		columnAggregates.clear();
 		position = getDocument().getTree().getPaintStart();  // Avoid NPEs because of undefined positions. (This edit cannot be called with empty trees.)
 		boolean result = true;
 		try {
@@ -391,6 +407,65 @@ public class CalculateColumnEdit extends DocumentEdit {
 	}
 	
 	
+	/**
+	 * Returns a value that was calculated from all lines of a column (e.g. by a {@link WholeColumnFunction}) and
+	 * stored using {@link #putColumnAggregate(NodeBranchDataAdapter, String, Object)} before. Stored values are 
+	 * removed as soon as this edit writes into the according column and at the beginning of each call of 
+	 * {@link #evaluate()} or {@link #redo()}.
+	 * 
+	 * @param adapter the adapter of the column the value was calculated from
+	 * @param key the key identifying the calculation (e.g. the function name)
+	 * @return the stored value or {@code null} if no value is currently stored
+	 * @since 2.16.0
+	 */
+	public Object getColumnAggregate(NodeBranchDataAdapter adapter, String key) {
+		Map<String, Object> map = columnAggregates.get(adapter);
+		if (map != null) {
+			return map.get(key);
+		}
+		return null;
+	}
+	
+	
+	/**
+	 * Stores a value calculated from all lines of a column to be returned by 
+	 * {@link #getColumnAggregate(NodeBranchDataAdapter, String)} until the column is modified.
+	 * 
+	 * @param adapter the adapter of the column the value was calculated from
+	 * @param key the key identifying the calculation (e.g. the function name)
+	 * @param value the value to be stored
+	 * @since 2.16.0
+	 */
+	public void putColumnAggregate(NodeBranchDataAdapter adapter, String key, Object value) {
+		Map<String, Object> map = columnAggregates.get(adapter);
+		if (map == null) {
+			map = new HashMap<String, Object>();
+			columnAggregates.put(adapter, map);
+		}
+		map.put(key, value);
+	}
+	
+	
+	/**
+	 * Removes all stored aggregates of columns that may share data with the specified column. 
+	 */
+	private void columnChanged(NodeBranchDataAdapter adapter) {
+		if (!columnAggregates.isEmpty()) {
+			adapter = getPermanentAdapter(adapter);
+			Iterator<NodeBranchDataAdapter> iterator = columnAggregates.keySet().iterator();
+			while (iterator.hasNext()) {
+				NodeBranchDataAdapter storedAdapter = getPermanentAdapter(iterator.next());
+				if (getAdapterName(storedAdapter).equals(getAdapterName(adapter)) || ((storedAdapter instanceof IDElementAdapter) && 
+						(adapter instanceof IDElementAdapter) && 
+						((IDElementAdapter)storedAdapter).getID().equals(((IDElementAdapter)adapter).getID()))) {  // Different adapter types may access elements with the same ID. (E.g. GeneralIDAdapter.)
+					
+					iterator.remove();
+				}
+			}
+		}
+	}
+	
+	
 	/**
 	 * Returns the value of the current line in the column specified the passed id present.
 	 * 
@@ -422,19 +497,64 @@ public class CalculateColumnEdit extends DocumentEdit {
 	}
 	
 	
-	private NodeBranchDataAdapter calculateTargetAdapter() {
+	/**
+	 * Parses the target column expression (if necessary) and the value expression once before the calculation of all 
+	 * lines. 
+	 */
+	private void parseExpressions() {
+		targetColumnExpressionNode = null;
+		targetColumnExpressionError = null;
 		if (targetAdapter == null) {
 	  	parser.removeVariable(CURRENT_VALUE_VAR);  // Remove since it is not available when calculating the target ID.
 	  	parser.removeVariable(UNIQUE_NODE_NAMES_VAR);  // Remove since unique node names may not be modified.
-	  	
-	    parser.parseExpression(targetColumnExpression);
-	    if (parser.hasError()) {
-	  		errors.add(new ErrorInfo(position.getUniqueName(), parser.getErrorInfo(), false));
+	  	try {
+	  		targetColumnExpressionNode = parser.parse(targetColumnExpression);
+	  	}
+	  	catch (ParseException e) {
+	  		targetColumnExpressionError = e.getErrorInfo();
+	  	}
+	  	parser.addVariable(CURRENT_VALUE_VAR, NodeNameAdapter.getSharedInstance());  // The value is set separately for each line.
+	  	parser.addVariable(UNIQUE_NODE_NAMES_VAR, UniqueNameAdapter.getSharedInstance());
+		}
+		
+		valueExpressionNode = null;
+		valueExpressionError = null;
+		compiledValueExpression = null;
+		try {
+			valueExpressionNode = parser.parse(valueExpression);  // Variables must not be removed or added after parsing, since the parsed tree references them.
+			compiledValueExpression = new ExpressionCompiler(this, parser.getOperatorSet()).compile(valueExpressionNode);
+		}
+		catch (ParseException e) {
+			valueExpressionError = e.getErrorInfo();
+		}
+	}
+	
+	
+	/**
+	 * Evaluates the specified parsed expression for the current line.
+	 * 
+	 * @return the result or {@code null} if an error occurred during the evaluation
+	 */
+	private Object evaluateParsedExpression(org.nfunk.jep.Node expression) {
+		try {
+			return parser.evaluate(expression);
+		}
+		catch (ParseException e) {
+			return null;  // Errors during the evaluation result in an invalid result type as with JEP.parseExpression().
+		}
+	}
+	
+	
+	private NodeBranchDataAdapter calculateTargetAdapter() {
+		if (targetAdapter == null) {
+	    if (targetColumnExpressionNode == null) {
+	  		errors.add(new ErrorInfo(position.getUniqueName(), targetColumnExpressionError, false));
 	  		return null;
 	    }                                                                                                                                                                       
 	    else {
+	    	parser.setVarValue(CURRENT_VALUE_VAR, null);  // The current value is not available when calculating the target ID.
 	    	NodeBranchDataAdapter result;
-	    	Object value = parser.getValueAsObject();
+	    	Object value = evaluateParsedExpression(targetColumnExpressionNode);
 	    	if (value instanceof NodeBranchDataAdapter) {
 	    		result = (NodeBranchDataAdapter)value;
 	    	}
@@ -456,8 +576,7 @@ public class CalculateColumnEdit extends DocumentEdit {
 		  		return null;
 	    	}
 	    	
-		  	parser.addVariable(CURRENT_VALUE_VAR, result);
-		  	parser.addVariable(UNIQUE_NODE_NAMES_VAR, UniqueNameAdapter.getSharedInstance()); 
+		  	parser.setVarValue(CURRENT_VALUE_VAR, result);
 		  	return result;
 	    }
 		}
@@ -474,6 +593,7 @@ public class CalculateColumnEdit extends DocumentEdit {
 			
 			if (clearTargetColumns) {  // Clear column as soon as it is calculated as the target for the first time.
 				clearColumn(adapter, getDocument().getTree().getPaintStart());
+				columnChanged(adapter);
 			}
 		}
 	}
@@ -485,28 +605,21 @@ public class CalculateColumnEdit extends DocumentEdit {
   	if (adapter != null) {
   		prepareColumn(adapter);  // Make a column backup and possibly clear, if this column has been edited on another node before.
   		
-	    parser.parseExpression(valueExpression);
-	    if (parser.hasError()) {
-	    	errors.add(new ErrorInfo(root.getUniqueName(), parser.getErrorInfo(), true));
+	    if (valueExpressionNode == null) {
+	    	errors.add(new ErrorInfo(root.getUniqueName(), valueExpressionError, true));
 	    }
 	    else {
-	    	Object result = parser.getValueAsObject();
-	    	if (result instanceof Double) {
-	    		adapter.setDecimal(root, (Double)result);
-	    	}
-	    	else if (result instanceof String) {
-	    		adapter.setText(root, (String)result);
-	    	}
-	    	else if (result instanceof Boolean) {
-	    		double value = 0d;
-	    		if ((Boolean)result) {
-	    			value = 1d;
+	    	boolean calculated = false;
+	    	if (compiledValueExpression != null) {
+	    		try {
+	    			adapter.setDecimal(root, compiledValueExpression.evaluate(root));
+	    			columnChanged(adapter);
+	    			calculated = true;
 	    		}
-	    		adapter.setDecimal(root, value);
+	    		catch (CompiledExpression.NotApplicableException e) {}  // Calculate this line using JEP.
 	    	}
-	    	else {
-	    		adapter.delete(root);
-	    		errors.add(new ErrorInfo(root.getUniqueName(), "Invalid result type (Must be decimal or string.)", true));
+	    	if (!calculated) {
+	    		setResult(root, adapter, evaluateParsedExpression(valueExpressionNode));
 	    	}
 	    }
   	}
@@ -517,6 +630,28 @@ public class CalculateColumnEdit extends DocumentEdit {
   }
   
   
+  private void setResult(Node root, NodeBranchDataAdapter adapter, Object result) {
+  	columnChanged(adapter);
+  	if (result instanceof Double) {
+  		adapter.setDecimal(root, (Double)result);
+  	}
+  	else if (result instanceof String) {
+  		adapter.setText(root, (String)result);
+  	}
+  	else if (result instanceof Boolean) {
+  		double value = 0d;
+  		if ((Boolean)result) {
+  			value = 1d;
+  		}
+  		adapter.setDecimal(root, value);
+  	}
+  	else {
+  		adapter.delete(root);
+  		errors.add(new ErrorInfo(root.getUniqueName(), "Invalid result type (Must be decimal or string.)", true));
+  	}
+  }
+  
+  
 	private void clearColumn(NodeBranchDataAdapter adapter, Node root) {
 		adapter.delete(root);
 		for (Node child : root.getChildren()) {
@@ -552,10 +687,12 @@ public class CalculateColumnEdit extends DocumentEdit {
 	@Override
 	public void redo() throws CannotRedoException {
 		errors.clear();
+		columnAggregates.clear();
 		if ((targetAdapter != null) && clearTargetColumns) {  // Clear single target column. Calculated target columns are cleared in prepareColumn().
 			clearColumn(targetAdapter, getDocument().getTree().getPaintStart());
 		}
 		
+		parseExpressions();
 		calculateSubtree(getDocument().getTree().getPaintStart());  // Keeps previously present labels and only changes their value.
 		setDefaultValue();
 		
@@ -563,6 +700,16 @@ public class CalculateColumnEdit extends DocumentEdit {
 	}
 
 	
+	@Override
+	public long getRetainedSize() {
+		long result = super.getRetainedSize();
+		for (NodeBranchDataColumnBackup backup : backups.values()) {
+			result += backup.getRetainedSize();
+		}
+		return result;
+	}
+
+	
 	@Override
 	public void undo() throws CannotUndoException {
 		for (NodeBranchDataColumnBackup backup : backups.values()) {
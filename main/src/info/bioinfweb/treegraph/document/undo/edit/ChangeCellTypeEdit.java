@@ -24,6 +24,7 @@ import javax.swing.undo.CannotUndoException;
 
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.PaintableElement;
 import info.bioinfweb.treegraph.document.change.DocumentChangeType;
 import info.bioinfweb.treegraph.document.nodebranchdata.AbstractTextElementDataAdapter;
 import info.bioinfweb.treegraph.document.undo.DocumentEdit;
@@ -53,6 +54,12 @@ public class ChangeCellTypeEdit extends DocumentEdit {
 	}
 
 
+	@Override
+	public PaintableElement[] getChangedElements() {
+		return new PaintableElement[]{node};
+	}
+
+
 	@Override
 	public void redo() throws CannotRedoException {
 		adapter.setType(node, newValue);
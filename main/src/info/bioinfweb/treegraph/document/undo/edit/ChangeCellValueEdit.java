@@ -21,6 +21,7 @@ package info.bioinfweb.treegraph.document.undo.edit;
 
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.PaintableElement;
 import info.bioinfweb.treegraph.document.change.DocumentChangeType;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.undo.DocumentEdit;
@@ -54,4 +55,10 @@ public abstract class ChangeCellValueEdit extends DocumentEdit {
 	protected Node getNode() {
 		return node;
 	}
+
+
+	@Override
+	public PaintableElement[] getChangedElements() {
+		return new PaintableElement[]{node};
+	}
 }
@@ -23,6 +23,7 @@ import javax.swing.undo.CannotRedoException;
 
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.NodeBranchDataColumnStore;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.undo.nodebranchdata.NodeBranchDataEdit;
 
@@ -30,7 +31,8 @@ import info.bioinfweb.treegraph.document.undo.nodebranchdata.NodeBranchDataEdit;
 
 /**
  * Copies a node/branch data column. The inherited field <code>adapter</code> is used as the source 
- * adapter here.
+ * adapter here. The source values are read from the according column of the 
+ * {@link NodeBranchDataColumnStore} of the tree.
  * 
  * @author Ben St&ouml;ver
  * @since 2.0.24
@@ -49,25 +51,24 @@ public class CopyColumnEdit extends NodeBranchDataEdit {
 	}
 
 
-	private void copySubtree(Node root) {
-		if (includeLeaves || !root.isLeaf()) {
-			if (source.isDecimal(root)) {
-				getAdapter().setDecimal(root, source.getDecimal(root));
-			}
-			else if (source.isString(root)) {
-				try {
-					getAdapter().setText(root, source.getText(root));
+	private void copyColumn(NodeBranchDataColumnStore.Column column) {
+		for (int i = 0; i < column.size(); i++) {  // The column is not modified by writing to the destination column.
+			Node node = column.getNode(i);
+			if (includeLeaves || !node.isLeaf()) {
+				if (column.isDecimal(i)) {
+					getAdapter().setDecimal(node, column.getDecimal(i));
 				}
-				catch (NumberFormatException e) {
-					getAdapter().setDecimal(root, Double.NaN);  // hasLength() will return false if dest is a branch lengths adapter
+				else if (column.isString(i)) {
+					try {
+						getAdapter().setText(node, column.getText(i));
+					}
+					catch (NumberFormatException e) {
+						getAdapter().setDecimal(node, Double.NaN);  // hasLength() will return false if dest is a branch lengths adapter
+					}
+				}
+				else {
+					getAdapter().delete(node);  // Ggf. vorhandenen Wert l�schen
 				}
-			}
-	  	else {
-	  		getAdapter().delete(root);  // Ggf. vorhandenen Wert l�schen
-	  	}
-	
-	  	for (int i = 0; i < root.getChildren().size(); i++) {
-	  		copySubtree(root.getChildren().get(i));
 			}
 		}
   }
@@ -75,7 +76,7 @@ public class CopyColumnEdit extends NodeBranchDataEdit {
 	
 	@Override
 	public void redo() throws CannotRedoException {
-		copySubtree(getDocument().getTree().getPaintStart());
+		copyColumn(getDocument().getTree().getColumnStore().getColumn(source));
 		super.redo();
 	}
 
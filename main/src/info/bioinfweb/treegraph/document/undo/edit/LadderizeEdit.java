@@ -41,17 +41,30 @@ public class LadderizeEdit extends ComplexDocumentEdit {
   
 	public LadderizeEdit(Document document, Node root, boolean down) {
 		super(document, DocumentChangeType.NODE_ORDER);
-		this.root = findEquivilant(root);
+		this.root = root;  // Only nodes with changed child order are copied in performRedo().
 		this.down = down;
 	}
 
 
+	private static boolean isInOrder(NodeLadderizeComparable[] subtrees, Node root) {
+		for (int i = 0; i < subtrees.length; i++) {
+			if (subtrees[i].getNode() != root.getChildren().get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	
 	private void ladderize(Node root, boolean down) {
   	if (!root.isLeaf()) {
   		NodeLadderizeComparable[] subtrees = NodeLadderizeComparable.incloseSubnodes(root, down);
-  		root.getChildren().clear();
   		Arrays.sort(subtrees);
-  		NodeLadderizeComparable.addToNode(subtrees, root);
+  		if (!isInOrder(subtrees, root)) {
+  			root = getWritableNode(root);
+  			root.getChildren().clear();
+  			NodeLadderizeComparable.addToNode(subtrees, root);
+  		}
   		for (int i = 0; i < root.getChildren().size(); i++) {
 				ladderize(root.getChildren().get(i), down);
 			}
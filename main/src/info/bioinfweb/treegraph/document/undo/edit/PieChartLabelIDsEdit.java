@@ -26,6 +26,7 @@ import javax.swing.undo.CannotRedoException;
 import javax.swing.undo.CannotUndoException;
 
 import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.PaintableElement;
 import info.bioinfweb.treegraph.document.PieChartLabel;
 import info.bioinfweb.treegraph.document.change.DocumentChangeType;
 import info.bioinfweb.treegraph.document.undo.DocumentEdit;
@@ -45,7 +46,7 @@ public class PieChartLabelIDsEdit extends DocumentEdit {
 	
 	
 	public PieChartLabelIDsEdit(Document document, PieChartLabel[] labels, List<PieChartLabel.SectionData> newIDs) {
-		super(document, DocumentChangeType.NEUTRAL);
+		super(document, DocumentChangeType.POSITION);  // The number of sections determines the caption columns and the label dimensions.
 		this.labels = labels;
 		this.newIDs = newIDs;
 		
@@ -56,6 +57,12 @@ public class PieChartLabelIDsEdit extends DocumentEdit {
 	}
 
 	
+	@Override
+	public PaintableElement[] getChangedElements() {
+		return labels;
+	}
+	
+	
 	private void setIDs(List<PieChartLabel.SectionData> ids, int labelIndex) {
 		labels[labelIndex].getSectionDataList().clear();
 		labels[labelIndex].getSectionDataList().addAll(ids);
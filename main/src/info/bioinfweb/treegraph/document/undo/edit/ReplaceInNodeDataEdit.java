@@ -89,7 +89,10 @@ public class ReplaceInNodeDataEdit extends ComplexDocumentEdit {
 					text = searchPattern.matcher(text).replaceAll(newText);
 					break;
 			}
-			adapter.setText(root, text);
+			if (!text.equals(adapter.getText(root)) || !adapter.isString(root)) {  // Decimal values are converted to text as well.
+				root = getWritableNode(root);
+				adapter.setText(root, text);
+			}
 		}
 		
   	for (int i = 0; i < root.getChildren().size(); i++) {
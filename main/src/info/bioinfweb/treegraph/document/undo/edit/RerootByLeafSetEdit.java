@@ -158,16 +158,6 @@ public class RerootByLeafSetEdit extends AbstractTopologicalCalculationEdit impl
 	}
 
 	
-	private void findEquivalentAlternativeRootingPoints() {
-		ArrayList<Branch> copy = new ArrayList<Branch>(alternativeRootingPoints);
-		alternativeRootingPoints.clear();
-		Iterator<Branch> iterator = copy.iterator();
-		while (iterator.hasNext()) {
-			alternativeRootingPoints.add(findEquivalent(iterator.next()));
-		}
-	}
-	
-
 	/**
 	 * Searches for a branch in the tree where the new root shall be located.
 	 */
@@ -207,8 +197,6 @@ public class RerootByLeafSetEdit extends AbstractTopologicalCalculationEdit impl
 					alternativeRootingPoints.addAll(subtrees.alternatives);
 				}
 			}
-			
-			findEquivalentAlternativeRootingPoints();
 		}
 		else if (leaves.size() == 1) {
 			alternativeRootingPoints.clear();  // Currently unnecessary since this method is only called once.
@@ -217,12 +205,22 @@ public class RerootByLeafSetEdit extends AbstractTopologicalCalculationEdit impl
 		else {  // leaves is empty
 			throw new IllegalArgumentException("At least one leaf node needs to be specified to define the new root.");
 		}
-		return findEquivalent(result);
+		return result;  // Nodes are copied in performRedo().
 	}
 	
 	
+	/**
+	 * Returns the root branches of the other subtrees that would have been equally suitable as the rooting point.
+	 * The returned branches are contained in the current version of the tree after this edit has been executed.
+	 * 
+	 * @return a collection of branches (may be empty)
+	 */
 	public Collection<Branch> getAlternativeRootingPoints() {
-		return Collections.unmodifiableCollection(alternativeRootingPoints);
+		List<Branch> result = new ArrayList<Branch>(alternativeRootingPoints.size());
+		for (Branch branch : alternativeRootingPoints) {
+			result.add(findRetainedEquivalent(branch));  // Alternatives on the rerooted path have been copied.
+		}
+		return Collections.unmodifiableCollection(result);
 	}
 
 
@@ -248,6 +246,6 @@ public class RerootByLeafSetEdit extends AbstractTopologicalCalculationEdit impl
 
 	@Override
   protected void performRedo() {
-		warningText = RerootEdit.reroot(getDocument().getTree(), rootingPoint);
+		warningText = RerootEdit.reroot(this, rootingPoint);
   }
 }
@@ -48,7 +48,7 @@ public class RerootEdit extends ComplexDocumentEdit implements WarningMessageEdi
   
 	public RerootEdit(Document document, Branch rootingPoint) {
 		super(document, DocumentChangeType.ROOT_POSITION);
-		this.rootingPoint = findEquivalent(rootingPoint);
+		this.rootingPoint = rootingPoint;  // Nodes are copied in performRedo().
 	}
 	
 	
@@ -262,9 +262,33 @@ public class RerootEdit extends ComplexDocumentEdit implements WarningMessageEdi
 	}
 	
 	
+	/**
+	 * Reroots the tree of the specified edit. The nodes modified by {@link #reroot(Tree, Branch)} are copied
+	 * using {@link ComplexDocumentEdit#getWritableNode(Node)} before.
+	 * 
+	 * @param edit the edit that performs the rerooting in its {@link ComplexDocumentEdit#performRedo()} method
+	 * @param position the rooting point in the old tree
+	 * @return the warning text returned by {@link #reroot(Tree, Branch)}
+	 * @since 2.16.0
+	 */
+	public static String reroot(ComplexDocumentEdit edit, Branch position) {
+		Tree tree = edit.getDocument().getTree();
+		if (position.getTargetNode().hasParent()) {  // Otherwise no node is modified.
+			position = edit.getWritableNode(position.getTargetNode()).getAfferentBranch();  // All nodes on the path to the root are copied as well.
+			List<Node> children = tree.getPaintStart().getChildren();
+			if (children.size() == 2) {  // Branch data of the root children is combined when the former root is collapsed.
+				for (int i = 0; i < children.size(); i++) {
+					edit.getWritableNode(children.get(i));
+				}
+			}
+		}
+		return reroot(tree, position);
+	}
+	
+	
 	@Override
 	protected void performRedo() {
-		warningText = reroot(getDocument().getTree(), rootingPoint);
+		warningText = reroot(this, rootingPoint);
 	}
 
 
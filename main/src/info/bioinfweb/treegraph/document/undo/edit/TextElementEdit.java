@@ -54,6 +54,12 @@ public class TextElementEdit extends DocumentEdit {
 	}
 	
 	
+	@Override
+	public PaintableElement[] getChangedElements() {
+		return elements;
+	}
+
+
 	public String getPresentationName() {
 		return "Change Text to \"" + newData + "\"";  //TODO Text ggf. bei einer Maximallänge abschneiden.
 	}
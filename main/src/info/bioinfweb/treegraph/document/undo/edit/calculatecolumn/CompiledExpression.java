@@ -0,0 +1,64 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.undo.edit.calculatecolumn;
+
+
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.undo.edit.CalculateColumnEdit;
+
+
+
+/**
+ * A numeric expression of {@link CalculateColumnEdit} that was compiled from a parsed JEP expression by 
+ * {@link ExpressionCompiler}. In contrast to JEP, which stores all intermediate results as objects on a stack, 
+ * instances of this class calculate their result with primitive values and do not create any objects. 
+ * <p>
+ * If a value of a line cannot be calculated as a decimal value (e.g. because a referenced column contains a textual
+ * value or no value at all), {@link NotApplicableException} is thrown and the line needs to be calculated using JEP,
+ * which then creates the according result or error message.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public abstract class CompiledExpression {
+	/**
+	 * Thrown by {@link CompiledExpression#evaluate(Node)} if a line cannot be calculated by a compiled expression.
+	 * Only the single instance {@link CompiledExpression#NOT_APPLICABLE} is used, which does not contain a stack trace.
+	 */
+	public static class NotApplicableException extends Exception {
+		private static final long serialVersionUID = 1L;
+		
+		private NotApplicableException() {
+			super("The line cannot be calculated by a compiled expression.", null, false, false);
+		}
+	}
+	
+	
+	public static final NotApplicableException NOT_APPLICABLE = new NotApplicableException();
+	
+	
+	/**
+	 * Calculates the value of this expression for the specified line.
+	 * 
+	 * @param node the node defining the line to be calculated
+	 * @return the calculated value
+	 * @throws NotApplicableException if the value needs to be calculated using JEP
+	 */
+	public abstract double evaluate(Node node) throws NotApplicableException;
+}
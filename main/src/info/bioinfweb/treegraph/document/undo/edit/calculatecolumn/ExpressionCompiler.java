@@ -0,0 +1,407 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.undo.edit.calculatecolumn;
+
+
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+import info.bioinfweb.treegraph.document.undo.edit.CalculateColumnEdit;
+import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.values.GetParentValueFunction;
+import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.values.GetValueFunction;
+
+import org.nfunk.jep.ASTConstant;
+import org.nfunk.jep.ASTFunNode;
+import org.nfunk.jep.ASTVarNode;
+import org.nfunk.jep.Operator;
+import org.nfunk.jep.OperatorSet;
+import org.nfunk.jep.Variable;
+import org.nfunk.jep.function.Abs;
+import org.nfunk.jep.function.PostfixMathCommandI;
+
+
+
+/**
+ * Compiles expression trees parsed by JEP into {@link CompiledExpression}s. 
+ * <p>
+ * Only numeric constants, the arithmetic, comparative and logical operators, the function {@code abs} and the 
+ * functions {@code getValue} and {@code getParentValue} can be compiled. Node/branch data columns referenced by IDs in
+ * the latter two functions are resolved once during compilation. The results of compiled expressions are identical
+ * to the results JEP would calculate in all cases where {@link CompiledExpression.NotApplicableException} is not 
+ * thrown.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class ExpressionCompiler {
+	private CalculateColumnEdit edit;
+	private OperatorSet operators;
+	
+	
+	private static abstract class BinaryExpression extends CompiledExpression {
+		private CompiledExpression left;
+		private CompiledExpression right;
+		
+		public BinaryExpression(CompiledExpression left, CompiledExpression right) {
+			super();
+			this.left = left;
+			this.right = right;
+		}
+		
+		protected abstract double calculate(double left, double right) throws NotApplicableException;
+
+		@Override
+		public double evaluate(Node node) throws NotApplicableException {
+			double leftValue = left.evaluate(node);  // JEP always evaluates both operands. Therefore logical operators are also not short-circuited here.
+			return calculate(leftValue, right.evaluate(node));
+		}
+	}
+	
+	
+	private static abstract class UnaryExpression extends CompiledExpression {
+		private CompiledExpression operand;
+		
+		public UnaryExpression(CompiledExpression operand) {
+			super();
+			this.operand = operand;
+		}
+		
+		protected abstract double calculate(double operand);
+
+		@Override
+		public double evaluate(Node node) throws NotApplicableException {
+			return calculate(operand.evaluate(node));
+		}
+	}
+	
+	
+	/**
+	 * Reads a decimal value from a node/branch data column like {@link GetValueFunction} or 
+	 * {@link GetParentValueFunction}.
+	 */
+	private static class ValueExpression extends CompiledExpression {
+		private NodeBranchDataAdapter adapter;
+		private Variable variable;
+		private CompiledExpression defaultValue;
+		private boolean parent;
+		
+		/**
+		 * @param adapter the adapter of the column to be read (Must be {@code null}, if {@code variable} is specified.)
+		 * @param variable the variable containing the adapter of the column to be read (Must be {@code null}, if 
+		 *        {@code adapter} is specified.)
+		 * @param defaultValue the default value to be used if the line contains no value in the column (Maybe 
+		 *        {@code null}.)
+		 * @param parent Specify {@code true} here, if the value of the parent node shall be read.
+		 */
+		public ValueExpression(NodeBranchDataAdapter adapter, Variable variable, CompiledExpression defaultValue, boolean parent) {
+			super();
+			this.adapter = adapter;
+			this.variable = variable;
+			this.defaultValue = defaultValue;
+			this.parent = parent;
+		}
+		
+		private NodeBranchDataAdapter getAdapter() throws NotApplicableException {
+			if (variable != null) {
+				if (variable.getValue() instanceof NodeBranchDataAdapter) {  // The value of the variable for the current column may change for each line.
+					return (NodeBranchDataAdapter)variable.getValue();
+				}
+				else {
+					throw NOT_APPLICABLE;
+				}
+			}
+			else {
+				return adapter;
+			}
+		}
+
+		@Override
+		public double evaluate(Node node) throws NotApplicableException {
+			double defaultDecimal = Double.NaN;
+			if (defaultValue != null) {
+				defaultDecimal = defaultValue.evaluate(node);  // JEP evaluates the default value even if it is not used.
+			}
+			NodeBranchDataAdapter adapter = getAdapter();
+			
+			if (parent) {
+				node = node.getParent();
+			}
+			if ((node != null) && adapter.isDecimal(node)) {
+				return adapter.getDecimal(node);
+			}
+			else if ((defaultValue != null) && ((node == null) || !adapter.isString(node))) {
+				return defaultDecimal;
+			}
+			else {
+				throw NOT_APPLICABLE;  // Textual values and error messages for missing values are created by JEP.
+			}
+		}
+	}
+	
+	
+	/**
+	 * Creates a new instance of this class.
+	 * 
+	 * @param edit the edit that will evaluate the compiled expressions
+	 * @param operators the operator set of the parser that created the expression trees to be compiled 
+	 */
+	public ExpressionCompiler(CalculateColumnEdit edit, OperatorSet operators) {
+		super();
+		this.edit = edit;
+		this.operators = operators;
+	}
+	
+	
+	/**
+	 * Compiles the specified expression tree.
+	 * 
+	 * @param root the root of the expression tree returned by JEP
+	 * @return the compiled expression or {@code null} if the expression contains elements that cannot be compiled
+	 */
+	public CompiledExpression compile(org.nfunk.jep.Node root) {
+		if (root instanceof ASTConstant) {
+			return compileConstant(((ASTConstant)root).getValue());
+		}
+		else if ((root instanceof ASTVarNode) && ((ASTVarNode)root).getVar().isConstant()) {  // e.g. pi
+			return compileConstant(((ASTVarNode)root).getVar().getValue());
+		}
+		else if (root instanceof ASTFunNode) {
+			ASTFunNode funNode = (ASTFunNode)root;
+			if (funNode.isOperator()) {
+				return compileOperator(funNode);
+			}
+			else {
+				return compileFunction(funNode);
+			}
+		}
+		else {
+			return null;
+		}
+	}
+	
+	
+	private CompiledExpression compileConstant(Object value) {
+		if (value instanceof Double) {
+			final double decimal = (Double)value;
+			return new CompiledExpression() {
+				@Override
+				public double evaluate(Node node) {
+					return decimal;
+				}
+			};
+		}
+		else {
+			return null;  // Strings are not compiled.
+		}
+	}
+	
+	
+	private static double codeBoolean(boolean value) {
+		return value ? 1d : 0d;
+	}
+	
+	
+	private CompiledExpression compileOperator(ASTFunNode funNode) {
+		Operator operator = funNode.getOperator();
+		if (funNode.jjtGetNumChildren() == 1) {
+			CompiledExpression operand = compile(funNode.jjtGetChild(0));
+			if (operand == null) {
+				return null;
+			}
+			else if (operator == operators.getUMinus()) {
+				return new UnaryExpression(operand) {
+					@Override
+					protected double calculate(double operand) {
+						return -operand;
+					}
+				};
+			}
+			else if (operator == operators.getNot()) {
+				return new UnaryExpression(operand) {
+					@Override
+					protected double calculate(double operand) {
+						return codeBoolean(operand == 0d);
+					}
+				};
+			}
+		}
+		else if (funNode.jjtGetNumChildren() == 2) {
+			CompiledExpression left = compile(funNode.jjtGetChild(0));
+			CompiledExpression right = compile(funNode.jjtGetChild(1));
+			if ((left == null) || (right == null)) {
+				return null;
+			}
+			else if (operator == operators.getAdd()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) {
+						return left + right;
+					}
+				};
+			}
+			else if (operator == operators.getSubtract()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) {
+						return left - right;
+					}
+				};
+			}
+			else if (operator == operators.getMultiply()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) {
+						return left * right;
+					}
+				};
+			}
+			else if (operator == operators.getDivide()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) {
+						return left / right;
+					}
+				};
+			}
+			else if (operator == operators.getMod()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) {
+						return left % right;
+					}
+				};
+			}
+			else if (operator == operators.getPower()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) throws NotApplicableException {
+						if ((left < 0) && ((right != Math.rint(right)) || Double.isInfinite(right))) {
+							throw NOT_APPLICABLE;  // JEP returns a complex number in this case.
+						}
+						return Math.pow(left, right);
+					}
+				};
+			}
+			else if (operator == operators.getEQ()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) {
+						return codeBoolean(left == right);
+					}
+				};
+			}
+			else if (operator == operators.getNE()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) {
+						return codeBoolean(left != right);
+					}
+				};
+			}
+			else if (operator == operators.getLT()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) {
+						return codeBoolean(left < right);
+					}
+				};
+			}
+			else if (operator == operators.getLE()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) {
+						return codeBoolean(left <= right);
+					}
+				};
+			}
+			else if (operator == operators.getGT()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) {
+						return codeBoolean(left > right);
+					}
+				};
+			}
+			else if (operator == operators.getGE()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) {
+						return codeBoolean(left >= right);
+					}
+				};
+			}
+			else if (operator == operators.getAnd()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) {
+						return codeBoolean((left != 0d) && (right != 0d));
+					}
+				};
+			}
+			else if (operator == operators.getOr()) {
+				return new BinaryExpression(left, right) {
+					@Override
+					protected double calculate(double left, double right) {
+						return codeBoolean((left != 0d) || (right != 0d));
+					}
+				};
+			}
+		}
+		return null;
+	}
+	
+	
+	private CompiledExpression compileFunction(ASTFunNode funNode) {
+		PostfixMathCommandI function = funNode.getPFMC();
+		if ((function instanceof Abs) && (funNode.jjtGetNumChildren() == 1)) {
+			CompiledExpression operand = compile(funNode.jjtGetChild(0));
+			if (operand != null) {
+				return new UnaryExpression(operand) {
+					@Override
+					protected double calculate(double operand) {
+						return Math.abs(operand);
+					}
+				};
+			}
+		}
+		else if (((function.getClass() == GetValueFunction.class) || (function.getClass() == GetParentValueFunction.class)) &&
+				((funNode.jjtGetNumChildren() == 1) || (funNode.jjtGetNumChildren() == 2))) {
+			
+			CompiledExpression defaultValue = null;
+			if (funNode.jjtGetNumChildren() == 2) {
+				defaultValue = compile(funNode.jjtGetChild(1));
+				if (defaultValue == null) {
+					return null;
+				}
+			}
+			
+			boolean parent = function.getClass() == GetParentValueFunction.class;
+			org.nfunk.jep.Node idNode = funNode.jjtGetChild(0);
+			if ((idNode instanceof ASTConstant) && (((ASTConstant)idNode).getValue() instanceof String)) {
+				NodeBranchDataAdapter adapter = edit.getAdapterByID((String)((ASTConstant)idNode).getValue());  // Columns are resolved only once.
+				if (adapter != null) {  // Otherwise JEP will create the according error message.
+					return new ValueExpression(adapter, null, defaultValue, parent);
+				}
+			}
+			else if (idNode instanceof ASTVarNode) {
+				return new ValueExpression(null, ((ASTVarNode)idNode).getVar(), defaultValue, parent);
+			}
+		}
+		return null;
+	}
+}
@@ -32,6 +32,9 @@ import info.bioinfweb.treegraph.document.undo.edit.calculatecolumn.IDFunction;
 
 /**
  * Calculates the result of a vararg function from all values of a node/branch data column.
+ * <p>
+ * The result for a column is calculated only once and stored in the associated {@link CalculateColumnEdit} (see 
+ * {@link CalculateColumnEdit#getColumnAggregate(NodeBranchDataAdapter, String)}) until the edit modifies that column. 
  * 
  * @author Ben St&ouml;ver
  * @since 2.4.0
@@ -76,6 +79,28 @@ public class WholeColumnFunction extends IDFunction {
 	}
 	
 	
+	/**
+	 * Returns the stored result for the specified column or calculates it, if no result is currently stored. 
+	 */
+	private Object getResult(NodeBranchDataAdapter adapter) throws ParseException {
+		Object result = getEdit().getColumnAggregate(adapter, getName());
+		if (result == null) {
+			try {
+				result = calculate(adapter);
+			}
+			catch (ParseException e) {
+				result = e;  // Errors are also only determined once.
+			}
+			getEdit().putColumnAggregate(adapter, getName(), result);
+		}
+		
+		if (result instanceof ParseException) {
+			throw (ParseException)result;
+		}
+		return result;
+	}
+	
+	
 	private Object calculate(NodeBranchDataAdapter adapter) throws ParseException {
 		Stack stack = new Stack();
 		addSubtreeToStack(getEdit().getDocument().getTree().getPaintStart(), adapter, stack);  // Would lead to NullPointerException if document would be empty, but no node values can be calculated in empty documents.
@@ -91,7 +116,7 @@ public class WholeColumnFunction extends IDFunction {
 		if (idValue instanceof String) {
 			NodeBranchDataAdapter adapter = getEdit().getAdapterByID((String)idValue);
 			if (adapter != null) {
-				stack.push(calculate(adapter));
+				stack.push(getResult(adapter));
 			}
 			else {
 				getEdit().throwUndefinedIDException((String)idValue);
@@ -100,7 +125,7 @@ public class WholeColumnFunction extends IDFunction {
 		else if (idValue instanceof NodeBranchDataAdapter) {
 			NodeBranchDataAdapter adapter = (NodeBranchDataAdapter)idValue;
 			if (!adapter.equals(getEdit().getCurrentTargetAdapter())) {
-				stack.push(calculate(adapter));
+				stack.push(getResult(adapter));
 			}
 			else {
 				throw new ParseException("Functions iterating over all lines of a column cannot be called with \"THIS\" or their target column.");
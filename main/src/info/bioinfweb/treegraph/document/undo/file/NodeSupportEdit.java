@@ -19,18 +19,17 @@
 package info.bioinfweb.treegraph.document.undo.file;
 
 
-import java.util.HashMap;
+import java.io.File;
 
 import javax.swing.JOptionPane;
 
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Node;
 import info.bioinfweb.treegraph.document.change.DocumentChangeType;
-import info.bioinfweb.treegraph.document.io.DocumentIterator;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
-import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.TextElementDataAdapter;
-import info.bioinfweb.treegraph.document.topologicalcalculation.LeafSet;
+import info.bioinfweb.treegraph.document.topologicalcalculation.SplitCountTable;
+import info.bioinfweb.treegraph.document.topologicalcalculation.SplitFrequencyCalculator;
 import info.bioinfweb.treegraph.document.undo.AbstractTopologicalCalculationEdit;
 import info.bioinfweb.treegraph.gui.mainframe.MainFrame;
 
@@ -38,25 +37,46 @@ import info.bioinfweb.treegraph.gui.mainframe.MainFrame;
 
 /**
  * Implements calculating node frequencies from a set of tree topologies. 
+ * <p>
+ * The source trees are not loaded as documents, but their Newick strings are streamed from the source files and 
+ * scanned directly for the splits present in the target tree by one worker thread per available processor (see 
+ * {@link SplitFrequencyCalculator}).
  * 
  * @author Ben St&ouml;ver
  */
 public class NodeSupportEdit extends AbstractTopologicalCalculationEdit {  // is not able to get information about default support adapters
 	private double treeCounter = 0; 
 	private double normalisationBorder = 0;
-	private DocumentIterator documentIterator = null; 
+	private File[] sourceFiles;
+	private int burnIn;
+	private int thinning;
 	private NodeBranchDataAdapter supportValuesAdapter = null;
-	private TextElementDataAdapter sourceLeafsAdapter = NodeNameAdapter.getSharedInstance();
-	private HashMap<LeafSet, Node> hashMap = new HashMap<LeafSet, Node>();
+	private SplitCountTable splitCountTable;
 	
 	
+	/**
+	 * Creates a new instance of this class.
+	 * 
+	 * @param document the document containing the tree to add node frequencies to
+	 * @param terminalsAdapter the column identifying the leaves of the target tree
+	 * @param supportValuesAdapter the column to write the node frequencies to
+	 * @param processRooted Specify {@code true} here if the trees shall be compared as rooted trees (a subtree of a 
+	 *        source tree is then only counted for a node with the same leaf set, not for one with the complement)
+	 * @param sourceFiles the Nexus or Newick files containing the source trees
+	 * @param burnIn the number of trees to be ignored at the beginning of each source file
+	 * @param thinning the interval of the trees to be used from each source file after the burn-in (1 to use all trees)
+	 * @param normalisationBorder the value the node frequencies shall be normalized to or -1 if absolute numbers shall be 
+	 *        stored
+	 */
 	public NodeSupportEdit(Document document, TextElementDataAdapter terminalsAdapter, 
-			NodeBranchDataAdapter supportValuesAdapter, TextElementDataAdapter sourceLeafsAdapter, 
-			boolean processRooted, DocumentIterator documentIterator, double normalisationBorder) {
+			NodeBranchDataAdapter supportValuesAdapter, boolean processRooted, File[] sourceFiles, int burnIn, int thinning, 
+			double normalisationBorder) {
 		
 		super(document, DocumentChangeType.TOPOLOGICAL_BY_RENAMING, terminalsAdapter, processRooted); 
 		this.supportValuesAdapter = supportValuesAdapter;
-		this.documentIterator = documentIterator; 
+		this.sourceFiles = sourceFiles;
+		this.burnIn = burnIn;
+		this.thinning = thinning;
 		this.normalisationBorder = normalisationBorder;
 	}
 	
@@ -69,85 +89,63 @@ public class NodeSupportEdit extends AbstractTopologicalCalculationEdit {  // is
 	
 	@Override
 	protected void performRedo() {
-		 getTopologicalCalculator().addLeafSets(getDocument().getTree().getPaintStart(), getTargetLeavesAdapter());	
-		 createHashmap(getDocument().getTree().getPaintStart());
-		 initialiseSupportValues(getDocument().getTree().getPaintStart());
-		 try {
-			 Document result = documentIterator.next();
-			 while (result != null) {
-				 treeCounter++; 
-				 countSimilarNodes(result.getTree().getPaintStart());
-				 result = documentIterator.next();
+		getTopologicalCalculator().addLeafSets(getDocument().getTree().getPaintStart(), getTargetLeavesAdapter());
+		splitCountTable = new SplitCountTable(getTopologicalCalculator().getLeafSetSize(), 
+				!getTopologicalCalculator().isProcessRooted());
+		addSplits(getDocument().getTree().getPaintStart());
+		try {
+			SplitFrequencyCalculator calculator = new SplitFrequencyCalculator(getTopologicalCalculator(), splitCountTable, 
+					false, burnIn, thinning, Runtime.getRuntime().availableProcessors());  // Only splits present in the target tree are counted.
+			for (int i = 0; i < sourceFiles.length; i++) {
+				calculator.process(sourceFiles[i]);
 			}
-			 if(normalisationBorder != -1){
-				 normalisationValues(getDocument().getTree().getPaintStart());
-			 }
-		 }
+			treeCounter = calculator.getTreeCount();
+			
+			writeSupportValues(getDocument().getTree().getPaintStart());
+			if (normalisationBorder != -1) {
+				normalisationValues(getDocument().getTree().getPaintStart());
+			}
+		}
 		catch (Exception e) {
 			JOptionPane.showMessageDialog(MainFrame.getInstance(), "The following error occured: " +
 					e.getLocalizedMessage(), "Error", JOptionPane.ERROR_MESSAGE);
 			e.printStackTrace();
 			undo();
 		}
-	}
-	
-	
-	public void initialiseSupportValues(Node node){
-		if(!node.isLeaf()){
-			supportValuesAdapter.setDecimal(node, 0);
-			for (int i = 0; i < node.getChildren().size(); i++) {
-				initialiseSupportValues(node.getChildren().get(i));
-			}
+		finally {
+			splitCountTable = null;  // Allow to free memory.
 		}
 	}
 	
 	
-	public void normalisationValues(Node node){
-		if(!node.isLeaf()){
-			supportValuesAdapter.setDecimal(node,(supportValuesAdapter.getDecimal(node) / treeCounter)*normalisationBorder);
-			for (int i = 0; i < node.getChildren().size(); i++) {
-				normalisationValues(node.getChildren().get(i));
+	private void addSplits(Node root) {
+		if (!root.isLeaf()) {
+			splitCountTable.addSplit(getTopologicalCalculator().getLeafSet(root));
+			for (int i = 0; i < root.getChildren().size(); i++) {
+				addSplits(root.getChildren().get(i));
 			}
 		}
 	}
 	
 	
-	public void createHashmap (Node root){
+	private void writeSupportValues(Node root) {
 		if (!root.isLeaf()) {
-			LeafSet field = getTopologicalCalculator().getLeafSet(root);
-			hashMap.put(field, root);
+			root = getWritableNode(root);  // The leaf set is copied as well.
+			supportValuesAdapter.setDecimal(root, splitCountTable.getCount(getTopologicalCalculator().getLeafSet(root)));
 			for (int i = 0; i < root.getChildren().size(); i++) {
-				Node child = root.getChildren().get(i);	
-				createHashmap(child);
+				writeSupportValues(root.getChildren().get(i));
 			}
 		}
 	}
 	
 	
-	private void counter(Node node){
-		supportValuesAdapter.setDecimal(node, supportValuesAdapter.getDecimal(node) + 1);
-	}
-	
-	
-	private void countSimilarNodes(Node root) {
-		getTopologicalCalculator().addLeafSets(root, sourceLeafsAdapter);
-
-		if (!root.isLeaf()) {
-			Node corresponding = hashMap.get(getTopologicalCalculator().getLeafSet(root));
-			if (corresponding != null) {
-				counter(corresponding);
-			}
-			else {
-				corresponding = hashMap.get(getTopologicalCalculator().getLeafSet(root).complement());
-				if (corresponding != null){
-					counter(corresponding);
-				}
-			}
-		
-			for (int i = 0; i < root.getChildren().size(); i++) {
-				countSimilarNodes(root.getChildren().get(i));
+	public void normalisationValues(Node node){
+		if(!node.isLeaf()){
+			node = getWritableNode(node);
+			supportValuesAdapter.setDecimal(node,(supportValuesAdapter.getDecimal(node) / treeCounter)*normalisationBorder);
+			for (int i = 0; i < node.getChildren().size(); i++) {
+				normalisationValues(node.getChildren().get(i));
 			}
 		}
 	}
 }
-
@@ -34,6 +34,7 @@ import info.bioinfweb.treegraph.document.nodebranchdata.TextElementDataAdapter;
 import info.bioinfweb.treegraph.document.tools.TextElementDataAsStringIterator;
 import info.bioinfweb.treegraph.document.tools.TreeSerializer;
 import info.bioinfweb.treegraph.document.topologicalcalculation.LeafSet;
+import info.bioinfweb.treegraph.document.topologicalcalculation.LeafSetIndex;
 import info.bioinfweb.treegraph.document.topologicalcalculation.NodeInfo;
 import info.bioinfweb.treegraph.document.undo.AbstractTopologicalCalculationEdit;
 import info.bioinfweb.treegraph.document.undo.WarningMessageEdit;
@@ -76,6 +77,7 @@ public class AddSupportValuesEdit extends AbstractTopologicalCalculationEdit imp
 	private EquivalentBranchHandler equivalentBranchHandler;
 	private String warningMessage = null;
 	private boolean multipleValuesMappedToOneNode;
+	private LeafSetIndex sourceLeafSetIndex = null;
 	
 	
 	/**
@@ -105,7 +107,13 @@ public class AddSupportValuesEdit extends AbstractTopologicalCalculationEdit imp
 		// (Adding these leave sets must happen after filterIndexMapBySubtree(), since this methods may change indices of terminals.)
 		
 		multipleValuesMappedToOneNode = false;
-		processSubtree(getDocument().getTree().getPaintStart());
+		sourceLeafSetIndex = new LeafSetIndex(getTopologicalCalculator(), sourceDocument.getTree().getPaintStart());
+		try {
+			processSubtree(getDocument().getTree().getPaintStart());
+		}
+		finally {
+			sourceLeafSetIndex = null;  // Allow to free memory of the index.
+		}
 		warningMessage = createWarningMessage();
 	}
 
@@ -125,17 +133,19 @@ public class AddSupportValuesEdit extends AbstractTopologicalCalculationEdit imp
 		LeafSet leafSet = getTopologicalCalculator().getLeafSet(targetRoot);
 		
 		if (hasTwoOrMoreSharedTerminalsOnBothSides(targetRoot)) {
-			List<NodeInfo> bestSourceNodes = getTopologicalCalculator().findNodeWithAllLeaves(sourceDocument.getTree(), leafSet, null);  // An empty list should never be returned here, since two shared terminals were ensured to be present.
+			List<NodeInfo> bestSourceNodes = sourceLeafSetIndex.findExactMatches(leafSet);
 			
-			if (bestSourceNodes.get(0).getAdditionalCount() == 0) {  // Exact match found.
+			if (!bestSourceNodes.isEmpty()) {  // Exact match found.
+				targetRoot = getWritableNode(targetRoot);
 				multipleValuesMappedToOneNode = equivalentBranchHandler.handleBranches(bestSourceNodes, targetRoot, sourceSupportAdapter, targetSupportAdapter, parseNumericValues) 
 						|| multipleValuesMappedToOneNode;  // The condition must be specified in this order. Otherwise handleBranches() would not be called anymore as soon as multipleValuesMappedToOneNode is true.
-				System.out.println(multipleValuesMappedToOneNode);
 			}
 			else {  // There must be a conflict, since no direct matching group of shared terminals was found.
+				bestSourceNodes = getTopologicalCalculator().findNodeWithAllLeaves(sourceDocument.getTree(), leafSet, null);  // An empty list should never be returned here, since two shared terminals were ensured to be present.
 				Node conflict = getTopologicalCalculator().findHighestConflict(bestSourceNodes.get(0).getNode(), leafSet, sourceSupportAdapter, parseNumericValues, null);
 						// The first node in the list is the closest to the root. This one should be used as the search starting point if multiple topologically equivalent nodes (regarding the shared set of terminals) are present.
 				if ((conflict != null) && hasTwoOrMoreSharedTerminalsOnBothSides(conflict)) {  //TODO What if one of the other conflicts (with lower support) have two shared terminals on both sides and this one does not? That conflict should then be used!
+					targetRoot = getWritableNode(targetRoot);
 					targetConflictAdapter.setDecimal(targetRoot, sourceSupportAdapter.getNumericValue(conflict, parseNumericValues));  // getSupportValue() should never return NaN here, since the numeric values were already compared before.
 				}
 			}
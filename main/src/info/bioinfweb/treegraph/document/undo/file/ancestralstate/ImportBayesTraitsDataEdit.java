@@ -184,7 +184,7 @@ public class ImportBayesTraitsDataEdit extends AbstractTopologicalCalculationEdi
 		List<NodeInfo> results = getTopologicalCalculator().findNodeWithAllLeaves(getDocument().getTree(), leafSet, null);  //TODO Use a restricting leaf set here?
 		Node result = null;
 		if (!results.isEmpty()) {
-			result = results.get(0).getNode();
+			result = getWritableNode(results.get(0).getNode());  // Copies are also keys of internalNodes, since later searches find them in the tree.
 		}
 		//TODO Possibly handle case when multiple equivalent nodes are found?
 
@@ -20,9 +20,10 @@ package info.bioinfweb.treegraph.document.undo.file.importtable;
 
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.Vector;
@@ -109,24 +110,54 @@ public class ImportTableEdit extends DocumentEdit implements WarningMessageEdit
 	}
 
 	
-	private void addNodesByData(Collection<Node> result, Node root, TextElementData data) {
+	/**
+	 * Returns a version of {@code data} that can be used as a key in a hash map. (Positive and negative zero are 
+	 * considered equal by {@link TextElementData#equals(Object)}, but have different hash codes.)
+	 */
+	private static TextElementData toIndexKey(TextElementData data) {
+		if (data.isDecimal() && (data.getDecimal() == 0)) {
+			return new TextElementData(0.0);
+		}
+		else {
+			return data;
+		}
+	}
+	
+	
+	private static void addToIndex(Map<TextElementData, List<Node>> index, TextElementData key, Node node) {
+		List<Node> nodes = index.get(key);
+		if (nodes == null) {
+			nodes = new ArrayList<Node>(1);
+			index.put(key, nodes);
+		}
+		nodes.add(node);
+	}
+	
+	
+	private void addNodesToIndex(Map<TextElementData, List<Node>> index, Node root) {
 		TextElementData rootData = parameters.getKeyAdapter().toTextElementData(root);
-    if (rootData.equals(data) ||  // second condition is only evaluated if necessary
-    		parameters.createEditedValue(rootData.toString()).equals(data)) {
-    	
-    	result.add(root);
-    }
-    
+		TextElementData editedData = toIndexKey(parameters.createEditedValue(rootData.toString()));
+		rootData = toIndexKey(rootData);
+		addToIndex(index, rootData, root);
+		if (!editedData.equals(rootData)) {  // Avoid adding the node twice to the same list.
+			addToIndex(index, editedData, root);
+		}
+
     Iterator<Node> iterator = root.getChildren().iterator();
     while (iterator.hasNext()) {
-    	addNodesByData(result, iterator.next(), data);
+    	addNodesToIndex(index, iterator.next());
     }
 	}
 	
 	
-	private Collection<Node> getNodesByData(TextElementData data) {
-		Collection<Node> result = new ArrayList<Node>();
-		addNodesByData(result, getDocument().getTree().getPaintStart(), data);
+	/**
+	 * Creates a map that contains all nodes of the tree stored under their (unedited and edited) key value. 
+	 * The node lists are in preorder, as a recursive search would have found them. Building this index once
+	 * allows to import a table in a time linear to the number of table rows plus the number of nodes.
+	 */
+	private Map<TextElementData, List<Node>> createNodeIndex() {
+		Map<TextElementData, List<Node>> result = new HashMap<TextElementData, List<Node>>();
+		addNodesToIndex(result, getDocument().getTree().getPaintStart());
 		return result;
 	}
 	
@@ -137,11 +168,12 @@ public class ImportTableEdit extends DocumentEdit implements WarningMessageEdit
   private void importData() {
   	keysNotInTree.clear();
   	if (parameters.getImportAdapters().length == data.columnCount()) {
+  		Map<TextElementData, List<Node>> nodeIndex = createNodeIndex();
   		Iterator<TextElementData> keyIterator = data.keySet().iterator();
   		while (keyIterator.hasNext()) {  // iterate over rows
   			TextElementData key = keyIterator.next();
-				Collection<Node> nodes = getNodesByData(key);
-				if (nodes.size() > 0) {
+				List<Node> nodes = nodeIndex.get(toIndexKey(key));
+				if (nodes != null) {
 					int row = data.getRowByKey(key);
 					Iterator<Node> nodeIterator = nodes.iterator();
 					while (nodeIterator.hasNext()) {  // iterate over all nodes affected by the current row
@@ -178,6 +210,16 @@ public class ImportTableEdit extends DocumentEdit implements WarningMessageEdit
 	}
 
 
+	@Override
+	public long getRetainedSize() {
+		long result = super.getRetainedSize();
+		for (NodeBranchDataColumnBackup backup : backups) {
+			result += backup.getRetainedSize();
+		}
+		return result;
+	}
+
+
 	@Override
 	public void undo() throws CannotUndoException {
 		for (NodeBranchDataColumnBackup backup : backups) {
@@ -58,8 +58,7 @@ public class ColorsByNodeBranchDataEdit extends DocumentEdit {
 		this.inheritToTerminals = inheritToTerminals;
 		this.targetAdapters = targetAdapters;
 		
-		double maxValue = AbstractNodeBranchDataAdapter.calculateMaxNodeData(
-				sourceAdapter, document.getTree().getPaintStart());
+		double maxValue = AbstractNodeBranchDataAdapter.calculateMaxNodeData(sourceAdapter, document.getTree());
 		redFactor = ((double)(max.getRed() - min.getRed())) / maxValue;
 		greenFactor = ((double)(max.getGreen() - min.getGreen())) / maxValue;
 		blueFactor = ((double)(max.getBlue() - min.getBlue())) / maxValue;
@@ -54,7 +54,7 @@ public class DistanceValuesByNodeBranchDataEdit extends DocumentEdit {
 		this.sourceAdapter = sourceAdapter;
 		this.min = min;
 		this.factor = (max - min) / 
-		    (float)AbstractNodeBranchDataAdapter.calculateMaxNodeData(sourceAdapter, document.getTree().getPaintStart());
+		    (float)AbstractNodeBranchDataAdapter.calculateMaxNodeData(sourceAdapter, document.getTree());
 		this.changeUndefined = changeUndefined;
 		this.inheritToTerminals = inheritToTerminals;
 		this.targetAdapters = targetAdapters;
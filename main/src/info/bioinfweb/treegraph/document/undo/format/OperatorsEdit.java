@@ -24,6 +24,7 @@ import info.bioinfweb.treegraph.document.change.DocumentChangeType;
 import info.bioinfweb.treegraph.document.format.ElementFormats;
 import info.bioinfweb.treegraph.document.format.LabelFormats;
 import info.bioinfweb.treegraph.document.format.operate.FormatOperator;
+import info.bioinfweb.treegraph.document.format.operate.PositionNeutralOperator;
 import info.bioinfweb.treegraph.document.undo.DocumentEdit;
 
 import java.util.Vector;
@@ -52,10 +53,26 @@ public class OperatorsEdit extends DocumentEdit {
 	public OperatorsEdit(Document document, PaintableElement[] applyElements, 
 			FormatOperator[] operators) {
 		
-		super(document, DocumentChangeType.POSITION);
+		super(document, changeType(operators));
 		this.applyElements = applyElements;
 		this.operators = operators;
 	}
+	
+	
+	private static DocumentChangeType changeType(FormatOperator[] operators) {
+		for (int i = 0; i < operators.length; i++) {
+			if (!(operators[i] instanceof PositionNeutralOperator)) {
+				return DocumentChangeType.POSITION;
+			}
+		}
+		return DocumentChangeType.NEUTRAL;
+	}
+	
+	
+	@Override
+	public PaintableElement[] getChangedElements() {
+		return applyElements;
+	}
 
 
 	@Override
@@ -34,6 +34,13 @@ import java.util.List;
  * @since 2.0.24
  */
 public class NodeBranchDataColumnBackup {
+	/** 
+	 * The estimated number of bytes occupied by the backup of a single node.
+	 * @since 2.16.0 
+	 */
+	public static final long ESTIMATED_ELEMENT_SIZE = 128;
+	
+	
 	private NodeBranchDataAdapter adapter;
   private List<NodeBranchDataElementBackup> list = null;
   
@@ -49,6 +56,17 @@ public class NodeBranchDataColumnBackup {
 	public NodeBranchDataAdapter getAdapter() {
 		return adapter;
 	}
+	
+	
+	/**
+	 * Returns an estimate of the number of bytes occupied by this backup.
+	 * 
+	 * @return the estimated size in bytes
+	 * @since 2.16.0
+	 */
+	public long getRetainedSize() {
+		return list.size() * ESTIMATED_ELEMENT_SIZE;
+	}
 
 
 	private void backupSubtree(Node root, NodeBranchDataAdapter adapter) {
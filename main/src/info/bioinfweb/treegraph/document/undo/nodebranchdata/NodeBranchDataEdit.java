@@ -52,6 +52,12 @@ public abstract class NodeBranchDataEdit extends DocumentEdit {
 	}
 
 
+	@Override
+	public long getRetainedSize() {
+		return super.getRetainedSize() + backup.getRetainedSize();
+	}
+
+
 	@Override
 	public void undo() throws CannotUndoException {
 		backup.restore(getDocument().getTree().getPaintStart());
@@ -0,0 +1,222 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.export;
+
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.format.DistanceDimension;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintFactory;
+import info.bioinfweb.treegraph.graphics.positionpaint.TreePainter;
+import info.bioinfweb.treegraph.gui.treeframe.TreeViewPanel;
+import info.bioinfweb.commons.Math2;
+import info.bioinfweb.commons.collections.ParameterMap;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOInvalidTreeException;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataFormatImpl;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.apache.batik.transcoder.Transcoder;
+
+
+
+/**
+ * This class writes a tree document to a raster image file by painting it directly into image strips that are 
+ * passed to an {@link ImageWriter} of {@link ImageIO}. (See {@link StripRenderedImage}.) In contrast to the 
+ * inherited implementation no SVG document needs to be created, serialized and parsed again.
+ * <p>
+ * If no {@link ImageWriter} is available for the format of this writer in the current runtime environment, the 
+ * inherited SVG transcoding implementation is used instead.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class RasterGraphicWriter extends SVGTranscodeWriter implements GraphicWriter {
+	/** The maximal number of pixels painted at once. The height of the strips is calculated from this value. */
+	public static final int MAX_STRIP_PIXEL_COUNT = 4 * 1024 * 1024;
+	
+	
+	private String formatName;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param transcoderClass the transcoder to be used, if no image writer for {@code formatName} is available
+	 * @param formatName the format name used to obtain the image writer from {@link ImageIO}
+	 */
+	public RasterGraphicWriter(Class<? extends Transcoder> transcoderClass, String formatName) {
+		super(transcoderClass);
+		this.formatName = formatName;
+	}
+
+
+	public String getFormatName() {
+		return formatName;
+	}
+	
+	
+	/**
+	 * Returns the image writer used to write the image or {@code null} if none is available.
+	 */
+	protected ImageWriter createImageWriter() {
+		Iterator<ImageWriter> iterator = ImageIO.getImageWritersByFormatName(getFormatName());
+		if (iterator.hasNext()) {
+			return iterator.next();
+		}
+		else {
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Determines whether the format written by this writer supports transparent pixels. Transparent areas are 
+	 * written in white for formats that do not support transparency.
+	 * 
+	 * @return {@code true} in this default implementation
+	 */
+	protected boolean supportsTransparency() {
+		return true;
+	}
+	
+	
+	/**
+	 * This method can be overwritten to set format specific parameters (e.g. the compression) by copying graphic 
+	 * writer hints to the write parameters.
+	 * 
+	 * @param param the parameters that will be passed to the image writer
+	 * @param writerHints the hints that were specified when the <code>write</code>-method of this writer was called
+	 */
+	protected void setWriteParameters(ImageWriteParam param, ParameterMap writerHints) {}
+	
+	
+	/**
+	 * Adds the resolution to the specified metadata, if it supports the standard metadata format.
+	 */
+	private static void addResolution(IIOMetadata metadata, float pixelsPerMillimeter) {
+		if ((metadata != null) && metadata.isStandardMetadataFormatSupported() && !metadata.isReadOnly()) {
+			String pixelSize = Float.toString(1f / pixelsPerMillimeter);
+			IIOMetadataNode horizontal = new IIOMetadataNode("HorizontalPixelSize");
+			horizontal.setAttribute("value", pixelSize);
+			IIOMetadataNode vertical = new IIOMetadataNode("VerticalPixelSize");
+			vertical.setAttribute("value", pixelSize);
+			IIOMetadataNode dimension = new IIOMetadataNode("Dimension");
+			dimension.appendChild(horizontal);
+			dimension.appendChild(vertical);
+			IIOMetadataNode root = new IIOMetadataNode(IIOMetadataFormatImpl.standardMetadataFormatName);
+			root.appendChild(dimension);
+			try {
+				metadata.mergeTree(IIOMetadataFormatImpl.standardMetadataFormatName, root);
+			}
+			catch (IIOInvalidTreeException e) {}  // The resolution is optional.
+		}
+	}
+	
+	
+	/**
+	 * Writes the given document to the given stream using the same hints as the inherited implementation. The 
+	 * image is painted in strips of at most {@link #MAX_STRIP_PIXEL_COUNT} pixels. The hint 
+	 * <code>KEY_TEXT_AS_SHAPES</code> has no effect on raster images.
+	 * 
+	 * @see info.bioinfweb.treegraph.graphics.export.SVGTranscodeWriter#write(info.bioinfweb.treegraph.document.Document, info.bioinfweb.treegraph.graphics.positionpaint.TreePainter, info.bioinfweb.commons.collections.ParameterMap, java.io.OutputStream)
+	 */
+	@Override
+	public void write(final Document document, final TreePainter painter, ParameterMap hints, 
+			OutputStream stream) throws Exception {
+		
+		ImageWriter imageWriter = createImageWriter();
+		if (imageWriter == null) {
+			super.write(document, painter, hints, stream);
+			return;
+		}
+		
+	  DistanceDimension paintDim = document.getTree().getPaintDimension(
+				PositionPaintFactory.getInstance().getType(painter));
+	  float pixelsPerMillimeter = 
+	  	  hints.getFloat(KEY_PIXELS_PER_MILLIMETER, TreeViewPanel.PIXELS_PER_MM_100);
+	  
+  	float width = pixelsPerMillimeter *	paintDim.getWidth().getInMillimeters();
+  	float height = pixelsPerMillimeter *	paintDim.getHeight().getInMillimeters();
+	  if (hints.containsKey(KEY_WIDTH) && hints.containsKey(KEY_HEIGHT)) {
+	  	width = hints.getFloat(KEY_WIDTH, width);
+	  	height = hints.getFloat(KEY_HEIGHT, height);
+	  }
+	  
+	  final float paintResolution;
+	  if (hints.getBoolean(KEY_DIMENSIONS_IN_PIXELS, false)) {
+	  	paintResolution = width / paintDim.getWidth().getInMillimeters();
+	  }
+	  else {
+	  	width *= pixelsPerMillimeter;
+	  	height *= pixelsPerMillimeter;
+	  	paintResolution = TreeViewPanel.PIXELS_PER_MM_100 * 
+          (width / paintDim.getWidth().getInPixels(TreeViewPanel.PIXELS_PER_MM_100));
+	  }
+	  
+	  int imageWidth = Math.max(1, Math2.roundUp(width));
+	  int imageHeight = Math.max(1, Math2.roundUp(height));
+	  final boolean transparent = hints.getBoolean(KEY_TRANSPARENT, false);
+	  final boolean transparentImage = transparent && supportsTransparency();
+	  StripRenderedImage image = new StripRenderedImage(imageWidth, imageHeight, 
+	  		Math.max(1, MAX_STRIP_PIXEL_COUNT / imageWidth), transparentImage) {
+	  	
+			@Override
+			protected void paintStrip(Graphics2D g, Rectangle strip) {
+				g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+				g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+				g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+				if (transparent && !transparentImage) {
+					g.setColor(Color.WHITE);
+					g.fillRect(strip.x, strip.y, strip.width, strip.height);
+				}
+				painter.paintTree(g, strip, document, null, null, paintResolution, transparent, false);
+			}
+		};
+		
+		ImageWriteParam param = imageWriter.getDefaultWriteParam();
+		setWriteParameters(param, hints);
+		IIOMetadata metadata = imageWriter.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), param);
+		addResolution(metadata, pixelsPerMillimeter);
+		
+		ImageOutputStream imageStream = ImageIO.createImageOutputStream(stream);
+		try {
+			imageWriter.setOutput(imageStream);
+			imageWriter.write(null, new IIOImage(image, null, metadata), param);
+		}
+		finally {
+			imageWriter.dispose();
+			imageStream.close();
+		}
+		stream.close();
+	}
+}
@@ -0,0 +1,291 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.export;
+
+
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Vector;
+
+
+
+/**
+ * A rendered image that is painted in horizontal strips on demand. Only the most recently requested strip is 
+ * kept in memory, so that image writers that request the image data row by row or strip by strip (e.g. the PNG 
+ * and TIFF writers of {@link javax.imageio.ImageIO}) only need memory for a single strip, independent of the 
+ * size of the whole image.
+ * <p>
+ * Each strip is a tile of this image spanning the whole width. Writers that request the data of the whole
+ * image at once still work, but the complete raster is created in this case.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public abstract class StripRenderedImage implements RenderedImage {
+	private int width;
+	private int height;
+	private int stripHeight;
+	private int imageType;
+	private ColorModel colorModel;
+	private SampleModel sampleModel;
+	private int currentStripIndex = -1;
+	private BufferedImage currentStrip = null;
+	private int renderedStripCount = 0;
+	
+	
+	/**
+	 * Creates a new instance.
+	 * 
+	 * @param width the width of the whole image in pixels
+	 * @param height the height of the whole image in pixels
+	 * @param stripHeight the height of one strip in pixels
+	 * @param transparent Specify {@code true} here, if the image shall contain an alpha channel.
+	 */
+	public StripRenderedImage(int width, int height, int stripHeight, boolean transparent) {
+		super();
+		if ((width <= 0) || (height <= 0) || (stripHeight <= 0)) {
+			throw new IllegalArgumentException("The dimensions of the image and the strip height must be greater than 0.");
+		}
+		this.width = width;
+		this.height = height;
+		this.stripHeight = Math.min(stripHeight, height);
+		if (transparent) {
+			imageType = BufferedImage.TYPE_INT_ARGB;
+		}
+		else {
+			imageType = BufferedImage.TYPE_INT_RGB;
+		}
+		colorModel = new BufferedImage(1, 1, imageType).getColorModel();
+		sampleModel = colorModel.createCompatibleSampleModel(width, this.stripHeight);
+	}
+	
+	
+	/**
+	 * Implementing classes must paint the contents of a strip here. The graphics object is already translated, 
+	 * so that the coordinates of the whole image can be used.
+	 * 
+	 * @param g the graphics object of the strip
+	 * @param strip the area of the whole image covered by the strip (in pixels)
+	 */
+	protected abstract void paintStrip(Graphics2D g, Rectangle strip);
+	
+	
+	/**
+	 * Returns the height of the strips this image is painted in.
+	 */
+	public int getStripHeight() {
+		return stripHeight;
+	}
+	
+	
+	/**
+	 * Returns the number of strips that have been painted so far. A strip is painted again, if it is requested
+	 * after another strip was requested. 
+	 */
+	public int getRenderedStripCount() {
+		return renderedStripCount;
+	}
+	
+	
+	private Raster getStrip(int index) {
+		if (index != currentStripIndex) {
+			currentStrip = null;  // Allow the previous strip to be garbage collected before the next one is created.
+			currentStripIndex = -1;
+			
+			BufferedImage strip = new BufferedImage(width, stripHeight, imageType);
+			Graphics2D g = strip.createGraphics();
+			try {
+				int y = index * stripHeight;
+				g.translate(0, -y);
+				paintStrip(g, new Rectangle(0, y, width, stripHeight));
+			}
+			finally {
+				g.dispose();
+			}
+			currentStrip = strip;
+			currentStripIndex = index;
+			renderedStripCount++;
+		}
+		return currentStrip.getRaster().createTranslatedChild(0, index * stripHeight);
+	}
+	
+	
+	/**
+	 * Copies the area of {@code target} that is contained in this image from the according strips.
+	 */
+	private void copyStrips(WritableRaster target) {
+		Rectangle area = target.getBounds().intersection(new Rectangle(getMinX(), getMinY(), getWidth(), getHeight()));
+		if (!area.isEmpty()) {
+			for (int index = area.y / stripHeight; index <= (area.y + area.height - 1) / stripHeight; index++) {
+				Raster strip = getStrip(index);
+				Rectangle part = strip.getBounds().intersection(area);
+				Raster source = strip.createChild(part.x, part.y, part.width, part.height, part.x, part.y, null);
+				if (colorModel.isCompatibleRaster(target)) {
+					target.setDataElements(0, 0, source);
+				}
+				else {  // Rasters with a different layout (e.g. provided to copyData()) need to be copied pixel by pixel.
+					target.setRect(source);
+				}
+			}
+		}
+	}
+
+
+	@Override
+	public Vector<RenderedImage> getSources() {
+		return null;
+	}
+
+
+	@Override
+	public Object getProperty(String name) {
+		return Image.UndefinedProperty;
+	}
+
+
+	@Override
+	public String[] getPropertyNames() {
+		return null;
+	}
+
+
+	@Override
+	public ColorModel getColorModel() {
+		return colorModel;
+	}
+
+
+	@Override
+	public SampleModel getSampleModel() {
+		return sampleModel;
+	}
+
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+
+	@Override
+	public int getMinX() {
+		return 0;
+	}
+
+
+	@Override
+	public int getMinY() {
+		return 0;
+	}
+
+
+	@Override
+	public int getNumXTiles() {
+		return 1;
+	}
+
+
+	@Override
+	public int getNumYTiles() {
+		return (height + stripHeight - 1) / stripHeight;
+	}
+
+
+	@Override
+	public int getMinTileX() {
+		return 0;
+	}
+
+
+	@Override
+	public int getMinTileY() {
+		return 0;
+	}
+
+
+	@Override
+	public int getTileWidth() {
+		return width;
+	}
+
+
+	@Override
+	public int getTileHeight() {
+		return stripHeight;
+	}
+
+
+	@Override
+	public int getTileGridXOffset() {
+		return 0;
+	}
+
+
+	@Override
+	public int getTileGridYOffset() {
+		return 0;
+	}
+
+
+	@Override
+	public Raster getTile(int tileX, int tileY) {
+		if ((tileX != 0) || (tileY < 0) || (tileY >= getNumYTiles())) {
+			throw new ArrayIndexOutOfBoundsException("The tile (" + tileX + ", " + tileY + ") does not exist.");
+		}
+		return getStrip(tileY);
+	}
+
+
+	@Override
+	public Raster getData() {
+		return getData(new Rectangle(getMinX(), getMinY(), getWidth(), getHeight()));
+	}
+
+
+	@Override
+	public Raster getData(Rectangle rect) {
+		WritableRaster result = colorModel.createCompatibleWritableRaster(rect.width, rect.height).
+				createWritableTranslatedChild(rect.x, rect.y);
+		copyStrips(result);
+		return result;
+	}
+
+
+	@Override
+	public WritableRaster copyData(WritableRaster raster) {
+		if (raster == null) {
+			raster = colorModel.createCompatibleWritableRaster(getWidth(), getHeight());
+		}
+		copyStrips(raster);
+		return raster;
+	}
+}
@@ -20,15 +20,17 @@ package info.bioinfweb.treegraph.graphics.export.jpeg;
 
 
 import info.bioinfweb.treegraph.graphics.export.GraphicWriter;
-import info.bioinfweb.treegraph.graphics.export.SVGTranscodeWriter;
+import info.bioinfweb.treegraph.graphics.export.RasterGraphicWriter;
 import info.bioinfweb.commons.collections.ParameterMap;
 
+import javax.imageio.ImageWriteParam;
+
 import org.apache.batik.transcoder.Transcoder;
 import org.apache.batik.transcoder.image.JPEGTranscoder;
 
 
 
-public class JPEGWriter extends SVGTranscodeWriter implements GraphicWriter {
+public class JPEGWriter extends RasterGraphicWriter implements GraphicWriter {
 	public static final float DEFAULT_QUALITY = 0.8f;
 	public static final float MIN_QUALITY = 0.01f;
 	public static final float MAX_QUALITY = 1f;
@@ -36,15 +38,32 @@ public class JPEGWriter extends SVGTranscodeWriter implements GraphicWriter {
 	
 	
 	public JPEGWriter() {
-		super(JPEGTranscoder.class);
+		super(JPEGTranscoder.class, "jpeg");
+	}
+	
+	
+	private static float getQuality(ParameterMap writerHints) {
+		return Math.max(MIN_QUALITY, Math.min(MAX_QUALITY, writerHints.getFloat(KEY_JPEG_QUALITY, DEFAULT_QUALITY)));
 	}
 
 
 	@Override
 	protected void addTranscodingHints(Transcoder transcoder, ParameterMap writerHints) {
 		super.addTranscodingHints(transcoder, writerHints);
-		transcoder.addTranscodingHint(JPEGTranscoder.KEY_QUALITY, 
-				new Float(Math.max(MIN_QUALITY, Math.min(MAX_QUALITY, 
-						writerHints.getFloat(KEY_JPEG_QUALITY, DEFAULT_QUALITY)))));
+		transcoder.addTranscodingHint(JPEGTranscoder.KEY_QUALITY, new Float(getQuality(writerHints)));
+	}
+
+
+	@Override
+	protected boolean supportsTransparency() {
+		return false;
+	}
+
+
+	@Override
+	protected void setWriteParameters(ImageWriteParam param, ParameterMap writerHints) {
+		super.setWriteParameters(param, writerHints);
+		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		param.setCompressionQuality(getQuality(writerHints));
 	}
 }
\ No newline at end of file
@@ -20,14 +20,14 @@ package info.bioinfweb.treegraph.graphics.export.png;
 
 
 import info.bioinfweb.treegraph.graphics.export.GraphicWriter;
-import info.bioinfweb.treegraph.graphics.export.SVGTranscodeWriter;
+import info.bioinfweb.treegraph.graphics.export.RasterGraphicWriter;
 
 import org.apache.batik.transcoder.image.PNGTranscoder;
 
 
 
-public class PNGWriter extends SVGTranscodeWriter implements GraphicWriter {
+public class PNGWriter extends RasterGraphicWriter implements GraphicWriter {
 	public PNGWriter() {
-		super(PNGTranscoder.class);
+		super(PNGTranscoder.class, "png");
 	}
 }
\ No newline at end of file
@@ -20,21 +20,29 @@ package info.bioinfweb.treegraph.graphics.export.tiff;
 
 
 import info.bioinfweb.treegraph.graphics.export.GraphicWriter;
-import info.bioinfweb.treegraph.graphics.export.SVGTranscodeWriter;
+import info.bioinfweb.treegraph.graphics.export.RasterGraphicWriter;
 import info.bioinfweb.commons.collections.ParameterMap;
 
+import javax.imageio.ImageWriteParam;
+
 import org.apache.batik.transcoder.Transcoder;
 import org.apache.batik.transcoder.image.TIFFTranscoder;
 
 
 
-public class TIFFWriter extends SVGTranscodeWriter implements GraphicWriter {
+/**
+ * Writes TIFF files. Images are written directly using {@link javax.imageio.ImageIO}, if a TIFF writer is 
+ * available (Java 9 or later). Otherwise the inherited SVG transcoding is used.
+ * 
+ * @author Ben St&ouml;ver
+ */
+public class TIFFWriter extends RasterGraphicWriter implements GraphicWriter {
 	public static final String KEY_TIFF_COMPRESSION_METHOD = "tiffCompressionMethod";
 	public static final String DEFAULT_COMPRESSION_METHOD = "none";
 
 	
 	public TIFFWriter() {
-		super(TIFFTranscoder.class);
+		super(TIFFTranscoder.class, "tiff");
 	}
 
 
@@ -44,4 +52,25 @@ public class TIFFWriter extends SVGTranscodeWriter implements GraphicWriter {
 		transcoder.addTranscodingHint(TIFFTranscoder.KEY_COMPRESSION_METHOD, 
 				writerHints.getString(KEY_TIFF_COMPRESSION_METHOD, DEFAULT_COMPRESSION_METHOD));
 	}
+
+
+	/**
+	 * Selects the compression type of the image writer with the same name as the transcoder compression method 
+	 * specified in the hints (ignoring case). No compression is used for unknown methods.
+	 */
+	@Override
+	protected void setWriteParameters(ImageWriteParam param, ParameterMap writerHints) {
+		super.setWriteParameters(param, writerHints);
+		String method = writerHints.getString(KEY_TIFF_COMPRESSION_METHOD, DEFAULT_COMPRESSION_METHOD);
+		if (param.canWriteCompressed()) {
+			param.setCompressionMode(ImageWriteParam.MODE_DISABLED);
+			for (String type : param.getCompressionTypes()) {
+				if (type.equalsIgnoreCase(method)) {
+					param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+					param.setCompressionType(type);
+					break;
+				}
+			}
+		}
+	}
 }
\ No newline at end of file
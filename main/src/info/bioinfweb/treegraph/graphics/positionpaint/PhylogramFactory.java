@@ -35,6 +35,11 @@ class PhylogramFactory implements SinglePositionPaintFactory {
 	}
 
 
+	public TreePainter createPainter() {
+		return new PhylogramPainter();
+	}
+
+
 	public boolean isPositioner(TreePositioner positioner) {
 		return PhylogramPositioner.class.getName().equals(positioner.getClass().getName());
 	}
@@ -21,7 +21,6 @@ package info.bioinfweb.treegraph.graphics.positionpaint;
 
 import info.bioinfweb.treegraph.document.Branch;
 import info.bioinfweb.treegraph.document.Node;
-import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.PositionData;
 
 
 
@@ -96,13 +95,4 @@ public class PhylogramPositioner extends RectangularCladogramPositioner {
 	protected float calculateCornerRadiusShift(Node node, float y) {
 		return 0f;
 	}
-
-
-	/**
-	 * Always returns <code>false</code> because label blocks could overlap to the left in a phylogram.
-	 */
-	@Override
-	protected boolean xToLow(float x, PositionData pd) {
-		return false;
-	}
 }
\ No newline at end of file
@@ -58,6 +58,18 @@ public class PositionPaintFactory {
   }
   
   
+  /**
+   * Returns a new painter instance for the specified type which can be used in a background thread.
+   * 
+   * @param type the type of the painter
+   * @return the new painter
+   * @since 2.16.0
+   */
+  public TreePainter createPainter(PositionPaintType type) {
+ 		return factories.get(type).createPainter(); 
+  }
+  
+  
   public String getName(PositionPaintType type) {
   	return factories.get(type).name();
   }
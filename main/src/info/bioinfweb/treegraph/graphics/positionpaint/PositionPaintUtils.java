@@ -47,6 +47,8 @@ public class PositionPaintUtils {
 	 * Calculates the Dimensions of this text element. The height is already defined in
 	 * by the provided formats and the width will calculated from the the text length scaled
 	 * with the provided height.
+	 * <p>
+	 * The width is obtained from {@link TextMetricsCache}.
 	 * 
 	 * @param textElement the text element for which the dimensions shall be calculated
 	 * @return the dimensions of the element not including optional margins
@@ -59,7 +61,7 @@ public class PositionPaintUtils {
 		float height = formats.getTextHeight().getInMillimeters();
 		result.getHeight().setInMillimeters(height);
 		result.getWidth().setInMillimeters(
-			  FontCalculator.getInstance().getTextWidthToTextHeigth(formats.getFontName(), 
+			  TextMetricsCache.getInstance().getTextWidthToTextHeight(formats.getFontName(), 
 			  		formats.getTextStyle() & ~TextFormats.UNDERLINE, text, height));
 		
 		return result;
@@ -72,7 +74,7 @@ public class PositionPaintUtils {
 		g.setFont(font);
 		g.drawString(text, x, y);
 		
-		float width = FontCalculator.getInstance().getWidth(font, text);
+		float width = TextMetricsCache.getInstance().getWidth(font, text);
 		if (f.hasTextStyle(TextFormats.UNDERLINE)) {
 			float height = FontCalculator.getInstance().getHeight(font);
 			Stroke oldStroke = g.getStroke();
@@ -31,6 +31,11 @@ class RectangularCladogramFactory implements SinglePositionPaintFactory {
 	}
 
 
+	public TreePainter createPainter() {
+		return new RectangularCladogramPainter();
+	}
+
+
 	public boolean isPositioner(TreePositioner positioner) {
 		return RectangularCladogramPositioner.class.getName().equals(positioner.getClass().getName());
 	}
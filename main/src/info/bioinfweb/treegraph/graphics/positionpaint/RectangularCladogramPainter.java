@@ -30,8 +30,11 @@ import info.bioinfweb.treegraph.document.Legends;
 import info.bioinfweb.treegraph.document.Node;
 import info.bioinfweb.treegraph.document.PaintableElement;
 import info.bioinfweb.treegraph.document.ScaleBar;
+import info.bioinfweb.treegraph.document.TreeElement;
 import info.bioinfweb.treegraph.document.format.BranchFormats;
 import info.bioinfweb.treegraph.document.format.DistanceDimension;
+import info.bioinfweb.treegraph.document.format.DistanceValue;
+import info.bioinfweb.treegraph.document.format.FormatInstancePool;
 import info.bioinfweb.treegraph.document.format.LegendFormats;
 import info.bioinfweb.treegraph.document.format.LegendStyle;
 import info.bioinfweb.treegraph.document.format.Margin;
@@ -42,6 +45,7 @@ import info.bioinfweb.treegraph.document.format.TextFormats;
 import info.bioinfweb.treegraph.document.format.TextOrientation;
 import info.bioinfweb.treegraph.graphics.positionpaint.label.LabelPainter;
 import info.bioinfweb.treegraph.graphics.positionpaint.label.LabelPainterMap;
+import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.ElementBoundsIndex;
 import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.LegendPositionData;
 import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.NodePositionData;
 import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.PositionData;
@@ -61,7 +65,10 @@ import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 
 
 
@@ -73,6 +80,15 @@ public class RectangularCladogramPainter implements TreePainter {
 	public static final float SELECTION_DISTANCE = 2;  // px  //TODO ggf. mit TreeViewPanel.SELECTION_MARGIN vereinigen.
 	public static final float SHORT_DASH_SCALE_FACTOR = 0.5f;
 	
+	/** 
+	 * Subtrees with a height lower than this value (in px) are painted as a wedge if a reduced level of detail is 
+	 * used. 
+	 */
+	public static final float MIN_DETAILED_SUBTREE_HEIGHT = 3;
+	
+	/** Texts with a height lower than this value (in px) are not painted if a reduced level of detail is used. */
+	public static final float MIN_TEXT_HEIGHT = 2;
+	
 	
 	private static RectangularCladogramPainter firstInstance = null; 
 	
@@ -83,6 +99,8 @@ public class RectangularCladogramPainter implements TreePainter {
 	private TreeSelection selection = null;
 	private ElementHighlighting highlighting = null;
 	private float pixelsPerMillimeter = 1;
+	private boolean levelOfDetail = false;
+	private Set<Node> paintedWedges = new HashSet<Node>();
 	
 	
 	protected RectangularCladogramPainter() {}
@@ -173,21 +191,28 @@ public class RectangularCladogramPainter implements TreePainter {
 	}
 	
 	
+	private void paintLabel(Label label) {
+		PositionData pd = label.getPosition(type);
+		if (levelOfDetail && (pd.getHeight().getInPixels(pixelsPerMillimeter) < MIN_TEXT_HEIGHT)) {
+			return;
+		}
+		
+		LabelPainter<?, ?> painter = LabelPainterMap.getInstance().getLabelPainter(label);
+		if (painter != null) {
+			painter.paint(g, pixelsPerMillimeter, pd, label);
+		}
+		else {
+			throw new InternalError("Unsupported label of type " + label.getClass().getCanonicalName() + " found.");
+		}
+		
+		paintSelectionAndHighlighting(label);
+	}
+	
+	
 	private void paintLabelBlock(Labels labels, boolean above) {
 		for (int lineNo = 0; lineNo < labels.lineCount(above); lineNo++) {
 			for (int i = 0; i < labels.labelCount(above, lineNo); i++) {
-				Label label = labels.get(above, lineNo, i);
-				PositionData pd = label.getPosition(type);
-				
-				LabelPainter<?, ?> painter = LabelPainterMap.getInstance().getLabelPainter(label);
-				if (painter != null) {
-					painter.paint(g, pixelsPerMillimeter, pd, label);
-				}
-				else {
-					throw new InternalError("Unsupported label of type " + label.getClass().getCanonicalName() + " found.");
-				}
-				
-  			paintSelectionAndHighlighting(label);
+				paintLabel(labels.get(above, lineNo, i));
 			}
 		}
 	}
@@ -271,12 +296,14 @@ public class RectangularCladogramPainter implements TreePainter {
 		PositionData pd = leaf.getPosition(type);
 		NodeFormats f = leaf.getFormats();
 		Margin m = leaf.getFormats().getLeafMargin();
-		paintText(leaf.getData().formatValue(f.getDecimalFormat()), f, 
-				pd.getLeft().getInPixels(pixelsPerMillimeter) + 
-				m.getLeft().getInPixels(pixelsPerMillimeter), 
-				pd.getTop().getInPixels(pixelsPerMillimeter) + 
-				m.getTop().getInPixels(pixelsPerMillimeter) + 
-				g.getFontMetrics(f.getFont(pixelsPerMillimeter)).getAscent());
+		if (!levelOfDetail || (pd.getHeight().getInPixels(pixelsPerMillimeter) >= MIN_TEXT_HEIGHT)) {
+			paintText(leaf.getData().formatValue(f.getDecimalFormat()), f, 
+					pd.getLeft().getInPixels(pixelsPerMillimeter) + 
+					m.getLeft().getInPixels(pixelsPerMillimeter), 
+					pd.getTop().getInPixels(pixelsPerMillimeter) + 
+					m.getTop().getInPixels(pixelsPerMillimeter) + 
+					g.getFontMetrics(f.getFont(pixelsPerMillimeter)).getAscent());
+		}
 		paintSelectionAndHighlighting(leaf);
 	}
 	
@@ -293,6 +320,77 @@ public class RectangularCladogramPainter implements TreePainter {
 	}
 	
 	
+	private void paintNode(Node node) {
+		if (node.getChildren().size() == 0) {
+			paintLeaf(node);
+		}
+		else if (node.getChildren().size() == 1) {
+			paintPointNode(node);
+		}
+		else {
+			paintInternalNode(node);
+		}
+	}
+	
+	
+	/**
+	 * Determines whether the specified subtree shall be painted as a wedge. This is only the case if a reduced level of
+	 * detail is used and the subtree is too small to be painted in detail.
+	 * <p>
+	 * Since the height of a subtree is always greater or equal to the height of any of its subtrees, all subtrees of a 
+	 * collapsed subtree are also collapsed.
+	 */
+	private boolean isCollapsed(Node node) {
+		NodePositionData pd = node.getPosition(type);
+		return levelOfDetail && !node.isLeaf() && 
+				((pd.getHeightAbove() + pd.getHeightBelow()) * pixelsPerMillimeter < MIN_DETAILED_SUBTREE_HEIGHT);
+	}
+	
+	
+	/**
+	 * Returns the topmost collapsed ancestor of the specified node.
+	 * 
+	 * @return the ancestor or {@code null} if no ancestor of the specified node is collapsed
+	 */
+	private Node collapsedAncestor(Node node) {
+		Node result = null;
+		node = node.getParent();
+		while ((node != null) && isCollapsed(node)) {
+			result = node;
+			node = node.getParent();
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Paints the whole subtree under the specified node as a filled triangle between the node and its leaves. 
+	 * Each wedge is only painted once during a call of {@link #paintTree(Graphics2D, Rectangle, Document, TreeSelection, ElementHighlighting, float, boolean, boolean)}.
+	 */
+	private void paintWedge(Node node) {
+		if (paintedWedges.add(node)) {
+			Stroke oldStroke = g.getStroke();
+			NodePositionData pd = node.getPosition(type);
+			float left = pd.getLeft().getInPixels(pixelsPerMillimeter);
+			float right = Math.max(left, pd.getMaxLeafLeft() * pixelsPerMillimeter);
+			
+			Path2D path = new Path2D.Float();
+			path.moveTo(left, pd.getCenterYInPixels(pixelsPerMillimeter));
+			path.lineTo(right, pd.getTop().getInPixels(pixelsPerMillimeter));
+			path.lineTo(right, pd.getBottomInPixels(pixelsPerMillimeter));
+			path.closePath();
+			
+			g.setColor(node.getFormats().getLineColor());
+			g.setStroke(new BasicStroke(node.getFormats().getLineWidth().getInPixels(pixelsPerMillimeter)));
+			g.fill(path);
+			g.draw(path);  // Very thin wedges would not be visible otherwise.
+			g.setStroke(oldStroke);
+			
+			paintSelectionAndHighlighting(node);
+		}
+	}
+	
+	
 	private void paintSubtree(Node root) {
 		if (subtreeVisible(root)) {
 			if (root.hasAfferentBranch()) {
@@ -302,16 +400,11 @@ public class RectangularCladogramPainter implements TreePainter {
 				paintLabelBlock(root.getAfferentBranch().getLabels(), true);
 				paintLabelBlock(root.getAfferentBranch().getLabels(), false);
 			}
-			if (root.getChildren().size() == 0) {
-				paintLeaf(root);
+			if (isCollapsed(root)) {
+				paintWedge(root);
 			}
 			else {
-				if (root.getChildren().size() == 1) {
-					paintPointNode(root);
-				}
-				else {
-					paintInternalNode(root);
-				}
+				paintNode(root);
 				for (int i = 0; i < root.getChildren().size(); i++) {
 					paintSubtree(root.getChildren().get(i));
 				}
@@ -320,6 +413,46 @@ public class RectangularCladogramPainter implements TreePainter {
 	}
 	
 	
+	/**
+	 * Paints all tree elements that intersect with {@link #visibleRect} using the spatial index created by the 
+	 * positioner. Elements are painted in the same order as by {@link #paintSubtree(Node)}. 
+	 */
+	private void paintVisibleTreeElements(ElementBoundsIndex index) {
+		float margin = DistanceValue.pixelsToMillimeters(SELECTION_DISTANCE + 2, pixelsPerMillimeter);  // Selection frames and rounding
+		List<PaintableElement> elements = index.elementsIn(
+				DistanceValue.pixelsToMillimeters(visibleRect.x, pixelsPerMillimeter) - margin, 
+				DistanceValue.pixelsToMillimeters(visibleRect.y, pixelsPerMillimeter) - margin, 
+				DistanceValue.pixelsToMillimeters(visibleRect.x + visibleRect.width, pixelsPerMillimeter) + margin, 
+				DistanceValue.pixelsToMillimeters(visibleRect.y + visibleRect.height, pixelsPerMillimeter) + margin);
+		for (PaintableElement element : elements) {
+			Node collapsedAncestor = null;
+			if (levelOfDetail && (element instanceof TreeElement)) {
+				collapsedAncestor = collapsedAncestor(((TreeElement)element).getLinkedNode());
+			}
+			
+			if (collapsedAncestor != null) {
+				paintWedge(collapsedAncestor);
+			}
+			else if (element instanceof Branch) {
+				if (((Branch)element).getTargetNode().hasParent() || document.getTree().getFormats().getShowRooted()) {
+					paintBranch((Branch)element);
+				}
+			}
+			else if (element instanceof Label) {
+				paintLabel((Label)element);
+			}
+			else if (element instanceof Node) {
+				if (isCollapsed((Node)element)) {
+					paintWedge((Node)element);
+				}
+				else {
+					paintNode((Node)element);
+				}
+			}
+		}
+	}
+	
+	
 	private void paintScaleBar(ScaleBar scaleBar) {
 		Stroke previousStroke = g.getStroke();
 		
@@ -369,8 +502,7 @@ public class RectangularCladogramPainter implements TreePainter {
         if (!f.isIncreasing()) {
         	value = -value;
         }
-        String labelText;
-       	labelText = f.getDecimalFormat().format(value);
+        String labelText = FormatInstancePool.formatDecimal(f.getDecimalFormat(), value);
         
         float labelWidth = fm.stringWidth(labelText);
         float labelX = x;
@@ -517,7 +649,17 @@ public class RectangularCladogramPainter implements TreePainter {
 	public void paintTree(Graphics2D g, Rectangle visibleRect, Document document, TreeSelection selection, ElementHighlighting highlighting,
 			float pixelsPerMillimeter, boolean transparent) {
 		
+		paintTree(g, visibleRect, document, selection, highlighting, pixelsPerMillimeter, transparent, false);
+	}
+
+
+	@Override
+	public void paintTree(Graphics2D g, Rectangle visibleRect, Document document, TreeSelection selection, ElementHighlighting highlighting,
+			float pixelsPerMillimeter, boolean transparent, boolean levelOfDetail) {
+		
 		this.g = g;
+		this.levelOfDetail = levelOfDetail;
+		paintedWedges.clear();
 		DistanceDimension d = document.getTree().getPaintDimension(type);
 		if (visibleRect == null) {
 			visibleRect = new Rectangle(d.getWidth().getRoundedInPixels(pixelsPerMillimeter), 
@@ -535,7 +677,13 @@ public class RectangularCladogramPainter implements TreePainter {
 		}
 		
 		if (!document.getTree().isEmpty()) {
-			paintSubtree(document.getTree().getPaintStart());
+			ElementBoundsIndex index = document.getTree().getElementIndex(type);
+			if (index.isEmpty()) {  // Positioner did not create an index yet.
+				paintSubtree(document.getTree().getPaintStart());
+			}
+			else {
+				paintVisibleTreeElements(index);
+			}
 		}
 		if (document.getTree().getFormats().getShowScaleBar()) {
 			paintScaleBar(document.getTree().getScaleBar());
@@ -546,4 +694,55 @@ public class RectangularCladogramPainter implements TreePainter {
 			paintLegend(legends.get(i));
 		}
 	}
+	
+	
+	/**
+	 * Determines whether the specified element is currently painted by {@link #paintTree(Graphics2D, Rectangle, Document, TreeSelection, ElementHighlighting, float, boolean, boolean)}.
+	 */
+	private boolean isPainted(PaintableElement element) {
+		if (element instanceof ScaleBar) {
+			return document.getTree().getFormats().getShowScaleBar();
+		}
+		else if ((element instanceof Branch) && !((Branch)element).getTargetNode().hasParent()) {
+			return document.getTree().getFormats().getShowRooted();
+		}
+		else {
+			return true;
+		}
+	}
+	
+	
+	@Override
+	public void paintSelection(Graphics2D g, Document document, TreeSelection selection, ElementHighlighting highlighting, 
+			float pixelsPerMillimeter) {
+		
+		this.g = g;
+		this.document = document;
+		this.pixelsPerMillimeter = pixelsPerMillimeter;
+		
+		// Paint highlighting: (Done before painting the selection to have the selection visible on highlighted elements.)
+		if (highlighting != null) {
+			Set<PaintableElement> framedElements = new HashSet<PaintableElement>();
+			Iterator<String> iterator = highlighting.keyIterator();
+			while (iterator.hasNext()) {
+				HighlightedGroup group = highlighting.get(iterator.next());
+				g.setColor(group.suitableColor(document.getTree().getFormats().getBackgroundColor()));
+				for (PaintableElement element : group) {
+					if (framedElements.add(element) && isPainted(element)) {  // Only one frame can be painted. Additional ones would hide previous ones.
+						paintHighlightingFrame(element);
+					}
+				}
+			}
+		}
+
+		// Paint selection:
+		if (selection != null) {
+			g.setColor(TreeViewPanel.selectionColor(document.getTree().getFormats().getBackgroundColor()));
+			for (PaintableElement element : selection) {
+				if (isPainted(element)) {
+					paintHighlightingFrame(element);
+				}
+			}
+		}
+	}
 }
\ No newline at end of file
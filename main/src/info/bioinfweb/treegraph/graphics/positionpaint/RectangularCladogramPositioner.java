@@ -19,6 +19,9 @@
 package info.bioinfweb.treegraph.graphics.positionpaint;
 
 
+import java.util.ArrayList;
+import java.util.List;
+
 import info.bioinfweb.commons.Math2;
 import info.bioinfweb.treegraph.document.Branch;
 import info.bioinfweb.treegraph.document.AbstractPaintableElement;
@@ -28,6 +31,7 @@ import info.bioinfweb.treegraph.document.Labels;
 import info.bioinfweb.treegraph.document.Legend;
 import info.bioinfweb.treegraph.document.Legends;
 import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.PaintableElement;
 import info.bioinfweb.treegraph.document.ScaleBar;
 import info.bioinfweb.treegraph.document.format.DistanceDimension;
 import info.bioinfweb.treegraph.document.format.GlobalFormats;
@@ -39,6 +43,7 @@ import info.bioinfweb.treegraph.document.format.TextOrientation;
 import info.bioinfweb.treegraph.document.tools.TreeSerializer;
 import info.bioinfweb.treegraph.graphics.positionpaint.label.LabelPainter;
 import info.bioinfweb.treegraph.graphics.positionpaint.label.LabelPainterMap;
+import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.ElementBoundsIndex;
 import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.LegendPositionData;
 import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.NodePositionData;
 import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.PositionData;
@@ -52,6 +57,10 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	protected PositionPaintType type = PositionPaintFactory.getInstance().getType(this);
 	protected Document document;
 	private float maxLeafWidth = 0;  // Notwendig zur linksbündigen Positionierung der Blätter (wären sonst rechtsbündig)
+	private boolean useSubtreeCache = false;
+	private boolean skipUnchangedSubtrees = false;
+	private List<Node> skippedSubtrees = new ArrayList<Node>();
+	private float lastBranchLengthScale = Float.NaN;  // Skipped subtrees must be rescaled again if the branch length scale was changed.
 	protected float rescalingFactorX = 1f;
 	
 	
@@ -147,7 +156,65 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	}
 	
 	
+	private PositionData getAfferentBranchPosition(Node node) {
+		if (node.hasAfferentBranch()) {
+			return node.getAfferentBranch().getPosition(type);
+		}
+		else {
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Restores the horizontal values of all nodes and branches in the specified subtree that were calculated by 
+	 * {@link #calculateNodeWidthsHeights(Node)} during a previous call.
+	 */
+	private void restoreSubtree(Node root) {
+		root.getPosition(type).restoreFromCache(getAfferentBranchPosition(root));
+		for (int i = 0; i < root.getChildren().size(); i++) {
+			restoreSubtree(root.getChildren().get(i));
+		}
+	}
+	
+	
+	/**
+	 * Calculates the dimensions of the specified subtree or restores them from the cache, if {@link #useSubtreeCache}
+	 * is {@code true} and the subtree was not changed since the last calculation. 
+	 * <p>
+	 * If {@link #skipUnchangedSubtrees} is {@code true} as well, only the root of an unchanged subtree is restored. 
+	 * The following steps then only position the root and its afferent branch and the descendants are moved by 
+	 * the offset of the root in {@link #moveSkippedDescendants()}.
+	 * 
+	 * @param root the root of the subtree
+	 * @return the width of the subtree 
+	 */
 	private float calculateWidthsHeights(Node root) {
+		NodePositionData pd = root.getPosition(type);
+		if (useSubtreeCache && pd.isSubtreeCacheValid()) {
+			if (skipUnchangedSubtrees && pd.isPositionedWith(rescalingFactorX)) {
+				pd.skipDescendants();
+				pd.restoreFromCache(getAfferentBranchPosition(root));
+				skippedSubtrees.add(root);
+			}
+			else {
+				restoreSubtree(root);
+			}
+			maxLeafWidth = Math.max(maxLeafWidth, pd.getCachedMaxLeafWidth());
+			return pd.getCachedSubtreeWidth();
+		}
+		else {
+			float outerMaxLeafWidth = maxLeafWidth;
+			maxLeafWidth = 0;
+			float result = calculateNodeWidthsHeights(root);
+			pd.cacheSubtree(result, maxLeafWidth, getAfferentBranchPosition(root));
+			maxLeafWidth = Math.max(outerMaxLeafWidth, maxLeafWidth);
+			return result;
+		}
+	}
+	
+	
+	private float calculateNodeWidthsHeights(Node root) {
 	  float result = 0;  // breite = 0;
 	  NodePositionData pd = root.getPosition(type);
 	  pd.setHeightAbove(0);  // wurzel.h�heOben = 0;
@@ -367,7 +434,7 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	  }  // wenn_ende
 	  pd.getTop().setInMillimeters(y0 + pd.getDifAbove());  // wurzel.y = y0 + wuzel.difOben;  // Knoten.y ist oben und nicht in der Mitte des Knotens!
 	
-	  if (!root.isLeaf()) {  //wenn (wurzel hat unterknoten) dann
+	  if (!root.isLeaf() && !pd.isDescendantsSkipped()) {  //wenn (wurzel hat unterknoten) dann
 	  	float currentY0 = y0 + pd.getDifAbove() - root.getChildren().get(0).getPosition(type).getHeightAbove();  // aktY0 = y0 + wurzel.difOben - wurzel.ersterUnterast.höheOben
 	    float newX = pd.getLeft().getInMillimeters() + pd.getWidth().getInMillimeters();  // neuesX = wurzel.x + wurzel.breite;
 		  for (int i = 0; i < root.getChildren().size(); i++) {  // für alle Unteräste bzw. Unterknoten von wurzel
@@ -455,9 +522,15 @@ public class RectangularCladogramPositioner implements TreePositioner {
 		shift += newWidth - oldWidth;
 		
 		float maxWidth = root.getAfferentBranch().getPosition(type).getRightInMillimeters();
-		for (int i = 0; i < root.getChildren().size(); i++) {
-			maxWidth = Math.max(maxWidth, rescaleSubtree(root.getChildren().get(i), shift));
+		if (!((NodePositionData)nodePD).isDescendantsSkipped()) {
+			float descendantsMaxRight = Float.NEGATIVE_INFINITY;
+			for (int i = 0; i < root.getChildren().size(); i++) {
+				descendantsMaxRight = Math.max(descendantsMaxRight, rescaleSubtree(root.getChildren().get(i), shift));
+			}
+			((NodePositionData)nodePD).setDescendantsMaxRight(descendantsMaxRight - nodePD.getLeft().getInMillimeters());
 		}
+		maxWidth = Math.max(maxWidth, nodePD.getLeft().getInMillimeters() + ((NodePositionData)nodePD).getDescendantsMaxRight());
+		((NodePositionData)nodePD).setRescalingFactorX(rescalingFactorX);
 		return maxWidth;
 	}
 	
@@ -690,10 +763,40 @@ public class RectangularCladogramPositioner implements TreePositioner {
 		}
 		movePosition(root.getPosition(type), dX, dY);
 		
-		for (int i = 0; i < root.getChildren().size(); i++) {
-			moveSubtree(root.getChildren().get(i), dX, dY);
+		if (!root.getPosition(type).isDescendantsSkipped()) {
+			for (int i = 0; i < root.getChildren().size(); i++) {
+				moveSubtree(root.getChildren().get(i), dX, dY);
+			}
 		}
 	}
+	
+	
+	/**
+	 * Moves the descendants of all nodes whose subtrees were skipped in {@link #calculateWidthsHeights(Node)} by the 
+	 * offset their roots were moved during the current positioning. Subtrees that remained at their position are not 
+	 * visited and remain marked as skipped until {@link #endSkippingSubtrees()} is called. 
+	 */
+	private void moveSkippedDescendants() {
+		for (Node root : skippedSubtrees) {
+			NodePositionData pd = root.getPosition(type);
+			float dX = pd.getLeft().getInMillimeters() - pd.getPreviousLeft();
+			float dY = pd.getTop().getInMillimeters() - pd.getPreviousTop();
+			if ((dX != 0f) || (dY != 0f)) {
+				pd.endSkippingDescendants();
+				for (int i = 0; i < root.getChildren().size(); i++) {
+					moveSubtree(root.getChildren().get(i), dX, dY);
+				}
+			}
+		}
+	}
+	
+	
+	private void endSkippingSubtrees() {
+		for (Node root : skippedSubtrees) {
+			root.getPosition(type).endSkippingDescendants();
+		}
+		skippedSubtrees.clear();
+	}
   
   
   private void moveAll(float dX, float dY) {
@@ -752,10 +855,82 @@ public class RectangularCladogramPositioner implements TreePositioner {
   }
 	
 	
+	/**
+	 * Marks the cached dimensions of the subtrees containing the specified node as invalid. The caches of the
+	 * child nodes are also invalidated, because the heights of their afferent branches depend on the line width
+	 * of their parent.
+	 */
+	private void invalidateSubtreeCache(Node node) {
+		for (int i = 0; i < node.getChildren().size(); i++) {
+			node.getChildren().get(i).getPosition(type).invalidateSubtreeCache();
+		}
+		while (node != null) {
+			node.getPosition(type).invalidateSubtreeCache();
+			node = node.getParent();
+		}
+	}
+	
+	
 	public void positionAll(Document document, float rescalingFactorX) {
+		useSubtreeCache = false;
+		position(document, rescalingFactorX);
+	}
+	
+	
+	/**
+	 * Determines the node in the tree whose cached subtree dimensions are affected by a change of the specified 
+	 * element.
+	 * 
+	 * @return the node or {@code null} if the element is not part of the tree
+	 */
+	private Node getAffectedNode(PaintableElement element) {
+		if (element instanceof Node) {
+			return (Node)element;
+		}
+		else if (element instanceof Branch) {
+			return ((Branch)element).getTargetNode();
+		}
+		else if ((element instanceof Label) && (((Label)element).getHoldingBranch() != null)) {
+			return ((Label)element).getHoldingBranch().getTargetNode();
+		}
+		else {
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Only the dimensions of subtrees containing changed elements are recalculated. Subtrees that remained unchanged
+	 * are moved to their new positions without measuring their elements again. 
+	 * 
+	 * @see info.bioinfweb.treegraph.graphics.positionpaint.TreePositioner#positionChanged(info.bioinfweb.treegraph.document.Document, float, info.bioinfweb.treegraph.document.PaintableElement[])
+	 */
+	@Override
+	public void positionChanged(Document document, float rescalingFactorX, PaintableElement[] changedElements) {
+		useSubtreeCache = true;
+		for (int i = 0; i < changedElements.length; i++) {
+			Node node = getAffectedNode(changedElements[i]);
+			if (node != null) {
+				invalidateSubtreeCache(node);
+			}
+			else if (!((changedElements[i] instanceof Legend) || (changedElements[i] instanceof ScaleBar) || 
+					(changedElements[i] instanceof Label))) {
+				
+				useSubtreeCache = false;  // Unknown element type
+			}
+		}
+		position(document, rescalingFactorX);
+	}
+	
+	
+	private void position(Document document, float rescalingFactorX) {
 		this.document = document;
 		this.rescalingFactorX = rescalingFactorX;
 		maxLeafWidth = 0;
+		float branchLengthScale = document.getTree().getFormats().getBranchLengthScale().getInMillimeters();
+		skipUnchangedSubtrees = useSubtreeCache && (branchLengthScale == lastBranchLengthScale) && 
+				(document.getTree().getLegends().size() == 0);  // Legends are positioned relative to the descendants of skipped nodes.
+		lastBranchLengthScale = branchLengthScale;
 		
 	  if (!document.getTree().isEmpty()) {
 	  	// Position tree:
@@ -795,82 +970,148 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	  else {
 	    calculatePaintDimension(0, 0);
 	  }
+	  moveSkippedDescendants();
+	  if (!skipUnchangedSubtrees || !updateElementIndex()) {
+	  	buildElementIndex();
+	  }
+	  endSkippingSubtrees();
 	}
 	
 	
-  private AbstractPaintableElement searchLabelBlock(Branch branch, float x, float y, 
-  		float margin) {
-  	
-  	boolean above = false;  // Vorgabe: Gesuchtes Label befindet sich h�chstens unterhalb des Asts.
-  	if (y <= branch.getPosition(type).getTop().getInMillimeters()) {  // Gesuchtes Label kann h�chstens oben sein.
-  		above = true;
-  	}
-  	
-		for (int lineNo = 0; lineNo < branch.getLabels().lineCount(above); lineNo++) {  //TODO Labelsuche kann ggf. effizienter implementiert werden.
-			for (int lineIndex = 0; lineIndex < branch.getLabels().labelCount(above, lineNo); lineIndex++) {
-				Label label = branch.getLabels().get(above, lineNo, lineIndex);
-				if (label.getPosition(type).contains(x, y, margin)) {
-					return label;
-				}
+	private void addLabelBlockToIndex(ElementBoundsIndex index, Labels labels, boolean above) {
+		for (int lineNo = 0; lineNo < labels.lineCount(above); lineNo++) {
+			for (int lineIndex = 0; lineIndex < labels.labelCount(above, lineNo); lineIndex++) {
+				Label label = labels.get(above, lineNo, lineIndex);
+				index.add(label, label.getPosition(type));
 			}
 		}
-		return null;
-  }
-  
-  
-  protected boolean xToLow(float x, PositionData pd) {
-  	return x < pd.getLeft().getInMillimeters();
-  }
+	}
 	
 	
-	private AbstractPaintableElement searchElementToPosition(Node root, float x, float y, 
-			float margin) {
-		
+	/**
+	 * Adds the elements of the specified subtree to the index in the order they are painted. Additionally the
+	 * maximal left coordinate of the leaves of each subtree is stored in the according {@link NodePositionData}.
+	 * 
+	 * @return the maximal left coordinate of all leaves in the subtree
+	 */
+	private float addSubtreeToIndex(ElementBoundsIndex index, Node root) {
+		if (root.hasAfferentBranch()) {
+			Branch branch = root.getAfferentBranch();
+			index.add(branch, branch.getPosition(type));
+			addLabelBlockToIndex(index, branch.getLabels(), true);
+			addLabelBlockToIndex(index, branch.getLabels(), false);
+		}
 		NodePositionData pd = root.getPosition(type);
-		float centerY = pd.getTop().getInMillimeters() + 0.5f * pd.getHeight().getInMillimeters();
-		if (Math2.isBetween(y, centerY - pd.getHeightAbove(), centerY + pd.getHeightBelow())) {
-			if (root.hasAfferentBranch()) {
-				if (root.hasParent() && xToLow(x, root.getAfferentBranch().getPosition(type))) {  // Invisible root branches may still have labels.
-					return null;  // Weder Label noch kommender Unterbaum kommen in Frage.
-				}
-				if (root.getAfferentBranch().getPosition(type).contains(x, y, margin)) {
-					if (root.getPosition(type).contains(x, y, margin)) {  // Bei Überlappung Knoten bevorzugen
-						return root;
-					}
-					else {
-						return root.getAfferentBranch();
-					}
-	  		}
-				else {
-					AbstractPaintableElement result = searchLabelBlock(root.getAfferentBranch(), x, y, margin);
-					if (result != null) {
-						return result;
-					}
+		index.add(root, pd);
+		
+		float result = pd.getLeft().getInMillimeters();
+		for (int i = 0; i < root.getChildren().size(); i++) {
+			result = Math.max(result, addSubtreeToIndex(index, root.getChildren().get(i)));
+		}
+		pd.setMaxLeafLeft(result);
+		return result;
+	}
+	
+	
+	private boolean updateLabelBlockInIndex(ElementBoundsIndex index, Labels labels, boolean above) {
+		for (int lineNo = 0; lineNo < labels.lineCount(above); lineNo++) {
+			for (int lineIndex = 0; lineIndex < labels.labelCount(above, lineNo); lineIndex++) {
+				Label label = labels.get(above, lineNo, lineIndex);
+				if (!index.update(label, label.getPosition(type))) {
+					return false;
 				}
 			}
-			
-			if (xToLow(x, pd)) {
-				return null;  // Punkt liegt links vom folgenden Teilbaum.
-			}
-			else if (root.getPosition(type).contains(x, y, margin)) {
-				return root;
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Updates the bounds of the elements of the specified subtree in the index. Subtrees that were skipped and 
+	 * not moved during the current positioning are not visited, since neither their elements nor the maximal left 
+	 * coordinate of their leaves changed.
+	 * 
+	 * @return {@code false} if an element was not contained in the index, {@code true} otherwise
+	 */
+	private boolean updateSubtreeInIndex(ElementBoundsIndex index, Node root) {
+		if (root.hasAfferentBranch()) {
+			Branch branch = root.getAfferentBranch();
+			if (!index.update(branch, branch.getPosition(type)) || !updateLabelBlockInIndex(index, branch.getLabels(), true) || 
+					!updateLabelBlockInIndex(index, branch.getLabels(), false)) {
+				
+				return false;
 			}
-			else {
-				for (int i = 0; i < root.getChildren().size(); i++) {
-					AbstractPaintableElement result = searchElementToPosition(root.getChildren().get(i), x, y, margin);
-					if (result != null) {
-						return result;
-					}
+		}
+		NodePositionData pd = root.getPosition(type);
+		if (!index.update(root, pd)) {
+			return false;
+		}
+		
+		if (!pd.isDescendantsSkipped()) {
+			float maxLeafLeft = pd.getLeft().getInMillimeters();
+			for (int i = 0; i < root.getChildren().size(); i++) {
+				Node child = root.getChildren().get(i);
+				if (!updateSubtreeInIndex(index, child)) {
+					return false;
 				}
+				maxLeafLeft = Math.max(maxLeafLeft, child.getPosition(type).getMaxLeafLeft());
 			}
+			pd.setMaxLeafLeft(maxLeafLeft);
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Updates the spatial index created during the last positioning with the new bounds of all elements that 
+	 * might have been moved. This is only possible if no elements were added or removed since then, which is 
+	 * the case for the edits handled by {@link #positionChanged(Document, float, PaintableElement[])}.
+	 * 
+	 * @return {@code true} if the index was updated or {@code false} if it needs to be rebuilt
+	 */
+	private boolean updateElementIndex() {
+		ElementBoundsIndex index = document.getTree().getElementIndex(type);
+		boolean result = !document.getTree().isEmpty() && updateSubtreeInIndex(index, document.getTree().getPaintStart());
+		if (result && document.getTree().getFormats().getShowScaleBar()) {
+			result = index.update(document.getTree().getScaleBar(), document.getTree().getScaleBar().getPosition(type));
+		}
+		Legends legends = document.getTree().getLegends();
+		for (int i = 0; result && (i < legends.size()); i++) {
+			result = index.update(legends.get(i), legends.get(i).getPosition(type));
+		}
+		
+		if (result) {
+			index.applyUpdates();
 		}
-		return null;
+		return result;
+	}
+	
+	
+	/**
+	 * Rebuilds the spatial index of the tree elements after all elements have been positioned. Tree elements are 
+	 * added before the scale bar and the legends, since they are preferred by {@link #elementToPosition(Document, float, float, float)}.
+	 */
+	private void buildElementIndex() {
+		ElementBoundsIndex index = document.getTree().getElementIndex(type);
+		index.clear();
+		if (!document.getTree().isEmpty()) {
+			addSubtreeToIndex(index, document.getTree().getPaintStart());
+		}
+		if (document.getTree().getFormats().getShowScaleBar()) {
+			index.add(document.getTree().getScaleBar(), document.getTree().getScaleBar().getPosition(type));
+		}
+		Legends legends = document.getTree().getLegends();
+		for (int i = 0; i < legends.size(); i++) {
+			index.add(legends.get(i), legends.get(i).getPosition(type));
+		}
+		index.build();
 	}
 	
 	
 	/**
 	 * Determines the element to a position defined by x- and y-coordinates (e.g. to
-	 * select an element by mouse).
+	 * select an element by mouse). The element is looked up in the spatial index created
+	 * during the last positioning of the document.
 	 * @param document the document where the position should be dertermined.
 	 * @param x the x-position in mm
 	 * @param y the y-position in mm
@@ -878,31 +1119,14 @@ public class RectangularCladogramPositioner implements TreePositioner {
 	public AbstractPaintableElement elementToPosition(Document document, float x, float y, 
 			float margin) {
 		
-		this.document = document;
-		
-		// Search tree elements: 
-		if (!document.getTree().isEmpty()) {
-			AbstractPaintableElement result = searchElementToPosition(
-					document.getTree().getPaintStart(), x, y, margin);
-			if (result != null) {
-				return result;
-			}
-		}
-		
-		// Check scale bar
-		if (document.getTree().getFormats().getShowScaleBar() &&
-				document.getTree().getScaleBar().getPosition(type).contains(x, y, margin)) {
-			return document.getTree().getScaleBar();
-		}
-		
-		// Search legends:
-		Legends legends = document.getTree().getLegends();
-		for (int i = 0; i < legends.size(); i++) {
-			if (legends.get(i).getPosition(type).contains(x, y, margin)) {
-				return legends.get(i);
+		AbstractPaintableElement result = (AbstractPaintableElement)document.getTree().getElementIndex(type).elementAt(
+				x, y, margin);
+		if (result instanceof Branch) {
+			Node node = ((Branch)result).getTargetNode();
+			if ((node != null) && node.getPosition(type).contains(x, y, margin)) {  // Bei Überlappung Knoten bevorzugen
+				result = node;
 			}
 		}
-		
-		return null;
+		return result;
 	}
 }
\ No newline at end of file
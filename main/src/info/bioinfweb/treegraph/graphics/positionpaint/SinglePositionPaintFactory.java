@@ -29,6 +29,15 @@ public interface SinglePositionPaintFactory {
   
   public TreePainter getPainter();
   
+  /**
+   * Returns a new painter instance that is independent of the shared instance returned by {@link #getPainter()}.
+   * Such instances can be used to paint in threads other than the event dispatch thread.
+   * 
+   * @return the new painter
+   * @since 2.16.0
+   */
+  public TreePainter createPainter();
+  
   public boolean isPositioner(TreePositioner positioner);
   
   public boolean isPainter(TreePainter painter);
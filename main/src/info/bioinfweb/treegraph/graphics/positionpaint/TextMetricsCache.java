@@ -0,0 +1,324 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.positionpaint;
+
+
+import info.bioinfweb.commons.graphics.FontCalculator;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+
+/**
+ * Caches font instances and the measured widths of texts, which are used by the positioners and painters 
+ * of TreeGraph 2. Creating fonts and measuring texts is expensive and is otherwise repeated for each text 
+ * element whenever a document is positioned or painted.
+ * <p>
+ * Fonts are cached by their name, style and size. Text widths are cached by the font name, style and the 
+ * text and are stored relative to the font size, since (as in {@link FontCalculator}) widths are measured 
+ * with fractional metrics and therefore scale linearly with the font size. Both caches are bounded and discard 
+ * their least recently used entries if {@link #MAX_FONT_COUNT} or {@link #MAX_WIDTH_COUNT} is exceeded.
+ * <p>
+ * The ratios between text heights and font sizes are also calculated by this class (using the same test text as
+ * {@link FontCalculator}) instead of delegating to {@link FontCalculator}, which is not thread safe. The methods 
+ * of this class are thread safe, since painting may also happen in background threads.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class TextMetricsCache {
+	/** The maximal number of font instances stored in the cache */
+	public static final int MAX_FONT_COUNT = 256;
+	
+	/** The maximal number of text widths stored in the cache */
+	public static final int MAX_WIDTH_COUNT = 65536;
+	
+	/** The font size that is used to measure text widths and heights */
+	public static final int REFERENCE_FONT_SIZE = 512;
+	
+	/** The text that is measured to determine the height of a font (as in {@link FontCalculator}) */
+	private static final String HEIGHT_TEST_TEXT = "\u00D6g";
+	
+	
+	private static final class FontKey {
+		private final String fontName;
+		private final int style;
+		private final float size;
+		private final String text;  // Only used for width keys.
+		
+		public FontKey(String fontName, int style, float size, String text) {
+			super();
+			this.fontName = fontName;
+			this.style = style;
+			this.size = size;
+			this.text = text;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = 31 + fontName.hashCode();
+			result = 31 * result + style;
+			result = 31 * result + Float.floatToIntBits(size);
+			if (text != null) {
+				result = 31 * result + text.hashCode();
+			}
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			else if (obj instanceof FontKey) {
+				FontKey other = (FontKey)obj;
+				return fontName.equals(other.fontName) && (style == other.style) && 
+						(Float.floatToIntBits(size) == Float.floatToIntBits(other.size)) && 
+						((text == null) ? (other.text == null) : text.equals(other.text));
+			}
+			else {
+				return false;
+			}
+		}
+	}
+	
+	
+	private static final TextMetricsCache INSTANCE = new TextMetricsCache();
+	
+	
+	private final FontRenderContext frc = new FontRenderContext(null, true, true);  // Same context as in FontCalculator
+	private final Map<FontKey, Font> fonts = createLRUMap(MAX_FONT_COUNT);
+	private final Map<FontKey, Float> widths = createLRUMap(MAX_WIDTH_COUNT);
+	private final Map<FontKey, Float> heightSizeRatios = new HashMap<FontKey, Float>();  // Only contains one entry per font name and style.
+	private long fontHitCount = 0;
+	private long fontMissCount = 0;
+	private long widthHitCount = 0;
+	private long widthMissCount = 0;
+	
+	
+	private TextMetricsCache() {
+		super();
+	}
+	
+	
+	public static TextMetricsCache getInstance() {
+		return INSTANCE;
+	}
+	
+	
+	private static <V> Map<FontKey, V> createLRUMap(final int maxSize) {
+		return new LinkedHashMap<FontKey, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+	
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<FontKey, V> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+	
+	
+	/**
+	 * Returns a font with the specified properties.
+	 * 
+	 * @param fontName - the name of the font family
+	 * @param style - the style of the font (e.g. {@link Font#BOLD})
+	 * @param fontSize - the size of the font
+	 * @return a (possibly shared) font instance
+	 */
+	public synchronized Font getFont(String fontName, int style, float fontSize) {
+		FontKey key = new FontKey(fontName, style, fontSize, null);
+		Font result = fonts.get(key);
+		if (result == null) {
+			fontMissCount++;
+			result = new Font(fontName, style, 1).deriveFont(fontSize);
+			fonts.put(key, result);
+		}
+		else {
+			fontHitCount++;
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Returns the font size that leads to the specified text height. The result is equal to 
+	 * {@link FontCalculator#getFontSizeByTextHeight(float, String, int)}.
+	 * 
+	 * @param fontName - the name of the font family
+	 * @param style - the style of the font (e.g. {@link Font#BOLD})
+	 * @param textHeight - the height of the text
+	 * @return the font size in the same unit as the text height
+	 */
+	public synchronized float getFontSizeByTextHeight(String fontName, int style, float textHeight) {
+		FontKey key = new FontKey(fontName, style, REFERENCE_FONT_SIZE, null);
+		Float ratio = heightSizeRatios.get(key);
+		if (ratio == null) {
+			Font font = new Font(fontName, style, REFERENCE_FONT_SIZE);  // Created as in FontCalculator.
+			ratio = (float)(font.getStringBounds(HEIGHT_TEST_TEXT, frc).getHeight() / font.getSize2D());
+			heightSizeRatios.put(key, ratio);
+		}
+		return textHeight / ratio;
+	}
+	
+	
+	/**
+	 * Returns a font with the specified properties. The font size is calculated from the specified text height 
+	 * using {@link #getFontSizeByTextHeight(String, int, float)}.
+	 * 
+	 * @param fontName - the name of the font family
+	 * @param style - the style of the font (e.g. {@link Font#BOLD})
+	 * @param textHeight - the height of the text in the unit the returned font shall be used in
+	 * @return a (possibly shared) font instance
+	 */
+	public synchronized Font getFontByTextHeight(String fontName, int style, float textHeight) {
+		return getFont(fontName, style, getFontSizeByTextHeight(fontName, style, textHeight));
+	}
+	
+	
+	/**
+	 * Returns the width of the specified text in the specified font.
+	 * 
+	 * @param fontName - the name of the font family
+	 * @param style - the style of the font (e.g. {@link Font#BOLD})
+	 * @param text - the text to be measured
+	 * @param fontSize - the size of the font
+	 * @return the width of the text in the same unit as the font size
+	 */
+	public synchronized float getTextWidthToFontSize(String fontName, int style, String text, float fontSize) {
+		if (text.length() == 0) {
+			return 0f;
+		}
+		else {
+			FontKey key = new FontKey(fontName, style, REFERENCE_FONT_SIZE, text);
+			Float relativeWidth = widths.get(key);
+			if (relativeWidth == null) {
+				widthMissCount++;
+				relativeWidth = (float)(getFont(fontName, style, REFERENCE_FONT_SIZE).getStringBounds(text, frc).getWidth() / 
+						REFERENCE_FONT_SIZE);
+				widths.put(key, relativeWidth);
+			}
+			else {
+				widthHitCount++;
+			}
+			return relativeWidth * fontSize;
+		}
+	}
+	
+	
+	/**
+	 * Returns the width of the specified text in a font with the specified text height.
+	 * 
+	 * @param fontName - the name of the font family
+	 * @param style - the style of the font (e.g. {@link Font#BOLD})
+	 * @param text - the text to be measured
+	 * @param textHeight - the height of the text
+	 * @return the width of the text in the same unit as the text height
+	 */
+	public synchronized float getTextWidthToTextHeight(String fontName, int style, String text, float textHeight) {
+		return getTextWidthToFontSize(fontName, style, text, getFontSizeByTextHeight(fontName, style, textHeight));
+	}
+	
+	
+	/**
+	 * Returns the width of the specified text in the specified font.
+	 * 
+	 * @param font - the font to measure the text in
+	 * @param text - the text to be measured
+	 * @return the width of the text in the same unit as the font size
+	 */
+	public float getWidth(Font font, String text) {
+		return getTextWidthToFontSize(font.getName(), font.getStyle(), text, font.getSize2D());
+	}
+	
+	
+	public synchronized long getFontHitCount() {
+		return fontHitCount;
+	}
+
+
+	public synchronized long getFontMissCount() {
+		return fontMissCount;
+	}
+
+
+	public synchronized long getWidthHitCount() {
+		return widthHitCount;
+	}
+
+
+	public synchronized long getWidthMissCount() {
+		return widthMissCount;
+	}
+	
+	
+	private static double calculateHitRate(long hitCount, long missCount) {
+		if (hitCount + missCount == 0) {
+			return 0.0;
+		}
+		else {
+			return hitCount / (double)(hitCount + missCount);
+		}
+	}
+	
+	
+	/**
+	 * Returns the share of requests for fonts that could be answered from the cache.
+	 * 
+	 * @return a value between 0 and 1
+	 */
+	public synchronized double getFontHitRate() {
+		return calculateHitRate(fontHitCount, fontMissCount);
+	}
+	
+	
+	/**
+	 * Returns the share of requests for text widths that could be answered from the cache.
+	 * 
+	 * @return a value between 0 and 1
+	 */
+	public synchronized double getWidthHitRate() {
+		return calculateHitRate(widthHitCount, widthMissCount);
+	}
+	
+	
+	/**
+	 * Sets all hit and miss counters to 0.
+	 */
+	public synchronized void resetStatistics() {
+		fontHitCount = 0;
+		fontMissCount = 0;
+		widthHitCount = 0;
+		widthMissCount = 0;
+	}
+	
+	
+	/**
+	 * Removes all fonts and text widths from the cache.
+	 */
+	public synchronized void clear() {
+		fonts.clear();
+		widths.clear();
+		heightSizeRatios.clear();
+	}
+}
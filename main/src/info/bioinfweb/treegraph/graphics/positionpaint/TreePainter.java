@@ -56,4 +56,39 @@ public interface TreePainter {
 	 */
 	public void paintTree(Graphics2D g, Rectangle visibleRect, Document document, TreeSelection selection, ElementHighlighting highlighting, 
 			float pixelsPerMm, boolean transparent);
+	
+	
+	/**
+	 * Paints the specified rectangle of the specified document. If a reduced level of detail is requested, 
+	 * implementations may simplify parts of the document that would be too small to be recognized at the 
+	 * specified scale (e.g. by omitting small texts or painting dense subtrees as a single shape).
+	 * 
+	 * @param g the graphics objects used to paint
+	 * @param visibleRect the rectangle of the document which is visible (in pixel coordiantes)
+	 * @param document the document to be painted
+	 * @param selection a list of the selected elements
+	 * @param highlighting a set of groups of paintable elements that should be highlighted in a certainc color
+	 * @param pixelsPerMm the scale used for painting
+	 * @param transparent determines whether the background should be filled in the background color of the document
+	 * @param levelOfDetail determines whether small elements may be simplified
+	 * @since 2.16.0
+	 */
+	public void paintTree(Graphics2D g, Rectangle visibleRect, Document document, TreeSelection selection, ElementHighlighting highlighting, 
+			float pixelsPerMm, boolean transparent, boolean levelOfDetail);
+	
+	
+	/**
+	 * Paints only the frames marking the selected and highlighted elements of the specified document. This method 
+	 * can be used to paint the selection above a previously rendered image of the document, which was painted 
+	 * without selection and highlighting.
+	 * 
+	 * @param g the graphics objects used to paint
+	 * @param document the document containing the elements
+	 * @param selection a list of the selected elements
+	 * @param highlighting a set of groups of paintable elements that should be highlighted in a certainc color
+	 * @param pixelsPerMm the scale used for painting
+	 * @since 2.16.0
+	 */
+	public void paintSelection(Graphics2D g, Document document, TreeSelection selection, ElementHighlighting highlighting, 
+			float pixelsPerMm);
 }
\ No newline at end of file
@@ -25,6 +25,18 @@ import info.bioinfweb.treegraph.document.*;
 
 public interface TreePositioner {
 	public void positionAll(Document document, float rescalingFactorX);
+	
+	/**
+	 * Repositions the elements of the specified document after the specified elements have been changed. 
+	 * Implementations may reuse dimensions calculated during previous calls of this method or 
+	 * {@link #positionAll(Document, float)} for parts of the document that have not been changed.
+	 * 
+	 * @param document the document to be positioned
+	 * @param rescalingFactorX the factor to stretch the tree on the x-axis
+	 * @param changedElements the elements that have been changed since the last positioning 
+	 * @since 2.16.0
+	 */
+	public void positionChanged(Document document, float rescalingFactorX, PaintableElement[] changedElements);
 
 	
 	/**Return the SelectableElement of the tree in which the given coordinates are located.
@@ -0,0 +1,508 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.positionpaint.positiondata;
+
+
+import info.bioinfweb.treegraph.document.PaintableElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+
+
+/**
+ * Spatial index of the bounding boxes of document elements, that allows to determine the elements at a 
+ * certain position or inside a certain area in logarithmic time.
+ * <p>
+ * The index is implemented as an R-tree that is bulk loaded using the sort-tile-recursive algorithm. Elements
+ * are added by a positioner using {@link #add(PaintableElement, PositionData)} in their paint order and 
+ * {@link #build()} must be called before the index can be queried. The index is not updated automatically if the 
+ * according position data changes. The order in which elements were added is used to order query results.
+ * <p>
+ * Each call of {@link #build()} creates a new immutable snapshot of the R-tree, which replaces the previous one
+ * atomically. Therefore the query methods of this class may be called from other threads while the positioner 
+ * adds elements for a new snapshot. 
+ * <p>
+ * If only the bounds of some elements changed, but no elements were added or removed, the current snapshot can be 
+ * patched using {@link #update(PaintableElement, PositionData)} and {@link #applyUpdates()} instead. The structure 
+ * of the R-tree is retained in this case and only the bounds of the nodes containing changed elements are enlarged 
+ * or shrunk accordingly.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class ElementBoundsIndex {
+	/** The maximal number of children of a node of the R-tree */
+	public static final int NODE_CAPACITY = 16;
+	
+	
+	/**
+	 * An immutable R-tree containing a set of elements.
+	 */
+	private static final class Snapshot {
+		private final PaintableElement[] elements;
+		private final float[] elementBounds;  // left, top, right, bottom for each element
+		private final int leafNodeCount;
+		private final float[] nodeBounds;
+		private final int[] nodeChildStart;
+		private final int[] nodeChildEnd;
+		private final int[] children;  // Indices of elements for leaf nodes and of nodes for inner nodes
+		private final int rootIndex;  // The index of the root is also the number of nodes - 1.
+		private final int[] elementNodes;  // The leaf node containing each element
+		private final int[] nodeParents;  // The parent of each node or -1 for the root
+		private final Map<PaintableElement, Integer> elementIndices;
+		
+		
+		private Snapshot(PaintableElement[] elements, float[] elementBounds, int leafNodeCount, float[] nodeBounds, 
+				int[] nodeChildStart, int[] nodeChildEnd, int[] children, int rootIndex, int[] elementNodes, 
+				int[] nodeParents, Map<PaintableElement, Integer> elementIndices) {
+			
+			super();
+			this.elements = elements;
+			this.elementBounds = elementBounds;
+			this.leafNodeCount = leafNodeCount;
+			this.nodeBounds = nodeBounds;
+			this.nodeChildStart = nodeChildStart;
+			this.nodeChildEnd = nodeChildEnd;
+			this.children = children;
+			this.rootIndex = rootIndex;
+			this.elementNodes = elementNodes;
+			this.nodeParents = nodeParents;
+			this.elementIndices = elementIndices;
+		}
+		
+		
+		/**
+		 * Creates a copy of this snapshot with different bounds that shares the structure of the R-tree with this
+		 * instance.
+		 */
+		private Snapshot patch(float[] elementBounds, float[] nodeBounds) {
+			return new Snapshot(elements, elementBounds, leafNodeCount, nodeBounds, nodeChildStart, nodeChildEnd, children, 
+					rootIndex, elementNodes, nodeParents, elementIndices);
+		}
+		
+		
+		/**
+		 * Calls {@link SearchListener#elementFound(int)} for all elements that intersect the specified area.
+		 */
+		private void search(float left, float top, float right, float bottom, SearchListener listener) {
+			if (rootIndex != -1) {
+				int[] stack = new int[rootIndex + 1];
+				int stackSize = 0;
+				stack[stackSize++] = rootIndex;
+				while (stackSize > 0) {
+					int node = stack[--stackSize];
+					if (intersects(nodeBounds, node, left, top, right, bottom)) {
+						if (node < leafNodeCount) {
+							for (int i = nodeChildStart[node]; i < nodeChildEnd[node]; i++) {
+								if (intersects(elementBounds, children[i], left, top, right, bottom)) {
+									listener.elementFound(children[i]);
+								}
+							}
+						}
+						else {
+							for (int i = nodeChildStart[node]; i < nodeChildEnd[node]; i++) {
+								stack[stackSize++] = children[i];
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	
+	private static interface SearchListener {
+		public void elementFound(int index);
+	}
+	
+	
+	private static final Snapshot EMPTY_SNAPSHOT = new Snapshot(new PaintableElement[0], new float[0], 0, new float[0], 
+			new int[0], new int[0], new int[0], -1, new int[0], new int[0], new IdentityHashMap<PaintableElement, Integer>());
+	
+	
+	private int elementCount = 0;
+	private PaintableElement[] elements = new PaintableElement[NODE_CAPACITY];
+	private float[] elementBounds = new float[4 * NODE_CAPACITY];  // left, top, right, bottom for each element
+	private volatile Snapshot snapshot = EMPTY_SNAPSHOT;
+	
+	// Temporary fields used during building:
+	private int nodeCount = 0;
+	private float[] nodeBounds;
+	private int[] nodeChildStart;
+	private int[] nodeChildEnd;
+	private int[] children;
+	private int[] elementNodes;
+	private int[] nodeParents;
+	
+	// Temporary fields used during updating:
+	private float[] updatedElementBounds = null;
+	private TreeSet<Integer> changedNodes = new TreeSet<Integer>();
+	
+	
+	/**
+	 * Removes all elements from this index.
+	 */
+	public void clear() {
+		Arrays.fill(elements, 0, elementCount, null);
+		elementCount = 0;
+		snapshot = EMPTY_SNAPSHOT;
+		updatedElementBounds = null;
+		changedNodes.clear();
+	}
+	
+	
+	/**
+	 * Adds an element with the current bounds of the specified position data. Note that {@link #build()} has to be
+	 * called after all elements have been added.
+	 * 
+	 * @param element the element to be added
+	 * @param pd the position data containing the bounds of the element
+	 */
+	public void add(PaintableElement element, PositionData pd) {
+		if (elementCount == elements.length) {
+			elements = Arrays.copyOf(elements, 2 * elements.length);
+			elementBounds = Arrays.copyOf(elementBounds, 2 * elementBounds.length);
+		}
+		elements[elementCount] = element;
+		int offset = 4 * elementCount;
+		elementBounds[offset] = pd.getLeft().getInMillimeters();
+		elementBounds[offset + 1] = pd.getTop().getInMillimeters();
+		elementBounds[offset + 2] = pd.getRightInMillimeters();
+		elementBounds[offset + 3] = pd.getBottomInMillimeters();
+		elementCount++;
+	}
+	
+	
+	/**
+	 * Sets the bounds of an element contained in the current snapshot to the current bounds of the specified 
+	 * position data. The snapshot is not changed until {@link #applyUpdates()} is called.
+	 * 
+	 * @param element the element that might have been moved or resized
+	 * @param pd the position data containing the new bounds of the element
+	 * @return {@code true} if the element was updated or {@code false} if it is not contained in the current snapshot 
+	 *         (In this case the index has to be rebuilt using {@link #clear()}, {@link #add(PaintableElement, PositionData)} 
+	 *         and {@link #build()}.)
+	 * @since 2.16.0
+	 */
+	public boolean update(PaintableElement element, PositionData pd) {
+		Snapshot snapshot = this.snapshot;
+		Integer index = snapshot.elementIndices.get(element);
+		if (index == null) {
+			return false;
+		}
+		else {
+			float[] bounds = updatedElementBounds;
+			if (bounds == null) {
+				bounds = snapshot.elementBounds;
+			}
+			int offset = 4 * index;
+			float left = pd.getLeft().getInMillimeters();
+			float top = pd.getTop().getInMillimeters();
+			float right = pd.getRightInMillimeters();
+			float bottom = pd.getBottomInMillimeters();
+			if ((bounds[offset] != left) || (bounds[offset + 1] != top) || (bounds[offset + 2] != right) || 
+					(bounds[offset + 3] != bottom)) {
+				
+				if (updatedElementBounds == null) {
+					updatedElementBounds = snapshot.elementBounds.clone();  // The current snapshot may still be queried.
+				}
+				updatedElementBounds[offset] = left;
+				updatedElementBounds[offset + 1] = top;
+				updatedElementBounds[offset + 2] = right;
+				updatedElementBounds[offset + 3] = bottom;
+				changedNodes.add(snapshot.elementNodes[index]);
+			}
+			return true;
+		}
+	}
+	
+	
+	/**
+	 * Recalculates the bounds of the specified node of the R-tree from the bounds of its children.
+	 * 
+	 * @return {@code true} if the bounds of the node changed
+	 */
+	private static boolean fitNode(Snapshot snapshot, int node, float[] childBounds, float[] nodeBounds) {
+		float left = Float.POSITIVE_INFINITY;
+		float top = Float.POSITIVE_INFINITY;
+		float right = Float.NEGATIVE_INFINITY;
+		float bottom = Float.NEGATIVE_INFINITY;
+		for (int i = snapshot.nodeChildStart[node]; i < snapshot.nodeChildEnd[node]; i++) {
+			int child = 4 * snapshot.children[i];
+			left = Math.min(left, childBounds[child]);
+			top = Math.min(top, childBounds[child + 1]);
+			right = Math.max(right, childBounds[child + 2]);
+			bottom = Math.max(bottom, childBounds[child + 3]);
+		}
+		
+		int offset = 4 * node;
+		boolean result = (nodeBounds[offset] != left) || (nodeBounds[offset + 1] != top) || 
+				(nodeBounds[offset + 2] != right) || (nodeBounds[offset + 3] != bottom);
+		nodeBounds[offset] = left;
+		nodeBounds[offset + 1] = top;
+		nodeBounds[offset + 2] = right;
+		nodeBounds[offset + 3] = bottom;
+		return result;
+	}
+	
+	
+	/**
+	 * Creates a new snapshot containing the bounds set by {@link #update(PaintableElement, PositionData)} since the 
+	 * last call of this method. Only the bounds of the nodes of the R-tree that contain changed elements and their 
+	 * ancestors are recalculated. The previous snapshot remains available for queries until this method returns.
+	 * 
+	 * @since 2.16.0
+	 */
+	public void applyUpdates() {
+		if (updatedElementBounds != null) {
+			Snapshot snapshot = this.snapshot;
+			float[] nodeBounds = snapshot.nodeBounds.clone();
+			while (!changedNodes.isEmpty()) {
+				int node = changedNodes.pollFirst();  // Parents always have greater indices than their children.
+				float[] childBounds = (node < snapshot.leafNodeCount) ? updatedElementBounds : nodeBounds;
+				if (fitNode(snapshot, node, childBounds, nodeBounds) && (snapshot.nodeParents[node] != -1)) {
+					changedNodes.add(snapshot.nodeParents[node]);
+				}
+			}
+			this.snapshot = snapshot.patch(updatedElementBounds, nodeBounds);
+			updatedElementBounds = null;
+		}
+	}
+	
+	
+	/**
+	 * Returns the number of elements contained in the current snapshot.
+	 */
+	public int size() {
+		return snapshot.elements.length;
+	}
+	
+	
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+	
+	
+	private static float center(float[] bounds, int index, int dimension) {
+		return bounds[4 * index + dimension] + bounds[4 * index + dimension + 2];
+	}
+	
+	
+	/**
+	 * Orders the specified boxes using the sort-tile-recursive algorithm so that each subsequent group of 
+	 * {@link #NODE_CAPACITY} boxes can be combined to a node.
+	 */
+	private static Integer[] sortTileRecursive(int count, final float[] bounds) {
+		Integer[] result = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = i;
+		}
+		
+		Arrays.sort(result, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				return Float.compare(center(bounds, i1, 0), center(bounds, i2, 0));
+			}
+		});
+		
+		int nodes = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+		int sliceSize = NODE_CAPACITY * (int)Math.ceil(Math.sqrt(nodes));
+		Comparator<Integer> yComparator = new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				return Float.compare(center(bounds, i1, 1), center(bounds, i2, 1));
+			}
+		};
+		for (int start = 0; start < count; start += sliceSize) {
+			Arrays.sort(result, start, Math.min(start + sliceSize, count), yComparator);
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Creates the nodes of one level of the R-tree.
+	 * 
+	 * @param count the number of boxes on the level below
+	 * @param bounds the bounds of the boxes on the level below
+	 * @param indexOffset the offset to be added to the indices of the boxes on the level below
+	 * @return the bounds of the created nodes
+	 */
+	private float[] buildLevel(int count, float[] bounds, int indexOffset) {
+		Integer[] order = sortTileRecursive(count, bounds);
+		int levelNodeCount = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+		float[] levelBounds = new float[4 * levelNodeCount];
+		boolean leafLevel = (nodeCount == 0);
+		int childIndex = leafLevel ? 0 : nodeChildEnd[nodeCount - 1];
+		for (int i = 0; i < levelNodeCount; i++) {
+			int node = nodeCount + i;
+			nodeChildStart[node] = childIndex;
+			levelBounds[4 * i] = Float.POSITIVE_INFINITY;
+			levelBounds[4 * i + 1] = Float.POSITIVE_INFINITY;
+			levelBounds[4 * i + 2] = Float.NEGATIVE_INFINITY;
+			levelBounds[4 * i + 3] = Float.NEGATIVE_INFINITY;
+			for (int j = i * NODE_CAPACITY; j < Math.min((i + 1) * NODE_CAPACITY, count); j++) {
+				int child = order[j];
+				children[childIndex] = child + indexOffset;
+				childIndex++;
+				if (leafLevel) {
+					elementNodes[child] = node;
+				}
+				else {
+					nodeParents[child + indexOffset] = node;
+				}
+				levelBounds[4 * i] = Math.min(levelBounds[4 * i], bounds[4 * child]);
+				levelBounds[4 * i + 1] = Math.min(levelBounds[4 * i + 1], bounds[4 * child + 1]);
+				levelBounds[4 * i + 2] = Math.max(levelBounds[4 * i + 2], bounds[4 * child + 2]);
+				levelBounds[4 * i + 3] = Math.max(levelBounds[4 * i + 3], bounds[4 * child + 3]);
+			}
+			nodeChildEnd[node] = childIndex;
+		}
+		System.arraycopy(levelBounds, 0, nodeBounds, 4 * nodeCount, levelBounds.length);
+		nodeCount += levelNodeCount;
+		return levelBounds;
+	}
+	
+	
+	/**
+	 * Builds a new snapshot of the R-tree from all elements that have been added since the last call of 
+	 * {@link #clear()}. This method must be called before querying the index. The previous snapshot remains
+	 * available for queries until this method returns.
+	 */
+	public void build() {
+		updatedElementBounds = null;
+		changedNodes.clear();
+		if (elementCount == 0) {
+			snapshot = EMPTY_SNAPSHOT;
+		}
+		else {
+			int maxNodes = 0;
+			int levelCount = elementCount;
+			do {
+				levelCount = (levelCount + NODE_CAPACITY - 1) / NODE_CAPACITY;
+				maxNodes += levelCount;
+			} while (levelCount > 1);
+			nodeCount = 0;
+			nodeBounds = new float[4 * maxNodes];
+			nodeChildStart = new int[maxNodes];
+			nodeChildEnd = new int[maxNodes];
+			children = new int[elementCount + maxNodes];
+			elementNodes = new int[elementCount];
+			nodeParents = new int[maxNodes];
+			Arrays.fill(nodeParents, -1);
+			
+			float[] levelBounds = buildLevel(elementCount, elementBounds, 0);
+			int leafNodeCount = nodeCount;
+			int levelStart = 0;
+			while (nodeCount - levelStart > 1) {
+				int start = nodeCount;
+				levelBounds = buildLevel(nodeCount - levelStart, levelBounds, levelStart);
+				levelStart = start;
+			}
+			
+			Map<PaintableElement, Integer> elementIndices = new IdentityHashMap<PaintableElement, Integer>(elementCount);
+			for (int i = 0; i < elementCount; i++) {
+				elementIndices.put(elements[i], i);
+			}
+			
+			snapshot = new Snapshot(Arrays.copyOf(elements, elementCount), Arrays.copyOf(elementBounds, 4 * elementCount), 
+					leafNodeCount, nodeBounds, nodeChildStart, nodeChildEnd, children, nodeCount - 1, elementNodes, nodeParents,
+					elementIndices);
+			nodeBounds = null;
+			nodeChildStart = null;
+			nodeChildEnd = null;
+			children = null;
+			elementNodes = null;
+			nodeParents = null;
+		}
+	}
+	
+	
+	private static boolean intersects(float[] bounds, int index, float left, float top, float right, float bottom) {
+		int offset = 4 * index;
+		return (bounds[offset] <= right) && (bounds[offset + 2] >= left) && 
+				(bounds[offset + 1] <= bottom) && (bounds[offset + 3] >= top);
+	}
+	
+	
+	/**
+	 * Returns the element that was added first among all elements which contain the specified point.
+	 * 
+	 * @param x the x-coordinate in millimeters
+	 * @param y the y-coordinate in millimeters
+	 * @param margin the distance in millimeters a point may have to the bounds of an element to be considered 
+	 *        as contained
+	 * @return the element or {@code null} if no element was found at the specified position
+	 */
+	public PaintableElement elementAt(float x, float y, float margin) {
+		final Snapshot snapshot = this.snapshot;
+		final int[] first = new int[]{Integer.MAX_VALUE};
+		snapshot.search(x - margin, y - margin, x + margin, y + margin, new SearchListener() {
+			@Override
+			public void elementFound(int index) {
+				first[0] = Math.min(first[0], index);
+			}
+		});
+		
+		if (first[0] == Integer.MAX_VALUE) {
+			return null;
+		}
+		else {
+			return snapshot.elements[first[0]];
+		}
+	}
+	
+	
+	/**
+	 * Returns all elements that intersect the specified area in the order they were added.
+	 * 
+	 * @param left the left border of the area in millimeters
+	 * @param top the top border of the area in millimeters
+	 * @param right the right border of the area in millimeters
+	 * @param bottom the bottom border of the area in millimeters
+	 * @return a list of elements (that may be empty)
+	 */
+	public List<PaintableElement> elementsIn(float left, float top, float right, float bottom) {
+		final Snapshot snapshot = this.snapshot;
+		final List<Integer> found = new ArrayList<Integer>();
+		snapshot.search(left, top, right, bottom, new SearchListener() {
+			@Override
+			public void elementFound(int index) {
+				found.add(index);
+			}
+		});
+		
+		int[] indices = new int[found.size()];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = found.get(i);
+		}
+		Arrays.sort(indices);
+		List<PaintableElement> result = new ArrayList<PaintableElement>(indices.length);
+		for (int i = 0; i < indices.length; i++) {
+			result.add(snapshot.elements[indices[i]]);
+		}
+		return result;
+	}
+}
@@ -52,48 +52,59 @@ public class LegendPositionData extends PositionData {
 	}
 
 
+	@Override
+	public float getHeightInMillimeters() {
+		return Math.max(getTextPos().getHeightInMillimeters(), getLinePos().getHeightInMillimeters());
+	}
+
+
 	@Override
 	public DistanceValue getHeight() {
-		if (getTextPos().getHeight().getInMillimeters() > getLinePos().getHeight().getInMillimeters()) {
-			super.getHeight().assign(getTextPos().getHeight());
-		}
-		else {
-			super.getHeight().assign(getLinePos().getHeight());
-		}
-		return super.getHeight();
+		DistanceValue result = super.getHeight();
+		result.setInMillimeters(getHeightInMillimeters());
+		return result;
+	}
+
+
+	@Override
+	public float getLeftInMillimeters() {
+		return Math.min(getTextPos().getLeftInMillimeters(), getLinePos().getLeftInMillimeters());
 	}
 
 
 	@Override
 	public DistanceValue getLeft() {
-		if (getTextPos().getLeft().getInMillimeters() < getLinePos().getLeft().getInMillimeters()) {
-			super.getLeft().assign(getTextPos().getLeft());
-		}
-		else {
-			super.getLeft().assign(getLinePos().getLeft());
-		}
-		return super.getLeft();
+		DistanceValue result = super.getLeft();
+		result.setInMillimeters(getLeftInMillimeters());
+		return result;
+	}
+
+
+	@Override
+	public float getTopInMillimeters() {
+		return Math.min(getTextPos().getTopInMillimeters(), getLinePos().getTopInMillimeters());
 	}
 
 
 	@Override
 	public DistanceValue getTop() {
-		if (getTextPos().getTop().getInMillimeters() < getLinePos().getTop().getInMillimeters()) {
-			super.getTop().assign(getTextPos().getTop());
-		}
-		else {
-			super.getTop().assign(getLinePos().getTop());
-		}
-		return super.getTop();
+		DistanceValue result = super.getTop();
+		result.setInMillimeters(getTopInMillimeters());
+		return result;
+	}
+
+
+	@Override
+	public float getWidthInMillimeters() {
+		return getTextPos().getWidthInMillimeters() + getSpacing().getInMillimeters() + getLinePos().getWidthInMillimeters();
 	}
 
 
 	@Override
 	public DistanceValue getWidth() {
-		super.getWidth().assign(getTextPos().getWidth());
-		super.getWidth().add(getSpacing());
-		super.getWidth().add(getLinePos().getWidth());
-		return super.getWidth();
+		DistanceValue result = super.getWidth();
+		result.setInMillimeters(getWidthInMillimeters());
+		return result;
 	}
 
 
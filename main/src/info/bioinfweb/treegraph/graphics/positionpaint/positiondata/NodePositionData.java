@@ -25,6 +25,19 @@ public class NodePositionData extends PositionData {
 	private float difAbove = 0; 
 	private float heightBelow = 0;
 	private float difBelow = 0;
+	private boolean subtreeCacheValid = false;
+	private float cachedSubtreeWidth = 0;
+	private float cachedMaxLeafWidth = 0;
+	private float cachedLeft = 0;
+	private float cachedWidth = 0;
+	private float cachedBranchLeft = 0;
+	private float cachedBranchWidth = 0;
+	private float maxLeafLeft = 0;
+	private float rescalingFactorX = Float.NaN;
+	private float descendantsMaxRight = Float.NEGATIVE_INFINITY;
+	private boolean descendantsSkipped = false;
+	private float previousLeft = 0;
+	private float previousTop = 0;
 	
 	
 	public float getDifAbove() {
@@ -65,4 +78,184 @@ public class NodePositionData extends PositionData {
 	public void setHeightBelow(float heightBelow) {
 		this.heightBelow = heightBelow;
 	} 
+	
+	
+	/**
+	 * Determines whether the values stored by the last call of {@link #cacheSubtree(float, float, PositionData)} 
+	 * are still valid for the subtree under the according node. 
+	 * 
+	 * @since 2.16.0
+	 */
+	public boolean isSubtreeCacheValid() {
+		return subtreeCacheValid;
+	}
+	
+	
+	/**
+	 * Marks the values cached for the subtree under the according node as invalid. This should be called if
+	 * the according node or any node in its subtree was changed in a way that might influence its dimensions.
+	 * 
+	 * @since 2.16.0
+	 */
+	public void invalidateSubtreeCache() {
+		subtreeCacheValid = false;
+	}
+	
+	
+	/**
+	 * Stores the dimensions of the subtree under the according node that were calculated by a positioner 
+	 * before any element was moved. (The values for the height are not cached, because they are not altered 
+	 * after their calculation.)  
+	 * 
+	 * @param subtreeWidth the width of the whole subtree including the afferent branch of its root
+	 * @param maxLeafWidth the maximal width of a leaf in the subtree
+	 * @param branchPD the position data of the afferent branch or {@code null} if there is no such branch
+	 * @since 2.16.0
+	 */
+	public void cacheSubtree(float subtreeWidth, float maxLeafWidth, PositionData branchPD) {
+		cachedSubtreeWidth = subtreeWidth;
+		cachedMaxLeafWidth = maxLeafWidth;
+		cachedLeft = getLeft().getInMillimeters();
+		cachedWidth = getWidth().getInMillimeters();
+		if (branchPD != null) {
+			cachedBranchLeft = branchPD.getLeft().getInMillimeters();
+			cachedBranchWidth = branchPD.getWidth().getInMillimeters();
+		}
+		subtreeCacheValid = true;
+	}
+	
+	
+	/**
+	 * Restores the horizontal values of the according node and its afferent branch that have been stored by the 
+	 * last call of {@link #cacheSubtree(float, float, PositionData)}.
+	 * 
+	 * @param branchPD the position data of the afferent branch or {@code null} if there is no such branch
+	 * @since 2.16.0
+	 */
+	public void restoreFromCache(PositionData branchPD) {
+		getLeft().setInMillimeters(cachedLeft);
+		getWidth().setInMillimeters(cachedWidth);
+		if (branchPD != null) {
+			branchPD.getLeft().setInMillimeters(cachedBranchLeft);
+			branchPD.getWidth().setInMillimeters(cachedBranchWidth);
+		}
+	}
+
+
+	public float getCachedSubtreeWidth() {
+		return cachedSubtreeWidth;
+	}
+
+
+	public float getCachedMaxLeafWidth() {
+		return cachedMaxLeafWidth;
+	}
+
+
+	/**
+	 * Returns the maximal left coordinate (in mm) of all leaves in the subtree under the according node. 
+	 * This is the coordinate where the rightmost terminal branch of the subtree ends.
+	 * 
+	 * @since 2.16.0
+	 */
+	public float getMaxLeafLeft() {
+		return maxLeafLeft;
+	}
+
+
+	public void setMaxLeafLeft(float maxLeafLeft) {
+		this.maxLeafLeft = maxLeafLeft;
+	}
+
+
+	/**
+	 * Determines whether the according node was positioned completely (including its descendants) with the specified
+	 * horizontal rescaling factor during the last positioning of the tree. 
+	 * 
+	 * @since 2.16.0
+	 */
+	public boolean isPositionedWith(float rescalingFactorX) {
+		return this.rescalingFactorX == rescalingFactorX;
+	}
+
+
+	/**
+	 * Stores the horizontal rescaling factor that was used to position the according node.
+	 * 
+	 * @since 2.16.0
+	 */
+	public void setRescalingFactorX(float rescalingFactorX) {
+		this.rescalingFactorX = rescalingFactorX;
+	}
+
+
+	/**
+	 * Returns the maximal right coordinate (in mm) of all branches in the subtree under the according node (not 
+	 * including its afferent branch) relative to the left of the node, as it was before moving the whole tree. 
+	 * 
+	 * @return the distance or {@link Float#NEGATIVE_INFINITY} if the according node is a leaf
+	 * @since 2.16.0
+	 */
+	public float getDescendantsMaxRight() {
+		return descendantsMaxRight;
+	}
+
+
+	public void setDescendantsMaxRight(float descendantsMaxRight) {
+		this.descendantsMaxRight = descendantsMaxRight;
+	}
+
+
+	/**
+	 * Marks the descendants of the according node to be skipped by the current positioning. Their positions from the 
+	 * previous positioning remain unchanged and are afterwards moved by the same offset as this node. Therefore the 
+	 * current position of this node is stored to calculate that offset.
+	 * 
+	 * @since 2.16.0
+	 */
+	public void skipDescendants() {
+		previousLeft = getLeft().getInMillimeters();
+		previousTop = getTop().getInMillimeters();
+		descendantsSkipped = true;
+	}
+
+
+	/**
+	 * Determines whether {@link #skipDescendants()} was called during the current positioning.
+	 * 
+	 * @since 2.16.0
+	 */
+	public boolean isDescendantsSkipped() {
+		return descendantsSkipped;
+	}
+
+
+	/**
+	 * Marks the skipping of the descendants started by {@link #skipDescendants()} as finished.
+	 * 
+	 * @since 2.16.0
+	 */
+	public void endSkippingDescendants() {
+		descendantsSkipped = false;
+	}
+
+
+	/**
+	 * Returns the left coordinate (in mm) of the according node stored by the last call of {@link #skipDescendants()}.
+	 * 
+	 * @since 2.16.0
+	 */
+	public float getPreviousLeft() {
+		return previousLeft;
+	}
+
+
+	/**
+	 * Returns the top coordinate (in mm) of the according node stored by the last call of {@link #skipDescendants()}.
+	 * 
+	 * @since 2.16.0
+	 */
+	public float getPreviousTop() {
+		return previousTop;
+	}
 }
\ No newline at end of file
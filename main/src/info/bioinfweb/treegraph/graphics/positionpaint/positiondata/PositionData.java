@@ -25,70 +25,173 @@ import java.awt.Rectangle;
 
 
 
+/**
+ * Stores the position and dimension of an element of a document in millimeters.
+ * <p>
+ * The values are stored as primitive fields. The {@link DistanceValue} objects returned by the getters 
+ * are views that read and write these fields and do not need to be retained by the caller. (Their clones are 
+ * independent distance values.) The methods returning primitive values (e.g. {@link #getLeftInMillimeters()}) 
+ * and all other helper methods of this class do not create views.
+ * 
+ * @author Ben St&ouml;ver
+ */
 public class PositionData implements Cloneable {
-	private DistanceValue left = new DistanceValue(0);
-	private DistanceValue top = new DistanceValue(0);
-	private DistanceValue width = new DistanceValue(0);
-	private DistanceValue height = new DistanceValue(0);
+	private static final int LEFT = 0;
+	private static final int TOP = 1;
+	private static final int WIDTH = 2;
+	private static final int HEIGHT = 3;
+	
+	
+	private class DistanceValueView extends DistanceValue {
+		private final int field;
+		
+		public DistanceValueView(int field) {
+			super();
+			this.field = field;
+		}
+
+		@Override
+		public float getInMillimeters() {
+			switch (field) {
+				case LEFT:
+					return left;
+				case TOP:
+					return top;
+				case WIDTH:
+					return width;
+				default:
+					return height;
+			}
+		}
+
+		@Override
+		public void setInMillimeters(float value) {
+			switch (field) {
+				case LEFT:
+					left = value;
+					break;
+				case TOP:
+					top = value;
+					break;
+				case WIDTH:
+					width = value;
+					break;
+				default:
+					height = value;
+					break;
+			}
+		}
+
+		@Override
+		public DistanceValue clone() {
+			return new DistanceValue(getInMillimeters());
+		}
+	}
+	
+	
+	private float left = 0;
+	private float top = 0;
+	private float width = 0;
+	private float height = 0;
 	
 
 	public DistanceValue getHeight() {
-		return height;
+		return new DistanceValueView(HEIGHT);
 	}
 
 
 	public DistanceValue getLeft() {
-		return left;
+		return new DistanceValueView(LEFT);
 	}
 
 
 	public DistanceValue getTop() {
-		return top;
+		return new DistanceValueView(TOP);
 	}
 
 
 	public DistanceValue getWidth() {
+		return new DistanceValueView(WIDTH);
+	}
+	
+	
+	/**
+	 * Returns the same value as {@code getLeft().getInMillimeters()} without creating a view object.
+	 * 
+	 * @since 2.16.0
+	 */
+	public float getLeftInMillimeters() {
+		return left;
+	}
+
+
+	/**
+	 * Returns the same value as {@code getTop().getInMillimeters()} without creating a view object.
+	 * 
+	 * @since 2.16.0
+	 */
+	public float getTopInMillimeters() {
+		return top;
+	}
+
+
+	/**
+	 * Returns the same value as {@code getWidth().getInMillimeters()} without creating a view object.
+	 * 
+	 * @since 2.16.0
+	 */
+	public float getWidthInMillimeters() {
 		return width;
 	}
 
+
+	/**
+	 * Returns the same value as {@code getHeight().getInMillimeters()} without creating a view object.
+	 * 
+	 * @since 2.16.0
+	 */
+	public float getHeightInMillimeters() {
+		return height;
+	}
+
 	
 	public float getRightInMillimeters() {
-		return getLeft().getInMillimeters() + getWidth().getInMillimeters();
+		return getLeftInMillimeters() + getWidthInMillimeters();
 	}
 
 	
 	public float getRightInPixels(float pixelsPerMillimeter) {
-		return getLeft().getInPixels(pixelsPerMillimeter) + getWidth().getInPixels(pixelsPerMillimeter);
+		return getLeftInMillimeters() * pixelsPerMillimeter + getWidthInMillimeters() * pixelsPerMillimeter;
 	}
 
 	
 	public float getBottomInMillimeters() {
-		return getTop().getInMillimeters() + getHeight().getInMillimeters();
+		return getTopInMillimeters() + getHeightInMillimeters();
 	}
 	
 	
 	public float getBottomInPixels(float pixelsPerMillimeter) {
-		return getTop().getInPixels(pixelsPerMillimeter) + getHeight().getInPixels(pixelsPerMillimeter);
+		return getTopInMillimeters() * pixelsPerMillimeter + getHeightInMillimeters() * pixelsPerMillimeter;
 	}
 
 	
 	public float getCenterXInMillimeters() {
-		return getLeft().getInMillimeters() + 0.5f * getWidth().getInMillimeters();
+		return getLeftInMillimeters() + 0.5f * getWidthInMillimeters();
 	}
 	
 	
 	public float getCenterXInPixels(float pixelsPerMillimeter) {
-		return getLeft().getInPixels(pixelsPerMillimeter) + 0.5f * getWidth().getInPixels(pixelsPerMillimeter);
+		return getLeftInMillimeters() * pixelsPerMillimeter + 0.5f * getWidthInMillimeters() * pixelsPerMillimeter;
 	}
 
 	
 	public float getCenterYInMillimeters() {
-		return getTop().getInMillimeters() + 0.5f * getHeight().getInMillimeters();
+		return getTopInMillimeters() + 0.5f * getHeightInMillimeters();
 	}
 	
 	
 	public float getCenterYInPixels(float pixelsPerMillimeter) {
-		return getTop().getInPixels(pixelsPerMillimeter) + 0.5f * getHeight().getInPixels(pixelsPerMillimeter);
+		return getTopInMillimeters() * pixelsPerMillimeter + 0.5f * getHeightInMillimeters() * pixelsPerMillimeter;
 	}
 
 	
@@ -98,26 +201,26 @@ public class PositionData implements Cloneable {
 	
 	
 	public boolean contains(float x, float y, float margin) {
-		return (Math2.isBetween(x, getLeft().getInMillimeters() - margin, getRightInMillimeters() + margin) 
-				 && Math2.isBetween(y, getTop().getInMillimeters() - margin, getBottomInMillimeters() + margin));
+		return (Math2.isBetween(x, getLeftInMillimeters() - margin, getRightInMillimeters() + margin) 
+				 && Math2.isBetween(y, getTopInMillimeters() - margin, getBottomInMillimeters() + margin));
 	}
 	
 	
   public Rectangle toRect(float pixelsPerMillimeter) {
   	Rectangle result = new Rectangle(
-  			getLeft().getRoundedInPixels(pixelsPerMillimeter),
-  			getTop().getRoundedInPixels(pixelsPerMillimeter),
-  			getWidth().getRoundedInPixels(pixelsPerMillimeter),
-  			getHeight().getRoundedInPixels(pixelsPerMillimeter));
+  			Math2.roundUp(getLeftInMillimeters() * pixelsPerMillimeter),
+  			Math2.roundUp(getTopInMillimeters() * pixelsPerMillimeter),
+  			Math2.roundUp(getWidthInMillimeters() * pixelsPerMillimeter),
+  			Math2.roundUp(getHeightInMillimeters() * pixelsPerMillimeter));  // Rounded as in DistanceValue.getRoundedInPixels()
   	return result;
   }
   
   
   public void assignPositionData(PositionData other) {
-  	getLeft().assign(other.getLeft());
-  	getTop().assign(other.getTop());
-  	getWidth().assign(other.getWidth());
-  	getHeight().assign(other.getHeight());
+  	left = other.getLeftInMillimeters();
+  	top = other.getTopInMillimeters();
+  	width = other.getWidthInMillimeters();
+  	height = other.getHeightInMillimeters();
   }
 	
 	
@@ -129,6 +232,7 @@ public class PositionData implements Cloneable {
 
 	@Override
 	public String toString() {
-		return super.toString() + "[left=" + getLeft() + ",top=" + getTop() + ",width=" + getWidth() + ",height=" + getHeight() + "]";
+		return super.toString() + "[left=" + getLeftInMillimeters() + ",top=" + getTopInMillimeters() + ",width=" + 
+				getWidthInMillimeters() + ",height=" + getHeightInMillimeters() + "]";
 	}
 }
\ No newline at end of file
@@ -28,8 +28,10 @@ import javax.swing.JMenu;
 import javax.swing.JPopupMenu;
 import javax.swing.undo.UndoableEdit;
 
+import info.bioinfweb.treegraph.PreferencesConstants;
 import info.bioinfweb.treegraph.document.*;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+import info.bioinfweb.treegraph.document.undo.DocumentUndoManager;
 import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintFactory;
 import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
 import info.bioinfweb.treegraph.gui.actions.edit.*;
@@ -247,12 +249,38 @@ public class ActionManagement extends AbstractUndoActionManagement {
 	}
 	
 	
+	private static String formatMemory(long bytes) {
+		return String.format("%.1f MB", bytes / (double)PreferencesConstants.UNDO_MEMORY_BUDGET_UNIT);
+	}
+	
+	
+	/**
+	 * Displays the memory retained by the undo history of the specified undo manager in the tool tips of
+	 * the undo menu and the undo action.
+	 * 
+	 * @param undoManager - the undo manager of the active document or {@code null} if no document is open
+	 */
+	private void updateUndoMemoryInfo(DocumentUndoManager undoManager) {
+		String text = "Undo";
+		if (undoManager != null) {
+			text += " (history uses about " + formatMemory(undoManager.getRetainedSize());
+			if (undoManager.getMemoryBudget() != DocumentUndoManager.UNLIMITED_MEMORY_BUDGET) {
+				text += " of " + formatMemory(undoManager.getMemoryBudget());
+			}
+			text += ")";
+		}
+		get("edit.undo").putValue(Action.SHORT_DESCRIPTION, text);
+		mainFrame.getUndoMenu().setToolTipText(text);
+	}
+	
+	
 	/**
 	 * Enables or disables all action objects by calling their 
 	 * <code>setEnabled(Document, TreeSelection)</code>-methods. Additionally the
 	 * undo and redo actions are enabled depending on the contents of the undo manager
 	 * and the action that would switch to the current view mode is disabled (which
-	 * illustrated the current view mode to the user).
+	 * illustrated the current view mode to the user). The memory currently used by the 
+	 * undo history is displayed in the tool tips of the undo action and menu.
 	 */
 	public void refreshActionStatus() {
   	TreeInternalFrame frame = mainFrame.getActiveTreeFrame();
@@ -270,6 +298,7 @@ public class ActionManagement extends AbstractUndoActionManagement {
 			editUndoRedoMenus();
 			get("edit.undo").setEnabled(frame.getDocument().getUndoManager().canUndo());
 			get("edit.redo").setEnabled(frame.getDocument().getUndoManager().canRedo());
+			updateUndoMemoryInfo(frame.getDocument().getUndoManager());
 	
 			for (PositionPaintType type: PositionPaintType.values()) {
 				Action action = get("view.setPainterID_" + 
@@ -283,6 +312,7 @@ public class ActionManagement extends AbstractUndoActionManagement {
 			get("edit.redo").setEnabled(false);
 	  	mainFrame.getUndoMenu().setEnabled(false);
   		mainFrame.getRedoMenu().setEnabled(false);
+  		updateUndoMemoryInfo(null);
 		}
 	}
 	
@@ -21,8 +21,6 @@ package info.bioinfweb.treegraph.gui.actions.format;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import javax.swing.Action;
@@ -33,7 +31,6 @@ import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Label;
 import info.bioinfweb.treegraph.document.NodeType;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
-import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
 import info.bioinfweb.treegraph.document.tools.TreeSerializer;
 import info.bioinfweb.treegraph.document.undo.file.addsupportvalues.AddSupportValuesEdit;
 import info.bioinfweb.treegraph.document.undo.format.AutoPositionLabelsEdit;
@@ -60,8 +57,7 @@ public class AutoPositionLabelsAction extends DocumentAction {
 
 
 	private boolean containsSupportConflictIDs(Document document) {
-  	List<String> ids = new ArrayList<String>(Arrays.asList(NodeBranchDataColumnManager.getLabelIDs(
-  			document.getTree().getPaintStart(), Label.class)));
+  	List<String> ids = document.getTree().getColumnRegistry().getLabelIDs(Label.class);
 		for (String id : ids) {
 			if (id.endsWith(AddSupportValuesEdit.SUPPORT_NAME) && 
 					ids.contains(id.replace(AddSupportValuesEdit.SUPPORT_NAME, AddSupportValuesEdit.CONFLICT_NAME))) {
@@ -21,7 +21,6 @@ package info.bioinfweb.treegraph.gui.dialogs;
 
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Node;
-import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
 import info.bioinfweb.treegraph.gui.dialogs.nodebranchdatainput.NodeBranchDataInput;
 
 import javax.swing.DefaultComboBoxModel;
@@ -49,9 +48,8 @@ public class DataIDComboBox extends JComboBox<String> {
 		if (root != null) {
 			DefaultComboBoxModel<String> model = getModel();
 			model.removeAllElements();
-			String[] ids = NodeBranchDataColumnManager.getIDs(document.getTree().getPaintStart());
-			for (int i = 0; i < ids.length; i++) {
-				model.addElement(ids[i]);
+			for (String id : document.getTree().getColumnRegistry().getIDs()) {
+				model.addElement(id);
 			}
 		}
 	}
@@ -24,17 +24,22 @@ import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Iterator;
 import java.util.prefs.Preferences;
 
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.border.EmptyBorder;
 
 import info.bioinfweb.treegraph.Main;
 import info.bioinfweb.treegraph.PreferencesConstants;
 import info.bioinfweb.treegraph.gui.mainframe.MainFrame;
+import info.bioinfweb.treegraph.gui.treeframe.TreeInternalFrame;
 import info.bioinfweb.wikihelp.client.OkCancelApplyWikiHelpDialog;
 
 
@@ -45,6 +50,8 @@ public class PreferencesDialog extends OkCancelApplyWikiHelpDialog implements Pr
 	private JPanel preferencesPanel;
 	private JCheckBox checkForUpdatesCB;
 	private JCheckBox checkSelSyncCB;
+	private JPanel undoMemoryBudgetPanel;
+	private JSpinner undoMemoryBudgetSpinner;
 
 	
 	/**
@@ -69,6 +76,7 @@ public class PreferencesDialog extends OkCancelApplyWikiHelpDialog implements Pr
 					public void actionPerformed(ActionEvent e) {
 						getCheckForUpdatesCB().setSelected(DO_VERSION_CHECK_DEFAULT_VALUE);
 						getCheckSelSyncCB().setSelected(DO_CHECK_SEL_SYNC_DEFAULT_VALUE);
+						getUndoMemoryBudgetSpinner().setValue(UNDO_MEMORY_BUDGET_DEFAULT_VALUE);
 					}
 				});
 		
@@ -81,9 +89,9 @@ public class PreferencesDialog extends OkCancelApplyWikiHelpDialog implements Pr
 			preferencesPanel = new JPanel();
 			GridBagLayout layout = new GridBagLayout();
 			layout.columnWidths = new int[]{0, 0};
-			layout.rowHeights = new int[]{0, 0, 0};
+			layout.rowHeights = new int[]{0, 0, 0, 0};
 			layout.columnWeights = new double[]{0.0, Double.MIN_VALUE};
-			layout.rowWeights = new double[]{0.0, 0.0, Double.MIN_VALUE};
+			layout.rowWeights = new double[]{0.0, 0.0, 0.0, Double.MIN_VALUE};
 			preferencesPanel.setLayout(layout);
 			preferencesPanel.setBorder(new EmptyBorder(5, 5, 5, 5));
 			
@@ -96,12 +104,39 @@ public class PreferencesDialog extends OkCancelApplyWikiHelpDialog implements Pr
 			
 			GridBagConstraints checkSelSyncGBC = new GridBagConstraints();
 			checkSelSyncGBC.anchor = GridBagConstraints.WEST;
+			checkSelSyncGBC.insets = new Insets(0, 0, 5, 0);
 			checkSelSyncGBC.gridx = 0;
 			checkSelSyncGBC.gridy = 1;
 			preferencesPanel.add(getCheckSelSyncCB(), checkSelSyncGBC);
+			
+			GridBagConstraints undoMemoryBudgetGBC = new GridBagConstraints();
+			undoMemoryBudgetGBC.anchor = GridBagConstraints.WEST;
+			undoMemoryBudgetGBC.gridx = 0;
+			undoMemoryBudgetGBC.gridy = 2;
+			preferencesPanel.add(getUndoMemoryBudgetPanel(), undoMemoryBudgetGBC);
 		}
 		return preferencesPanel;
 	}
+	
+	
+	private JPanel getUndoMemoryBudgetPanel() {
+		if (undoMemoryBudgetPanel == null) {
+			undoMemoryBudgetPanel = new JPanel();
+			undoMemoryBudgetPanel.setLayout(new BoxLayout(undoMemoryBudgetPanel, BoxLayout.X_AXIS));
+			undoMemoryBudgetPanel.add(new JLabel("Maximum memory for the undo history of each document (MB, 0 = unlimited): "));
+			undoMemoryBudgetPanel.add(getUndoMemoryBudgetSpinner());
+		}
+		return undoMemoryBudgetPanel;
+	}
+	
+	
+	private JSpinner getUndoMemoryBudgetSpinner() {
+		if (undoMemoryBudgetSpinner == null) {
+			undoMemoryBudgetSpinner = new JSpinner(new SpinnerNumberModel(Long.valueOf(UNDO_MEMORY_BUDGET_DEFAULT_VALUE), 
+					Long.valueOf(0), Long.valueOf(Long.MAX_VALUE / UNDO_MEMORY_BUDGET_UNIT), Long.valueOf(16)));
+		}
+		return undoMemoryBudgetSpinner;
+	}
 
 
 	private JCheckBox getCheckForUpdatesCB() {
@@ -125,6 +160,7 @@ public class PreferencesDialog extends OkCancelApplyWikiHelpDialog implements Pr
 		Preferences preferences = Main.getInstance().getPreferences();
 		getCheckForUpdatesCB().setSelected(preferences.getBoolean(DO_VERSION_CHECK_PREF_KEY, DO_VERSION_CHECK_DEFAULT_VALUE));
 		getCheckSelSyncCB().setSelected(preferences.getBoolean(DO_CHECK_SEL_SYNC_PREF_KEY, DO_CHECK_SEL_SYNC_DEFAULT_VALUE));
+		getUndoMemoryBudgetSpinner().setValue(preferences.getLong(UNDO_MEMORY_BUDGET_PREF_KEY, UNDO_MEMORY_BUDGET_DEFAULT_VALUE));
 		
 		return super.execute();
 	}
@@ -136,6 +172,14 @@ public class PreferencesDialog extends OkCancelApplyWikiHelpDialog implements Pr
 		preferences.putBoolean(DO_VERSION_CHECK_PREF_KEY, getCheckForUpdatesCB().isSelected());
 		preferences.putBoolean(DO_CHECK_SEL_SYNC_PREF_KEY, getCheckSelSyncCB().isSelected());
 		
+		long undoMemoryBudget = ((Number)getUndoMemoryBudgetSpinner().getValue()).longValue();
+		preferences.putLong(UNDO_MEMORY_BUDGET_PREF_KEY, undoMemoryBudget);
+		Iterator<TreeInternalFrame> iterator = MainFrame.getInstance().treeFrameIterator();
+		while (iterator.hasNext()) {
+			iterator.next().getDocument().getUndoManager().setMemoryBudget(undoMemoryBudget * UNDO_MEMORY_BUDGET_UNIT);
+		}
+		MainFrame.getInstance().getActionManagement().refreshActionStatus();
+		
 		return true;
 	}
 }
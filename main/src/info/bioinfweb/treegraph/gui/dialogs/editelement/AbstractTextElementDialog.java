@@ -27,6 +27,7 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
+import java.text.DecimalFormat;
 
 import javax.swing.BorderFactory;
 import javax.swing.JCheckBox;
@@ -37,6 +38,7 @@ import javax.swing.JFormattedTextField.AbstractFormatterFactory;
 import javax.swing.border.TitledBorder;
 
 import info.bioinfweb.treegraph.document.TextElement;
+import info.bioinfweb.treegraph.document.format.FormatInstancePool;
 import info.bioinfweb.treegraph.gui.dialogs.EditDialog;
 import info.bioinfweb.commons.Math2;
 
@@ -86,7 +88,7 @@ public abstract class AbstractTextElementDialog extends EditDialog {
 	protected void setTextElement(TextElement textElement) {
 		this.textElement = textElement;
 		decimalFormatterFactory = new JFormattedTextField(
-				textElement.getFormats().getDecimalFormat()).getFormatterFactory();
+				(DecimalFormat)textElement.getFormats().getDecimalFormat().clone()).getFormatterFactory();  // The shared decimal format must not be used by the formatter.
 		setValue(textElement);
 		setDecimalCheckBoxStatus();
 		updatePreview();
@@ -107,7 +109,7 @@ public abstract class AbstractTextElementDialog extends EditDialog {
 		String text = getValueTextField().getText();
 		if (getDecimalCheckBox().isSelected()) {
 			try {
-				text = textElement.getFormats().getDecimalFormat().format(
+				text = FormatInstancePool.formatDecimal(textElement.getFormats().getDecimalFormat(), 
   					Math2.parseDouble(getValueTextField().getText()));
 			}
 			catch (NumberFormatException e) {  // Unclear how this exception can ever happen, but it was send in the error report 20140023_180142_7740879257708879519.xml.
@@ -19,16 +19,12 @@
 package info.bioinfweb.treegraph.gui.dialogs.io;
 
 
-import info.bioinfweb.treegraph.document.io.MultipleDocumentIterator;
 import info.bioinfweb.treegraph.document.io.ReadWriteFactory;
 import info.bioinfweb.treegraph.document.io.ReadWriteFormat;
 import info.bioinfweb.treegraph.document.io.nexus.NexusFilter;
-import info.bioinfweb.treegraph.document.nodebranchdata.BranchLengthAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NewNodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
-import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.TextElementDataAdapter;
-import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
 import info.bioinfweb.treegraph.document.undo.file.NodeSupportEdit;
 import info.bioinfweb.treegraph.gui.dialogs.nodebranchdatainput.NewNodeBranchDataInput;
 import info.bioinfweb.treegraph.gui.dialogs.nodebranchdatainput.NodeBranchDataInput;
@@ -40,6 +36,7 @@ import java.awt.Font;
 import java.awt.Frame;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
+import java.awt.Insets;
 import java.io.File;
 
 import javax.swing.BorderFactory;
@@ -49,7 +46,9 @@ import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JSpinner;
 import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.border.TitledBorder;
 
 
@@ -74,6 +73,9 @@ public class NodeSupportDialog extends FileDialog {
 	private JLabel destInputLabel = null;
 	private JLabel terminalsInputLabel = null; 
 	private double normalisationBorder = 0; 
+	private JPanel treeSamplePanel = null;
+	private JSpinner burnInSpinner = null;
+	private JSpinner thinningSpinner = null;
 	
 
 	/**
@@ -100,7 +102,7 @@ public class NodeSupportDialog extends FileDialog {
 		}
 		if (adapter instanceof NewNodeBranchDataAdapter){
 			String id = ((NewNodeBranchDataAdapter)adapter).getID();
-			if (NodeBranchDataColumnManager.idExistsInSubtree(getDocument().getTree().getPaintStart(), id)){
+			if (getDocument().getTree().getColumnRegistry().containsID(id)){
 				JOptionPane.showMessageDialog(this, "The ID " + id + " already exists", "Error", JOptionPane.ERROR_MESSAGE);
 				result = false; 
 			}
@@ -109,9 +111,8 @@ public class NodeSupportDialog extends FileDialog {
 		if (result) {
 			NodeSupportEdit edit = new NodeSupportEdit(getDocument(), 
 					(TextElementDataAdapter)getTerminalInput().getSelectedAdapter(),
-					getDestInput().getSelectedAdapter(), NodeNameAdapter.getSharedInstance(), false, 
-					new MultipleDocumentIterator(getFileChooser().getSelectedFiles(), MainFrame.getInstance().getReadWriteLogDialog(),  //TODO When is the dialog displayed? Is it at all?
-					    NodeNameAdapter.getSharedInstance(), BranchLengthAdapter.getSharedInstance(), false), normalisationBorder);
+					getDestInput().getSelectedAdapter(), false, getFileChooser().getSelectedFiles(), 
+					(Integer)getBurnInSpinner().getValue(), (Integer)getThinningSpinner().getValue(), normalisationBorder);
 			getDocument().executeEdit(edit);
 			
 		}
@@ -154,7 +155,7 @@ public class NodeSupportDialog extends FileDialog {
 	 * @return void
 	 */
 	private void initialize() {
-		this.setSize(600, 500);
+		this.setSize(600, 550);
 		this.setContentPane(getJContentPane());
 		getApplyButton().setVisible(false);
 		getCancelButton().setVisible(true);
@@ -183,8 +184,9 @@ public class NodeSupportDialog extends FileDialog {
 		if (jContentPane == null) {
 			jContentPane = new JPanel();
 			jContentPane.setLayout(new BoxLayout(getJContentPane(), BoxLayout.Y_AXIS));
-			jContentPane.setPreferredSize(new Dimension(520, 402));
+			jContentPane.setPreferredSize(new Dimension(520, 452));
 			jContentPane.add(getFileChooserPanel(), null);
+			jContentPane.add(getTreeSamplePanel(), null);
 			jContentPane.add(getNodeBranchDataPanel(), null);
 			jContentPane.add(getNormalisationPanel(), null);
 			jContentPane.add(getButtonsPanel(), null);
@@ -251,6 +253,63 @@ public class NodeSupportDialog extends FileDialog {
 	}
 
 
+	private JPanel getTreeSamplePanel() {
+		if (treeSamplePanel == null) {
+			treeSamplePanel = new JPanel();
+			treeSamplePanel.setLayout(new GridBagLayout());
+			treeSamplePanel.setBorder(BorderFactory.createTitledBorder(null, "Tree sample (applied to each file)", 
+					TitledBorder.DEFAULT_JUSTIFICATION, TitledBorder.DEFAULT_POSITION, new Font("Dialog", Font.BOLD, 12), 
+					new Color(51, 51, 51)));
+			
+			GridBagConstraints gbc_burnInLabel = new GridBagConstraints();
+			gbc_burnInLabel.anchor = GridBagConstraints.WEST;
+			gbc_burnInLabel.insets = new Insets(0, 0, 5, 5);
+			gbc_burnInLabel.gridx = 0;
+			gbc_burnInLabel.gridy = 0;
+			treeSamplePanel.add(new JLabel("Number of trees to skip (burn-in): "), gbc_burnInLabel);
+			GridBagConstraints gbc_burnInSpinner = new GridBagConstraints();
+			gbc_burnInSpinner.fill = GridBagConstraints.HORIZONTAL;
+			gbc_burnInSpinner.insets = new Insets(0, 0, 5, 0);
+			gbc_burnInSpinner.weightx = 1.0;
+			gbc_burnInSpinner.gridx = 1;
+			gbc_burnInSpinner.gridy = 0;
+			treeSamplePanel.add(getBurnInSpinner(), gbc_burnInSpinner);
+			
+			GridBagConstraints gbc_thinningLabel = new GridBagConstraints();
+			gbc_thinningLabel.anchor = GridBagConstraints.WEST;
+			gbc_thinningLabel.insets = new Insets(0, 0, 0, 5);
+			gbc_thinningLabel.gridx = 0;
+			gbc_thinningLabel.gridy = 1;
+			treeSamplePanel.add(new JLabel("Use every n-th tree (thinning): "), gbc_thinningLabel);
+			GridBagConstraints gbc_thinningSpinner = new GridBagConstraints();
+			gbc_thinningSpinner.fill = GridBagConstraints.HORIZONTAL;
+			gbc_thinningSpinner.weightx = 1.0;
+			gbc_thinningSpinner.gridx = 1;
+			gbc_thinningSpinner.gridy = 1;
+			treeSamplePanel.add(getThinningSpinner(), gbc_thinningSpinner);
+		}
+		return treeSamplePanel;
+	}
+	
+	
+	private JSpinner getBurnInSpinner() {
+		if (burnInSpinner == null) {
+			burnInSpinner = new JSpinner();
+			burnInSpinner.setModel(new SpinnerNumberModel(Integer.valueOf(0), Integer.valueOf(0), null, Integer.valueOf(1)));
+		}
+		return burnInSpinner;
+	}
+	
+	
+	private JSpinner getThinningSpinner() {
+		if (thinningSpinner == null) {
+			thinningSpinner = new JSpinner();
+			thinningSpinner.setModel(new SpinnerNumberModel(Integer.valueOf(1), Integer.valueOf(1), null, Integer.valueOf(1)));
+		}
+		return thinningSpinner;
+	}
+
+
 	/**
 	 * This method initializes normalisationPanel	
 	 * 	
@@ -34,7 +34,6 @@ import info.bioinfweb.treegraph.document.Tree;
 import info.bioinfweb.treegraph.document.nodebranchdata.IDElementAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.VoidNodeBranchDataAdapter;
-import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
 import info.bioinfweb.treegraph.gui.actions.DocumentAction;
 import info.bioinfweb.wikihelp.client.OkCancelApplyWikiHelpDialog;
 import info.bioinfweb.wikihelp.client.WikiHelp;
@@ -97,7 +96,7 @@ public abstract class AbstractNodeBranchDataColumnsDialog extends OkCancelApplyW
 					boolean columnExists = false;
 					if (!(adapter instanceof VoidNodeBranchDataAdapter)) {	
 						if (adapter instanceof IDElementAdapter) {
-							columnExists = NodeBranchDataColumnManager.idExistsInSubtree(tree.getPaintStart(), ((IDElementAdapter)adapter).getID());
+							columnExists = tree.getColumnRegistry().containsID(((IDElementAdapter)adapter).getID());
 							if (columnExists) {
 								duplicateColumns.add("Node/branch data columns with the ID \"" + ((IDElementAdapter)adapter).getID() + "\"");
 							}						
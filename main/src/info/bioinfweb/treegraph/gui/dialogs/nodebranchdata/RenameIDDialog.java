@@ -21,7 +21,6 @@ package info.bioinfweb.treegraph.gui.dialogs.nodebranchdata;
 
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Node;
-import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
 import info.bioinfweb.treegraph.document.undo.edit.RenameDataIDEdit;
 import info.bioinfweb.treegraph.gui.dialogs.EditDialog;
 import info.bioinfweb.commons.Math2;
@@ -44,6 +43,7 @@ import java.awt.Color;
 import javax.swing.JTextField;
 
 import java.awt.GridBagConstraints;
+import java.util.List;
 import java.util.Vector;
 
 import javax.swing.JButton;
@@ -77,7 +77,8 @@ public class RenameIDDialog extends EditDialog {
 	private void setNames() {
 		Node root = getDocument().getTree().getPaintStart();
 		if (root != null) {
-			oldNames = NodeBranchDataColumnManager.getIDs(root);
+			List<String> ids = getDocument().getTree().getColumnRegistry().getIDs();
+			oldNames = ids.toArray(new String[ids.size()]);
 			DefaultListModel model = (DefaultListModel)getIdList().getModel();
 			model.removeAllElements();
 			if (oldNames.length > 0) {
@@ -30,6 +30,7 @@ import info.bioinfweb.treegraph.document.nodebranchdata.IDElementAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.VoidNodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.topologicalcalculation.LeafSet;
+import info.bioinfweb.treegraph.document.topologicalcalculation.LeafSetIndex;
 import info.bioinfweb.treegraph.document.topologicalcalculation.NodeInfo;
 import info.bioinfweb.treegraph.document.topologicalcalculation.TopologicalCalculator;
 import info.bioinfweb.treegraph.document.undo.SelectionSynchronizationCompareParameters;
@@ -42,8 +43,10 @@ import info.bioinfweb.treegraph.gui.treeframe.TreeViewPanelListener;
 import java.awt.Color;
 import java.awt.event.ContainerEvent;
 import java.awt.event.ContainerListener;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.SwingUtilities;
 import javax.swing.event.ChangeEvent;
@@ -52,6 +55,11 @@ import javax.swing.event.ChangeEvent;
 
 /**
  * Synchronizes the selection in all opened tree when this functionality is enabled.
+ * <p>
+ * Leaf sets are only recalculated for the document affected by an edit and only for nodes with changed subtrees. 
+ * For each pair of documents a {@link LeafSetIndex} considering the shared terminals of both trees is created when it
+ * is needed for the first time, so that corresponding nodes can usually be found using a single hash lookup. Indices
+ * of a document are discarded as soon as it is edited.
  * 
  * @author Sarah Wiechers
  * @author Ben St&ouml;ver
@@ -67,6 +75,7 @@ public class TreeSelectionSynchronizer implements TreeViewPanelListener, Documen
 	protected boolean isUpdating = false;
 	private TopologicalCalculator topologicalCalculator = null;
 	private SelectionSynchronizationCompareParameters compareParameters = new SelectionSynchronizationCompareParameters();
+	private Map<Document, Map<Document, LeafSetIndex>> leafSetIndices = new HashMap<Document, Map<Document, LeafSetIndex>>();  // Maps selection target documents and active documents to indices.
 	
 	
 	public TreeSelectionSynchronizer(Iterable<TreeViewPanel> treeSource) {
@@ -100,6 +109,7 @@ public class TreeSelectionSynchronizer implements TreeViewPanelListener, Documen
 
 	public void reset() {
 		topologicalCalculator = new TopologicalCalculator(compareParameters.isProcessRooted(), KEY_LEAF_REFERENCE, compareParameters);
+		leafSetIndices.clear();
 		
 		// Add leaves from documents to map:
 		Iterator<TreeViewPanel> iterator = getTreeSource().iterator();
@@ -124,6 +134,67 @@ public class TreeSelectionSynchronizer implements TreeViewPanelListener, Documen
 	}
 	
 	
+	/**
+	 * Updates the leaf sets of the specified document after it was edited. Leaf sets of other documents are only 
+	 * recalculated (by calling {@link #reset()}), if the edited document contains terminals that were not present in
+	 * any document before, since the size of all leaf sets needs to be changed in that case.
+	 * 
+	 * @param document the edited document
+	 * @since 2.16.0
+	 */
+	public void update(Document document) {
+		if (topologicalCalculator == null) {
+			reset();
+		}
+		else {
+			removeLeafSetIndices(document);
+			if (!document.getTree().isEmpty()) {
+				int leafCount = topologicalCalculator.getLeafCount();
+				topologicalCalculator.addSubtreeToLeafValueToIndexMap(document.getTree().getPaintStart(), document.getDefaultLeafAdapter());
+				if (topologicalCalculator.getLeafCount() != leafCount) {
+					reset();
+					return;
+				}
+				topologicalCalculator.updateLeafSets(document.getTree().getPaintStart(), document.getDefaultLeafAdapter());
+			}
+			
+			for (TreeViewPanel treeViewPanel : getTreeSource()) {
+				getConflictHighlightGroup(treeViewPanel).clear();
+			}
+		}
+	}
+	
+	
+	private void removeLeafSetIndices(Document document) {
+		leafSetIndices.remove(document);
+		for (Map<Document, LeafSetIndex> map : leafSetIndices.values()) {
+			map.remove(document);
+		}
+	}
+	
+	
+	/**
+	 * Returns the index of the nodes of the selection target document, which considers only the terminals shared with
+	 * the active document. The index is created if necessary.
+	 */
+	private LeafSetIndex getLeafSetIndex(Document selectionTargetDocument, Document activeDocument) {
+		Map<Document, LeafSetIndex> map = leafSetIndices.get(selectionTargetDocument);
+		if (map == null) {
+			map = new HashMap<Document, LeafSetIndex>();
+			leafSetIndices.put(selectionTargetDocument, map);
+		}
+		
+		LeafSetIndex result = map.get(activeDocument);
+		if (result == null) {
+			LeafSet restrictingLeafSet = topologicalCalculator.getLeafSet(selectionTargetDocument.getTree().getPaintStart()).and(
+					topologicalCalculator.getLeafSet(activeDocument.getTree().getPaintStart()));  // Use shared terminals as the restricting leaf set for comparisons. 
+			result = new LeafSetIndex(topologicalCalculator, selectionTargetDocument.getTree().getPaintStart(), restrictingLeafSet);
+			map.put(activeDocument, result);
+		}
+		return result;
+	}
+	
+	
 	private void selectCorrespondingNodes(TreeViewPanel activeTree, TreeViewPanel selectionTargetTree) {
 		HighlightedGroup conflictGroup = getConflictHighlightGroup(selectionTargetTree);
 		conflictGroup.clear();  // Conflict group also needs to be cleared for activeTree.
@@ -132,12 +203,14 @@ public class TreeSelectionSynchronizer implements TreeViewPanelListener, Documen
 			TreeSelection selection = selectionTargetTree.getSelection();
 			selection.clear();
 
-			LeafSet restrictingLeafSet = topologicalCalculator.getLeafSet(selectionTargetTree.getDocument().getTree().getPaintStart()).and(
-					topologicalCalculator.getLeafSet(activeTree.getDocument().getTree().getPaintStart()));  // Use shared terminals as the restricting leaf set for comparisons in findNodeWithAllLeaves(). 
+			LeafSetIndex index = getLeafSetIndex(selectionTargetTree.getDocument(), activeTree.getDocument());
 			NodeBranchDataAdapter defaultSupportAdapter = selectionTargetTree.getDocument().getDefaultSupportAdapter();
 			for (Node activeNode : activeTree.getSelection().getAllElementsOfType(Node.class, false)) {
-				List<NodeInfo> selectionTargetNodeInfos = topologicalCalculator.findNodeWithAllLeaves(
-						selectionTargetTree.getDocument().getTree(), topologicalCalculator.getLeafSet(activeNode), restrictingLeafSet);
+				List<NodeInfo> selectionTargetNodeInfos = index.findExactMatches(topologicalCalculator.getLeafSet(activeNode));
+				if (selectionTargetNodeInfos.isEmpty()) {  // Search for the best matching nodes, if no exact match exists.
+					selectionTargetNodeInfos = topologicalCalculator.findNodeWithAllLeaves(selectionTargetTree.getDocument().getTree(), 
+							topologicalCalculator.getLeafSet(activeNode), index.getRestrictingLeafSet());
+				}
 				
 				for (NodeInfo selectionTargetNodeInfo : selectionTargetNodeInfos) {
 					selection.add(selectionTargetNodeInfo.getNode());
@@ -208,7 +281,7 @@ public class TreeSelectionSynchronizer implements TreeViewPanelListener, Documen
 			DocumentChangeType changeType = e.getEdit().getChangeType();
 			if (changeType == DocumentChangeType.ROOT_POSITION || changeType == DocumentChangeType.TOPOLOGICAL_BY_RENAMING || 
 					changeType == DocumentChangeType.TOPOLOGICAL_BY_OBJECT_CHANGE) {				
-				reset();				
+				update(e.getSource());
 			}
 		}
 	}
@@ -225,7 +298,7 @@ public class TreeSelectionSynchronizer implements TreeViewPanelListener, Documen
 			TreeInternalFrame addedFrame = ((TreeInternalFrame) e.getChild());
 			addedFrame.getTreeViewPanel().addTreeViewPanelListener(this);
 			addedFrame.getTreeViewPanel().getDocument().addView(this);
-			reset();
+			update(addedFrame.getTreeViewPanel().getDocument());
 		}
 	}
 
@@ -234,5 +307,6 @@ public class TreeSelectionSynchronizer implements TreeViewPanelListener, Documen
 	public void componentRemoved(ContainerEvent e) {
 		((TreeInternalFrame) e.getChild()).getTreeViewPanel().removeTreeViewPanelListener(this);
 		((TreeInternalFrame) e.getChild()).getTreeViewPanel().getDocument().removeView(this);
+		removeLeafSetIndices(((TreeInternalFrame) e.getChild()).getTreeViewPanel().getDocument());
 	}
 }
\ No newline at end of file
@@ -19,7 +19,9 @@
 package info.bioinfweb.treegraph.gui.treeframe;
 
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
 
 import javax.swing.JTable;
@@ -29,8 +31,12 @@ import info.bioinfweb.commons.Math2;
 import info.bioinfweb.treegraph.document.AbstractPaintableElement;
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.NodeBranchDataColumnRegistry;
+import info.bioinfweb.treegraph.document.PaintableElement;
 import info.bioinfweb.treegraph.document.TextLabel;
+import info.bioinfweb.treegraph.document.TreeElement;
 import info.bioinfweb.treegraph.document.change.DocumentChangeEvent;
+import info.bioinfweb.treegraph.document.change.DocumentChangeType;
 import info.bioinfweb.treegraph.document.change.DocumentListener;
 import info.bioinfweb.treegraph.document.nodebranchdata.AbstractTextElementDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.BranchLengthAdapter;
@@ -40,7 +46,7 @@ import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.TextLabelAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.UniqueNameAdapter;
-import info.bioinfweb.treegraph.document.tools.NodeBranchDataColumnManager;
+import info.bioinfweb.treegraph.document.undo.DocumentEdit;
 import info.bioinfweb.treegraph.document.undo.edit.ChangeCellTypeEdit;
 import info.bioinfweb.treegraph.document.undo.edit.ChangeNumercalValueEdit;
 import info.bioinfweb.treegraph.document.undo.edit.ChangeTextualValueEdit;
@@ -49,6 +55,12 @@ import info.bioinfweb.treegraph.document.undo.edit.ChangeTextualValueEdit;
 
 /**
  * Table modes to display the node/branch data of a document in a {@link JTable}.
+ * <p>
+ * The columns and rows of this model are not recreated on every document change. The columns are only searched 
+ * again if the type of the edit indicates that node/branch data IDs may have been added or removed and a structure 
+ * change is only fired if the resulting columns really differ. The node list is only recreated on topological
+ * changes and the according row events are fired for the range of rows that was really affected. Edits that only
+ * change the data of some elements lead to update events only for the rows of these elements. 
  * 
  * @author Ben St&ouml;ver
  */
@@ -61,6 +73,7 @@ public class DocumentTableModel extends AbstractTableModel implements DocumentLi
 	
 	private Vector<NodeBranchDataAdapter> adapters = new Vector<NodeBranchDataAdapter>();
 	private Vector<Node> nodes = new Vector<Node>();
+	private Map<Node, Integer> rowByNode = null;
 	private Document document = null;
 	
 	
@@ -105,40 +118,140 @@ public class DocumentTableModel extends AbstractTableModel implements DocumentLi
   }
   
   
+	private static boolean columnsMayChange(DocumentChangeType type) {
+		return !DocumentChangeType.NEUTRAL.equals(type) && !DocumentChangeType.POSITION.equals(type); 
+	}
+	
+	
+	private static boolean rowsMayChange(DocumentChangeType type) {
+		return columnsMayChange(type) && !DocumentChangeType.TOPOLOGICAL_BY_RENAMING.equals(type); 
+	}
+	
+	
 	public void changeHappened(DocumentChangeEvent e) {
-		fillAdapterList(getDocument().getTree().getPaintStart());
-		nodes.clear();
-		if (!getDocument().getTree().isEmpty()) {
-			fillNodeList(getDocument().getTree().getPaintStart());
-		}
-		fireTableStructureChanged();
+		DocumentEdit edit = e.getEdit();
+		if (((edit == null) || columnsMayChange(edit.getChangeType())) && updateAdapterList()) {
+			createNodeList();
+			fireTableStructureChanged();
+		}
+		else if ((edit == null) || rowsMayChange(edit.getChangeType())) {
+			updateNodeList((edit == null) ? null : edit.getChangedElements());
+		}
+		else {
+			fireRowsUpdated(edit.getChangedElements());
+		}
 	}
 	
 	
-	private void fillAdapterList(Node root) {
-		adapters.clear();
+	/**
+	 * Searches the columns of the document again and replaces the current adapter list with the result.
+	 * 
+	 * @return {@code true} if the new columns differ from the previous ones, {@code false} otherwise
+	 */
+	private boolean updateAdapterList() {
+		Vector<NodeBranchDataAdapter> previousAdapters = adapters;
+		adapters = new Vector<NodeBranchDataAdapter>();
+		fillAdapterList(getDocument().getTree().getColumnRegistry());
+		return !adapters.equals(previousAdapters);  // Adapters are equal if their class and ID are equal.
+	}
+	
+	
+	private void fillAdapterList(NodeBranchDataColumnRegistry registry) {
 		adapters.add(new UniqueNameAdapter());
 		adapters.add(new NodeNameAdapter());
 		adapters.add(new BranchLengthAdapter());
 
-		List<String> ids = NodeBranchDataColumnManager.getLabelIDListFromSubtree(root, TextLabel.class);
+		List<String> ids = registry.getLabelIDs(TextLabel.class);
 		for (int i = 0; i < ids.size(); i++) {
 			adapters.add(new TextLabelAdapter(ids.get(i), 
-					((TextLabel)NodeBranchDataColumnManager.getFirstLabel(root, TextLabel.class, ids.get(i))).getFormats().getDecimalFormat()));
+					registry.getFirstTextLabel(ids.get(i)).getFormats().getDecimalFormat()));
 		}
   	        
-		ids = NodeBranchDataColumnManager.getHiddenNodeDataIDListFromSubtree(root);
+		ids = registry.getHiddenNodeDataIDs();
 		for (int i = 0; i < ids.size(); i++) {
 			adapters.add(new HiddenNodeDataAdapter(ids.get(i)));
 		}
 		
-		ids = NodeBranchDataColumnManager.getHiddenBranchDataIDListFromSubtree(root);
+		ids = registry.getHiddenBranchDataIDs();
 		for (int i = 0; i < ids.size(); i++) {
 			adapters.add(new HiddenBranchDataAdapter(ids.get(i)));
 		}
 	}
 	
 	
+	private void createNodeList() {
+		nodes = new Vector<Node>();
+		rowByNode = null;
+		if (!getDocument().getTree().isEmpty()) {
+			fillNodeList(getDocument().getTree().getPaintStart());
+		}
+	}
+	
+	
+	/**
+	 * Recreates the node list and fires deletion, insertion or update events for the range of rows between the
+	 * unchanged start and end of the list.
+	 * 
+	 * @param changedElements the elements changed by the edit or {@code null} if they are unknown (in this case
+	 *        an update event for all rows is fired)
+	 */
+	private void updateNodeList(PaintableElement[] changedElements) {
+		Vector<Node> previousNodes = nodes;
+		createNodeList();
+		
+		int minSize = Math.min(previousNodes.size(), nodes.size());
+		int start = 0;
+		while ((start < minSize) && (previousNodes.get(start) == nodes.get(start))) {
+			start++;
+		}
+		int endCount = 0;
+		while ((endCount < minSize - start) && 
+				(previousNodes.get(previousNodes.size() - 1 - endCount) == nodes.get(nodes.size() - 1 - endCount))) {
+			
+			endCount++;
+		}
+		
+		int previousEnd = previousNodes.size() - endCount;  // exclusive
+		int end = nodes.size() - endCount;  // exclusive
+		int replacedEnd = Math.min(previousEnd, end);  // exclusive
+		if (replacedEnd > start) {
+			fireTableRowsUpdated(start, replacedEnd - 1);
+		}
+		if (previousEnd > replacedEnd) {
+			fireTableRowsDeleted(replacedEnd, previousEnd - 1);
+		}
+		else if (end > replacedEnd) {
+			fireTableRowsInserted(replacedEnd, end - 1);
+		}
+		fireRowsUpdated(changedElements);
+	}
+	
+	
+	/**
+	 * Fires update events for the rows of the nodes linked to the specified elements.
+	 * 
+	 * @param changedElements the changed elements or {@code null} if they are unknown (in this case
+	 *        an update event for all rows is fired)
+	 */
+	private void fireRowsUpdated(PaintableElement[] changedElements) {
+		if (changedElements == null) {
+			if (!nodes.isEmpty()) {
+				fireTableRowsUpdated(0, nodes.size() - 1);
+			}
+		}
+		else {
+			for (PaintableElement element : changedElements) {
+				if (element instanceof TreeElement) {  // Other elements (e.g. legends) are not displayed in the table.
+					int row = getRow(((TreeElement)element).getLinkedNode());
+					if (row != -1) {
+						fireTableRowsUpdated(row, row);
+					}
+				}
+			}
+		}
+	}
+	
+	
 	private void fillNodeList(Node root) {
 		nodes.add(root);
 		for (int i = 0; i < root.getChildren().size(); i++) {
@@ -212,7 +325,7 @@ public class DocumentTableModel extends AbstractTableModel implements DocumentLi
 		
 		if (col % 2 == 0) {
 			if (adapter.isDecimal(n)) {
-				return new Double(adapter.getDecimal(n));
+				return Double.valueOf(adapter.getDecimal(n));
 			}
 			else if (adapter.isString(n)) {
 				return adapter.getText(n);
@@ -222,12 +335,7 @@ public class DocumentTableModel extends AbstractTableModel implements DocumentLi
 			}
 		}
 		else {
-			if (adapter.isDecimal(n)) {
-				return new Boolean(true);
-			}
-			else {
-				return new Boolean(false);
-			}
+			return Boolean.valueOf(adapter.isDecimal(n));
 		}
 	}
 
@@ -263,7 +371,26 @@ public class DocumentTableModel extends AbstractTableModel implements DocumentLi
 	}
 	
 	
+	/**
+	 * Returns the row index of the specified node.
+	 * 
+	 * @param node the node to determine the row for
+	 * @return the row index or -1 if the node is not displayed in this table
+	 */
 	public int getRow(Node node) {
-		return nodes.indexOf(node);
+		if (rowByNode == null) {
+			rowByNode = new HashMap<Node, Integer>(2 * nodes.size());
+			for (int i = 0; i < nodes.size(); i++) {
+				rowByNode.put(nodes.get(i), i);
+			}
+		}
+		
+		Integer result = rowByNode.get(node);
+		if (result == null) {
+			return -1;
+		}
+		else {
+			return result;
+		}
 	}
 }
\ No newline at end of file
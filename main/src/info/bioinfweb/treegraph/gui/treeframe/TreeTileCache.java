@@ -0,0 +1,320 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.gui.treeframe;
+
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.PaintableElement;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintFactory;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
+import info.bioinfweb.treegraph.graphics.positionpaint.RectangularCladogramPainter;
+import info.bioinfweb.treegraph.graphics.positionpaint.TreePainter;
+import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.NodePositionData;
+import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.PositionData;
+
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Lock;
+
+import javax.swing.SwingUtilities;
+
+
+
+/**
+ * Caches rasterized tiles of the document displayed in a {@link TreeViewPanel}. Tiles are painted with a reduced 
+ * level of detail and without selection or highlighting, which can be painted above the tiles using 
+ * {@link info.bioinfweb.treegraph.graphics.positionpaint.TreePainter#paintSelection(Graphics2D, info.bioinfweb.treegraph.document.Document, TreeSelection, ElementHighlighting, float)}.
+ * <p>
+ * Missing tiles are rendered in a background thread, which holds the read lock of the document (see 
+ * {@link Document#getLock()}) while painting. Until a tile is available, the previous version of the tile
+ * (if one exists) is displayed and the finished tile is swapped in as soon as it is rendered. Each invalidation 
+ * increments a generation counter, which causes all rendering tasks started before to be skipped or their results 
+ * to be discarded.
+ * <p>
+ * All tiles are discarded if the zoom or the painter type of the owning panel changes. The least recently used 
+ * tiles are discarded if more than {@link #MAX_TILE_COUNT} tiles are cached. All methods of this class must be 
+ * called from the event dispatch thread.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class TreeTileCache {
+	/** The width and height of a tile in pixels */
+	public static final int TILE_SIZE = 256;
+	
+	/** The maximal number of tiles stored in the cache */
+	public static final int MAX_TILE_COUNT = 128;
+	
+	
+	private static final ExecutorService RENDER_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread result = new Thread(runnable, "TreeGraph tile renderer");
+			result.setDaemon(true);
+			result.setPriority(Thread.NORM_PRIORITY - 1);
+			return result;
+		}
+	});
+	
+	/** Painter instances only used by the thread of {@link #RENDER_EXECUTOR} */
+	private static final Map<PositionPaintType, TreePainter> RENDER_PAINTERS = 
+			new EnumMap<PositionPaintType, TreePainter>(PositionPaintType.class);
+	
+	
+	private TreeViewPanel owner;
+	private float pixelsPerMillimeter = Float.NaN;
+	private PositionPaintType painterType = null;
+	private volatile int generation = 0;
+	private Set<Point> pendingTiles = new HashSet<Point>();
+	private Map<Point, BufferedImage> staleTiles = createTileMap();
+	private Map<Point, BufferedImage> tiles = createTileMap();
+	
+	
+	public TreeTileCache(TreeViewPanel owner) {
+		super();
+		this.owner = owner;
+	}
+
+
+	public TreeViewPanel getOwner() {
+		return owner;
+	}
+	
+	
+	private static Map<Point, BufferedImage> createTileMap() {
+		return new LinkedHashMap<Point, BufferedImage>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+	
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Point, BufferedImage> eldest) {
+				return size() > MAX_TILE_COUNT;
+			}
+		};
+	}
+	
+	
+	private void cancelPendingTiles() {
+		generation++;
+		pendingTiles.clear();
+	}
+	
+	
+	/**
+	 * Discards all cached tiles.
+	 */
+	public void clear() {
+		cancelPendingTiles();
+		tiles.clear();
+		staleTiles.clear();
+	}
+	
+	
+	private void markStale(Point tile) {
+		BufferedImage image = tiles.get(tile);
+		if (image != null) {
+			staleTiles.put(tile, image);
+		}
+	}
+	
+	
+	/**
+	 * Marks all cached tiles as invalid. Invalid tiles are displayed until their new version has been rendered. 
+	 */
+	public void invalidate() {
+		cancelPendingTiles();
+		staleTiles.putAll(tiles);
+		tiles.clear();
+	}
+	
+	
+	/**
+	 * Marks all tiles that intersect with the specified area as invalid.
+	 * 
+	 * @param area the area in pixels
+	 */
+	public void invalidate(Rectangle area) {
+		cancelPendingTiles();
+		Iterator<Point> iterator = tiles.keySet().iterator();
+		while (iterator.hasNext()) {
+			Point tile = iterator.next();
+			if (area.intersects(tile.x * TILE_SIZE, tile.y * TILE_SIZE, TILE_SIZE, TILE_SIZE)) {
+				markStale(tile);
+				iterator.remove();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Marks all tiles that display the specified element as invalid. If the element is a node, all tiles containing 
+	 * its subtree are invalidated, since the subtree might be painted as a single shape in the color of the node.
+	 * <p>
+	 * The element must not have been moved since the tiles were painted.
+	 * 
+	 * @param element the element to be repainted
+	 */
+	public void invalidate(PaintableElement element) {
+		float pixelsPerMillimeter = owner.pixelsPerMillimeter();
+		PositionData pd = element.getPosition(owner.getPainterType());
+		Rectangle area = pd.toRect(pixelsPerMillimeter);
+		if (element instanceof Node) {
+			NodePositionData nodePD = (NodePositionData)pd;
+			float centerY = nodePD.getCenterYInMillimeters();
+			float top = centerY - nodePD.getHeightAbove();
+			area.add(new Rectangle(area.x, Math.round(top * pixelsPerMillimeter), 
+					Math.max(0, Math.round((nodePD.getMaxLeafLeft() - nodePD.getLeft().getInMillimeters()) * pixelsPerMillimeter)), 
+					Math.round((nodePD.getHeightAbove() + nodePD.getHeightBelow()) * pixelsPerMillimeter)));
+		}
+		int margin = (int)Math.ceil(RectangularCladogramPainter.SELECTION_DISTANCE) + 2;  // Line widths and rounding
+		area.grow(margin, margin);
+		invalidate(area);
+	}
+	
+	
+	/**
+	 * Renders a tile. This method is called in the background thread.
+	 */
+	private static BufferedImage renderTile(Document document, PositionPaintType painterType, float pixelsPerMillimeter, 
+			Point tile) {
+		
+		TreePainter painter = RENDER_PAINTERS.get(painterType);
+		if (painter == null) {
+			painter = PositionPaintFactory.getInstance().createPainter(painterType);
+			RENDER_PAINTERS.put(painterType, painter);
+		}
+		
+		BufferedImage result = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = result.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+			g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+			int x = tile.x * TILE_SIZE;
+			int y = tile.y * TILE_SIZE;
+			g.translate(-x, -y);
+			painter.paintTree(g, new Rectangle(x, y, TILE_SIZE, TILE_SIZE), document, null, null, pixelsPerMillimeter, 
+					false, true);
+		}
+		finally {
+			g.dispose();
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Starts rendering the specified tile in the background thread, if this was not already done.
+	 */
+	private void requestTile(final Point tile) {
+		if (pendingTiles.add(tile)) {
+			final int requestGeneration = generation;
+			final Document document = owner.getDocument();
+			final PositionPaintType painterType = this.painterType;
+			final float pixelsPerMillimeter = this.pixelsPerMillimeter;
+			RENDER_EXECUTOR.execute(new Runnable() {
+				@Override
+				public void run() {
+					if (requestGeneration == generation) {  // Skip requests that have been superseded in the meantime.
+						BufferedImage image = null;
+						Lock lock = document.getLock().readLock();
+						lock.lock();  // Modifications of the document are blocked until the tile is rendered.
+						try {
+							if (requestGeneration == generation) {  // The document might have been modified while waiting for the lock.
+								image = renderTile(document, painterType, pixelsPerMillimeter, tile);
+							}
+						}
+						catch (RuntimeException e) {
+							e.printStackTrace();  // The document cannot be modified concurrently, so this indicates an error in the painter.
+						}
+						finally {
+							lock.unlock();
+						}
+						
+						final BufferedImage renderedImage = image;
+						SwingUtilities.invokeLater(new Runnable() {
+							@Override
+							public void run() {
+								if (requestGeneration == generation) {
+									pendingTiles.remove(tile);
+									if (renderedImage != null) {
+										tiles.put(tile, renderedImage);
+										staleTiles.remove(tile);
+										owner.repaint(tile.x * TILE_SIZE, tile.y * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+									}
+								}
+							}
+						});
+					}
+				}
+			});
+		}
+	}
+	
+	
+	/**
+	 * Paints the specified area of the document of the owning panel using cached tiles. Missing tiles are requested 
+	 * from the background thread and replaced by their previous version or the background color until they are 
+	 * available.
+	 * 
+	 * @param g the graphics object to paint on
+	 * @param area the area to be painted in pixels
+	 */
+	public void paint(Graphics2D g, Rectangle area) {
+		if ((owner.pixelsPerMillimeter() != pixelsPerMillimeter) || (owner.getPainterType() != painterType)) {
+			clear();
+			pixelsPerMillimeter = owner.pixelsPerMillimeter();
+			painterType = owner.getPainterType();
+		}
+		
+		int firstColumn = Math.max(0, area.x / TILE_SIZE);
+		int firstRow = Math.max(0, area.y / TILE_SIZE);
+		int lastColumn = (area.x + area.width - 1) / TILE_SIZE;
+		int lastRow = (area.y + area.height - 1) / TILE_SIZE;
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				Point key = new Point(column, row);
+				BufferedImage tile = tiles.get(key);
+				if (tile == null) {
+					requestTile(key);
+					tile = staleTiles.get(key);
+				}
+				if (tile != null) {
+					g.drawImage(tile, column * TILE_SIZE, row * TILE_SIZE, null);
+				}
+				else {
+					g.setColor(owner.getDocument().getTree().getFormats().getBackgroundColor());
+					g.fillRect(column * TILE_SIZE, row * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+				}
+			}
+		}
+	}
+}
@@ -21,10 +21,12 @@ package info.bioinfweb.treegraph.gui.treeframe;
 
 import info.bioinfweb.treegraph.document.*;
 import info.bioinfweb.treegraph.document.change.DocumentChangeEvent;
+import info.bioinfweb.treegraph.document.change.DocumentChangeType;
 import info.bioinfweb.treegraph.document.change.DocumentListener;
 import info.bioinfweb.treegraph.document.format.DistanceDimension;
 import info.bioinfweb.treegraph.document.format.DistanceValue;
 import info.bioinfweb.treegraph.document.format.PieChartLabelFormats;
+import info.bioinfweb.treegraph.document.undo.DocumentEdit;
 import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintFactory;
 import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
 import info.bioinfweb.treegraph.gui.mainframe.MainFrame;
@@ -71,6 +73,7 @@ public class TreeViewPanel extends JPanel implements DocumentListener, Scrollabl
 	private ElementHighlighting highlighting = new ElementHighlighting(this);
 	private float zoom = 1f;
 	private PositionPaintType painterType = PositionPaintFactory.getDefaultType();
+	private TreeTileCache tileCache = new TreeTileCache(this);
 	private Vector<TreeViewPanelListener> treeViewListeners = new Vector<TreeViewPanelListener>(2, 2);
 	
 	
@@ -114,7 +117,7 @@ public class TreeViewPanel extends JPanel implements DocumentListener, Scrollabl
 			this.document = document;
 			document.addView(this);
 			document.registerPositioner(painterType);  //TODO Deregistrierung an entsprechenden Stellen implementieren!
-		  PositionPaintFactory.getInstance().getPositioner(painterType).positionAll(document, 1f);
+		  document.positionAll(painterType);  // Holds the write lock, since tiles may be rendered in the background.
 			getSelection().set(null);
 		  changeHappened(new DocumentChangeEvent(document, null));
 		}
@@ -161,7 +164,7 @@ public class TreeViewPanel extends JPanel implements DocumentListener, Scrollabl
 	  if (getDocument() != null) {
 	  	document.unregisterPositioner(oldType);  //TODO Führt zu einem Fehler, falls ein anderes TreeViewPanel hierzu ebenfalls einen Positioner angemeldet hat.
 			document.registerPositioner(painterType);
-		  PositionPaintFactory.getInstance().getPositioner(painterType).positionAll(document, 1f);
+		  document.positionAll(painterType);
 		  changeHappened(new DocumentChangeEvent(document, null));
 	  }
 	}
@@ -222,8 +225,14 @@ public class TreeViewPanel extends JPanel implements DocumentListener, Scrollabl
   	g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
   	g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
   	g2.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
-		PositionPaintFactory.getInstance().getPainter(painterType).paintTree(
-				g2, getVisibleRect(), getDocument(), getSelection(), getHighlighting(), pixelsPerMillimeter(), false);
+  	
+  	Rectangle area = g.getClipBounds();
+  	if (area == null) {
+  		area = getVisibleRect();
+  	}
+  	tileCache.paint(g2, area);
+		PositionPaintFactory.getInstance().getPainter(painterType).paintSelection(
+				g2, getDocument(), getSelection(), getHighlighting(), pixelsPerMillimeter());
 	}
 
 
@@ -254,6 +263,17 @@ public class TreeViewPanel extends JPanel implements DocumentListener, Scrollabl
 		finally {
 			getSelection().setValueIsAdjusting(false);
 		}
+		
+		DocumentEdit edit = e.getEdit();
+		if ((edit != null) && DocumentChangeType.NEUTRAL.equals(edit.getChangeType()) && (edit.getChangedElements() != null)) {
+			for (PaintableElement element : edit.getChangedElements()) {  // Elements have not been moved by neutral edits.
+				tileCache.invalidate(element);
+			}
+		}
+		else {
+			tileCache.invalidate();
+		}
+		
 		MainFrame.getInstance().getActionManagement().refreshActionStatus();
 		assignPaintSize();
 		repaint();
@@ -0,0 +1,223 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document;
+
+
+import static org.junit.Assert.*;
+
+import info.bioinfweb.treegraph.document.NodeBranchDataColumnRegistry.ColumnStatistics;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringReader;
+import info.bioinfweb.treegraph.document.nodebranchdata.HiddenBranchDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.HiddenNodeDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.TextLabelAdapter;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+
+
+/**
+ * Tests {@link NodeBranchDataColumnRegistry}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class NodeBranchDataColumnRegistryTest {
+	private static TextLabel addTextLabel(Node node, String id, TextElementData data) {
+		TextLabel result = new TextLabel(null);
+		result.setID(id);
+		result.getData().assign(data);
+		node.getAfferentBranch().getLabels().add(result);
+		return result;
+	}
+	
+	
+	private static Tree createTree() throws Exception {
+		Tree result = new NewickStringReader().read("((A,B)X,C);");
+		Node x = result.getPaintStart().getChildren().get(0);
+		Node c = result.getPaintStart().getChildren().get(1);
+		
+		addTextLabel(x, "support", new TextElementData(95));
+		addTextLabel(c, "support", new TextElementData("text"));
+		IconLabel icon = new IconLabel(null);
+		icon.setID("icon");
+		c.getAfferentBranch().getLabels().add(icon);
+		
+		x.getHiddenDataMap().put("a", new TextElementData("abc"));
+		x.getChildren().get(0).getHiddenDataMap().put("a", new TextElementData());
+		c.getAfferentBranch().getHiddenDataMap().put("b", new TextElementData(2.5));
+		return result;
+	}
+	
+	
+	@Test
+	public void test_ids() throws Exception {
+		NodeBranchDataColumnRegistry registry = createTree().getColumnRegistry();
+		assertEquals(Arrays.asList("a", "b", "icon", "support"), registry.getIDs());
+		assertEquals(Arrays.asList("icon", "support"), registry.getLabelIDs(Label.class));
+		assertEquals(Arrays.asList("support"), registry.getLabelIDs(TextLabel.class));
+		assertEquals(Arrays.asList("icon"), registry.getLabelIDs(GraphicalLabel.class));
+		assertEquals(Arrays.asList("a"), registry.getHiddenNodeDataIDs());
+		assertEquals(Arrays.asList("b"), registry.getHiddenBranchDataIDs());
+		assertTrue(registry.containsID("icon"));
+		assertFalse(registry.containsID("c"));
+		assertEquals(2, registry.getElementCount("support"));
+		assertEquals(95.0, registry.getFirstTextLabel("support").getData().getDecimal(), 0.0);
+	}
+	
+	
+	@Test
+	public void test_statistics() throws Exception {
+		Tree tree = createTree();
+		NodeBranchDataColumnRegistry registry = tree.getColumnRegistry();
+		
+		ColumnStatistics statistics = registry.getStatistics(new TextLabelAdapter("support"));
+		assertEquals(2, statistics.getElementCount());
+		assertEquals(1, statistics.getDecimalCount());
+		assertEquals(1, statistics.getTextCount());
+		assertEquals(0, statistics.getEmptyCount());
+		
+		statistics = registry.getStatistics(new HiddenNodeDataAdapter("a"));
+		assertEquals(2, statistics.getElementCount());
+		assertEquals(0, statistics.getDecimalCount());
+		assertEquals(1, statistics.getEmptyCount());
+		
+		assertNull(registry.getStatistics(new HiddenNodeDataAdapter("b")));
+		assertNull(registry.getStatistics(NodeNameAdapter.getSharedInstance()));
+		
+		assertTrue(tree.containsDecimal(new TextLabelAdapter("support")));
+		assertTrue(tree.containsDecimal(new HiddenBranchDataAdapter("b")));
+		assertFalse(tree.containsDecimal(new HiddenNodeDataAdapter("a")));
+		assertFalse(tree.containsDecimal(NodeNameAdapter.getSharedInstance()));
+	}
+	
+	
+	@Test
+	public void test_modifications() throws Exception {
+		Tree tree = createTree();
+		NodeBranchDataColumnRegistry registry = tree.getColumnRegistry();
+		assertFalse(tree.containsDecimal(new HiddenNodeDataAdapter("a")));
+		
+		Node x = tree.getPaintStart().getChildren().get(0);
+		x.getHiddenDataMap().get("a").setDecimal(1);  // Change of a value
+		assertTrue(tree.containsDecimal(new HiddenNodeDataAdapter("a")));
+		
+		x.getAfferentBranch().getLabels().remove("support");  // Removal of a label
+		assertEquals(1, registry.getElementCount("support"));
+		
+		Node c = tree.getPaintStart().getChildren().remove(1);  // Removal of a subtree
+		c.setParent(null);
+		assertEquals(Arrays.asList("a"), registry.getIDs());
+		
+		c.getHiddenDataMap().put("new", new TextElementData(1));
+		c.setParent(x);
+		x.getChildren().add(c);  // Insertion of a subtree
+		assertEquals(Arrays.asList("a", "b", "icon", "new", "support"), registry.getIDs());
+		
+		c.getAfferentBranch().getLabels().clear();  // Removal of all labels
+		assertEquals(Arrays.asList("a", "b", "new"), registry.getIDs());
+		
+		c.getAfferentBranch().getHiddenDataMap().get("b").setText("text");  // Change of a branch value
+		assertFalse(tree.containsDecimal(new HiddenBranchDataAdapter("b")));
+	}
+	
+	
+	@Test
+	public void test_incrementalModifications() throws Exception {
+		Tree tree = createTree();
+		NodeBranchDataColumnRegistry registry = tree.getColumnRegistry();
+		assertEquals(2, registry.getElementCount("a"));  // Fill the registry.
+		
+		Node x = tree.getPaintStart().getChildren().get(0);
+		Node c = tree.getPaintStart().getChildren().get(1);
+		TextLabel label = (TextLabel)x.getAfferentBranch().getLabels().get("support");
+		label.getData().setText("text");
+		label.setID("renamed");
+		addTextLabel(x.getChildren().get(1), "support", new TextElementData(5));
+		c.getAfferentBranch().getHiddenDataMap().put("b", new TextElementData("text"));
+		x.getChildren().get(0).getHiddenDataMap().remove("a");
+		c.getHiddenDataMap().put("a", new TextElementData(3));
+		
+		ColumnStatistics statistics = registry.getStatistics(new TextLabelAdapter("support"));
+		assertEquals(2, statistics.getElementCount());
+		assertEquals(1, statistics.getDecimalCount());
+		assertEquals(1, statistics.getTextCount());
+		assertEquals(1, registry.getStatistics(new TextLabelAdapter("renamed")).getTextCount());
+		assertSame(x.getChildren().get(1).getAfferentBranch().getLabels().get("support"), 
+				registry.getFirstTextLabel("support"));
+		assertEquals(1, registry.getStatistics(new HiddenBranchDataAdapter("b")).getElementCount());
+		assertEquals(1, registry.getStatistics(new HiddenBranchDataAdapter("b")).getTextCount());
+		assertEquals(1, registry.getStatistics(new HiddenNodeDataAdapter("a")).getDecimalCount());
+		assertEquals(2, registry.getStatistics(new HiddenNodeDataAdapter("a")).getElementCount());
+		List<String> ids = registry.getIDs();
+		
+		tree.registerTopologyChange();  // Fill the registry again from scratch.
+		assertEquals(ids, registry.getIDs());
+		assertEquals(Arrays.asList("a", "b", "icon", "renamed", "support"), registry.getIDs());
+		assertEquals(2, registry.getStatistics(new TextLabelAdapter("support")).getElementCount());
+		assertEquals(2, registry.getStatistics(new HiddenNodeDataAdapter("a")).getElementCount());
+	}
+	
+	
+	@Test
+	public void test_topologyChange() throws Exception {
+		Tree tree = createTree();
+		NodeBranchDataColumnRegistry registry = tree.getColumnRegistry();
+		assertTrue(registry.containsID("b"));
+		
+		Node c = tree.getPaintStart().getChildren().remove(1);  // The parent of c is not changed here.
+		tree.registerTopologyChange();
+		assertFalse(registry.containsID("b"));
+		
+		c.getAfferentBranch().getHiddenDataMap().put("c", new TextElementData(1));  // Nodes outside the tree are ignored.
+		assertFalse(registry.containsID("c"));
+	}
+	
+	
+	@Test
+	public void test_modificationCount() throws Exception {
+		Tree tree = createTree();
+		Tree otherTree = createTree();
+		NodeBranchDataColumnRegistry registry = tree.getColumnRegistry();
+		long count = registry.getModificationCount();
+		assertEquals(count, registry.getModificationCount());
+		
+		Node otherLeaf = otherTree.getPaintStart().getChildren().get(0).getChildren().get(0);
+		otherTree.getColumnRegistry().getIDs();
+		otherLeaf.getHiddenDataMap().get("a").setText("other");
+		otherLeaf.getAfferentBranch().getLabels().clear();
+		otherTree.getPaintStart().getChildren().remove(1).setParent(null);
+		assertEquals(count, registry.getModificationCount());  // Modifications of other trees must not be counted.
+		
+		Node leaf = tree.getPaintStart().getChildren().get(0).getChildren().get(0);
+		leaf.getHiddenDataMap().get("a").setText("changed");
+		assertTrue(count != registry.getModificationCount());
+		
+		count = registry.getModificationCount();
+		leaf.getAfferentBranch().setLength(2);
+		assertTrue(count != registry.getModificationCount());
+		
+		count = registry.getModificationCount();
+		tree.setPaintStart(otherTree.getPaintStart());
+		assertTrue(count != registry.getModificationCount());
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document;
+
+
+import static org.junit.Assert.*;
+
+import info.bioinfweb.treegraph.document.NodeBranchDataColumnStore.Column;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringReader;
+import info.bioinfweb.treegraph.document.nodebranchdata.AbstractNodeBranchDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.BranchLengthAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.HiddenNodeDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.TextLabelAdapter;
+
+import org.junit.Test;
+
+
+
+/**
+ * Tests {@link NodeBranchDataColumnStore}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class NodeBranchDataColumnStoreTest {
+	private static Tree createTree() throws Exception {
+		Tree result = new NewickStringReader().read("((A,B)X,C);");
+		Node x = result.getPaintStart().getChildren().get(0);
+		x.getHiddenDataMap().put("a", new TextElementData(7.5));
+		x.getChildren().get(0).getHiddenDataMap().put("a", new TextElementData("1.5"));
+		x.getChildren().get(1).getHiddenDataMap().put("a", new TextElementData("text"));
+		result.getPaintStart().getChildren().get(1).getHiddenDataMap().put("a", new TextElementData("1.5"));
+		return result;
+	}
+	
+	
+	@Test
+	public void test_ordinals() throws Exception {
+		Tree tree = createTree();
+		NodeBranchDataColumnStore store = tree.getColumnStore();
+		assertSame(store, tree.getColumnStore());
+		assertEquals(5, store.getNodeCount());
+		
+		Node x = tree.getPaintStart().getChildren().get(0);
+		assertSame(tree.getPaintStart(), store.getNode(0));
+		assertSame(x, store.getNode(1));
+		assertEquals(2, store.getOrdinal(x.getChildren().get(0)));
+		assertEquals(4, store.getOrdinal(tree.getPaintStart().getChildren().get(1)));
+		assertEquals(-1, store.getOrdinal(new Node()));
+	}
+	
+	
+	@Test
+	public void test_getColumn() throws Exception {
+		Tree tree = createTree();
+		Column column = tree.getColumnStore().getColumn(new HiddenNodeDataAdapter("a"));
+		assertSame(column, tree.getColumnStore().getColumn(new HiddenNodeDataAdapter("a")));
+		assertEquals(5, column.size());
+		
+		assertTrue(column.isEmpty(0));
+		assertNull(column.getText(0));
+		assertTrue(Double.isNaN(column.getDecimal(0)));
+		assertTrue(column.isDecimal(1));
+		assertEquals(7.5, column.getDecimal(1), 0.0);
+		assertTrue(column.isString(2));
+		assertEquals("1.5", column.getText(2));
+		assertEquals(1.5, column.getNumericValue(2, true), 0.0);
+		assertTrue(Double.isNaN(column.getNumericValue(2, false)));
+		assertTrue(Double.isNaN(column.getNumericValue(3, true)));
+		
+		assertEquals(2, column.getDictionarySize());
+		assertEquals(column.getTextCode(2), column.getTextCode(4));
+		assertEquals(1, column.getDecimalCount());
+		assertEquals(3, column.getTextCount());
+		assertEquals(1, column.getEmptyCount());
+		assertEquals(7.5, column.getMaximum(), 0.0);
+		
+		column = tree.getColumnStore().getColumn(NodeNameAdapter.getSharedInstance());
+		assertEquals("X", column.getText(1));
+		assertTrue(Double.isNaN(column.getMaximum()));
+	}
+	
+	
+	@Test
+	public void test_modifications() throws Exception {
+		Tree tree = createTree();
+		NodeBranchDataColumnStore store = tree.getColumnStore();
+		HiddenNodeDataAdapter adapter = new HiddenNodeDataAdapter("a");
+		Column column = store.getColumn(adapter);
+		assertEquals(7.5, AbstractNodeBranchDataAdapter.calculateMaxNodeData(adapter, tree), 0.0);
+		
+		Node x = tree.getPaintStart().getChildren().get(0);
+		x.getChildren().get(1).getHiddenDataMap().get("a").setDecimal(10);
+		assertNotSame(column, store.getColumn(adapter));
+		assertTrue(column.isString(3));  // Previous columns are not changed.
+		assertEquals(10, store.getColumn(adapter).getDecimal(3), 0.0);
+		assertEquals(10, AbstractNodeBranchDataAdapter.calculateMaxNodeData(adapter, tree), 0.0);
+		
+		BranchLengthAdapter lengths = BranchLengthAdapter.getSharedInstance();
+		assertFalse(store.getColumn(lengths).isDecimal(2));
+		x.getChildren().get(0).getAfferentBranch().setLength(1.0);
+		assertEquals(1.0, store.getColumn(lengths).getDecimal(2), 0.0);
+		
+		Node newNode = Node.newInstanceWithBranch();
+		newNode.setParent(x);
+		x.getChildren().add(newNode);
+		assertEquals(6, store.getNodeCount());
+		assertEquals(6, store.getColumn(adapter).size());
+		assertTrue(store.getColumn(adapter).isEmpty(4));
+	}
+	
+	
+	@Test
+	public void test_columnKeys() throws Exception {
+		Tree tree = createTree();
+		Node x = tree.getPaintStart().getChildren().get(0);
+		TextLabel label = new TextLabel(null);
+		label.setID("b");
+		label.getData().setDecimal(2);
+		x.getChildren().get(1).getAfferentBranch().getLabels().add(label);
+		NodeBranchDataColumnStore store = tree.getColumnStore();
+		
+		HiddenNodeDataAdapter adapter = new HiddenNodeDataAdapter("a");
+		Column column = store.getColumn(adapter);
+		assertSame(column, store.getColumn(new HiddenNodeDataAdapter("a")));
+		assertNotSame(column, store.getColumn(new TextLabelAdapter("a")));
+		assertEquals(0, store.getColumn(new TextLabelAdapter("a")).getDecimalCount());
+		
+		adapter.setID("b");  // Columns must not be found by the previous ID.
+		assertEquals(0, store.getColumn(adapter).getDecimalCount());
+		assertEquals(1, store.getColumn(new TextLabelAdapter("b")).getDecimalCount());
+	}
+	
+	
+	@Test
+	public void test_invalidateModifiedColumns() throws Exception {
+		Tree tree = createTree();
+		Node x = tree.getPaintStart().getChildren().get(0);
+		x.getHiddenDataMap().put("b", new TextElementData(1));
+		NodeBranchDataColumnStore store = tree.getColumnStore();
+		HiddenNodeDataAdapter adapterA = new HiddenNodeDataAdapter("a");
+		HiddenNodeDataAdapter adapterB = new HiddenNodeDataAdapter("b");
+		Column columnA = store.getColumn(adapterA);
+		Column columnB = store.getColumn(adapterB);
+		Column names = store.getColumn(NodeNameAdapter.getSharedInstance());
+		Column lengths = store.getColumn(BranchLengthAdapter.getSharedInstance());
+		
+		x.getHiddenDataMap().get("a").setDecimal(2);
+		assertNotSame(columnA, store.getColumn(adapterA));
+		assertEquals(2, store.getColumn(adapterA).getDecimal(1), 0.0);
+		assertSame(columnB, store.getColumn(adapterB));
+		assertSame(names, store.getColumn(NodeNameAdapter.getSharedInstance()));
+		assertSame(lengths, store.getColumn(BranchLengthAdapter.getSharedInstance()));
+		
+		x.getData().setText("Y");
+		assertNotSame(names, store.getColumn(NodeNameAdapter.getSharedInstance()));
+		assertEquals("Y", store.getColumn(NodeNameAdapter.getSharedInstance()).getText(1));
+		assertSame(columnB, store.getColumn(adapterB));
+		
+		x.getAfferentBranch().setLength(3);
+		assertNotSame(lengths, store.getColumn(BranchLengthAdapter.getSharedInstance()));
+		assertSame(columnB, store.getColumn(adapterB));
+		
+		Node newNode = Node.newInstanceWithBranch();
+		newNode.setParent(x);
+		x.getChildren().add(newNode);
+		assertNotSame(columnB, store.getColumn(adapterB));
+		assertEquals(6, store.getColumn(adapterB).size());
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.format;
+
+
+import static org.junit.Assert.*;
+
+import info.bioinfweb.treegraph.document.format.operate.DecimalFormatOperator;
+
+import java.awt.Color;
+import java.text.DecimalFormat;
+import java.util.Locale;
+
+import org.junit.Test;
+
+
+
+/**
+ * Tests {@link FormatInstancePool} and its usage by format objects.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class FormatInstancePoolTest {
+	@Test
+	public void test_sharedDecimalFormat() {
+		NodeFormats f1 = new NodeFormats();
+		NodeFormats f2 = new NodeFormats();
+		assertSame(f1.getDecimalFormat(), f2.getDecimalFormat());
+		assertEquals("1.5", f1.getDecimalFormat().format(1.5));
+		
+		f1.setLocale(Locale.GERMAN);  // Copy on write
+		assertNotSame(f1.getDecimalFormat(), f2.getDecimalFormat());
+		assertEquals("1,5", f1.getDecimalFormat().format(1.5));
+		assertEquals("1.5", f2.getDecimalFormat().format(1.5));
+		
+		f2.assign(f1);
+		assertSame(f1.getDecimalFormat(), f2.getDecimalFormat());
+		assertSame(f1.getDecimalFormat(), f1.clone().getDecimalFormat());
+	}
+	
+	
+	@Test
+	public void test_decimalFormatOperator() {
+		NodeFormats f1 = new NodeFormats();
+		NodeFormats f2 = new NodeFormats();
+		DecimalFormat format = new DecimalFormat("0.00");
+		DecimalFormatOperator operator = new DecimalFormatOperator(format, Locale.ENGLISH);
+		operator.applyTo(f1);
+		operator.applyTo(f2);
+		assertSame(f1.getDecimalFormat(), f2.getDecimalFormat());
+		assertNotSame(format, f1.getDecimalFormat());
+		assertEquals("1.50", FormatInstancePool.formatDecimal(f1.getDecimalFormat(), 1.5));
+	}
+	
+	
+	@Test
+	public void test_internColor() {
+		BranchFormats f1 = new BranchFormats();
+		BranchFormats f2 = new BranchFormats();
+		f1.setLineColor(new Color(10, 20, 30));
+		f2.setLineColor(new Color(10, 20, 30));
+		assertSame(f1.getLineColor(), f2.getLineColor());
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io;
+
+
+import info.bioinfweb.treegraph.document.io.nexus.TranslTable;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+public class TreeFileIndexTest {
+	private static File createFile(String content) throws IOException {
+		File result = File.createTempFile("TreeFileIndexTest", ".tre");
+		result.deleteOnExit();
+		FileWriter writer = new FileWriter(result);
+		try {
+			writer.write(content);
+		}
+		finally {
+			writer.close();
+		}
+		return result;
+	}
+	
+	
+	@Test
+	public void test_create_newick() throws IOException {
+		TreeFileIndex index = TreeFileIndex.create(createFile("(A,B);\n ('C;D',[x;y]E);\r\n(F,G)\n\n"));
+		assertFalse(index.isNexus());
+		assertEquals(3, index.getTreeCount());
+		assertEquals("(A,B);", index.readNewick(0));
+		assertEquals("('C;D',[x;y]E);", index.readNewick(1));
+		assertEquals("(F,G);", index.readNewick(2));
+		assertEquals("Tree 1", index.getName(1));
+	}
+	
+	
+	@Test
+	public void test_create_nexus() throws IOException {
+		TreeFileIndex index = TreeFileIndex.create(createFile("#NEXUS\n" +
+				"begin taxa;\n dimensions ntax=2;\n taxlabels A B;\nend;\n" +
+				"BEGIN TREES;\n" +
+				"  TRANSLATE\n    1 A,\n    2 'B b';\n" +
+				"  tree one = [&R] (1,2);\n" +
+				"  tree [comment; with = and ;] two=(1:0.5,'2;2');\n" +
+				"END;\n" +
+				"begin trees;\n tree three = (1,2);\nend;\n"));
+		assertTrue(index.isNexus());
+		assertTrue(index.isTreesBlockFound());
+		assertTrue(index.isTreesBlockTerminated());
+		assertEquals(2, index.getTreeCount());
+		assertEquals("one", index.getName(0));
+		assertEquals("[&R] (1,2);", index.readNewick(0));
+		assertEquals("[comment; with = and ;] two", index.getName(1));
+		assertEquals("(1:0.5,'2;2');", index.readNewick(1));
+		
+		TranslTable translTable = index.readTranslTable();
+		assertEquals(2, translTable.size());
+		assertEquals("A", translTable.get("1"));
+		assertEquals("B b", translTable.get("2"));
+	}
+	
+	
+	@Test
+	public void test_create_nexusWithoutTrees() throws IOException {
+		TreeFileIndex index = TreeFileIndex.create(createFile("#nexus\nbegin taxa;\n dimensions ntax=2;\nend;\n"));
+		assertTrue(index.isNexus());
+		assertFalse(index.isTreesBlockFound());
+		assertEquals(0, index.getTreeCount());
+	}
+	
+	
+	@Test
+	public void test_cacheFile() throws IOException {
+		File cacheDirectory = createFile("");
+		assertTrue(cacheDirectory.delete());
+		cacheDirectory.deleteOnExit();  // Must be called before deleteOnExit() of the contained file.
+		File previousCacheDirectory = TreeFileIndex.getCacheDirectory();
+		TreeFileIndex.setCacheDirectory(cacheDirectory);
+		try {
+			checkCacheFile(cacheDirectory);
+		}
+		finally {
+			TreeFileIndex.setCacheDirectory(previousCacheDirectory);
+		}
+	}
+	
+	
+	private void checkCacheFile(File cacheDirectory) throws IOException {
+		File file = createFile("#NEXUS\nbegin trees;\n tree a = (A,B);\n tree b = ((A,B),C);\nend;\n");
+		assertNull(TreeFileIndex.load(file));
+		
+		TreeFileIndex index = TreeFileIndex.getInstance(file);
+		File cacheFile = TreeFileIndex.getCacheFile(file);
+		cacheFile.deleteOnExit();
+		assertTrue(cacheFile.isFile());
+		assertEquals(cacheDirectory, cacheFile.getParentFile());
+		assertFalse(new File(file.getPath() + TreeFileIndex.CACHE_FILE_EXTENSION).exists());  // Nothing is written next to the file.
+		
+		TreeFileIndex loaded = TreeFileIndex.load(file);
+		assertNotNull(loaded);
+		assertEquals(index.getTreeCount(), loaded.getTreeCount());
+		assertTrue(loaded.isTreesBlockTerminated());
+		assertArrayEquals(index.getNames(), loaded.getNames());
+		assertEquals("((A,B),C);", loaded.readNewick(1));
+		assertEquals(0, loaded.readTranslTable().size());
+		
+		assertTrue(file.setLastModified(file.lastModified() - 10000));
+		assertNull(TreeFileIndex.load(file));  // outdated cache file
+	}
+	
+	
+	@Test
+	public void test_cacheDisabled() throws IOException {
+		File previousCacheDirectory = TreeFileIndex.getCacheDirectory();
+		TreeFileIndex.setCacheDirectory(null);
+		try {
+			File file = createFile("(A,B);\n(C,D);\n");
+			assertNull(TreeFileIndex.getCacheFile(file));
+			assertEquals(2, TreeFileIndex.getInstance(file).getTreeCount());
+			assertNull(TreeFileIndex.load(file));
+		}
+		finally {
+			TreeFileIndex.setCacheDirectory(previousCacheDirectory);
+		}
+	}
+}
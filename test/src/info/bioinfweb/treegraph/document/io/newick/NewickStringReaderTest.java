@@ -0,0 +1,246 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.io.newick;
+
+
+import info.bioinfweb.treegraph.document.HiddenDataMap;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.Tree;
+import info.bioinfweb.treegraph.document.io.nexus.TranslTable;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+public class NewickStringReaderTest {
+	@Test
+	public void test_read() {
+		Tree tree = new NewickStringReader().read("((A:1.5,'B C':2)X:0.5,D);");
+		Node root = tree.getPaintStart();
+		assertEquals(2, root.getChildren().size());
+		
+		Node x = root.getChildren().get(0);
+		assertSame(root, x.getParent());
+		assertEquals("X", NewickStringReader.LEAF_ADAPTER.getText(x));
+		assertEquals(0.5, NewickStringReader.BRANCH_LENGTH_ADAPTER.getDecimal(x), 0.0);
+		assertEquals(2, x.getChildren().size());
+		assertEquals("A", NewickStringReader.LEAF_ADAPTER.getText(x.getChildren().get(0)));
+		assertEquals(1.5, NewickStringReader.BRANCH_LENGTH_ADAPTER.getDecimal(x.getChildren().get(0)), 0.0);
+		assertEquals("B C", NewickStringReader.LEAF_ADAPTER.getText(x.getChildren().get(1)));
+		assertEquals(2.0, NewickStringReader.BRANCH_LENGTH_ADAPTER.getDecimal(x.getChildren().get(1)), 0.0);
+		
+		Node d = root.getChildren().get(1);
+		assertTrue(d.isLeaf());
+		assertEquals("D", NewickStringReader.LEAF_ADAPTER.getText(d));
+	}
+	
+	
+	@Test
+	public void test_read_unnamedLeaves() {
+		Tree tree = new NewickStringReader().read("(,:2,(A,));");
+		Node root = tree.getPaintStart();
+		assertEquals(3, root.getChildren().size());
+		assertTrue(root.getChildren().get(0).isLeaf());
+		assertEquals(2.0, NewickStringReader.BRANCH_LENGTH_ADAPTER.getDecimal(root.getChildren().get(1)), 0.0);
+		assertEquals(2, root.getChildren().get(2).getChildren().size());
+	}
+	
+	
+	@Test
+	public void test_read_rootedCommand() {
+		assertTrue(new NewickStringReader().read("[&R] (A,B);").getFormats().getShowRooted());
+		assertFalse(new NewickStringReader().read("[&U] (A,B);").getFormats().getShowRooted());
+	}
+	
+	
+	@Test
+	public void test_read_deepTree() {
+		final int depth = 2000;
+		StringBuilder newick = new StringBuilder();
+		for (int i = 0; i < depth; i++) {
+			newick.append("(L" + i + ",");
+		}
+		newick.append("L" + depth);
+		for (int i = 0; i < depth; i++) {
+			newick.append(")");
+		}
+		newick.append(";");
+		
+		Node node = new NewickStringReader().read(newick.toString()).getPaintStart();
+		int count = 0;
+		while (!node.isLeaf()) {
+			assertEquals("L" + count, NewickStringReader.LEAF_ADAPTER.getText(node.getChildren().get(0)));
+			node = node.getChildren().get(1);
+			count++;
+		}
+		assertEquals(depth, count);
+		assertEquals("L" + depth, NewickStringReader.LEAF_ADAPTER.getText(node));
+	}
+	
+	
+	@Test
+	public void test_read_lazyTreeList() {
+		NewickTreeList trees = NewickStringReader.read(new String[]{"(A,B);", "(A,(B;", "(A,(B,C)1);"}, 
+				NewickStringReader.LEAF_ADAPTER, NewickStringReader.BRANCH_LENGTH_ADAPTER, null, false);
+		assertEquals(3, trees.size());
+		assertEquals(3, trees.treesAsList().size());
+		
+		Tree tree = trees.treesAsList().get(2);  // The invalid second tree is not parsed.
+		assertSame(tree, trees.getTree(2));
+		assertEquals(2, tree.getPaintStart().getChildren().size());
+		assertTrue(trees.getInternalNamesAdded(2));
+		
+		try {
+			trees.getTree(1);
+			fail("Exception expected.");
+		}
+		catch (NewickException e) {}
+	}
+	
+	
+	@Test
+	public void test_read_hotComments() {
+		NewickStringReader reader = new NewickStringReader();
+		Tree tree = reader.read("((A[&rate=0.5,pos={1,2}]:1[&length=2],B[note])X[&support=0.9]:0.5,(C,D)[&s=\"1\"]:2,[&x=1]:1)[&r=3];");
+		assertTrue(reader.getHiddenDataAdded());
+		Node root = tree.getPaintStart();
+		
+		Node x = root.getChildren().get(0);
+		HiddenDataMap map = x.getChildren().get(0).getAfferentBranch().getHiddenDataMap();  // A
+		assertEquals(0.5, map.get("rate").getDecimal(), 0.0);
+		assertEquals(1.0, map.get("pos[0]").getDecimal(), 0.0);
+		assertEquals(2.0, map.get("pos[1]").getDecimal(), 0.0);
+		assertEquals(2.0, map.get("length").getDecimal(), 0.0);  // Comment attached to the branch length
+		assertEquals(1.0, NewickStringReader.BRANCH_LENGTH_ADAPTER.getDecimal(x.getChildren().get(0)), 0.0);
+		assertEquals("note", x.getChildren().get(1).getAfferentBranch().getHiddenDataMap().get(  // B
+				CommentDataReader.DEFAULT_NODE_COLUMN_NAME).getText());
+		assertEquals(0.9, x.getAfferentBranch().getHiddenDataMap().get("support").getDecimal(), 0.0);
+		assertEquals("X", NewickStringReader.LEAF_ADAPTER.getText(x));
+		
+		Node unnamed = root.getChildren().get(1);
+		assertEquals("1", unnamed.getAfferentBranch().getHiddenDataMap().get("s").getText());  // Comment attached to SUBTREE_END
+		assertEquals(2.0, NewickStringReader.BRANCH_LENGTH_ADAPTER.getDecimal(unnamed), 0.0);
+		
+		Node unnamedLeaf = root.getChildren().get(2);
+		assertTrue(unnamedLeaf.isLeaf());
+		assertEquals(1.0, unnamedLeaf.getAfferentBranch().getHiddenDataMap().get("x").getDecimal(), 0.0);  // Comment attached to ELEMENT_SEPARATOR
+		
+		assertEquals(3.0, root.getAfferentBranch().getHiddenDataMap().get("r").getDecimal(), 0.0);  // Root without name and length
+	}
+	
+	
+	private TranslTable createTranslTable() {
+		TranslTable result = new TranslTable();
+		result.add("1", "Alpha");
+		result.add("2", "Beta");
+		result.add("Int", "Internal");
+		return result;
+	}
+	
+	
+	@Test
+	public void test_read_translTable() {
+		Tree tree = new NewickStringReader().read("((1,2)Int,0,5,'1');", NewickStringReader.LEAF_ADAPTER, 
+				NewickStringReader.BRANCH_LENGTH_ADAPTER, createTranslTable(), true);
+		Node root = tree.getPaintStart();
+		Node internal = root.getChildren().get(0);
+		assertEquals("Internal", NewickStringReader.LEAF_ADAPTER.getText(internal));
+		assertEquals("Alpha", NewickStringReader.LEAF_ADAPTER.getText(internal.getChildren().get(0)));  // Found by key
+		assertEquals("Beta", NewickStringReader.LEAF_ADAPTER.getText(internal.getChildren().get(1)));
+		assertEquals("Alpha", NewickStringReader.LEAF_ADAPTER.getText(root.getChildren().get(1)));  // Found by index
+		assertEquals(5.0, NewickStringReader.LEAF_ADAPTER.getDecimal(root.getChildren().get(2)), 0.0);  // Index out of range
+		assertEquals(1.0, NewickStringReader.LEAF_ADAPTER.getDecimal(root.getChildren().get(3)), 0.0);  // Delimited names are not translated.
+	}
+	
+	
+	@Test
+	public void test_read_translTableLeavesOnly() {
+		Tree tree = new NewickStringReader().read("((1,2)Int,0);", NewickStringReader.LEAF_ADAPTER, 
+				NewickStringReader.BRANCH_LENGTH_ADAPTER, createTranslTable(), false);
+		Node internal = tree.getPaintStart().getChildren().get(0);
+		assertEquals("Int", NewickStringReader.LEAF_ADAPTER.getText(internal));
+		assertEquals("Alpha", NewickStringReader.LEAF_ADAPTER.getText(internal.getChildren().get(0)));
+	}
+	
+	
+	/**
+	 * Reads a caterpillar tree with 100000 leaves. Reading must take linear time. (Implementations that walk
+	 * from each node to the root needed more than 30 s for this tree.)
+	 */
+	@Test(timeout=15000)
+	public void test_read_deepCaterpillar() throws Throwable {
+		final int leafCount = 100000;
+		final StringBuilder newick = new StringBuilder();
+		for (int i = 1; i < leafCount; i++) {
+			newick.append('(');
+		}
+		newick.append("L0");
+		for (int i = 1; i < leafCount; i++) {
+			newick.append(",L" + i + ")");
+		}
+		newick.append(';');
+		
+		final Tree[] tree = new Tree[1];
+		final Throwable[] error = new Throwable[1];
+		Thread thread = new Thread(null, new Runnable() {
+					@Override
+					public void run() {
+						try {
+							tree[0] = new NewickStringReader().read(newick.toString());
+						}
+						catch (Throwable e) {
+							error[0] = e;
+						}
+					}
+				}, "deepCaterpillar", 512L * 1024 * 1024);  // Other methods called when reading are recursive.
+		thread.start();
+		thread.join();
+		if (error[0] != null) {
+			throw error[0];
+		}
+		
+		Node node = tree[0].getPaintStart();
+		for (int i = leafCount - 1; i > 0; i--) {
+			assertEquals(2, node.getChildren().size());
+			assertEquals("L" + i, NewickStringReader.LEAF_ADAPTER.getText(node.getChildren().get(1)));
+			node = node.getChildren().get(0);
+		}
+		assertEquals("L0", NewickStringReader.LEAF_ADAPTER.getText(node));
+	}
+	
+	
+	@Test(expected=NewickException.class)
+	public void test_read_unterminatedSubtree() {
+		new NewickStringReader().read("((A,B),C;");
+	}
+	
+	
+	@Test(expected=NewickException.class)
+	public void test_read_additionalSubtreeEnd() {
+		new NewickStringReader().read("(A,B)),C;");
+	}
+	
+	
+	@Test(expected=NewickException.class)
+	public void test_read_twoNames() {
+		new NewickStringReader().read("(A B,C);");
+	}
+}
@@ -0,0 +1,156 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.topologicalcalculation;
+
+
+import static org.junit.Assert.*;
+
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.Tree;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringReader;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
+import info.bioinfweb.treegraph.document.undo.CompareTextElementDataParameters;
+
+import java.util.List;
+
+import org.junit.Test;
+
+
+
+public class LeafSetIndexTest {
+	private static final String KEY = LeafSetIndexTest.class.getName();
+	
+	
+	private TopologicalCalculator createCalculator(Tree... trees) {
+		TopologicalCalculator result = new TopologicalCalculator(false, KEY, new CompareTextElementDataParameters());
+		for (Tree tree : trees) {
+			result.addSubtreeToLeafValueToIndexMap(tree.getPaintStart(), NodeNameAdapter.getSharedInstance());
+		}
+		for (Tree tree : trees) {
+			result.updateLeafSets(tree.getPaintStart(), NodeNameAdapter.getSharedInstance());
+		}
+		return result;
+	}
+	
+	
+	private LeafSet createLeafSet(TopologicalCalculator calculator, String... leaves) {
+		LeafSet result = new LeafSet(calculator.getLeafSetSize());
+		for (String leaf : leaves) {
+			result.setChild(calculator.getLeafIndex(leaf), true);
+		}
+		return result;
+	}
+	
+	
+	private void assertSameResult(TopologicalCalculator calculator, Tree tree, LeafSetIndex index, LeafSet searched) {
+		List<NodeInfo> expected = calculator.findNodeWithAllLeaves(tree, searched, index.getRestrictingLeafSet());
+		List<NodeInfo> actual = index.findExactMatches(searched);
+		if (expected.isEmpty() || (expected.get(0).getAdditionalCount() > 0)) {
+			assertTrue(actual.isEmpty());
+		}
+		else {
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertSame(expected.get(i).getNode(), actual.get(i).getNode());
+				assertEquals(expected.get(i).isDownwards(), actual.get(i).isDownwards());
+			}
+		}
+	}
+	
+	
+	@Test
+	public void test_findExactMatches() throws Exception {
+		Tree tree = new NewickStringReader().read("((A,B),(C,(D,E)));");
+		TopologicalCalculator calculator = createCalculator(tree);
+		LeafSetIndex index = new LeafSetIndex(calculator, tree.getPaintStart());
+		
+		List<NodeInfo> result = index.findExactMatches(createLeafSet(calculator, "D", "E"));
+		assertEquals(1, result.size());
+		assertSame(tree.getPaintStart().getChildren().get(1).getChildren().get(1), result.get(0).getNode());
+		assertTrue(result.get(0).isDownwards());
+		
+		result = index.findExactMatches(createLeafSet(calculator, "C", "D", "E"));  // Complement of (A,B)
+		assertEquals(2, result.size());
+		assertSame(tree.getPaintStart().getChildren().get(0), result.get(0).getNode());
+		assertFalse(result.get(0).isDownwards());
+		assertSame(tree.getPaintStart().getChildren().get(1), result.get(1).getNode());
+		assertTrue(result.get(1).isDownwards());
+		
+		assertTrue(index.findExactMatches(createLeafSet(calculator, "A", "C")).isEmpty());
+		assertTrue(index.findExactMatches(createLeafSet(calculator)).isEmpty());
+		
+		String[] leaves = {"A", "B", "C", "D", "E"};
+		for (int i = 0; i < 1 << leaves.length; i++) {
+			LeafSet searched = new LeafSet(calculator.getLeafSetSize());
+			for (int j = 0; j < leaves.length; j++) {
+				searched.setChild(calculator.getLeafIndex(leaves[j]), (i & (1 << j)) != 0);
+			}
+			assertSameResult(calculator, tree, index, searched);
+		}
+	}
+	
+	
+	@Test
+	public void test_findExactMatchesRestricted() throws Exception {
+		Tree tree = new NewickStringReader().read("((A,X),(C,(D,E)));");
+		Tree other = new NewickStringReader().read("((A,C),(D,E));");
+		TopologicalCalculator calculator = createCalculator(tree, other);
+		LeafSet restrictingLeafSet = calculator.getLeafSet(tree.getPaintStart()).and(calculator.getLeafSet(other.getPaintStart()));
+		LeafSetIndex index = new LeafSetIndex(calculator, tree.getPaintStart(), restrictingLeafSet);
+		
+		List<NodeInfo> result = index.findExactMatches(createLeafSet(calculator, "A"));
+		assertEquals(2, result.size());  // (A,X) and A
+		assertSame(tree.getPaintStart().getChildren().get(0), result.get(0).getNode());
+		
+		Node node = other.getPaintStart().getChildren().get(0);
+		while (node != null) {
+			assertSameResult(calculator, tree, index, calculator.getLeafSet(node));
+			node = node.getNext();
+		}
+	}
+	
+	
+	@Test
+	public void test_updateLeafSets() throws Exception {
+		Tree tree = new NewickStringReader().read("((A,B),(C,(D,E)));");
+		TopologicalCalculator calculator = createCalculator(tree);
+		Node ab = tree.getPaintStart().getChildren().get(0);
+		Node cde = tree.getPaintStart().getChildren().get(1);
+		Node de = cde.getChildren().get(1);
+		LeafSet abLeafSet = calculator.getLeafSet(ab);
+		LeafSet cdeLeafSet = calculator.getLeafSet(cde);
+		LeafSet deLeafSet = calculator.getLeafSet(de);
+		
+		assertFalse(calculator.updateLeafSets(tree.getPaintStart(), NodeNameAdapter.getSharedInstance()));
+		
+		// Move C into (A,B):
+		Node c = cde.getChildren().remove(0);
+		ab.getChildren().add(c);
+		c.setParent(ab);
+		assertTrue(calculator.updateLeafSets(tree.getPaintStart(), NodeNameAdapter.getSharedInstance()));
+		
+		assertSame(deLeafSet, calculator.getLeafSet(de));
+		assertNotSame(abLeafSet, calculator.getLeafSet(ab));
+		assertNotSame(cdeLeafSet, calculator.getLeafSet(cde));
+		assertEquals(createLeafSet(calculator, "A", "B", "C"), calculator.getLeafSet(ab));
+		assertEquals(createLeafSet(calculator, "D", "E"), calculator.getLeafSet(cde));
+		assertEquals(createLeafSet(calculator, "A", "B"), abLeafSet);  // Previous instances remain unchanged.
+		assertEquals(createLeafSet(calculator, "C", "D", "E"), cdeLeafSet);
+	}
+}
@@ -95,4 +95,174 @@ public class LeafSetTest {
 		subset.setChild(7, true);
 		assertFalse(set.containsAll(subset));
 	}
+	
+	
+	@Test
+	public void test_childCount() {
+		LeafSet set = new LeafSet(130);
+		set.setChild(0, true);
+		set.setChild(63, true);
+		set.setChild(64, true);
+		set.setChild(129, true);
+		assertEquals(4, set.childCount());
+		assertEquals(126, set.complement().childCount());
+		assertEquals(63, set.nextChild(1));
+		assertEquals(129, set.nextChild(65));
+		assertEquals(-1, new LeafSet(130).nextChild(0));
+	}
+	
+	
+	@Test
+	public void test_complementEquals() {
+		LeafSet set = new LeafSet(70);
+		LeafSet expected = new LeafSet(70);
+		for (int i = 0; i < 70; i++) {
+			set.setChild(i, i % 3 == 0);
+			expected.setChild(i, i % 3 != 0);
+		}
+		assertEquals(expected, set.complement());
+		assertEquals(expected.hashCode(), set.complement().hashCode());
+		assertEquals(set, set.complement().complement());
+	}
+	
+	
+	@Test
+	public void test_hashCodeChangedAfterModification() {
+		LeafSet set = new LeafSet(100);
+		set.setChild(5, true);
+		LeafSet copy = new LeafSet(set);
+		assertEquals(set.hashCode(), copy.hashCode());
+		
+		copy.setChild(99, true);
+		assertFalse(set.equals(copy));
+		set.setChild(99, true);
+		assertEquals(set, copy);
+		assertEquals(set.hashCode(), copy.hashCode());
+	}
+	
+	
+	@Test
+	public void test_setOperations() {
+		LeafSet a = new LeafSet(80);
+		LeafSet b = new LeafSet(80);
+		a.setChild(1, true);
+		a.setChild(70, true);
+		b.setChild(70, true);
+		b.setChild(75, true);
+		
+		assertEquals("[70]", indices(a.and(b)));
+		assertEquals("[1, 70, 75]", indices(a.or(b)));
+		assertEquals("[1, 75]", indices(a.xor(b)));
+		assertEquals("[1]", indices(a.andNot(b)));
+		assertTrue(a.intersects(b));
+		assertTrue(a.and(b).isSubsetOf(a));
+		assertFalse(a.isSubsetOf(b));
+		
+		a.invert();
+		assertEquals(78, a.childCount());
+		assertFalse(a.isChild(1));
+		a.clear();
+		assertTrue(a.isEmpty());
+	}
+	
+	
+	@Test
+	public void test_compareTo() {
+		LeafSet set = new LeafSet(66);
+		set.setChild(2, true);
+		set.setChild(65, true);
+		LeafSet other = new LeafSet(66);
+		other.setChild(2, true);
+		other.setChild(65, true);
+		other.setChild(3, true);
+		
+		assertEquals(1, set.compareTo(other, false));
+		assertEquals(-1, other.compareTo(set, false));
+		assertEquals(-1, set.compareTo(other, true));
+		assertTrue(set.inSubtreeOf(other, false));
+		assertFalse(set.inSubtreeOf(set, false));
+		assertEquals(1, set.complement().compareTo(other, true));
+	}
+	
+	
+	@Test
+	public void test_bounds() {
+		LeafSet set = new LeafSet(130);
+		assertEquals(-1, set.firstChild());
+		assertEquals(0, set.childCount());
+		set.setChild(5, true);
+		set.setChild(64, true);
+		set.setChild(129, true);
+		assertEquals(5, set.firstChild());
+		assertEquals(129, set.lastChild());
+		assertEquals(3, set.childCount());
+		
+		LeafSet other = new LeafSet(130);
+		other.setChild(0, true);
+		other.setChild(4, true);
+		assertFalse(set.intersects(other));
+		assertFalse(set.containsAll(other));
+		assertTrue(set.containsAll(new LeafSet(130)));
+		other.setChild(64, true);  // Cached bounds must be updated.
+		assertTrue(set.intersects(other));
+		assertEquals(1, set.intersectionCount(other));
+		assertEquals(0, other.firstChild());
+		assertEquals(64, other.lastChild());
+	}
+	
+	
+	@Test
+	public void test_setChild_outOfBounds() {
+		LeafSet set = new LeafSet(130);
+		try {
+			set.setChild(130, true);  // Would be located in the unused bits of the last word.
+			fail("IndexOutOfBoundsException expected.");
+		}
+		catch (IndexOutOfBoundsException e) {}  // expected program flow
+		try {
+			set.setChild(-1, true);
+			fail("IndexOutOfBoundsException expected.");
+		}
+		catch (IndexOutOfBoundsException e) {}  // expected program flow
+		assertTrue(set.isEmpty());
+		assertEquals(0, set.childCount());
+		assertEquals(new LeafSet(130), set);
+	}
+	
+	
+	@Test
+	public void test_isCompatible() {
+		LeafSet ab = new LeafSet(5);
+		ab.setChild(0, true);
+		ab.setChild(1, true);
+		LeafSet abc = new LeafSet(5);
+		abc.setChild(0, true);
+		abc.setChild(1, true);
+		abc.setChild(2, true);
+		LeafSet bc = new LeafSet(5);
+		bc.setChild(1, true);
+		bc.setChild(2, true);
+		LeafSet de = new LeafSet(5);
+		de.setChild(3, true);
+		de.setChild(4, true);
+		
+		assertTrue(ab.isCompatible(abc));
+		assertTrue(ab.isCompatible(de));
+		assertTrue(abc.isCompatible(de));  // Complementary bipartitions
+		assertFalse(ab.isCompatible(bc));
+	}
+	
+	
+	private String indices(LeafSet set) {
+		StringBuilder result = new StringBuilder("[");
+		int pos = set.nextChild(0);
+		while (pos != -1) {
+			if (result.length() > 1) {
+				result.append(", ");
+			}
+			result.append(pos);
+			pos = set.nextChild(pos + 1);
+		}
+		return result.append("]").toString();
+	}
 }
@@ -0,0 +1,219 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.topologicalcalculation;
+
+
+import static org.junit.Assert.*;
+
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.Tree;
+import info.bioinfweb.treegraph.document.io.newick.NewickStreamIterator;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringReader;
+import info.bioinfweb.treegraph.document.io.nexus.NexusStreamIterator;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
+import info.bioinfweb.treegraph.document.undo.CompareTextElementDataParameters;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+
+public class SplitFrequencyCalculatorTest {
+	private static final String KEY = SplitFrequencyCalculatorTest.class.getName();
+	
+	
+	private TopologicalCalculator createCalculator(Tree target, boolean rooted) {
+		TopologicalCalculator result = new TopologicalCalculator(rooted, KEY, new CompareTextElementDataParameters());
+		result.addSubtreeToLeafValueToIndexMap(target.getPaintStart(), NodeNameAdapter.getSharedInstance());
+		result.addLeafSets(target.getPaintStart(), NodeNameAdapter.getSharedInstance());
+		return result;
+	}
+	
+	
+	private SplitCountTable countSplits(Tree target, TopologicalCalculator calculator, String trees, boolean nexus, 
+			int burnIn, int thinning) throws Exception {
+		
+		SplitCountTable table = new SplitCountTable(calculator.getLeafSetSize(), !calculator.isProcessRooted());
+		addSplits(table, calculator, target.getPaintStart());
+		SplitFrequencyCalculator frequencyCalculator = new SplitFrequencyCalculator(calculator, table, false, burnIn, thinning);
+		if (nexus) {
+			frequencyCalculator.process(new NexusStreamIterator(new StringReader(trees)));
+		}
+		else {
+			frequencyCalculator.process(new NewickStreamIterator(new StringReader(trees)));
+		}
+		return table;
+	}
+	
+	
+	private void addSplits(SplitCountTable table, TopologicalCalculator calculator, Node root) {
+		if (!root.isLeaf()) {
+			table.addSplit(calculator.getLeafSet(root));
+			for (Node child : root.getChildren()) {
+				addSplits(table, calculator, child);
+			}
+		}
+	}
+	
+	
+	private int count(SplitCountTable table, TopologicalCalculator calculator, Tree tree, String... leaves) {
+		LeafSet leafSet = new LeafSet(calculator.getLeafSetSize());
+		for (String leaf : leaves) {
+			leafSet.setChild(calculator.getLeafIndex(leaf), true);
+		}
+		return table.getCount(leafSet);
+	}
+	
+	
+	@Test
+	public void test_newickUnrooted() throws Exception {
+		Tree target = new NewickStringReader().read("((A,B),(C,(D,E)));");
+		TopologicalCalculator calculator = createCalculator(target, false);
+		SplitCountTable table = countSplits(target, calculator, 
+				"((A,B),(C,(D,E)));\n" +
+				"((A:0.1,B:0.2)90:0.3,((C,D),E)[&comment]);\n" + 
+				"(C,(D,E),(A,'B'));\n" + 
+				"(((A,C),B),(D,E));\n", false, 0, 1);
+		
+		assertEquals(4, count(table, calculator, target, "A", "B", "C", "D", "E"));
+		assertEquals(3, count(table, calculator, target, "A", "B"));
+		assertEquals(3, count(table, calculator, target, "C", "D", "E"));  // Same unrooted split as (A,B)
+		assertEquals(3, count(table, calculator, target, "D", "E"));
+	}
+	
+	
+	@Test
+	public void test_newickRooted() throws Exception {
+		Tree target = new NewickStringReader().read("((A,B),(C,(D,E)));");
+		TopologicalCalculator calculator = createCalculator(target, true);
+		SplitCountTable table = countSplits(target, calculator, 
+				"((A,B),(C,(D,E)));\n" +
+				"(C,(D,E),(A,B));\n" + 
+				"(((A,C),B),(D,E));\n", false, 0, 1);
+		
+		assertEquals(2, count(table, calculator, target, "A", "B"));
+		assertEquals(1, count(table, calculator, target, "C", "D", "E"));
+		assertEquals(3, count(table, calculator, target, "D", "E"));
+	}
+	
+	
+	/**
+	 * Tests if a source split that is only the complement of a target split is not counted in rooted mode.
+	 */
+	@Test
+	public void test_newickRooted_complement() throws Exception {
+		Tree target = new NewickStringReader().read("((A,B),(C,(D,E)));");
+		TopologicalCalculator calculator = createCalculator(target, true);
+		SplitCountTable table = countSplits(target, calculator, 
+				"((A,B,C),D,E);\n" +  // (A,B,C) is the unrooted complement of (D,E).
+				"((A,B,C),(D,E));\n", false, 0, 1);
+		
+		assertEquals(2, count(table, calculator, target, "A", "B", "C", "D", "E"));
+		assertEquals(1, count(table, calculator, target, "D", "E"));
+		assertEquals(0, count(table, calculator, target, "A", "B"));
+		assertEquals(0, count(table, calculator, target, "C", "D", "E"));
+	}
+	
+	
+	@Test
+	public void test_burnInAndThinning() throws Exception {
+		Tree target = new NewickStringReader().read("((A,B),(C,D));");
+		TopologicalCalculator calculator = createCalculator(target, false);
+		SplitCountTable table = countSplits(target, calculator, 
+				"((A,C),(B,D));\n" +  // burn-in
+				"((A,B),(C,D));\n" +
+				"((A,C),(B,D));\n" +  // thinned
+				"((A,B),(C,D));\n" +
+				"((A,D),(B,C));\n", false, 1, 2);
+		
+		assertEquals(2, count(table, calculator, target, "A", "B", "C", "D"));
+		assertEquals(2, count(table, calculator, target, "A", "B"));
+		assertEquals(2, count(table, calculator, target, "C", "D"));  // Same unrooted split as (A,B)
+	}
+	
+	
+	private String randomSubtree(List<String> leaves, Random random) {
+		if (leaves.size() == 1) {
+			return leaves.get(0);
+		}
+		else {
+			int split = 1 + random.nextInt(leaves.size() - 1);
+			return "(" + randomSubtree(leaves.subList(0, split), random) + "," + 
+					randomSubtree(leaves.subList(split, leaves.size()), random) + ")";
+		}
+	}
+	
+	
+	@Test
+	public void test_parallel() throws Exception {
+		Random random = new Random(17);
+		List<String> leaves = new ArrayList<String>();
+		for (char c = 'A'; c <= 'H'; c++) {
+			leaves.add(Character.toString(c));
+		}
+		StringBuilder trees = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			Collections.shuffle(leaves, random);
+			trees.append(randomSubtree(leaves, random) + ";\n");
+		}
+		
+		Tree target = new NewickStringReader().read(trees.substring(0, trees.indexOf("\n")));
+		TopologicalCalculator calculator = createCalculator(target, false);
+		SplitCountTable sequential = new SplitCountTable(calculator.getLeafSetSize(), true);
+		new SplitFrequencyCalculator(calculator, sequential, true, 10, 3, 1).process(
+				new NewickStreamIterator(new StringReader(trees.toString())));
+		SplitCountTable parallel = new SplitCountTable(calculator.getLeafSetSize(), true);
+		SplitFrequencyCalculator parallelCalculator = new SplitFrequencyCalculator(calculator, parallel, true, 10, 3, 4);
+		parallelCalculator.process(new NewickStreamIterator(new StringReader(trees.toString())));
+		
+		assertEquals(164, parallelCalculator.getTreeCount());
+		assertEquals(sequential.size(), parallel.size());
+		for (int i = 0; i < 256; i++) {
+			LeafSet leafSet = new LeafSet(calculator.getLeafSetSize());
+			for (int j = 0; j < 8; j++) {
+				leafSet.setChild(j, (i & (1 << j)) != 0);
+			}
+			assertEquals(sequential.getCount(leafSet), parallel.getCount(leafSet));
+		}
+	}
+	
+	
+	@Test
+	public void test_nexusTranslTable() throws Exception {
+		Tree target = new NewickStringReader().read("((A,B),(C_x,(D,E)));");
+		TopologicalCalculator calculator = createCalculator(target, false);
+		SplitCountTable table = countSplits(target, calculator, 
+				"#NEXUS\n" +
+				"begin taxa;\n\tdimensions ntax=5;\nend;\n" +
+				"begin trees;\n" +
+				"\ttranslate 1 A, 2 B, 3 'C x', 4 D, 5 E;\n" +
+				"\ttree t1 [&lnP=-10.5] = [&U] ((1,2),(3,(4,5)));\n" +
+				"\ttree t2 = ((1:0.1,3:0.2),(2,(4,5)));\n" +
+				"end;\n", true, 0, 1);
+		
+		assertEquals(2, count(table, calculator, target, "A", "B", "C x", "D", "E"));
+		assertEquals(1, count(table, calculator, target, "A", "B"));
+		assertEquals(2, count(table, calculator, target, "D", "E"));
+	}
+}
@@ -0,0 +1,241 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.undo;
+
+
+import static org.junit.Assert.*;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.TextElementData;
+import info.bioinfweb.treegraph.document.change.DocumentChangeType;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringReader;
+
+import org.junit.Test;
+
+
+
+/**
+ * Tests {@link ComplexDocumentEdit}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class ComplexDocumentEditTest {
+	private static class SetHiddenDataEdit extends ComplexDocumentEdit {
+		private Node node;
+		
+		public SetHiddenDataEdit(Document document, Node node) {
+			super(document, DocumentChangeType.TOPOLOGICAL_BY_RENAMING);
+			this.node = node;
+		}
+
+		@Override
+		protected void performRedo() {
+			if (node != null) {
+				findEquivilant(node).getHiddenDataMap().put("x", new TextElementData(1));
+			}
+		}
+
+		@Override
+		public String getPresentationName() {
+			return "Set hidden data";
+		}
+	}
+	
+	
+	private static class RenameEdit extends ComplexDocumentEdit {
+		private String oldName;
+		private String newName;
+		
+		public RenameEdit(Document document, String oldName, String newName) {
+			super(document, DocumentChangeType.TOPOLOGICAL_BY_RENAMING);
+			this.oldName = oldName;
+			this.newName = newName;
+		}
+
+		private void rename(Node root) {
+			if (oldName.equals(root.getData().getText())) {
+				root = getWritableNode(root);
+				root.getData().setText(newName);
+			}
+			for (int i = 0; i < root.getChildren().size(); i++) {
+				rename(root.getChildren().get(i));
+			}
+		}
+		
+		@Override
+		protected void performRedo() {
+			rename(getDocument().getTree().getPaintStart());
+		}
+
+		@Override
+		public String getPresentationName() {
+			return "Rename";
+		}
+	}
+	
+	
+	private static void assertParentReferences(Node root) {
+		for (Node child : root.getChildren()) {
+			assertSame(root, child.getParent());
+			assertParentReferences(child);
+		}
+	}
+	
+	
+	@Test
+	public void test_sharedSubtrees() throws Exception {
+		Document document = new Document(false);
+		document.setTree(new NewickStringReader().read("(((A,B)X,C)Y,(D,E)Z);"));
+		Node oldRoot = document.getTree().getPaintStart();
+		Node y = oldRoot.getChildren().get(0);
+		Node x = y.getChildren().get(0);
+		Node c = y.getChildren().get(1);
+		Node z = oldRoot.getChildren().get(1);
+		Node a = x.getChildren().get(0);
+		
+		document.executeEdit(new SetHiddenDataEdit(document, a));
+		Node newRoot = document.getTree().getPaintStart();
+		assertNotSame(oldRoot, newRoot);
+		assertNotSame(y, newRoot.getChildren().get(0));
+		assertNotSame(a, newRoot.getChildren().get(0).getChildren().get(0).getChildren().get(0));
+		assertEquals(1.0, newRoot.getChildren().get(0).getChildren().get(0).getChildren().get(0).getHiddenDataMap().get("x").getDecimal(), 0.0);
+		assertSame(z, newRoot.getChildren().get(1));  // Unchanged subtrees are shared.
+		assertSame(c, newRoot.getChildren().get(0).getChildren().get(1));
+		assertSame(x.getChildren().get(1), newRoot.getChildren().get(0).getChildren().get(0).getChildren().get(1));
+		assertParentReferences(newRoot);
+		
+		document.getUndoManager().undo();
+		assertSame(oldRoot, document.getTree().getPaintStart());
+		assertNull(a.getHiddenDataMap().get("x"));
+		assertParentReferences(oldRoot);
+		
+		document.getUndoManager().redo();
+		assertSame(newRoot, document.getTree().getPaintStart());
+		assertParentReferences(newRoot);
+	}
+	
+	
+	@Test
+	public void test_findEquivalent() throws Exception {
+		Document document = new Document(false);
+		document.setTree(new NewickStringReader().read("((A,B)X,C);"));
+		Node oldRoot = document.getTree().getPaintStart();
+		Node b = oldRoot.getChildren().get(0).getChildren().get(1);
+		
+		SetHiddenDataEdit edit = new SetHiddenDataEdit(document, b);
+		Node newB = edit.findEquivilant(b);
+		assertNotSame(b, newB);
+		assertEquals("B", newB.getData().getText());
+		assertSame(newB.getAfferentBranch(), edit.findEquivalent(b.getAfferentBranch()));
+		assertEquals("C", edit.findEquivilant(oldRoot.getChildren().get(1)).getData().getText());
+		assertNull(edit.findEquivilant(newB));
+		
+		document.executeEdit(edit);
+		assertSame(newB, document.getTree().getPaintStart().getChildren().get(0).getChildren().get(1));
+	}
+	
+	
+	@Test
+	public void test_noChange() throws Exception {
+		Document document = new Document(false);
+		document.setTree(new NewickStringReader().read("((A,B)X,C);"));
+		Node oldRoot = document.getTree().getPaintStart();
+		
+		document.executeEdit(new SetHiddenDataEdit(document, null));
+		assertSame(oldRoot, document.getTree().getPaintStart());
+		assertParentReferences(oldRoot);
+	}
+	
+	
+	@Test
+	public void test_copyOnlyModifiedPaths() throws Exception {
+		Document document = new Document(false);
+		document.setTree(new NewickStringReader().read("(((A,B)X,C)Y,((D,A)W,E)Z);"));
+		Node oldRoot = document.getTree().getPaintStart();
+		Node x = oldRoot.getChildren().get(0).getChildren().get(0);
+		Node w = oldRoot.getChildren().get(1).getChildren().get(0);
+		Node e = oldRoot.getChildren().get(1).getChildren().get(1);
+		
+		RenameEdit edit = new RenameEdit(document, "G", "F");
+		document.executeEdit(edit);
+		assertSame(oldRoot, document.getTree().getPaintStart());  // No node was copied.
+		long unchangedSize = edit.getRetainedSize();
+		
+		edit = new RenameEdit(document, "A", "F");
+		document.executeEdit(edit);
+		assertEquals(7 * ComplexDocumentEdit.ESTIMATED_NODE_SIZE, edit.getRetainedSize() - unchangedSize);  // Both leaves and the paths to them.
+		Node newRoot = document.getTree().getPaintStart();
+		assertNotSame(oldRoot, newRoot);
+		assertEquals("F", newRoot.getChildren().get(0).getChildren().get(0).getChildren().get(0).getData().getText());
+		assertEquals("F", newRoot.getChildren().get(1).getChildren().get(0).getChildren().get(1).getData().getText());
+		assertSame(x.getChildren().get(1), newRoot.getChildren().get(0).getChildren().get(0).getChildren().get(1));
+		assertSame(w.getChildren().get(0), newRoot.getChildren().get(1).getChildren().get(0).getChildren().get(0));
+		assertSame(e, newRoot.getChildren().get(1).getChildren().get(1));
+		assertSame(oldRoot.getChildren().get(0).getChildren().get(1), newRoot.getChildren().get(0).getChildren().get(1));
+		assertParentReferences(newRoot);
+		
+		document.getUndoManager().undo();
+		assertSame(oldRoot, document.getTree().getPaintStart());
+		assertEquals("A", x.getChildren().get(0).getData().getText());
+		assertEquals("A", w.getChildren().get(1).getData().getText());
+		assertParentReferences(oldRoot);
+		
+		document.getUndoManager().redo();
+		assertSame(newRoot, document.getTree().getPaintStart());
+		assertParentReferences(newRoot);
+	}
+	
+	
+	@Test
+	public void test_copyInConstructor() throws Exception {
+		Document document = new Document(false);
+		document.setTree(new NewickStringReader().read("((A,B)X,C);"));
+		Node oldRoot = document.getTree().getPaintStart();
+		
+		SetHiddenDataEdit edit = new SetHiddenDataEdit(document, oldRoot.getChildren().get(0).getChildren().get(0));
+		edit.findEquivilant(oldRoot.getChildren().get(0));
+		assertSame(oldRoot, document.getTree().getPaintStart());  // The current tree is not changed before the edit is executed.
+		assertParentReferences(oldRoot);
+	}
+	
+	
+	@Test
+	public void test_findRetainedEquivalent() throws Exception {
+		Document document = new Document(false);
+		document.setTree(new NewickStringReader().read("((A,B)X,C);"));
+		Node oldRoot = document.getTree().getPaintStart();
+		Node a = oldRoot.getChildren().get(0).getChildren().get(0);
+		Node b = oldRoot.getChildren().get(0).getChildren().get(1);
+		
+		SetHiddenDataEdit edit = new SetHiddenDataEdit(document, a);
+		document.executeEdit(edit);
+		Node newA = document.getTree().getPaintStart().getChildren().get(0).getChildren().get(0);
+		assertSame(newA, edit.findRetainedEquivalent(a));
+		assertSame(newA.getAfferentBranch(), edit.findRetainedEquivalent(a.getAfferentBranch()));
+		assertSame(b, edit.findRetainedEquivalent(b));
+		
+		try {
+			edit.getWritableNode(b);
+			fail("No exception thrown.");
+		}
+		catch (IllegalStateException e) {}  // expected
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.undo;
+
+
+import static org.junit.Assert.*;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.change.DocumentChangeType;
+
+import org.junit.Test;
+
+
+
+/**
+ * Tests {@link DocumentUndoManager}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class DocumentUndoManagerTest {
+	private static class SizedEdit extends DocumentEdit {
+		private long size;
+		
+		public SizedEdit(Document document, long size) {
+			super(document, DocumentChangeType.NEUTRAL);
+			this.size = size;
+		}
+
+		@Override
+		public long getRetainedSize() {
+			return size;
+		}
+
+		@Override
+		public String getPresentationName() {
+			return "Sized edit";
+		}
+	}
+	
+	
+	@Test
+	public void test_trimForMemoryBudget() {
+		Document document = new Document(false);
+		DocumentUndoManager manager = document.getUndoManager();
+		manager.setMemoryBudget(1000);
+		
+		SizedEdit edit1 = new SizedEdit(document, 400);
+		SizedEdit edit2 = new SizedEdit(document, 400);
+		SizedEdit edit3 = new SizedEdit(document, 400);
+		document.executeEdit(edit1);
+		document.executeEdit(edit2);
+		assertEquals(800, manager.getRetainedSize());
+		assertEquals(2, manager.undoCount());
+		
+		document.executeEdit(edit3);
+		assertEquals(800, manager.getRetainedSize());
+		assertEquals(2, manager.undoCount());
+		assertFalse(manager.contains(edit1));
+		assertTrue(manager.contains(edit2));
+		assertTrue(manager.contains(edit3));
+		
+		manager.setMemoryBudget(100);  // The last edit is always kept.
+		assertEquals(1, manager.undoCount());
+		assertTrue(manager.contains(edit3));
+		
+		manager.setMemoryBudget(DocumentUndoManager.UNLIMITED_MEMORY_BUDGET);
+		document.executeEdit(new SizedEdit(document, 10000));
+		assertEquals(2, manager.undoCount());
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.undo.edit;
+
+
+import static org.junit.Assert.*;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringReader;
+import info.bioinfweb.treegraph.document.nodebranchdata.HiddenNodeDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+
+
+/**
+ * Tests {@link CalculateColumnEdit}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class CalculateColumnEditTest {
+	private static final HiddenNodeDataAdapter VALUE_ADAPTER = new HiddenNodeDataAdapter("x");
+	
+	
+	private Document createDocument() throws Exception {
+		Document result = new Document(false);
+		result.setTree(new NewickStringReader().read("((A:1,B:2)X:3,(C:0.5,D:-4)Y:5,E);"));
+		
+		List<Node> nodes = getNodes(result);
+		for (int i = 0; i < nodes.size(); i++) {
+			if (i == 4) {  // Y
+				VALUE_ADAPTER.setText(nodes.get(i), "text");
+			}
+			else if (i != 5) {  // C has no value.
+				VALUE_ADAPTER.setDecimal(nodes.get(i), i * 1.5);
+			}
+		}
+		return result;
+	}
+	
+	
+	private static void addNodes(List<Node> list, Node root) {
+		list.add(root);
+		for (Node child : root.getChildren()) {
+			addNodes(list, child);
+		}
+	}
+	
+	
+	private static List<Node> getNodes(Document document) {
+		List<Node> result = new ArrayList<Node>();
+		addNodes(result, document.getTree().getPaintStart());
+		return result;
+	}
+	
+	
+	private Document calculate(String expression, NodeBranchDataAdapter target) throws Exception {
+		return calculate(createDocument(), expression, target);
+	}
+	
+	
+	private Document calculate(Document document, String expression, NodeBranchDataAdapter target) throws Exception {
+		CalculateColumnEdit edit = new CalculateColumnEdit(document, target, null, null, expression, false, null);
+		assertTrue(edit.evaluate());
+		edit.redo();
+		return document;
+	}
+	
+	
+	/**
+	 * Checks whether the compiled version of the specified expression leads to the same results as JEP. (Nesting the 
+	 * expression in the function {@code max} with a single argument prevents compilation.)
+	 */
+	private void assertSameAsJEP(String expression) throws Exception {
+		NodeBranchDataAdapter target = new HiddenNodeDataAdapter("result");
+		List<Node> compiled = getNodes(calculate(expression, target));
+		List<Node> interpreted = getNodes(calculate("max(" + expression + ")", target));
+		for (int i = 0; i < compiled.size(); i++) {
+			assertEquals(expression + " " + i, target.toTextElementData(interpreted.get(i)), target.toTextElementData(compiled.get(i)));
+		}
+	}
+	
+	
+	@Test
+	public void test_compiledExpressions() throws Exception {
+		assertSameAsJEP("getValue(LENGTH) * 2 + getValue(\"x\") / 3 - 1");
+		assertSameAsJEP("getValue(\"x\", 7) % 2");
+		assertSameAsJEP("getParentValue(LENGTH, -1) ^ 2");
+		assertSameAsJEP("getValue(LENGTH, -2) ^ 0.5");  // Complex results for negative lengths
+		assertSameAsJEP("(getValue(LENGTH, 0) > 1) && !(getValue(\"x\", 0) == 0) || abs(-pi) >= 3");
+		assertSameAsJEP("-getValue(\"x\")");
+	}
+	
+	
+	@Test
+	public void test_values() throws Exception {
+		NodeBranchDataAdapter target = new HiddenNodeDataAdapter("result");
+		List<Node> nodes = getNodes(calculate("getValue(LENGTH, 10) + getParentValue(\"x\", 0.5)", target));
+		assertEquals(10.5, target.getDecimal(nodes.get(0)), 0.0);  // Root
+		assertEquals(3.0, target.getDecimal(nodes.get(1)), 0.0);  // X
+		assertEquals(2.5, target.getDecimal(nodes.get(2)), 0.0);  // A
+		assertFalse(target.isDecimal(nodes.get(6)));  // D (Parent contains a textual value.)
+		assertEquals(10.0, target.getDecimal(nodes.get(7)), 0.0);  // E
+	}
+	
+	
+	@Test
+	public void test_wholeColumnFunctions() throws Exception {
+		NodeBranchDataAdapter target = new HiddenNodeDataAdapter("result");
+		List<Node> nodes = getNodes(calculate("getValue(\"x\", 0) / sumOfLines(LENGTH) + maxOfLines(LENGTH)", target));
+		assertEquals(5.0, target.getDecimal(nodes.get(0)), 0.0);
+		assertEquals(1.5 / 7.5 + 5.0, target.getDecimal(nodes.get(1)), 0.0);
+		assertEquals(9.0 / 7.5 + 5.0, target.getDecimal(nodes.get(6)), 0.0);
+	}
+	
+	
+	@Test
+	public void test_wholeColumnFunctionsOnTargetColumn() throws Exception {
+		Document document = createDocument();
+		HiddenNodeDataAdapter target = new HiddenNodeDataAdapter("y");
+		List<Node> nodes = getNodes(document);
+		for (Node node : nodes) {
+			target.setDecimal(node, 1.0);
+		}
+		
+		calculate(document, "sumOfLines(\"y\")", target);  // Stored sums must be updated each time a line is calculated.
+		assertEquals(8.0, target.getDecimal(nodes.get(0)), 0.0);
+		assertEquals(15.0, target.getDecimal(nodes.get(1)), 0.0);
+		assertEquals(29.0, target.getDecimal(nodes.get(2)), 0.0);
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.document.undo.edit;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.PieChartLabel;
+import info.bioinfweb.treegraph.document.format.PieChartLabelCaptionContentType;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringReader;
+import info.bioinfweb.treegraph.graphics.positionpaint.PositionPaintType;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+public class PieChartLabelIDsEditTest {
+	@Test
+	public void test_redo_repositionsLabel() throws Exception {
+		Document document = new Document(false);
+		document.setTree(new NewickStringReader().read("((A,B)X,C);"));
+		PieChartLabel label = new PieChartLabel(null);
+		label.setID("pie");
+		label.getFormats().setCaptionsContentType(PieChartLabelCaptionContentType.CAPTIONS);
+		document.getTree().getPaintStart().getChildren().get(0).getAfferentBranch().getLabels().add(label);
+		document.registerPositioner(PositionPaintType.RECT_CLAD);
+		document.executeEdit(new PieChartLabelIDsEdit(document, new PieChartLabel[]{label}, 
+				new ArrayList<PieChartLabel.SectionData>()));  // Initial positioning without captions
+		float widthWithoutCaptions = label.getPosition(PositionPaintType.RECT_CLAD).getWidth().getInMillimeters();
+		
+		List<PieChartLabel.SectionData> ids = new ArrayList<PieChartLabel.SectionData>();
+		ids.add(new PieChartLabel.SectionData("a", "First section"));
+		ids.add(new PieChartLabel.SectionData("b", "Second section"));
+		document.executeEdit(new PieChartLabelIDsEdit(document, new PieChartLabel[]{label}, ids));
+		assertTrue(label.getPosition(PositionPaintType.RECT_CLAD).getWidth().getInMillimeters() > widthWithoutCaptions);
+		
+		document.getUndoManager().undo();
+		assertEquals(widthWithoutCaptions, label.getPosition(PositionPaintType.RECT_CLAD).getWidth().getInMillimeters(), 0.0001f);
+	}
+}
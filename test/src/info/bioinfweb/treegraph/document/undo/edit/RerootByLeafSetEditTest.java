@@ -23,8 +23,10 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
+import info.bioinfweb.treegraph.document.Branch;
 import info.bioinfweb.treegraph.document.Document;
 import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringReader;
 import info.bioinfweb.treegraph.document.io.xtg.XTGReader;
 import info.bioinfweb.commons.SystemUtils;
 
@@ -100,4 +102,49 @@ public class RerootByLeafSetEditTest {
   			|| rootChildren.get(1).getUniqueName().equals(uniqueName));  	
   	assertEquals(0, edit.getAlternativeRootingPoints().size());
   }
+	
+	
+	private static boolean isContained(Node root, Node node) {
+		while (node.hasParent()) {
+			boolean found = false;
+			for (Node sibling : node.getParent().getChildren()) {
+				found = found || (sibling == node);
+			}
+			if (!found) {
+				return false;
+			}
+			node = node.getParent();
+		}
+		return node == root;
+	}
+	
+	
+  @Test
+  public void test_redo_multipleRootingPoints() throws Exception {
+  	Document document = new Document(false);
+  	document.setTree(new NewickStringReader().read("((A,B)X,(C,D)Y,(E,F)Z,(G,H)V,(I,J)U);"));
+  	document.getTree().assignUniqueNames();
+  	Node root = document.getTree().getPaintStart();
+  	List<Node> leaves = new ArrayList<Node>(2);
+  	leaves.add(root.getChildren().get(0).getChildren().get(0));  // A
+  	leaves.add(root.getChildren().get(1).getChildren().get(0));  // C
+
+  	RerootByLeafSetEdit edit = new RerootByLeafSetEdit(document, leaves);
+  	document.executeEdit(edit);
+  	assertEquals(2, edit.getAlternativeRootingPoints().size());
+  	Node newRoot = document.getTree().getPaintStart();
+  	for (Branch branch : edit.getAlternativeRootingPoints()) {
+  		assertTrue(isContained(newRoot, branch.getTargetNode()));  // Must not reference replaced copies.
+  		assertTrue(document.getTree().contains(branch));
+  	}
+  	
+  	Branch alternative = edit.getAlternativeRootingPoints().iterator().next();
+  	String name = alternative.getTargetNode().getChildren().get(0).getData().getText();
+  	RerootEdit rerootEdit = new RerootEdit(document, alternative);  // "Root here"
+  	document.executeEdit(rerootEdit);
+  	
+  	List<Node> rootChildren = document.getTree().getPaintStart().getChildren();
+  	assertTrue(rootChildren.get(0).getChildren().get(0).getData().getText().equals(name) || 
+  			rootChildren.get(1).getChildren().get(0).getData().getText().equals(name));
+  }
 }
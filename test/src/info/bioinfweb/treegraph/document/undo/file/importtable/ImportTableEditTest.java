@@ -20,6 +20,8 @@ package info.bioinfweb.treegraph.document.undo.file.importtable;
 
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import info.bioinfweb.commons.SystemUtils;
@@ -28,6 +30,7 @@ import info.bioinfweb.treegraph.document.Node;
 import info.bioinfweb.treegraph.document.TextLabel;
 import info.bioinfweb.treegraph.document.io.ReadWriteFactory;
 import info.bioinfweb.treegraph.document.io.ReadWriteFormat;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringReader;
 import info.bioinfweb.treegraph.document.nodebranchdata.NewHiddenNodeDataAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NewTextLabelAdapter;
 import info.bioinfweb.treegraph.document.nodebranchdata.NodeBranchDataAdapter;
@@ -282,4 +285,79 @@ public class ImportTableEditTest {
 	  node = node.getParent().getChildren().get(0);  // A
 	  assertEquals("Node 1", node.getData().getText());
   }
+  
+  
+  private ImportTableEdit executeHashIndexEdit(Document document, String tableFile, String id) throws Exception {
+  	ImportTableParameters parameters = new ImportTableParameters();
+  	parameters.setTableFile(new File("data" + SystemUtils.FILE_SEPARATOR + "importTable" + 
+  	    SystemUtils.FILE_SEPARATOR + tableFile));
+  	parameters.setColumnSeparator('\t');
+  	parameters.setHeadingContained(false);
+  	parameters.setLinesToSkip(0);
+  	parameters.setKeyAdapter(NodeNameAdapter.getSharedInstance());
+  	parameters.setImportAdapters(new NodeBranchDataAdapter[]{NodeNameAdapter.getSharedInstance(), new NewHiddenNodeDataAdapter(id)});
+  	parameters.setParseNumericValues(true);
+  	parameters.setIgnoreWhitespace(true);
+  	parameters.setDistinguishSpaceUnderscore(false);
+  	parameters.setCaseSensitive(false);
+  	
+		ImportTableData data = new ImportTableData(parameters);
+		data.processKeyColumn(0, parameters);
+	  ImportTableEdit edit = new ImportTableEdit(document, parameters, data);
+	  document.executeEdit(edit);
+	  return edit;
+  }
+  
+  
+  /**
+   * Tests if table keys are matched with the edited as well as the unedited values of the key column of the tree.
+   */
+  @Test
+  public void test_redo_hashIndex() throws Exception {
+  	final String id = "ID";
+  	
+	  Document document = new Document(false);
+	  document.setTree(new NewickStringReader().read("((A,B),(C,D));"));
+	  Node x = document.getTree().getPaintStart().getChildren().get(0);
+	  Node y = document.getTree().getPaintStart().getChildren().get(1);
+	  x.getChildren().get(1).getData().setText(" b");  // Only the unedited value matches the edited table key " b".
+	  y.getChildren().get(0).getData().setDecimal(-0.0);  // Must be found by the table key 0.
+	  y.getChildren().get(1).getData().setText("a");  // Second node with the key "a".
+	  
+	  ImportTableEdit edit = executeHashIndexEdit(document, "TableHashIndex.txt", id);
+	  
+	  assertFalse(edit.isAllKeysFound());
+	  assertEquals(1, edit.getKeysNotInTree().size());
+	  assertTrue(edit.getKeysNotInTree().contains("x"));
+	  assertEquals("L1", x.getChildren().get(0).getHiddenDataMap().get(id).getText());  // Edited value "a" of "A"
+	  assertEquals("L2", x.getChildren().get(1).getHiddenDataMap().get(id).getText());
+	  assertEquals("L3", y.getChildren().get(0).getHiddenDataMap().get(id).getText());
+	  assertEquals("L1", y.getChildren().get(1).getHiddenDataMap().get(id).getText());
+	  assertNull(x.getHiddenDataMap().get(id));
+	  assertNull(y.getHiddenDataMap().get(id));
+	  
+	  document.getUndoManager().undo();
+	  assertNull(x.getChildren().get(0).getHiddenDataMap().get(id));
+	  assertNull(y.getChildren().get(1).getHiddenDataMap().get(id));
+  }
+  
+  
+  /**
+   * Tests if a negative zero in the table is matched with a positive zero in the tree.
+   */
+  @Test
+  public void test_redo_hashIndex_negativeZero() throws Exception {
+  	final String id = "ID";
+  	
+	  Document document = new Document(false);
+	  document.setTree(new NewickStringReader().read("(A,B);"));
+	  Node a = document.getTree().getPaintStart().getChildren().get(0);
+	  a.getData().setDecimal(0.0);
+	  
+	  ImportTableEdit edit = executeHashIndexEdit(document, "TableHashIndex_negativeZero.txt", id);
+	  
+	  assertTrue(edit.isAllKeysFound());
+	  assertEquals("L1", a.getHiddenDataMap().get(id).getText());
+	  assertNull(document.getTree().getPaintStart().getChildren().get(1).getHiddenDataMap().get(id));
+  }
 }
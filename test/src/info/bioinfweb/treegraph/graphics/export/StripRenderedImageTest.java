@@ -0,0 +1,102 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.export;
+
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+
+
+/**
+ * Tests {@link StripRenderedImage}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class StripRenderedImageTest {
+	private static final Color[] COLORS = {Color.RED, Color.GREEN, Color.BLUE, Color.YELLOW};
+	
+	
+	private static StripRenderedImage createImage(int width, int height, int stripHeight) {
+		return new StripRenderedImage(width, height, stripHeight, false) {
+			@Override
+			protected void paintStrip(Graphics2D g, Rectangle strip) {
+				for (int y = strip.y; y < strip.y + strip.height; y++) {
+					g.setColor(COLORS[(y / 5) % COLORS.length]);  // Stripes that do not match the strip height.
+					g.fillRect(strip.x, y, strip.width, 1);
+				}
+			}
+		};
+	}
+	
+	
+	private static void assertStripes(BufferedImage image) {
+		for (int y = 0; y < image.getHeight(); y++) {
+			assertEquals(COLORS[(y / 5) % COLORS.length].getRGB(), image.getRGB(0, y));
+			assertEquals(COLORS[(y / 5) % COLORS.length].getRGB(), image.getRGB(image.getWidth() - 1, y));
+		}
+	}
+	
+	
+	@Test
+	public void test_tiles() {
+		StripRenderedImage image = createImage(30, 95, 10);
+		assertEquals(10, image.getNumYTiles());
+		assertEquals(1, image.getNumXTiles());
+		assertEquals(10, image.getTileHeight());
+		
+		Raster tile = image.getTile(0, 9);
+		assertEquals(90, tile.getMinY());
+		assertEquals(1, image.getRenderedStripCount());
+		
+		Raster data = image.getData(new Rectangle(5, 8, 10, 10));  // Spans two strips.
+		assertEquals(8, data.getMinY());
+		assertEquals(10, data.getHeight());
+		assertEquals(3, image.getRenderedStripCount());
+		
+		BufferedImage copy = new BufferedImage(image.getColorModel(), image.copyData(null), false, null);
+		assertStripes(copy);
+	}
+	
+	
+	@Test
+	public void test_writePNG() throws Exception {
+		StripRenderedImage image = createImage(40, 100, 8);
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		assertTrue(ImageIO.write(image, "png", stream));
+		assertEquals(image.getNumYTiles(), image.getRenderedStripCount());  // Each strip is only painted once.
+		
+		BufferedImage result = ImageIO.read(new ByteArrayInputStream(stream.toByteArray()));
+		assertEquals(40, result.getWidth());
+		assertEquals(100, result.getHeight());
+		assertStripes(result);
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.positionpaint;
+
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.PaintableElement;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringReader;
+import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.ElementBoundsIndex;
+import info.bioinfweb.treegraph.graphics.positionpaint.positiondata.PositionData;
+
+import org.junit.Test;
+
+
+
+/**
+ * Tests {@link RectangularCladogramPositioner} and {@link PhylogramPositioner}. Positions and the element index 
+ * calculated by {@link TreePositioner#positionChanged(Document, float, PaintableElement[])} are compared to the 
+ * results of {@link TreePositioner#positionAll(Document, float)}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class RectangularCladogramPositionerTest {
+	private static void addPositions(Node root, PositionPaintType type, List<Float> positions) {
+		PositionData[] data = {root.getPosition(type), root.getAfferentBranch().getPosition(type)};
+		for (PositionData pd : data) {
+			positions.add(pd.getLeft().getInMillimeters());
+			positions.add(pd.getTop().getInMillimeters());
+			positions.add(pd.getWidth().getInMillimeters());
+			positions.add(pd.getHeight().getInMillimeters());
+		}
+		positions.add(root.getPosition(type).getMaxLeafLeft());
+		for (int i = 0; i < root.getChildren().size(); i++) {
+			addPositions(root.getChildren().get(i), type, positions);
+		}
+	}
+	
+	
+	private static List<Float> getPositions(Document document, PositionPaintType type) {
+		List<Float> result = new ArrayList<Float>();
+		addPositions(document.getTree().getPaintStart(), type, result);
+		return result;
+	}
+	
+	
+	private static List<List<PaintableElement>> queryIndex(Document document, PositionPaintType type) {
+		List<List<PaintableElement>> result = new ArrayList<List<PaintableElement>>();
+		ElementBoundsIndex index = document.getTree().getElementIndex(type);
+		for (int x = 0; x < 150; x += 5) {
+			for (int y = 0; y < 150; y += 5) {
+				result.add(index.elementsIn(x, y, x + 5, y + 5));
+			}
+		}
+		return result;
+	}
+	
+	
+	private static void assertPositionedAsAll(Document document, PositionPaintType type, float rescalingFactorX, 
+			PaintableElement changedElement) {
+		
+		TreePositioner positioner = PositionPaintFactory.getInstance().getPositioner(type);
+		positioner.positionChanged(document, rescalingFactorX, new PaintableElement[]{changedElement});
+		List<Float> changed = getPositions(document, type);
+		List<List<PaintableElement>> changedIndex = queryIndex(document, type);
+		positioner.positionAll(document, rescalingFactorX);
+		List<Float> all = getPositions(document, type);
+		
+		assertEquals(all.size(), changed.size());
+		for (int i = 0; i < all.size(); i++) {
+			assertEquals(all.get(i), changed.get(i), 0.0001f);
+		}
+		assertEquals(queryIndex(document, type), changedIndex);
+	}
+	
+	
+	private static void testPositionChanged(PositionPaintType type) {
+		Document document = new Document(false);
+		document.setTree(new NewickStringReader().read(
+				"((((A:1,B:2)X:1,C:3)Y:0.5,(D:1,(E:2,F:1)W:1)Z:2)V:1,((G:1,H:1)U:1,I:4)S:1)R;"));
+		PositionPaintFactory.getInstance().getPositioner(type).positionAll(document, 1f);
+		
+		Node x = document.getTree().getPaintStart().getChildren().get(0).getChildren().get(0).getChildren().get(0);
+		x.getData().setText("A longer name");  // Moves the subtrees below.
+		assertPositionedAsAll(document, type, 1f, x);
+		
+		Node a = x.getChildren().get(0);
+		a.getFormats().getLineWidth().setInMillimeters(1.5f);  // Moves the sibling and all subtrees below.
+		assertPositionedAsAll(document, type, 1f, a);
+		
+		Node s = document.getTree().getPaintStart().getChildren().get(1);
+		s.getAfferentBranch().getFormats().getMinLength().setInMillimeters(20f);  // Moves a subtree to the right.
+		assertPositionedAsAll(document, type, 1f, s.getAfferentBranch());
+		
+		assertPositionedAsAll(document, type, 1.5f, s);  // Skipped subtrees must be rescaled.
+		assertPositionedAsAll(document, type, 1.5f, a);
+	}
+	
+	
+	@Test
+	public void test_positionChanged_cladogram() {
+		testPositionChanged(PositionPaintType.RECT_CLAD);
+	}
+	
+	
+	@Test
+	public void test_positionChanged_phylogram() {
+		testPositionChanged(PositionPaintType.PHYLOGRAM);
+	}
+}
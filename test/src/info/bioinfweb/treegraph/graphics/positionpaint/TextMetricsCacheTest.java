@@ -0,0 +1,86 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.positionpaint;
+
+
+import static org.junit.Assert.*;
+
+import info.bioinfweb.commons.graphics.FontCalculator;
+
+import java.awt.Font;
+
+import org.junit.Test;
+
+
+
+/**
+ * Tests {@link TextMetricsCache}.
+ * 
+ * @author Ben St&ouml;ver
+ * @since 2.16.0
+ */
+public class TextMetricsCacheTest {
+	@Test
+	public void test_getFont() {
+		TextMetricsCache cache = TextMetricsCache.getInstance();
+		cache.clear();
+		cache.resetStatistics();
+		
+		Font font = cache.getFont(Font.SANS_SERIF, Font.BOLD, 12.5f);
+		assertEquals(Font.SANS_SERIF, font.getName());
+		assertEquals(Font.BOLD, font.getStyle());
+		assertEquals(12.5f, font.getSize2D(), 0f);
+		assertSame(font, cache.getFont(Font.SANS_SERIF, Font.BOLD, 12.5f));
+		assertNotSame(font, cache.getFont(Font.SANS_SERIF, Font.PLAIN, 12.5f));
+		assertEquals(1, cache.getFontHitCount());
+		assertEquals(2, cache.getFontMissCount());
+	}
+	
+	
+	@Test
+	public void test_getTextWidthToTextHeight() {
+		TextMetricsCache cache = TextMetricsCache.getInstance();
+		cache.clear();
+		cache.resetStatistics();
+		
+		String text = "Homo sapiens";
+		float expected = FontCalculator.getInstance().getTextWidthToTextHeigth(Font.SERIF, Font.ITALIC, text, 3f);
+		assertEquals(expected, cache.getTextWidthToTextHeight(Font.SERIF, Font.ITALIC, text, 3f), 0.0001f);
+		assertEquals(0, cache.getWidthHitCount());
+		assertEquals(1, cache.getWidthMissCount());
+		
+		assertEquals(2 * expected, cache.getTextWidthToTextHeight(Font.SERIF, Font.ITALIC, text, 6f), 0.0001f);
+		assertEquals(1, cache.getWidthHitCount());
+		assertEquals(0.5, cache.getWidthHitRate(), 0.0);
+		
+		assertEquals(0f, cache.getTextWidthToTextHeight(Font.SERIF, Font.ITALIC, "", 3f), 0f);
+	}
+	
+	
+	@Test
+	public void test_getFontSizeByTextHeight() {
+		TextMetricsCache cache = TextMetricsCache.getInstance();
+		cache.clear();
+		
+		float expected = FontCalculator.getInstance().getFontSizeByTextHeight(4f, Font.SANS_SERIF, Font.BOLD);
+		assertEquals(expected, cache.getFontSizeByTextHeight(Font.SANS_SERIF, Font.BOLD, 4f), 0.0001f);
+		assertEquals(2 * expected, cache.getFontSizeByTextHeight(Font.SANS_SERIF, Font.BOLD, 8f), 0.0001f);
+		assertEquals(expected, cache.getFontByTextHeight(Font.SANS_SERIF, Font.BOLD, 4f).getSize2D(), 0.0001f);
+	}
+}
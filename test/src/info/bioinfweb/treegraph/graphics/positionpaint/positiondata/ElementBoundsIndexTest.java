@@ -0,0 +1,160 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.positionpaint.positiondata;
+
+
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.PaintableElement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+public class ElementBoundsIndexTest {
+	private static PositionData createPositionData(float left, float top, float width, float height) {
+		PositionData result = new PositionData();
+		result.getLeft().setInMillimeters(left);
+		result.getTop().setInMillimeters(top);
+		result.getWidth().setInMillimeters(width);
+		result.getHeight().setInMillimeters(height);
+		return result;
+	}
+	
+	
+	@Test
+	public void test_elementAt() {
+		ElementBoundsIndex index = new ElementBoundsIndex();
+		assertNull(index.elementAt(0, 0, 0));
+		
+		Node n1 = Node.newInstanceWithBranch();
+		Node n2 = Node.newInstanceWithBranch();
+		Node n3 = Node.newInstanceWithBranch();
+		index.add(n1, createPositionData(0, 0, 10, 10));
+		index.add(n2, createPositionData(5, 5, 10, 10));
+		index.add(n3, createPositionData(20, 0, 5, 5));
+		index.build();
+		
+		assertEquals(3, index.size());
+		assertSame(n1, index.elementAt(7, 7, 0));  // Element added first is preferred.
+		assertSame(n2, index.elementAt(12, 12, 0));
+		assertSame(n3, index.elementAt(19, 2, 1.5f));
+		assertNull(index.elementAt(19, 2, 0));
+		
+		index.clear();
+		assertTrue(index.isEmpty());
+		assertNull(index.elementAt(7, 7, 0));
+	}
+	
+	
+	@Test
+	public void test_elementsIn_large() {
+		Random random = new Random(17);
+		ElementBoundsIndex index = new ElementBoundsIndex();
+		List<PaintableElement> elements = new ArrayList<PaintableElement>();
+		List<PositionData> positions = new ArrayList<PositionData>();
+		for (int i = 0; i < 5000; i++) {
+			Node node = Node.newInstanceWithBranch();
+			PositionData pd = createPositionData(random.nextFloat() * 500, random.nextFloat() * 500, 
+					random.nextFloat() * 20, random.nextFloat() * 5);
+			elements.add(node);
+			positions.add(pd);
+			index.add(node, pd);
+		}
+		index.build();
+		
+		for (int i = 0; i < 50; i++) {
+			float left = random.nextFloat() * 500;
+			float top = random.nextFloat() * 500;
+			float right = left + random.nextFloat() * 100;
+			float bottom = top + random.nextFloat() * 100;
+			
+			List<PaintableElement> expected = new ArrayList<PaintableElement>();
+			for (int j = 0; j < elements.size(); j++) {
+				PositionData pd = positions.get(j);
+				if ((pd.getLeft().getInMillimeters() <= right) && (pd.getRightInMillimeters() >= left) && 
+						(pd.getTop().getInMillimeters() <= bottom) && (pd.getBottomInMillimeters() >= top)) {
+					
+					expected.add(elements.get(j));
+				}
+			}
+			assertEquals(expected, index.elementsIn(left, top, right, bottom));
+			
+			PaintableElement first = null;
+			for (int j = 0; j < elements.size(); j++) {
+				if (positions.get(j).contains(left, top, 0)) {
+					first = elements.get(j);
+					break;
+				}
+			}
+			assertSame(first, index.elementAt(left, top, 0));
+		}
+	}
+	
+	
+	@Test
+	public void test_update() {
+		Random random = new Random(5);
+		ElementBoundsIndex index = new ElementBoundsIndex();
+		List<PaintableElement> elements = new ArrayList<PaintableElement>();
+		List<PositionData> positions = new ArrayList<PositionData>();
+		for (int i = 0; i < 1000; i++) {
+			Node node = Node.newInstanceWithBranch();
+			PositionData pd = createPositionData(random.nextFloat() * 200, random.nextFloat() * 200, 
+					random.nextFloat() * 10, random.nextFloat() * 5);
+			elements.add(node);
+			positions.add(pd);
+			index.add(node, pd);
+		}
+		index.build();
+		assertFalse(index.update(Node.newInstanceWithBranch(), createPositionData(0, 0, 1, 1)));
+		
+		for (int i = 0; i < 20; i++) {
+			for (int j = 0; j < 30; j++) {
+				int element = random.nextInt(elements.size());
+				PositionData pd = positions.get(element);
+				pd.getLeft().add(random.nextFloat() * 100 - 50);
+				pd.getTop().add(random.nextFloat() * 100 - 50);
+				assertTrue(index.update(elements.get(element), pd));
+			}
+			index.applyUpdates();
+			assertEquals(elements.size(), index.size());
+			
+			float left = random.nextFloat() * 200;
+			float top = random.nextFloat() * 200;
+			float right = left + random.nextFloat() * 50;
+			float bottom = top + random.nextFloat() * 50;
+			List<PaintableElement> expected = new ArrayList<PaintableElement>();
+			for (int j = 0; j < elements.size(); j++) {
+				PositionData pd = positions.get(j);
+				if ((pd.getLeft().getInMillimeters() <= right) && (pd.getRightInMillimeters() >= left) && 
+						(pd.getTop().getInMillimeters() <= bottom) && (pd.getBottomInMillimeters() >= top)) {
+					
+					expected.add(elements.get(j));
+				}
+			}
+			assertEquals(expected, index.elementsIn(left, top, right, bottom));
+		}
+	}
+}
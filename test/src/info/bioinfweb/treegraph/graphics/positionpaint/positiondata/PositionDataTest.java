@@ -0,0 +1,103 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.graphics.positionpaint.positiondata;
+
+
+import info.bioinfweb.treegraph.document.format.DistanceValue;
+
+import java.awt.Rectangle;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+public class PositionDataTest {
+	@Test
+	public void test_writeThrough() {
+		PositionData data = new PositionData();
+		data.getLeft().setInMillimeters(2f);
+		data.getTop().setInPixels(20f, 10f);
+		data.getWidth().assign(new DistanceValue(5f));
+		
+		assertEquals(2f, data.getLeft().getInMillimeters(), 0f);
+		assertEquals(2f, data.getTop().getInMillimeters(), 0f);
+		assertEquals(7f, data.getRightInMillimeters(), 0f);
+		assertEquals(0f, data.getHeight().getInMillimeters(), 0f);
+	}
+	
+	
+	@Test
+	public void test_cloneIndependence() throws CloneNotSupportedException {
+		PositionData data = new PositionData();
+		data.getWidth().setInMillimeters(3f);
+		
+		DistanceValue width = data.getWidth().clone();
+		PositionData copy = data.clone();
+		data.getWidth().setInMillimeters(4f);
+		
+		assertEquals(3f, width.getInMillimeters(), 0f);
+		assertEquals(3f, copy.getWidth().getInMillimeters(), 0f);
+		assertEquals(4f, data.getWidth().getInMillimeters(), 0f);
+	}
+	
+	
+	@Test
+	public void test_helpers() {
+		PositionData data = new PositionData();
+		data.getLeft().setInMillimeters(1f);
+		data.getTop().setInMillimeters(2f);
+		data.getWidth().setInMillimeters(4f);
+		data.getHeight().setInMillimeters(6f);
+		
+		assertEquals(5f, data.getRightInMillimeters(), 0f);
+		assertEquals(10f, data.getRightInPixels(2f), 0f);
+		assertEquals(8f, data.getBottomInMillimeters(), 0f);
+		assertEquals(3f, data.getCenterXInMillimeters(), 0f);
+		assertEquals(10f, data.getCenterYInPixels(2f), 0f);
+		assertTrue(data.contains(5.5f, 8f, 0.5f));
+		assertFalse(data.contains(5.5f, 8f, 0f));
+		assertEquals(new Rectangle(2, 4, 8, 12), data.toRect(2f));
+		
+		PositionData copy = new PositionData();
+		copy.assignPositionData(data);
+		assertEquals(data.toRect(1f), copy.toRect(1f));
+	}
+	
+	
+	@Test
+	public void test_legendHelpers() {
+		LegendPositionData data = new LegendPositionData();
+		data.getLinePos().getLeft().setInMillimeters(1f);
+		data.getLinePos().getWidth().setInMillimeters(2f);
+		data.getLinePos().getHeight().setInMillimeters(10f);
+		data.getSpacing().setInMillimeters(1f);
+		data.getTextPos().getLeft().setInMillimeters(4f);
+		data.getTextPos().getTop().setInMillimeters(3f);
+		data.getTextPos().getWidth().setInMillimeters(5f);
+		data.getTextPos().getHeight().setInMillimeters(4f);
+		
+		assertEquals(1f, data.getLeft().getInMillimeters(), 0f);
+		assertEquals(0f, data.getTopInMillimeters(), 0f);
+		assertEquals(8f, data.getWidth().getInMillimeters(), 0f);
+		assertEquals(9f, data.getRightInMillimeters(), 0f);
+		assertEquals(10f, data.getBottomInMillimeters(), 0f);
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * TreeGraph 2 - A feature rich editor for phylogenetic trees
+ * Copyright (C) 2007-2011, 2013-2019  Ben Stöver, Sarah Wiechers, Kai Müller
+ * <http://treegraph.bioinfweb.info/>
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package info.bioinfweb.treegraph.gui.treeframe;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+
+import info.bioinfweb.treegraph.document.Document;
+import info.bioinfweb.treegraph.document.Node;
+import info.bioinfweb.treegraph.document.io.newick.NewickStringReader;
+import info.bioinfweb.treegraph.document.nodebranchdata.NewHiddenNodeDataAdapter;
+import info.bioinfweb.treegraph.document.nodebranchdata.NodeNameAdapter;
+import info.bioinfweb.treegraph.document.undo.edit.ChangeTextualValueEdit;
+import info.bioinfweb.treegraph.document.undo.edit.InsertSiblingEdit;
+import info.bioinfweb.treegraph.document.undo.edit.RemoveSubtreeEdit;
+
+import org.junit.* ;
+
+import static org.junit.Assert.* ;
+
+
+
+public class DocumentTableModelTest {
+	private Document document;
+	private DocumentTableModel model;
+	private List<TableModelEvent> events = new ArrayList<TableModelEvent>();
+	
+	
+	@Before
+	public void setUp() throws Exception {
+		document = new Document(false);
+		document.setTree(new NewickStringReader().read("((A,B)X,(C,D)Y,E)R;"));  // Rows: R, X, A, B, Y, C, D, E
+		model = new DocumentTableModel(document);
+		events.clear();
+		model.addTableModelListener(new TableModelListener() {
+			@Override
+			public void tableChanged(TableModelEvent e) {
+				events.add(e);
+			}
+		});
+	}
+	
+	
+	private Node getNode(int... path) {
+		Node result = document.getTree().getPaintStart();
+		for (int index : path) {
+			result = result.getChildren().get(index);
+		}
+		return result;
+	}
+	
+	
+	private void assertEvent(int index, int type, int firstRow, int lastRow) {
+		TableModelEvent event = events.get(index);
+		assertEquals(type, event.getType());
+		assertEquals(firstRow, event.getFirstRow());
+		assertEquals(lastRow, event.getLastRow());
+	}
+	
+	
+	private void assertRows(String... names) {
+		assertEquals(names.length, model.getRowCount());
+		for (int row = 0; row < names.length; row++) {
+			assertEquals(names[row], model.getValueAt(row, DocumentTableModel.COL_NODE_NAME_VALUES));
+		}
+	}
+	
+	
+	@Test
+	public void test_updateNodeList_insert() {
+		Node a = getNode(0, 0);
+		Node newSibling = Node.newInstanceWithBranch();
+		newSibling.getData().setText("F");
+		document.executeEdit(new InsertSiblingEdit(document, a, newSibling));
+		
+		assertRows("R", "X", null, "A", "F", "B", "Y", "C", "D", "E");
+		assertEquals(3, events.size());
+		assertEvent(0, TableModelEvent.UPDATE, 2, 2);  // The new parent replaced A.
+		assertEvent(1, TableModelEvent.INSERT, 3, 4);
+		assertEvent(2, TableModelEvent.UPDATE, 0, 9);  // The edit does not provide its changed elements.
+		assertEquals(3, model.getRow(a));
+	}
+	
+	
+	@Test
+	public void test_updateNodeList_remove() {
+		Node y = getNode(1);
+		document.executeEdit(new RemoveSubtreeEdit(document, getNode(), y, 1));
+		
+		assertRows("R", "X", "A", "B", "E");
+		assertEquals(2, events.size());
+		assertEvent(0, TableModelEvent.DELETE, 4, 6);
+		assertEvent(1, TableModelEvent.UPDATE, 0, 4);
+		assertEquals(-1, model.getRow(y));
+		assertEquals(4, model.getRow(getNode(1)));
+		
+		events.clear();
+		document.getUndoManager().undo();
+		assertRows("R", "X", "A", "B", "Y", "C", "D", "E");
+		assertEquals(2, events.size());
+		assertEvent(0, TableModelEvent.INSERT, 4, 6);
+		assertEvent(1, TableModelEvent.UPDATE, 0, 7);
+		assertEquals(4, model.getRow(y));
+	}
+	
+	
+	@Test
+	public void test_changeHappened_valueChange() {
+		Node c = getNode(1, 0);
+		document.executeEdit(new ChangeTextualValueEdit(document, NodeNameAdapter.getSharedInstance(), c, "G"));
+		
+		assertRows("R", "X", "A", "B", "Y", "G", "D", "E");
+		assertEquals(1, events.size());
+		assertEvent(0, TableModelEvent.UPDATE, 5, 5);
+	}
+	
+	
+	@Test
+	public void test_changeHappened_newColumn() {
+		int columnCount = model.getColumnCount();
+		document.executeEdit(new ChangeTextualValueEdit(document, new NewHiddenNodeDataAdapter("h"), getNode(1, 0), "G"));
+		
+		assertEquals(columnCount + 2, model.getColumnCount());
+		assertEquals(1, events.size());
+		assertEquals(TableModelEvent.HEADER_ROW, events.get(0).getFirstRow());
+		assertEquals("G", model.getValueAt(5, columnCount));
+	}
+}